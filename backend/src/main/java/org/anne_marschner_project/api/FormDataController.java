@@ -1,9 +1,22 @@
 package org.anne_marschner_project.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.anne_marschner_project.core.Generator;
+import org.anne_marschner_project.core.admission.AdmissionController;
+import org.anne_marschner_project.core.admission.AdmissionRejectedException;
+import org.anne_marschner_project.core.columnarTool.ColumnarTool;
+import org.anne_marschner_project.core.csvTool.CompressedInput;
+import org.anne_marschner_project.core.csvTool.RelationSizeEstimator;
+import org.anne_marschner_project.core.data.GeneratedDatasets;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.registry.DatasetRegistry;
+import org.anne_marschner_project.core.scratch.JobDirectory;
+import org.anne_marschner_project.core.zipTool.ParallelZipWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -13,12 +26,15 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api")
@@ -27,22 +43,38 @@ public class FormDataController {
     private static final Logger logger = LoggerFactory.getLogger(FormDataController.class);
     private static final String OUTPUT_PATH_BASE = "results";
     private static final String TEMP_PATH = "temp";
-    private static final int BUFFER_SIZE = 1024;
+    private static final int STREAM_BUFFER_SIZE = 1 << 16; // Number of bytes buffered before they are sent to the client
 
-    // List of accepted CSV MIME types.
-    private static final List<String> ACCEPTED_CSV_MIME_TYPES = Arrays.asList("text/csv", "application/vnd.ms-excel", "application/csv", "text/plain");
+    // List of accepted CSV MIME types (also compressed and columnar files, which are recognized by their content).
+    private static final List<String> ACCEPTED_CSV_MIME_TYPES = Arrays.asList("text/csv", "application/vnd.ms-excel", "application/csv", "text/plain",
+            "application/gzip", "application/x-gzip", "application/zip", "application/x-zip-compressed",
+            "application/vnd.apache.parquet", "application/vnd.apache.arrow.file", "application/vnd.apache.arrow.stream", "application/octet-stream");
 
     private final Generator generator;
+    private final AdmissionController admissionController;
+    private final DatasetRegistry datasetRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sydag.off-heap-threshold:268435456}")
+    private long offHeapThreshold = 268435456L; // File size in bytes from which input columns are stored off-heap
+
+    @Value("${sydag.stream-output:true}")
+    private boolean streamOutput = true; // Whether datasets are written directly into the response instead of files
 
     @Autowired
-    public FormDataController(Generator generator) {
+    public FormDataController(Generator generator, AdmissionController admissionController, DatasetRegistry datasetRegistry, ObjectMapper objectMapper) {
         this.generator = generator;
+        this.admissionController = admissionController;
+        this.datasetRegistry = datasetRegistry;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Endpoint to handle the form submission for running SYDAG.
      * This method validates the input, runs the generator, and streams
-     * a ZIP archive of the generated files from the results directory.
+     * a ZIP archive of the generated datasets.
+     * The generator only runs once the projected memory footprint of the job was admitted,
+     * jobs that do not fit into the heap budget are answered with 503 (Service Unavailable).
      */
     @PostMapping(value = "/runSYDAG", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
     public ResponseEntity<StreamingResponseBody> handleFormSubmit(@RequestPart("parameters") FormDataWrapper formDataWrapper, BindingResult bindingResult, @RequestPart(value = "csvFile", required = false) MultipartFile csvFile) throws IOException {
@@ -62,47 +94,325 @@ public class FormDataController {
         params.setCsvFile(csvFile);
         params.setFormDataWrapper(formDataWrapper);
 
-        // Clean directories before execution
-        cleanupDirectories(TEMP_PATH, OUTPUT_PATH_BASE);
+        // The scratch files of the job are kept in its own directory, which is deleted when the job ends
+        try (JobDirectory jobDirectory = JobDirectory.create(Path.of(TEMP_PATH))) {
+            params.setScratchDirectory(jobDirectory.getPath());
+            String outputName = createOutputName(csvFile.getOriginalFilename());
+
+            // Columnar files are stored as file, since they are read with random access
+            long estimatedBytes;
+            try (InputStream inputStream = new BufferedInputStream(csvFile.getInputStream())) {
+                if (ColumnarTool.detectFormat(inputStream) != null) {
+                    params.setCsvPath(storeColumnarUpload(inputStream, jobDirectory));
+                }
+            }
+            if (params.getCsvPath() != null) {
+                estimatedBytes = estimateRelationSize(params.getCsvPath(), formDataWrapper);
+            } else {
+                estimatedBytes = estimateRelationSize(csvFile, formDataWrapper);
+            }
+
+            // Reserve heap memory for the job while the generator runs (waits for running jobs or rejects the job)
+            long projectedBytes = admissionController.projectFootprint(estimatedBytes);
+            try {
+                return runGenerator(params, outputName, projectedBytes, jobDirectory, null, "job");
+            } catch (AdmissionRejectedException e) {
+                logger.warn("Job was not admitted: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "60").body(null);
+            }
+
+        } catch (Exception e) {
+            logger.error("Error processing request", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * Endpoint to run SYDAG on an upload that is parsed while it arrives.
+     * The request body is read part by part instead of being stored by the multipart resolver first:
+     * the "parameters" part has to come before the "csvFile" part, whose records are parsed directly
+     * from the body while it arrives, so the following stages start as soon as the last byte was received.
+     * Since the admission control needs the size of the upload, the request has to state its length.
+     */
+    @PostMapping(value = "/runSYDAG/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> handleStreamingFormSubmit(HttpServletRequest request) throws IOException {
+
+        // Check the request, the length is an upper bound of the size of the CSV file
+        String boundary = MultipartStreamReader.extractBoundary(request.getContentType());
+        if (boundary == null) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).body(null);
+        }
+
+        // Read the parameters, which have to be sent before the CSV file
+        MultipartStreamReader multipartReader = new MultipartStreamReader(request.getInputStream(), boundary);
+        FormDataWrapper formDataWrapper = null;
+        MultipartStreamReader.Part csvPart = null;
+        MultipartStreamReader.Part part;
+        while (csvPart == null && (part = multipartReader.nextPart()) != null) {
+            if ("parameters".equals(part.getName())) {
+                formDataWrapper = objectMapper.readValue(part.getContent(), FormDataWrapper.class);
+            } else if ("csvFile".equals(part.getName())) {
+                csvPart = part;
+            }
+        }
+        if (formDataWrapper == null || csvPart == null || !ACCEPTED_CSV_MIME_TYPES.contains(csvPart.getContentType())) {
+            logger.warn("Streamed request needs the parameters followed by a CSV file");
+            return ResponseEntity.badRequest().body(null);
+        }
+
+        // The scratch files of the job are kept in its own directory, which is deleted when the job ends
+        try (JobDirectory jobDirectory = JobDirectory.create(Path.of(TEMP_PATH))) {
+            String outputName = createOutputName(csvPart.getFilename());
+
+            GeneratorParameters params = new GeneratorParameters();
+            params.setFormDataWrapper(formDataWrapper);
+            params.setScratchDirectory(jobDirectory.getPath());
+            long estimatedBytes;
+            BufferedInputStream csvContent = new BufferedInputStream(csvPart.getContent());
+            if (ColumnarTool.detectFormat(csvContent) != null) {
+
+                // Columnar files are stored as file, since they are read with random access
+                params.setCsvPath(storeColumnarUpload(csvContent, jobDirectory));
+                estimatedBytes = estimateRelationSize(params.getCsvPath(), formDataWrapper);
+            } else {
+
+                // Estimate the size of the relation from the beginning of the file, which is read again afterwards
+                CompressedInput csvInput = CompressedInput.open(csvContent);
+                RelationSizeEstimator estimate = RelationSizeEstimator.estimate(csvInput, contentLength, formDataWrapper.getHasHeaders(),
+                        formDataWrapper.getSeparator().charAt(0), formDataWrapper.getQuote().charAt(0), formDataWrapper.getEscape().charAt(0));
+                estimatedBytes = estimate.getEstimatedHeapBytes(offHeapThreshold);
+
+                // Compressed uploads are decompressed while they are parsed
+                params.setCsvStream(csvInput.getContent());
+                params.setCsvSize(csvInput.projectContentSize(contentLength));
+            }
+
+            // Reserve heap memory for the job while the generator reads the rest of the upload and runs
+            long projectedBytes = admissionController.projectFootprint(estimatedBytes);
+            ResponseEntity<StreamingResponseBody> response;
+            try {
+                response = runGenerator(params, outputName, projectedBytes, jobDirectory, null, "streamed job");
+            } catch (AdmissionRejectedException e) {
+                logger.warn("Job was not admitted: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "60").body(null);
+            }
+
+            // Read the rest of the body, so that the connection can be reused (the response already owns the job directory)
+            try {
+                while (multipartReader.nextPart() != null) {
+                    // Parts after the CSV file are not needed
+                }
+            } catch (IOException e) {
+                logger.warn("Rest of the streamed request cannot be read: {}", e.getMessage());
+            }
+
+            return response;
+
+        } catch (Exception e) {
+            logger.error("Error processing request", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * Endpoint to run SYDAG on a CSV file that is already stored on the server.
+     * The file is given by its path relative to the configured local input directory, so no upload is needed
+     * and the file is read in place. Files outside of the directory are answered with 403 (Forbidden).
+     */
+    @PostMapping(value = "/runSYDAG/local", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> handleLocalFileSubmit(@RequestBody FormDataWrapper formDataWrapper) {
 
+        // Resolve the file inside the local input directory
+        if (formDataWrapper.getLocalFile() == null || formDataWrapper.getLocalFile().isBlank()) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        Path csvPath;
         try {
-            String generatorOutputPath = createGeneratorOutputPath(csvFile);
-            generator.execute(params, generatorOutputPath);
-
-            // Build the streaming response by reading from the results directory
-            StreamingResponseBody stream = outputStream -> {
-                try (ZipOutputStream zos = new ZipOutputStream(outputStream)) {
-                    File directory = new File(OUTPUT_PATH_BASE);
-                    File[] files = directory.listFiles();
-                    if (files != null) {
-                        for (File file : files) {
-                            if (!file.isDirectory() && !"application.yml".equals(file.getName())) {
-                                zos.putNextEntry(new ZipEntry(file.getName()));
-                                try (FileInputStream fis = new FileInputStream(file)) {
-                                    byte[] buffer = new byte[BUFFER_SIZE];
-                                    int length;
-                                    while ((length = fis.read(buffer)) != -1) {
-                                        zos.write(buffer, 0, length);
-                                    }
-                                }
-                                zos.closeEntry();
-                            }
-                        }
-                    }
-                    zos.finish();
-                } catch (IOException e) {
-                    logger.error("Error streaming zip file", e);
-                    throw e;
-                } finally {
-                    // Clean up temporary directories after streaming is complete
-                    cleanupDirectories(TEMP_PATH, OUTPUT_PATH_BASE);
+            csvPath = generator.resolveLocalInput(formDataWrapper.getLocalFile());
+        } catch (AccessDeniedException e) {
+            logger.warn("Local input file was rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        } catch (IOException e) {
+            logger.warn("Local input file cannot be read: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(null);
+        }
+
+        GeneratorParameters params = new GeneratorParameters();
+        params.setCsvPath(csvPath);
+        params.setFormDataWrapper(formDataWrapper);
+
+        // The scratch files of the job are kept in its own directory, which is deleted when the job ends
+        try (JobDirectory jobDirectory = JobDirectory.create(Path.of(TEMP_PATH))) {
+            params.setScratchDirectory(jobDirectory.getPath());
+            String outputName = createOutputName(csvPath.getFileName().toString());
+
+            // Reserve heap memory for the job while the generator runs (waits for running jobs or rejects the job)
+            long projectedBytes = admissionController.projectFootprint(estimateRelationSize(csvPath, formDataWrapper));
+            try {
+                return runGenerator(params, outputName, projectedBytes, jobDirectory, null, "job on local file " + csvPath);
+            } catch (AdmissionRejectedException e) {
+                logger.warn("Job was not admitted: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "60").body(null);
+            }
+
+        } catch (Exception e) {
+            logger.error("Error processing request", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * Endpoint to register a dataset once, so that SYDAG can run on it many times without uploading it again.
+     * The uploaded file is read and searched for keys right away, and the response contains the ID of the dataset,
+     * which is used with /api/runSYDAG/dataset/{datasetId}. Only the CSV options of the parameters are used.
+     * Datasets that do not fit into the registry are answered with 413 (Payload Too Large).
+     */
+    @PostMapping(value = "/datasets", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> handleDatasetRegistration(@RequestPart("parameters") FormDataWrapper formDataWrapper, BindingResult bindingResult, @RequestPart(value = "csvFile", required = false) MultipartFile csvFile) {
+
+        // Check for binding errors and validate CSV file
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        if (validateCsvFile(csvFile) != null) {
+            return createSingleErrorResponse("A CSV file of an accepted type is required");
+        }
+
+        GeneratorParameters params = new GeneratorParameters();
+        params.setCsvFile(csvFile);
+        params.setFormDataWrapper(formDataWrapper);
+
+        // The directory holds the off-heap columns of the relation as long as it is registered
+        try (JobDirectory jobDirectory = JobDirectory.create(Path.of(TEMP_PATH))) {
+            params.setScratchDirectory(jobDirectory.getPath());
+
+            // Columnar files are stored as file, since they are read with random access
+            try (InputStream inputStream = new BufferedInputStream(csvFile.getInputStream())) {
+                if (ColumnarTool.detectFormat(inputStream) != null) {
+                    params.setCsvPath(storeColumnarUpload(inputStream, jobDirectory));
+                }
+            }
+            long estimatedBytes = params.getCsvPath() != null
+                    ? estimateRelationSize(params.getCsvPath(), formDataWrapper)
+                    : estimateRelationSize(csvFile, formDataWrapper);
+
+            // Only the relation itself is held while the file is read, no datasets are derived from it yet
+            AdmissionController.Reservation reservation;
+            try {
+                reservation = admissionController.reserve(estimatedBytes);
+            } catch (AdmissionRejectedException e) {
+                logger.warn("Registration was not admitted: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "60").body(null);
+            }
+            logger.info("Admitted registration with a projected footprint of {} bytes", reservation.getBytes());
+            Relation relation;
+            try {
+                relation = generator.readKeyedInput(params);
+
+                // The stored upload is not needed once it was read (otherwise it is deleted with the job directory)
+                if (params.getCsvPath() != null) {
+                    Files.deleteIfExists(params.getCsvPath());
                 }
-            };
+            } catch (IOException | RuntimeException | Error e) {
+                reservation.close();
+                throw e;
+            }
+            if (relation == null) {
+                reservation.close();
+                return createSingleErrorResponse("The file cannot be read");
+            }
+
+            // The relation stays on the heap while it is registered, so the registry keeps its reservation until it is removed
+            reservation.resize(relation.estimateMemoryUsage());
+            DatasetRegistry.RegisteredDataset dataset = datasetRegistry.register(csvFile.getOriginalFilename(), relation,
+                    formDataWrapper.getHasHeaders(), formDataWrapper.getSeparator().charAt(0),
+                    formDataWrapper.getQuote().charAt(0), formDataWrapper.getEscape().charAt(0), jobDirectory.handOver(), reservation);
+            logger.info("Registered dataset {} with an estimated size of {} bytes", dataset.getId(), dataset.getEstimatedBytes());
+            return ResponseEntity.status(HttpStatus.CREATED).body(describeDataset(dataset));
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Dataset was not registered: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(null);
+        } catch (Exception e) {
+            logger.error("Error processing request", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * Endpoint to list the registered datasets, least recently used first.
+     */
+    @GetMapping(value = "/datasets", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> getDatasets() {
+        List<Map<String, Object>> descriptions = new ArrayList<>();
+        for (DatasetRegistry.RegisteredDataset dataset : datasetRegistry.list()) {
+            descriptions.add(describeDataset(dataset));
+        }
+        return descriptions;
+    }
+
+    /**
+     * Endpoint to describe one registered dataset.
+     */
+    @GetMapping(value = "/datasets/{datasetId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getDataset(@PathVariable String datasetId) {
+        DatasetRegistry.RegisteredDataset dataset = datasetRegistry.get(datasetId);
+        if (dataset == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(describeDataset(dataset));
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=datasets.zip");
+    /**
+     * Endpoint to remove a registered dataset before it is evicted.
+     */
+    @DeleteMapping("/datasets/{datasetId}")
+    public ResponseEntity<Void> deleteDataset(@PathVariable String datasetId) {
+        return datasetRegistry.remove(datasetId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Endpoint to run SYDAG on a registered dataset. The parameters are the same as for /api/runSYDAG,
+     * except for the CSV options, which are taken over from the registration. Unknown or evicted datasets
+     * are answered with 404 (Not Found).
+     */
+    @PostMapping(value = "/runSYDAG/dataset/{datasetId}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> handleDatasetSubmit(@PathVariable String datasetId, @RequestBody FormDataWrapper formDataWrapper) {
+        DatasetRegistry.Lease lease = datasetRegistry.acquire(datasetId);
+        if (lease == null) {
+            return ResponseEntity.notFound().build();
+        }
+        DatasetRegistry.RegisteredDataset dataset = lease.getDataset();
 
-            return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_OCTET_STREAM).body(stream);
+        // The relation was read with the options of the registration
+        formDataWrapper.setHasHeaders(dataset.hasHeaders());
+        formDataWrapper.setSeparator(String.valueOf(dataset.getSeparator()));
+        formDataWrapper.setQuote(String.valueOf(dataset.getQuoteChar()));
+        formDataWrapper.setEscape(String.valueOf(dataset.getEscapeChar()));
+
+        GeneratorParameters params = new GeneratorParameters();
+        params.setRelation(dataset.getRelation());
+        params.setFormDataWrapper(formDataWrapper);
+
+        // The scratch files of the job are kept in its own directory, which is deleted when the job ends, and the
+        // lease keeps the registered relation with its reservation and off-heap columns until then (even if it is removed)
+        try (lease; JobDirectory jobDirectory = JobDirectory.create(Path.of(TEMP_PATH))) {
+            params.setScratchDirectory(jobDirectory.getPath());
+            String outputName = createOutputName(dataset.getName());
+
+            // The registered relation stays reserved by the registry while it is acquired, so only the datasets derived from it are reserved
+            long relationBytes = dataset.getEstimatedBytes();
+            long projectedBytes = Math.max(0, admissionController.projectFootprint(relationBytes) - relationBytes);
+            try {
+                return runGenerator(params, outputName, projectedBytes, jobDirectory, lease, "job on dataset " + datasetId);
+            } catch (AdmissionRejectedException e) {
+                logger.warn("Job was not admitted: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "60").body(null);
+            }
 
         } catch (Exception e) {
             logger.error("Error processing request", e);
@@ -110,6 +420,157 @@ public class FormDataController {
         }
     }
 
+    /**
+     * Endpoint to report the current reservation level of the admission control.
+     */
+    @GetMapping(value = "/admission", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> getAdmissionMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("reservedBytes", admissionController.getReservedBytes());
+        metrics.put("heapBudget", admissionController.getHeapBudget());
+        metrics.put("reservationLevel", admissionController.getReservationLevel());
+        metrics.put("queuedJobs", admissionController.getQueueLength());
+        return metrics;
+    }
+
+    /**
+     * Runs the generator under a reservation of heap memory and creates the response with the ZIP archive.
+     * When the output is streamed, the generated datasets are written directly into the archive of the response,
+     * so they are held (and the reservation and the job directory are kept) until the response was sent. Otherwise,
+     * the datasets are written into a results directory of the job first and the reservation is released before the
+     * files are sent. The job directory (and the lease of a registered input dataset) is only handed over to the
+     * response once it was created.
+     */
+    private ResponseEntity<StreamingResponseBody> runGenerator(GeneratorParameters params, String outputName, long projectedBytes,
+                                                               JobDirectory jobDirectory, DatasetRegistry.Lease lease,
+                                                               String jobDescription) throws AdmissionRejectedException, IOException {
+        boolean compress = !"Stored".equals(params.getFormDataWrapper().getZipCompression());
+        AdmissionController.Reservation reservation = admissionController.reserve(projectedBytes);
+        logger.info("Admitted {} with a projected footprint of {} bytes", jobDescription, reservation.getBytes());
+        if (!streamOutput) {
+            try (reservation; JobDirectory outputDirectory = JobDirectory.create(Path.of(OUTPUT_PATH_BASE))) {
+                generator.execute(params, outputDirectory.getPath().resolve(outputName).toString());
+                return createZipResponse(outputDirectory.handOver(), compress);
+            }
+        }
+        try {
+            GeneratedDatasets result = generator.generate(params);
+            return createZipResponse(result, outputName, reservation, jobDirectory.handOver(),
+                    lease == null ? null : lease.handOver(), compress);
+        } catch (RuntimeException | Error e) {
+            reservation.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the response that writes generated datasets directly into a ZIP archive while it is sent,
+     * without writing the datasets as files. The entries are compressed concurrently, or stored without compression
+     * if the client asked for it. The reservation of the job is released and the job directory is deleted
+     * once the archive was sent (off-heap columns and shuffle files are kept until then), as is the lease of a
+     * registered input dataset.
+     */
+    private ResponseEntity<StreamingResponseBody> createZipResponse(GeneratedDatasets result, String outputName,
+                                                                    AdmissionController.Reservation reservation,
+                                                                    JobDirectory jobDirectory, DatasetRegistry.Lease lease,
+                                                                    boolean compress) {
+        StreamingResponseBody stream = outputStream -> {
+            try (reservation; jobDirectory; lease; ParallelZipWriter zipWriter = new ParallelZipWriter(new BufferedOutputStream(outputStream, STREAM_BUFFER_SIZE), compress)) {
+                generator.writeDatasets(result, zipWriter, outputName);
+            } catch (IOException e) {
+                logger.error("Error streaming zip file", e);
+                throw e;
+            }
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=datasets.zip");
+
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_OCTET_STREAM).body(stream);
+    }
+
+    /**
+     * Creates the response that streams a ZIP archive of the generated files from the results directory of the job.
+     * The files are compressed concurrently, or stored without compression if the client asked for it.
+     * The results directory of the job is deleted once the archive was sent.
+     */
+    private ResponseEntity<StreamingResponseBody> createZipResponse(JobDirectory outputDirectory, boolean compress) {
+        StreamingResponseBody stream = outputStream -> {
+            try (outputDirectory; ParallelZipWriter zipWriter = new ParallelZipWriter(new BufferedOutputStream(outputStream, STREAM_BUFFER_SIZE), compress)) {
+                List<Path> files;
+                try (Stream<Path> listing = Files.list(outputDirectory.getPath())) {
+                    files = listing.filter(Files::isRegularFile).sorted().toList();
+                }
+                for (Path file : files) {
+                    zipWriter.submit(file.getFileName().toString(), entryStream -> Files.copy(file, entryStream));
+                }
+            } catch (IOException e) {
+                logger.error("Error streaming zip file", e);
+                throw e;
+            }
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=datasets.zip");
+
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_OCTET_STREAM).body(stream);
+    }
+
+    /**
+     * Describes a registered dataset by its ID, name, size, columns and keys.
+     */
+    private Map<String, Object> describeDataset(DatasetRegistry.RegisteredDataset dataset) {
+        Relation relation = dataset.getRelation();
+        List<String> columnNames = new ArrayList<>();
+        relation.getSchema().values().forEach(attribute -> columnNames.add(attribute.getColumnName()));
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("datasetId", dataset.getId());
+        description.put("name", dataset.getName());
+        description.put("registered", dataset.getRegistered().toString());
+        description.put("numOfRows", relation.getNumOfRows());
+        description.put("numOfColumns", relation.getSchema().size());
+        description.put("columns", columnNames);
+        description.put("keyIndices", relation.getKeyIndices());
+        description.put("estimatedBytes", dataset.getEstimatedBytes());
+        return description;
+    }
+
+    /**
+     * Estimates the heap memory of the relation read from the uploaded CSV file
+     * (only the part that stays on the heap if the columns are stored off-heap).
+     */
+    private long estimateRelationSize(MultipartFile csvFile, FormDataWrapper formDataWrapper) throws IOException {
+        RelationSizeEstimator estimate = RelationSizeEstimator.estimate(csvFile, formDataWrapper.getHasHeaders(),
+                formDataWrapper.getSeparator().charAt(0), formDataWrapper.getQuote().charAt(0), formDataWrapper.getEscape().charAt(0));
+        return estimate.getEstimatedHeapBytes(offHeapThreshold);
+    }
+
+    /**
+     * Estimates the heap memory of the relation read from an input file on the server (CSV or columnar).
+     * Columnar files are always read into the heap, CSV files can be stored off-heap.
+     */
+    private long estimateRelationSize(Path inputFile, FormDataWrapper formDataWrapper) throws IOException {
+        ColumnarTool.Format columnarFormat = ColumnarTool.detectFormat(inputFile);
+        if (columnarFormat != null) {
+            return ColumnarTool.estimate(inputFile, columnarFormat).getEstimatedHeapBytes();
+        }
+        try (InputStream inputStream = Files.newInputStream(inputFile)) {
+            RelationSizeEstimator estimate = RelationSizeEstimator.estimate(CompressedInput.open(inputStream), Files.size(inputFile),
+                    formDataWrapper.getHasHeaders(), formDataWrapper.getSeparator().charAt(0), formDataWrapper.getQuote().charAt(0),
+                    formDataWrapper.getEscape().charAt(0));
+            return estimate.getEstimatedHeapBytes(offHeapThreshold);
+        }
+    }
+
+    /**
+     * Stores an uploaded columnar file in the directory of the job, which is deleted when the job ends.
+     */
+    private Path storeColumnarUpload(InputStream content, JobDirectory jobDirectory) throws IOException {
+        Path inputFile = jobDirectory.getPath().resolve("input.columnar");
+        Files.copy(content, inputFile);
+        return inputFile;
+    }
+
     /**
      * Validates the uploaded CSV file.
      */
@@ -135,38 +596,9 @@ public class FormDataController {
     }
 
     /**
-     * Creates the generator output path (folder name based on the CSV file name).
+     * Creates the name the generated files start with (based on the CSV file name).
      */
-    private String createGeneratorOutputPath(MultipartFile csvFile) {
-        String fileName = (csvFile.getOriginalFilename() != null) ? csvFile.getOriginalFilename().replace(".csv", "") : "defaultName";
-        return OUTPUT_PATH_BASE + "/" + fileName;
-    }
-
-    /**
-     * Deletes all non-directory files within the specified directory.
-     */
-    private void cleanupDirectory(String directoryPath) {
-        File directory = new File(directoryPath);
-        if (directory.exists() && directory.isDirectory()) {
-            File[] files = directory.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (!file.isDirectory() && !"application.yml".equals(file.getName())) {
-                        if (!file.delete()) {
-                            logger.warn("Failed to delete file: {}", file.getAbsolutePath());
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Method to clean up multiple directories.
-     */
-    private void cleanupDirectories(String... directories) {
-        for (String dir : directories) {
-            cleanupDirectory(dir);
-        }
+    private String createOutputName(String originalFilename) {
+        return (originalFilename != null) ? originalFilename.replaceAll("\\.(gz|zip|parquet|arrow|arrows|feather)$", "").replace(".csv", "") : "defaultName";
     }
-}
\ No newline at end of file
+}
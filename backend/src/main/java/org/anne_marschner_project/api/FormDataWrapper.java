@@ -15,6 +15,17 @@ public class FormDataWrapper {
     @NotNull(message = "CSV file cannot be null")
     private MultipartFile csvFile;
 
+    // Path of a CSV file on the server, relative to the local input directory (only used by /api/runSYDAG/local)
+    private String localFile;
+
+    // Compression of the entries of the result archive ("Stored" saves CPU time for downloads through a fast network)
+    @Pattern(regexp = "Deflated|Stored", message = "ZIP compression must be either 'Deflated' or 'Stored'")
+    private String zipCompression;
+
+    // Format of the generated relations (CSV if not given); Parquet and Arrow keep numeric columns as numbers
+    @Pattern(regexp = "CSV|GzipCSV|Parquet|Arrow", message = "Output format must be 'CSV', 'GzipCSV', 'Parquet' or 'Arrow'")
+    private String outputFormat;
+
     @NotNull(message = "hasHeaders cannot be null")
     private Boolean hasHeaders;
 
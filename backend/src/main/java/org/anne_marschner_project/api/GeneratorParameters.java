@@ -1,8 +1,12 @@
 package org.anne_marschner_project.api;
 
 import lombok.Data;
+import org.anne_marschner_project.core.data.Relation;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.file.Path;
+
 /**
  * Encapsulates parameters for the Generator execution.
  */
@@ -11,5 +15,10 @@ public class GeneratorParameters {
 
     private MultipartFile csvFile;
     private FormDataWrapper formDataWrapper;
+    private InputStream csvStream; // Holds the CSV content of a streamed upload (used instead of csvFile if set)
+    private long csvSize; // Holds the size of the streamed CSV content in bytes (an upper bound is sufficient)
+    private Path csvPath; // Holds the CSV file on the server (used instead of csvFile and csvStream if set)
+    private Relation relation; // Holds the input relation of a registered dataset with its key indices (used instead of all files if set)
+    private Path scratchDirectory; // Holds the directory of the job for stored uploads, off-heap columns and shuffle files (the default one is used if not set)
 
 }
@@ -0,0 +1,376 @@
+package org.anne_marschner_project.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the parts of a multipart/form-data request body one after another while the body arrives.
+ * The content of a part is returned as a stream that ends at the next boundary, so a part can be processed
+ * before the rest of the body was received and without storing the part in memory or on disk.
+ * Parts have to be read in the order of the body, moving on to the next part skips the rest of the current one.
+ */
+class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 1 << 16; // Number of bytes read from the request body at once
+    private static final int MAX_HEADER_BYTES = 1 << 14; // Maximal size of the headers of one part
+    private static final Pattern BOUNDARY_PATTERN = Pattern.compile("boundary=(\"([^\"]*)\"|[^;\\s]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PARAMETER_PATTERN = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+
+    private final InputStream inputStream;
+    private final byte[] delimiter; // Holds the line break and dashes followed by the boundary
+    private final byte[] buffer = new byte[BUFFER_SIZE]; // Holds the bytes read from the body
+    private int position; // Holds the position of the next byte in the buffer
+    private int limit; // Holds the number of bytes in the buffer
+    private boolean endOfInput = false; // Whether the body was read completely
+    private boolean finished = false; // Whether the closing boundary was read
+    private PartInputStream currentPart; // Holds the stream of the part that is read at the moment
+
+
+    /**
+     * Constructs a MultipartStreamReader.
+     *
+     * @param inputStream the request body.
+     * @param boundary    the boundary from the content type of the request.
+     */
+    MultipartStreamReader(InputStream inputStream, String boundary) {
+        this.inputStream = inputStream;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+
+        // The first boundary is not preceded by a line break, so one is put in front of the body
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+
+    /**
+     * Extracts the boundary from the content type of a multipart request.
+     *
+     * @param contentType the content type of the request.
+     * @return the boundary, or null if the content type has none.
+     */
+    static String extractBoundary(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        Matcher matcher = BOUNDARY_PATTERN.matcher(contentType);
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.group(2) != null ? matcher.group(2) : matcher.group(1);
+    }
+
+
+    /**
+     * Moves on to the next part. The rest of the current part is skipped.
+     *
+     * @return the next part, or null if there are no more parts.
+     * @throws IOException if the body cannot be read or is not a valid multipart body.
+     */
+    Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        // Skip the rest of the current part (or the preamble) up to the next boundary
+        if (currentPart == null) {
+            currentPart = new PartInputStream();
+        }
+        currentPart.skipToEnd();
+
+        // Two dashes after the boundary close the body, otherwise the headers of the next part follow
+        ensureAvailable(2);
+        if (limit - position >= 2 && buffer[position] == '-' && buffer[position + 1] == '-') {
+            finished = true;
+            currentPart = null;
+            return null;
+        }
+        readHeaderLine(); // Rest of the boundary line
+
+        String name = null;
+        String filename = null;
+        String contentType = null;
+        int headerBytes = 0;
+        String line;
+        while (!(line = readHeaderLine()).isEmpty()) {
+            headerBytes += line.length();
+            if (headerBytes > MAX_HEADER_BYTES) {
+                throw new IOException("The headers of a multipart part are too long.");
+            }
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String headerName = line.substring(0, colon).trim();
+            String headerValue = line.substring(colon + 1).trim();
+            if (headerName.equalsIgnoreCase("Content-Disposition")) {
+                Matcher matcher = PARAMETER_PATTERN.matcher(headerValue);
+                while (matcher.find()) {
+                    if (matcher.group(1).equalsIgnoreCase("name")) {
+                        name = matcher.group(2);
+                    } else if (matcher.group(1).equalsIgnoreCase("filename")) {
+                        filename = matcher.group(2);
+                    }
+                }
+            } else if (headerName.equalsIgnoreCase("Content-Type")) {
+                contentType = headerValue;
+            }
+        }
+        currentPart = new PartInputStream();
+        return new Part(name, filename, contentType, currentPart);
+    }
+
+
+    /**
+     * Reads one header line of a part.
+     *
+     * @return the line without the line break.
+     * @throws IOException if the body ends before the line break or the line is too long.
+     */
+    private String readHeaderLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            ensureAvailable(2);
+            if (limit - position < 2) {
+                throw new IOException("Unexpected end of the multipart body.");
+            }
+            if (buffer[position] == '\r' && buffer[position + 1] == '\n') {
+                position += 2;
+                return line.toString(StandardCharsets.UTF_8);
+            }
+            if (line.size() > MAX_HEADER_BYTES) {
+                throw new IOException("The headers of a multipart part are too long.");
+            }
+            line.write(buffer[position++]);
+        }
+    }
+
+
+    /**
+     * Reads more bytes of the body until the buffer holds at least the given number of bytes
+     * after the current position, or the body was read completely.
+     *
+     * @param count the number of bytes needed.
+     * @throws IOException if the body cannot be read.
+     */
+    private void ensureAvailable(int count) throws IOException {
+        if (limit - position >= count || endOfInput) {
+            return;
+        }
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        while (limit < count) {
+            int read = inputStream.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                endOfInput = true;
+                return;
+            }
+            limit += read;
+        }
+    }
+
+
+    /**
+     * Finds the next delimiter in the buffer.
+     *
+     * @return the position of the delimiter, or -1 if the buffer contains no complete delimiter.
+     */
+    private int findDelimiter() {
+        int last = limit - delimiter.length;
+        byte first = delimiter[0];
+        for (int i = position; i <= last; i++) {
+            if (buffer[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < delimiter.length && buffer[i + j] == delimiter[j]) {
+                j++;
+            }
+            if (j == delimiter.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * The headers and the content of one part.
+     */
+    static class Part {
+
+        private final String name; // Holds the name of the form field
+        private final String filename; // Holds the name of the uploaded file (null if the part is no file)
+        private final String contentType; // Holds the content type of the part (null if it was not given)
+        private final InputStream content; // Holds the stream of the content, which ends at the next boundary
+
+
+        /**
+         * Constructs a Part.
+         *
+         * @param name        the name of the form field.
+         * @param filename    the name of the uploaded file, or null.
+         * @param contentType the content type of the part, or null.
+         * @param content     the stream of the content.
+         */
+        Part(String name, String filename, String contentType, InputStream content) {
+            this.name = name;
+            this.filename = filename;
+            this.contentType = contentType;
+            this.content = content;
+        }
+
+
+
+        /**
+         * Returns the name of the form field.
+         *
+         * @return the name, or null if the part has none.
+         */
+        String getName() {
+            return name;
+        }
+
+
+        /**
+         * Returns the name of the uploaded file.
+         *
+         * @return the file name, or null if the part is no file.
+         */
+        String getFilename() {
+            return filename;
+        }
+
+
+        /**
+         * Returns the content type of the part.
+         *
+         * @return the content type, or null if it was not given.
+         */
+        String getContentType() {
+            return contentType;
+        }
+
+
+        /**
+         * Returns the content of the part, which can only be read until the next part is requested.
+         *
+         * @return the stream of the content.
+         */
+        InputStream getContent() {
+            return content;
+        }
+    }
+
+
+    /**
+     * Reads the content of the current part up to the next boundary. Closing the stream skips the rest of the part.
+     */
+    private class PartInputStream extends InputStream {
+
+        private int contentEnd = 0; // Holds the position in the buffer up to which the bytes are known to be content
+        private boolean ended = false; // Whether the boundary after the part was reached
+
+
+        /**
+         * Reads one byte.
+         *
+         * @return the byte, or -1 at the end of the part.
+         * @throws IOException if the body cannot be read.
+         */
+        @Override
+        public int read() throws IOException {
+            if (contentAvailable() < 0) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+
+        /**
+         * Reads bytes of the part into an array.
+         *
+         * @param bytes  the array to fill.
+         * @param offset the position in the array of the first byte.
+         * @param length the maximal number of bytes to read.
+         * @return the number of bytes read, or -1 at the end of the part.
+         * @throws IOException if the body cannot be read or ends inside the part.
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int available = contentAvailable();
+            if (available < 0) {
+                return -1;
+            }
+            int count = Math.min(length, available);
+            System.arraycopy(buffer, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+
+        /**
+         * Skips the rest of the part.
+         *
+         * @throws IOException if the body cannot be read or ends inside the part.
+         */
+        void skipToEnd() throws IOException {
+            int available;
+            while ((available = contentAvailable()) >= 0) {
+                position += available;
+            }
+        }
+
+
+        /**
+         * Skips the rest of the part, so that the next part can be read.
+         *
+         * @throws IOException if the body cannot be read or ends inside the part.
+         */
+        @Override
+        public void close() throws IOException {
+            if (currentPart == this) {
+                skipToEnd();
+            }
+        }
+
+
+        /**
+         * Returns the number of bytes in the buffer that certainly belong to the part. The buffer is only searched
+         * for the delimiter when all of these bytes were read, so each byte is searched once.
+         *
+         * @return the number of bytes, or -1 at the end of the part.
+         * @throws IOException if the body cannot be read or ends inside the part.
+         */
+        private int contentAvailable() throws IOException {
+            if (ended || currentPart != this) {
+                return -1;
+            }
+            if (position < contentEnd) {
+                return contentEnd - position;
+            }
+            ensureAvailable(delimiter.length);
+            int delimiterPosition = findDelimiter();
+            if (delimiterPosition == position) {
+                position += delimiter.length;
+                ended = true;
+                return -1;
+            }
+
+            // Without a delimiter in the buffer, the last bytes could be the beginning of one
+            contentEnd = delimiterPosition >= 0 ? delimiterPosition : limit - delimiter.length + 1;
+            if (contentEnd <= position) {
+                throw new IOException("Unexpected end of the multipart body.");
+            }
+            return contentEnd - position;
+        }
+    }
+}
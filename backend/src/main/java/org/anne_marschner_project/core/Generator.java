@@ -1,21 +1,38 @@
 package org.anne_marschner_project.core;
 
 import de.metanome.algorithm_integration.AlgorithmExecutionException;
+import org.anne_marschner_project.core.cache.IngestCache;
+import org.anne_marschner_project.core.columnarTool.ColumnarTool;
 import org.anne_marschner_project.core.csvTool.CSVTool;
 import org.anne_marschner_project.core.data.Dataset;
+import org.anne_marschner_project.core.data.GeneratedDatasets;
+import org.anne_marschner_project.core.data.MetadataFormat;
+import org.anne_marschner_project.core.data.OutputFormat;
 import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.RelationCodec;
 import org.anne_marschner_project.core.keys.KeyFinder;
 import org.anne_marschner_project.core.noise.DataNoise;
+import org.anne_marschner_project.core.noise.RowNoise;
 import org.anne_marschner_project.core.noise.SchemaNoise;
 import org.anne_marschner_project.core.split.Split;
 import org.anne_marschner_project.core.structure.Merge;
 import org.anne_marschner_project.core.structure.Normalization;
+import org.anne_marschner_project.core.zipTool.ParallelZipWriter;
 import org.anne_marschner_project.api.FormDataWrapper;
 import org.anne_marschner_project.api.GeneratorParameters;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
@@ -28,7 +45,38 @@ import java.util.stream.Collectors;
 @Service
 public class Generator {
 
+    private static final String[] IDENTIFIERS = {"A", "B", "C", "D"}; // Identifiers of the generated datasets
     private static final int THREAD_POOL_SIZE = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final String SCRATCH_PATH = "temp";
+
+    @Value("${sydag.off-heap-threshold:268435456}")
+    private long offHeapThreshold = 268435456L; // File size in bytes from which input columns are stored off-heap
+
+    @Value("${sydag.parallel-ingest-threshold:67108864}")
+    private long parallelIngestThreshold = 67108864L; // File size in bytes from which input files are parsed in parallel
+
+    @Value("${sydag.csv-tokenizer:true}")
+    private boolean useCsvTokenizer = true; // Whether input files are read with the in-house tokenizer instead of commons-csv
+
+    @Value("${sydag.external-shuffle-rows:4194304}")
+    private int externalShuffleRows = 4194304; // Number of rows from which "Shuffle Rows" shuffles out of core in bucket files
+
+    @Value("${sydag.pipelined-generation:true}")
+    private boolean pipelinedGeneration = true; // Whether row noise is applied batch by batch while the relations are written
+
+    @Value("${sydag.metadata-format:JSON}")
+    private String metadataFormat = "JSON"; // Format of the key and mapping files ("JSON", "JSONL" or "Text")
+
+    @Value("${sydag.local-input-directory:}")
+    private String localInputDirectory = ""; // Directory of the server-side input files (empty if they are not allowed)
+
+    @Value("${sydag.ingest-cache.directory:cache}")
+    private String ingestCacheDirectory = "cache"; // Directory of the cached input relations
+
+    @Value("${sydag.ingest-cache.max-bytes:1073741824}")
+    private long ingestCacheMaxBytes = 1073741824L; // Maximal size of the cached input relations in bytes (0 disables the cache)
+
+    private IngestCache ingestCache; // Holds the cache of input relations (created on first use)
 
     /**
      * Executes the entire dataset generation process using the parameters provided.
@@ -37,15 +85,28 @@ public class Generator {
      * @param outputPath the path for the output datasets and metadata.
      */
     public void execute(GeneratorParameters params, String outputPath) {
+        writeDatasets(generate(params), outputPath);
+    }
+
+
+    /**
+     * Generates the datasets using the parameters provided: reads the input relation, splits it and processes
+     * each dataset, without writing anything. The result is written with one of the writeDatasets methods.
+     *
+     * @param params The parameters encapsulated in a GeneratorParameters object.
+     * @return The processed datasets together with the input relation and the options to write them.
+     * @throws CancellationException If the thread was interrupted while the datasets were processed.
+     * @throws RuntimeException If the processing of a dataset failed (the cause of the failure is rethrown).
+     */
+    public GeneratedDatasets generate(GeneratorParameters params) {
 
         // Extract parameters from GeneratorParameters
-        MultipartFile csvFile = params.getCsvFile();
         FormDataWrapper formDataWrapper = params.getFormDataWrapper();
         // Extract fields from FormDataWrapper
         boolean hasHeaders = formDataWrapper.getHasHeaders();
         char separator = formDataWrapper.getSeparator().charAt(0);
         char quoteChar = formDataWrapper.getQuote().charAt(0);
-        char escapeChar = formDataWrapper.getEscape().charAt(0);
+        OutputFormat outputFormat = OutputFormat.fromName(formDataWrapper.getOutputFormat());
         String splitType = formDataWrapper.getSplitType();
         Integer columnOverlapPercentage = formDataWrapper.getColumnOverlapPercentage();
         Integer rowOverlapPercentage = formDataWrapper.getRowOverlapPercentage();
@@ -133,51 +194,85 @@ public class Generator {
         boolean[] dataNoise = {datasetADataNoise, datasetBDataNoise, datasetCDataNoise, datasetDDataNoise};
         Integer[] mergePercentages = {mergePercentageA, mergePercentageB, mergePercentageC, mergePercentageD};
         String[] shuffleTypes = {datasetAShuffleOption, datasetBShuffleOption, datasetCShuffleOption, datasetDShuffleOption};
-        String[] identifier = {"A", "B", "C", "D"};
 
         // -------------------- Begin processing -----------------------
 
-        // Read information from file into relation
-        Relation inputRelation = readInput(csvFile, hasHeaders, separator, quoteChar, escapeChar);
-
-        // Set key indices of the input relation
-        setKeyIndices(inputRelation);
+        // Read information from file into relation and set its key indices (a file that was submitted before
+        // is taken from the ingest cache, a registered relation is used as it is)
+        Relation inputRelation = params.getRelation() != null ? params.getRelation() : readKeyedInput(params);
 
         // Split relation
         List<Relation> splitDataset = splitRelation(inputRelation, columnOverlapPercentage, rowOverlapPercentage, columnDistribution, rowDistribution, splitType, overlapType);
 
-        // Apply normalization to BCNF on each created dataset
-        List<Dataset> datasets = new ArrayList<>();
+        // Process each created dataset in its own task: normalization to BCNF, schema noise, data noise and merge
+        // (relations are immutable and stages return new relations, so the datasets can share columns safely).
+        // In pipelined generation the row noise of datasets that are not merged is only planned here and applied
+        // batch by batch while the relations are written, so the perturbed relations are never built as a whole.
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+        List<Future<Dataset>> processingFutures = new ArrayList<>();
+        Map<Relation, RowNoise> rowNoises = Collections.synchronizedMap(new IdentityHashMap<>());
         for (int i = 0; i < splitDataset.size(); i++) {
-            datasets.add(applyNormalization(splitDataset.get(i), structureTypes[i], separator, quoteChar, normalizePercentages[i]));
+            final int index = i;
+            processingFutures.add(executor.submit(() -> {
+                Dataset dataset = applyNormalization(splitDataset.get(index), structureTypes[index], separator, quoteChar, normalizePercentages[index]);
+                dataset = addSchemaNoise(dataset, hasHeaders, selectedSchemaMethods.get(index), schemaNoisePercentages[index],
+                        schemaNoiseInKeys[index], schemaNoise[index], deleteSchema[index]);
+                boolean deferRowNoise = pipelinedGeneration && !"Merge Columns".equals(structureTypes[index]);
+                dataset = addDataNoise(dataset, selectedStringMethods.get(index), selectedNumericMethods.get(index),
+                        dataNoisePercentages[index], noiseInsidePercentage[index], dataNoiseInKeys[index], dataNoise[index],
+                        deferRowNoise ? rowNoises : null);
+                return applyMerge(dataset, structureTypes[index], mergePercentages[index], separator);
+            }));
         }
 
-        // Add Schema Noise to the created datasets
-        for (int i = 0; i < datasets.size(); i++) {
-            datasets.set(i, addSchemaNoise(datasets.get(i), hasHeaders, selectedSchemaMethods.get(i), schemaNoisePercentages[i],
-                    schemaNoiseInKeys[i], schemaNoise[i], deleteSchema[i]));
+        // Wait for all datasets (if one fails, the other tasks are cancelled and the failure reaches the caller)
+        List<Dataset> datasets = new ArrayList<>();
+        try {
+            for (Future<Dataset> future : processingFutures) {
+                datasets.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CancellationException cancellation = new CancellationException("Dataset processing was interrupted");
+            cancellation.initCause(e);
+            throw cancellation;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Error during dataset processing: " + cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
         }
 
-        // Add Data Noise to the created datasets
-        for (int i = 0; i < datasets.size(); i++) {
-            datasets.set(i, addDataNoise(datasets.get(i), selectedStringMethods.get(i), selectedNumericMethods.get(i),
-                    dataNoisePercentages[i], noiseInsidePercentage[i], dataNoiseInKeys[i], dataNoise[i]));
-        }
+        return new GeneratedDatasets(inputRelation, datasets, shuffleTypes, separator, quoteChar, outputFormat, rowNoises,
+                params.getScratchDirectory());
+    }
 
-        // Apply Merge on each created dataset
-        for (int i = 0; i < datasets.size(); i++) {
-            datasets.set(i, applyMerge(datasets.get(i), structureTypes[i], mergePercentages[i], separator));
-        }
 
-        // Write created datasets and their keys (use fixed thread pool to write concurrently)
-        CSVTool csvTool = new CSVTool();
+    /**
+     * Writes generated datasets, their keys and the mapping into files. The datasets are written concurrently.
+     *
+     * @param result     The generated datasets.
+     * @param outputPath The path for the output datasets and metadata.
+     */
+    public void writeDatasets(GeneratedDatasets result, String outputPath) {
+        List<Dataset> datasets = result.getDatasets();
+
+        // Write created datasets and their keys (use a thread pool to write concurrently)
         ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+        CSVTool csvTool = new CSVTool(resolveScratchDirectory(result.getScratchDirectory()), offHeapThreshold, parallelIngestThreshold,
+                useCsvTokenizer, externalShuffleRows);
         List<Future<?>> futures = new ArrayList<>();
 
         for (int i = 0; i < datasets.size(); i++) {
             final int index = i;
-            Future<?> future = executor.submit(() -> writeDataset(csvTool, datasets.get(index), outputPath + "_" + identifier[index],
-                    separator, quoteChar, shuffleTypes[index], index, identifier[index]));
+            Future<?> future = executor.submit(() -> writeDataset(csvTool, result, datasets.get(index), outputPath + "_" + IDENTIFIERS[index],
+                    result.getShuffleType(index), index, IDENTIFIERS[index]));
             futures.add(future);
         }
 
@@ -192,12 +287,62 @@ public class Generator {
         executor.shutdown();
 
         // Write mapping file
-        csvTool.writeMapping(inputRelation, datasets, identifier, outputPath + "_Mapping.txt");
+        MetadataFormat format = MetadataFormat.fromName(metadataFormat);
+        csvTool.writeMapping(result.getInputRelation(), datasets, IDENTIFIERS, outputPath + "_Mapping" + format.getExtension(), format);
 
         datasets.clear();
     }
 
 
+    /**
+     * Writes generated datasets, their keys and the mapping directly into entries of a ZIP archive, so no file
+     * is written. The entries are named like the files of {@link #writeDatasets(GeneratedDatasets, String)}.
+     * The relations are written and compressed concurrently by the archive, the keys and the mapping are written
+     * once the column orders of all relations are known.
+     *
+     * @param result     The generated datasets.
+     * @param zipWriter  The archive to write to, which is not finished.
+     * @param outputName The name the entries start with (e.g. the name of the input file).
+     * @throws IOException If the archive cannot be written.
+     */
+    public void writeDatasets(GeneratedDatasets result, ParallelZipWriter zipWriter, String outputName) throws IOException {
+        List<Dataset> datasets = result.getDatasets();
+        CSVTool csvTool = new CSVTool(resolveScratchDirectory(result.getScratchDirectory()), offHeapThreshold, parallelIngestThreshold,
+                useCsvTokenizer, externalShuffleRows);
+
+        // Submit each relation as its own entry and keep the order its columns are written in
+        List<List<List<Integer>>> columnOrders = new ArrayList<>();
+        for (int index = 0; index < datasets.size(); index++) {
+            List<Relation> relations = datasets.get(index).getRelations();
+            List<List<Integer>> columnOrder = new ArrayList<>(Collections.nCopies(relations.size(), null));
+            columnOrders.add(columnOrder);
+            String shuffleType = result.getShuffleType(index);
+            for (int i = 0; i < relations.size(); i++) {
+                final int relationIndex = i;
+                zipWriter.submit(outputName + "_" + IDENTIFIERS[index] + (i + 1) + result.getOutputFormat().getExtension(), outputStream -> columnOrder.set(relationIndex,
+                        csvTool.writeRelation(relations.get(relationIndex), outputStream, result.getSeparator(), result.getQuoteChar(), shuffleType,
+                                result.getOutputFormat(), result.getRowNoise(relations.get(relationIndex)))));
+            }
+        }
+        zipWriter.awaitEntries();
+
+        // Write keys of each dataset
+        MetadataFormat format = MetadataFormat.fromName(metadataFormat);
+        for (int index = 0; index < datasets.size(); index++) {
+            Dataset dataset = datasets.get(index);
+            List<List<Integer>> columnOrder = columnOrders.get(index);
+            String identifier = IDENTIFIERS[index];
+            zipWriter.submit(outputName + "_" + identifier + "_keys" + format.getExtension(),
+                    outputStream -> csvTool.writeKeyFile(dataset, columnOrder, identifier, outputStream, format));
+            csvTool.getColumnOrders().put(index, columnOrder);
+        }
+
+        // Write mapping
+        zipWriter.submit(outputName + "_Mapping" + format.getExtension(),
+                outputStream -> csvTool.writeMapping(result.getInputRelation(), datasets, IDENTIFIERS, outputStream, format));
+    }
+
+
     /**
      * Extracts the methods for alphanumeric entries from the provided list.
      *
@@ -241,6 +386,7 @@ public class Generator {
     /**
      * Reads the input data from a CSV file and creates a Relation object.
      *
+     * @param scratchDirectory The directory of the job for the files of off-heap columns (the default one if null).
      * @param csvFile    The CSV file to read.
      * @param hasHeaders Indicates if the CSV file has headers.
      * @param separator  The separator used in the CSV file.
@@ -248,9 +394,9 @@ public class Generator {
      * @param escapeChar  The escape Character used in the CSV file.
      * @return A Relation object representing the CSV data, or null if an error occurs.
      */
-    public Relation readInput(MultipartFile csvFile, boolean hasHeaders, char separator, char quoteChar, char escapeChar) {
+    public Relation readInput(Path scratchDirectory, MultipartFile csvFile, boolean hasHeaders, char separator, char quoteChar, char escapeChar) {
         try {
-            CSVTool csvTool = new CSVTool();
+            CSVTool csvTool = new CSVTool(resolveScratchDirectory(scratchDirectory), offHeapThreshold, parallelIngestThreshold, useCsvTokenizer);
             return csvTool.readCSVColumns(csvFile, hasHeaders, separator, quoteChar, escapeChar);
         } catch (IOException e) {
             System.err.println("Error reading CSV file: " + e.getMessage());
@@ -259,18 +405,206 @@ public class Generator {
     }
 
 
+    /**
+     * Returns the directory for the scratch files of a job.
+     *
+     * @param scratchDirectory The directory of the job, or null if the job has none.
+     * @return The directory of the job, or the default scratch directory.
+     */
+    private static Path resolveScratchDirectory(Path scratchDirectory) {
+        return scratchDirectory != null ? scratchDirectory : Paths.get(SCRATCH_PATH);
+    }
+
+
+    /**
+     * Resolves the name of an input file on the server. Only files inside the configured local input directory
+     * can be read, paths that lead out of the directory (e.g. with ".." or symbolic links) are rejected.
+     *
+     * @param fileName The path of the file relative to the local input directory.
+     * @return The real path of the file.
+     * @throws AccessDeniedException If no local input directory is configured or the file is outside of it.
+     * @throws IOException If the file does not exist or is no regular file.
+     */
+    public Path resolveLocalInput(String fileName) throws IOException {
+        if (localInputDirectory == null || localInputDirectory.isBlank()) {
+            throw new AccessDeniedException(fileName, null, "Reading input files on the server is not enabled");
+        }
+        return resolveLocalInput(Paths.get(localInputDirectory), fileName);
+    }
+
+
+    /**
+     * Resolves the name of an input file inside an allowed directory.
+     *
+     * @param allowedDirectory The directory that contains the input files.
+     * @param fileName The path of the file relative to the directory.
+     * @return The real path of the file.
+     * @throws AccessDeniedException If the file is outside of the directory.
+     * @throws IOException If the file does not exist or is no regular file.
+     */
+    public static Path resolveLocalInput(Path allowedDirectory, String fileName) throws IOException {
+        Path directory = allowedDirectory.toRealPath();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory)) {
+            throw new AccessDeniedException(fileName, null, "The file is outside of the local input directory");
+        }
+
+        // Resolve symbolic links and check again
+        file = file.toRealPath();
+        if (!file.startsWith(directory)) {
+            throw new AccessDeniedException(fileName, null, "The file is outside of the local input directory");
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchFileException(fileName, null, "The path is no regular file");
+        }
+        return file;
+    }
+
+
+    /**
+     * Reads the input data from a CSV file on the server and creates a Relation object.
+     * Arrow IPC and Parquet files are recognized by their content and read with their native column types.
+     *
+     * @param scratchDirectory The directory of the job for the files of off-heap columns (the default one if null).
+     * @param csvPath    The CSV file to read (resolved with {@link #resolveLocalInput(String)}).
+     * @param hasHeaders Indicates if the CSV file has headers.
+     * @param separator  The separator used in the CSV file.
+     * @param quoteChar  The quote Character used in the CSV file.
+     * @param escapeChar  The escape Character used in the CSV file.
+     * @return A Relation object representing the CSV data, or null if an error occurs.
+     */
+    public Relation readInput(Path scratchDirectory, Path csvPath, boolean hasHeaders, char separator, char quoteChar, char escapeChar) {
+        try {
+            ColumnarTool.Format columnarFormat = ColumnarTool.detectFormat(csvPath);
+            if (columnarFormat != null) {
+                return new ColumnarTool().readColumns(csvPath, columnarFormat);
+            }
+            CSVTool csvTool = new CSVTool(resolveScratchDirectory(scratchDirectory), offHeapThreshold, parallelIngestThreshold, useCsvTokenizer);
+            return csvTool.readCSVColumns(csvPath, hasHeaders, separator, quoteChar, escapeChar);
+        } catch (IOException e) {
+            System.err.println("Error reading CSV file: " + e.getMessage());
+            return null;
+        }
+    }
+
+
+    /**
+     * Reads the input data from a stream of CSV content and creates a Relation object.
+     *
+     * @param scratchDirectory The directory of the job for the files of off-heap columns (the default one if null).
+     * @param csvStream  The CSV content to read.
+     * @param csvSize    The size of the CSV content in bytes.
+     * @param hasHeaders Indicates if the CSV file has headers.
+     * @param separator  The separator used in the CSV file.
+     * @param quoteChar  The quote Character used in the CSV file.
+     * @param escapeChar  The escape Character used in the CSV file.
+     * @return A Relation object representing the CSV data, or null if an error occurs.
+     */
+    public Relation readInput(Path scratchDirectory, InputStream csvStream, long csvSize, boolean hasHeaders, char separator, char quoteChar, char escapeChar) {
+        try {
+            CSVTool csvTool = new CSVTool(resolveScratchDirectory(scratchDirectory), offHeapThreshold, parallelIngestThreshold, useCsvTokenizer);
+            return csvTool.readCSVColumns(csvStream, csvSize, hasHeaders, separator, quoteChar, escapeChar);
+        } catch (IOException e) {
+            System.err.println("Error reading CSV file: " + e.getMessage());
+            return null;
+        }
+    }
+
+
+    /**
+     * Reads the input relation of a job and sets its key indices. The content of the upload is hashed together with
+     * the parse options, so that a relation that was read before is taken from the ingest cache instead.
+     * Uploads that are stored as file are hashed before they are parsed and are not parsed at all on a cache hit.
+     * A streamed upload is hashed while it is parsed, so on a cache hit only the key search is skipped.
+     *
+     * @param params The parameters of the job, which contain the upload and the parse options.
+     * @return A Relation object with key indices representing the CSV data, or null if an error occurs.
+     */
+    public Relation readKeyedInput(GeneratorParameters params) {
+        FormDataWrapper formDataWrapper = params.getFormDataWrapper();
+        boolean hasHeaders = formDataWrapper.getHasHeaders();
+        char separator = formDataWrapper.getSeparator().charAt(0);
+        char quoteChar = formDataWrapper.getQuote().charAt(0);
+        char escapeChar = formDataWrapper.getEscape().charAt(0);
+        IngestCache cache = getIngestCache();
+        String key = null;
+        Relation relation = null;
+
+        // A streamed upload is parsed while it arrives, a file on the server is read without copying it
+        boolean streamed = params.getCsvStream() != null && params.getCsvPath() == null;
+        if (streamed) {
+            DigestInputStream csvStream = new DigestInputStream(params.getCsvStream(), IngestCache.newDigest());
+            relation = readInput(params.getScratchDirectory(), csvStream, params.getCsvSize(), hasHeaders, separator, quoteChar, escapeChar);
+            if (cache != null && relation != null) {
+                try {
+                    csvStream.transferTo(OutputStream.nullOutputStream());
+                    key = IngestCache.createKey(csvStream.getMessageDigest(), hasHeaders, separator, quoteChar, escapeChar);
+                } catch (IOException e) {
+                    System.err.println("Error hashing CSV file: " + e.getMessage());
+                }
+            }
+        } else {
+            if (cache != null) {
+                try (InputStream content = params.getCsvPath() != null ? Files.newInputStream(params.getCsvPath())
+                        : params.getCsvFile().getInputStream()) {
+                    key = IngestCache.createKey(content, hasHeaders, separator, quoteChar, escapeChar);
+                } catch (IOException e) {
+                    System.err.println("Error hashing CSV file: " + e.getMessage());
+                }
+            }
+        }
+
+        // The cached relation already has its key indices
+        Relation cachedRelation = key != null ? cache.get(key) : null;
+        if (cachedRelation != null) {
+            return cachedRelation;
+        }
+        if (!streamed) {
+            relation = params.getCsvPath() != null
+                    ? readInput(params.getScratchDirectory(), params.getCsvPath(), hasHeaders, separator, quoteChar, escapeChar)
+                    : readInput(params.getScratchDirectory(), params.getCsvFile(), hasHeaders, separator, quoteChar, escapeChar);
+        }
+
+        // Set key indices of the input relation and keep it for the next submission of the same file
+        relation = setKeyIndices(relation);
+        if (key != null && relation != null && RelationCodec.supports(relation)) {
+            try {
+                cache.put(key, relation);
+            } catch (IOException e) {
+                System.err.println("Error caching input relation: " + e.getMessage());
+            }
+        }
+        return relation;
+    }
+
+
+    /**
+     * Returns the cache of input relations, which is created on first use.
+     *
+     * @return The IngestCache, or null if the cache is disabled.
+     */
+    private synchronized IngestCache getIngestCache() {
+        if (ingestCache == null && ingestCacheMaxBytes > 0) {
+            ingestCache = new IngestCache(Paths.get(ingestCacheDirectory), ingestCacheMaxBytes);
+        }
+        return ingestCache;
+    }
+
+
     /**
      * Sets the primary key indices of a given Relation.
      *
      * @param relation The Relation for which key indices are determined.
+     * @return A new Relation with the key indices, or the given Relation if the keys cannot be determined.
      */
-    private void setKeyIndices(Relation relation) {
+    private Relation setKeyIndices(Relation relation) {
         try {
             KeyFinder keyFinder = new KeyFinder();
             List<Integer> keyIndices = keyFinder.findKeyIndices(relation, "input");
-            relation.setKeyIndices(keyIndices);
+            return relation.toBuilder().keyIndices(keyIndices).build();
         } catch (AlgorithmExecutionException e) {
             System.err.println("Error finding keys: " + e.getMessage());
+            return relation;
         }
     }
 
@@ -367,7 +701,8 @@ public class Generator {
 
 
     /**
-     * Adds data noise to a dataset.
+     * Adds data noise to a dataset. If a map for row noise is given, the row noise is only planned and put into
+     * the map, so that it can be applied while the relations are written, while column noise is applied directly.
      *
      * @param dataset              The dataset to which data noise is added.
      * @param selectedStringMethods The list of alphanumeric error methods for data noise.
@@ -375,19 +710,42 @@ public class Generator {
      * @param dataNoisePercentage   The percentage of data noise to apply.
      * @param dataNoiseInKeys       If true, applies data noise to key columns.
      * @param dataNoise             If true, enables data noise addition.
+     * @param rowNoises             The map for the planned row noise of the relations, or null to apply it directly.
      * @return A Dataset with data noise or the original Dataset.
      */
     private Dataset addDataNoise(Dataset dataset, List<String> selectedStringMethods, List<String> selectedNumericMethods,
-                                 Integer dataNoisePercentage, Integer noiseInsidePercentage, boolean dataNoiseInKeys, boolean dataNoise) {
+                                 Integer dataNoisePercentage, Integer noiseInsidePercentage, boolean dataNoiseInKeys, boolean dataNoise,
+                                 Map<Relation, RowNoise> rowNoises) {
         if (!dataNoise) {
             return dataset;
         }
 
         try {
             Dataset noisyDataset = new Dataset();
+            Map<Relation, RowNoise> plannedRowNoises = new HashMap<>();
             for (Relation relation : dataset.getRelations()) {
                 DataNoise dataNoiseObject = new DataNoise(selectedStringMethods, selectedNumericMethods);
-                noisyDataset.getRelations().add(dataNoiseObject.perturbData(relation, dataNoisePercentage, noiseInsidePercentage,dataNoiseInKeys));
+                if (rowNoises == null || dataNoisePercentage == 0) {
+                    noisyDataset.getRelations().add(dataNoiseObject.perturbData(relation, dataNoisePercentage, noiseInsidePercentage, dataNoiseInKeys));
+                    continue;
+                }
+
+                // Apply column noise like perturbData does, but only plan the row noise
+                Relation perturbedRelation = relation;
+                if (relation.getOverlappingColumnsIndices() != null) {
+                    perturbedRelation = dataNoiseObject.perturbColumnData(relation, dataNoisePercentage, noiseInsidePercentage, dataNoiseInKeys);
+                }
+                if (relation.getOverlappingColumnsIndices() == null || relation.getNumOfOverlappingRows() != null) {
+                    RowNoise rowNoise = dataNoiseObject.planRowNoise(perturbedRelation, dataNoisePercentage, noiseInsidePercentage,
+                            dataNoiseInKeys, relation.getOverlappingColumnsIndices() != null);
+                    if (rowNoise != null) {
+                        plannedRowNoises.put(perturbedRelation, rowNoise);
+                    }
+                }
+                noisyDataset.getRelations().add(perturbedRelation);
+            }
+            if (rowNoises != null) {
+                rowNoises.putAll(plannedRowNoises);
             }
             return noisyDataset;
         } catch (Exception e) {
@@ -417,32 +775,35 @@ public class Generator {
 
 
     /**
-     * Writes a Dataset to one or more CSV files and applies specified shuffling.
+     * Writes a Dataset to one or more files (CSV or the requested output format) and applies specified shuffling.
+     * Row noise that was planned for a relation is applied while the relation is written.
      *
+     * @param result         The generated datasets, which hold the options to write them and the planned row noise.
      * @param dataset        The dataset to write to CSV.
      * @param filepathOutput The base path for the output files.
-     * @param separator      The separator used in the CSV files.
-     * @param quoteChar      The quote character used in the CSV files.
      * @param shuffleType    The type of shuffling to apply ("Shuffle Rows", "Shuffle Columns" or "No Change").
      * @param identifier     The Letter that identifies the created Dataset.
      */
-    private void writeDataset(CSVTool csvTool, Dataset dataset, String filepathOutput, char separator, char quoteChar, String shuffleType, int datasetNumber, String identifier) {
+    private void writeDataset(CSVTool csvTool, GeneratedDatasets result, Dataset dataset, String filepathOutput, String shuffleType,
+                              int datasetNumber, String identifier) {
         try {
             // List to save the order of the column indices
             List<List<Integer>> columnOrder = new ArrayList<>();
 
             // Write Dataset in CSV file
             for (int i = 1; i <= dataset.getRelations().size(); i++) {
-                String outputFilepath = filepathOutput + i + ".csv";
-                columnOrder.add(csvTool.writeCSV(dataset.getRelations().get(i - 1), outputFilepath, separator, quoteChar, shuffleType));
+                Relation relation = dataset.getRelations().get(i - 1);
+                String outputFilepath = filepathOutput + i + result.getOutputFormat().getExtension();
+                columnOrder.add(csvTool.writeRelation(relation, outputFilepath, result.getSeparator(), result.getQuoteChar(), shuffleType,
+                        result.getOutputFormat(), result.getRowNoise(relation)));
             }
 
-            // Write keys of dataset in txt file
-            csvTool.writeKeyFile(dataset, columnOrder, identifier, filepathOutput + "_keys.txt");
+            // Write keys of dataset in a file of the metadata format
+            MetadataFormat format = MetadataFormat.fromName(metadataFormat);
+            csvTool.writeKeyFile(dataset, columnOrder, identifier, filepathOutput + "_keys" + format.getExtension(), format);
             csvTool.getColumnOrders().put(datasetNumber, columnOrder);
         } catch (IOException e) {
             System.err.println("Error writing dataset to CSV file: " + e.getMessage());
         }
     }
 }
-
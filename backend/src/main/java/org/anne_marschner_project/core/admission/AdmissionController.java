@@ -0,0 +1,202 @@
+package org.anne_marschner_project.core.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether a generation job may start, based on the heap memory it is projected to need.
+ * Every running job holds a reservation of its projected footprint, and the reservations never exceed the heap budget.
+ * Jobs that do not fit into the free part of the budget wait in a first-in-first-out queue,
+ * jobs that would not even fit into the whole budget are rejected right away.
+ * Registered datasets hold a reservation of their relation for as long as they stay in the registry,
+ * so the relations that are kept between jobs are part of the budget as well.
+ */
+@Service
+public class AdmissionController {
+
+    private final long heapBudget; // Holds the number of bytes that can be reserved by all running jobs together
+    private final double pipelineFactor; // Holds the ratio of the job footprint to the size of the input relation
+    private final long maxWaitNanos; // Holds the time a job waits in the queue before it is rejected
+    private final Deque<Object> queue = new ArrayDeque<>(); // Holds a ticket for every waiting job, in order of arrival
+    private long reservedBytes = 0; // Holds the number of bytes reserved by the running jobs
+
+
+    /**
+     * Constructs an AdmissionController.
+     *
+     * @param heapBudget      the number of bytes that can be reserved, or 0 to use three quarters of the maximal heap.
+     * @param pipelineFactor  the ratio of the job footprint to the size of the input relation
+     *                        (the input and the datasets derived from it are held at the same time).
+     * @param maxWaitSeconds  the number of seconds a job waits for free budget before it is rejected.
+     */
+    public AdmissionController(@Value("${sydag.admission.heap-budget:0}") long heapBudget,
+                               @Value("${sydag.admission.pipeline-factor:3.0}") double pipelineFactor,
+                               @Value("${sydag.admission.max-wait-seconds:120}") long maxWaitSeconds) {
+        this.heapBudget = heapBudget > 0 ? heapBudget : Runtime.getRuntime().maxMemory() / 4 * 3;
+        this.pipelineFactor = pipelineFactor;
+        this.maxWaitNanos = TimeUnit.SECONDS.toNanos(maxWaitSeconds);
+    }
+
+
+    /**
+     * Projects the heap memory a job needs from the size of its input relation.
+     *
+     * @param relationBytes the estimated heap memory of the input relation.
+     * @return the projected footprint of the job in bytes.
+     */
+    public long projectFootprint(long relationBytes) {
+        return (long) (relationBytes * pipelineFactor);
+    }
+
+
+    /**
+     * Reserves heap memory for a job. If the free budget is too small, the job waits until earlier jobs release
+     * their reservations and all jobs that arrived before it were admitted.
+     *
+     * @param bytes the projected footprint of the job.
+     * @return the reservation, which has to be closed once the job is finished.
+     * @throws AdmissionRejectedException if the footprint exceeds the budget, the wait times out or is interrupted.
+     */
+    public synchronized Reservation reserve(long bytes) throws AdmissionRejectedException {
+        if (bytes > heapBudget) {
+            throw new AdmissionRejectedException("The job needs about " + bytes + " bytes, but the heap budget is "
+                    + heapBudget + " bytes.");
+        }
+
+        // Wait until the job is first in the queue and fits into the free budget
+        Object ticket = new Object();
+        queue.addLast(ticket);
+        long deadline = System.nanoTime() + maxWaitNanos;
+        try {
+            while (queue.peekFirst() != ticket || reservedBytes + bytes > heapBudget) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    throw new AdmissionRejectedException("The heap budget did not become free in time.");
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Interrupted while waiting for the heap budget.");
+        } finally {
+            // Let the next job in the queue check the budget
+            queue.remove(ticket);
+            notifyAll();
+        }
+
+        reservedBytes += bytes;
+        return new Reservation(bytes);
+    }
+
+
+    /**
+     * Releases reserved bytes and wakes the waiting jobs.
+     *
+     * @param bytes the number of released bytes (negative if further bytes are reserved).
+     */
+    private synchronized void release(long bytes) {
+        reservedBytes -= bytes;
+        notifyAll();
+    }
+
+
+    /**
+     * Returns the number of bytes reserved by the running jobs.
+     *
+     * @return the reserved bytes.
+     */
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+
+    /**
+     * Returns the number of bytes that can be reserved by all running jobs together.
+     *
+     * @return the heap budget in bytes.
+     */
+    public long getHeapBudget() {
+        return heapBudget;
+    }
+
+
+    /**
+     * Returns the share of the heap budget that is currently reserved.
+     *
+     * @return the reservation level between 0.0 and 1.0.
+     */
+    public synchronized double getReservationLevel() {
+        return (double) reservedBytes / heapBudget;
+    }
+
+
+    /**
+     * Returns the number of jobs that wait for free budget.
+     *
+     * @return the length of the queue.
+     */
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+
+    /**
+     * Holds the heap memory reserved for one job or registered dataset. Closing the reservation releases the memory.
+     */
+    public class Reservation implements AutoCloseable {
+
+        private long bytes; // Holds the number of reserved bytes
+        private boolean released = false; // Whether the reservation was already released
+
+
+        /**
+         * Constructs a Reservation.
+         *
+         * @param bytes the number of reserved bytes.
+         */
+        private Reservation(long bytes) {
+            this.bytes = bytes;
+        }
+
+
+        /**
+         * Returns the number of reserved bytes.
+         *
+         * @return the reserved bytes.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+
+        /**
+         * Changes the number of reserved bytes to the memory that is actually used, e.g. by a relation that was read
+         * under a reservation of its estimated size. Since the memory is already in use, the reservation is changed
+         * without waiting, even if the budget is exceeded afterwards. Released reservations are not changed.
+         *
+         * @param newBytes the number of bytes to hold.
+         */
+        public synchronized void resize(long newBytes) {
+            if (!released) {
+                release(bytes - newBytes);
+                bytes = newBytes;
+            }
+        }
+
+
+        /**
+         * Releases the reservation. Further calls have no effect.
+         */
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                release(bytes);
+            }
+        }
+    }
+}
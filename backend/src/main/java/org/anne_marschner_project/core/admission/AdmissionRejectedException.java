@@ -0,0 +1,17 @@
+package org.anne_marschner_project.core.admission;
+
+/**
+ * Signals that a job was not admitted by the {@link AdmissionController}, either because its projected memory
+ * footprint exceeds the heap budget or because the budget did not become free in time.
+ */
+public class AdmissionRejectedException extends Exception {
+
+    /**
+     * Constructs an AdmissionRejectedException with a message.
+     *
+     * @param message the reason for the rejection.
+     */
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
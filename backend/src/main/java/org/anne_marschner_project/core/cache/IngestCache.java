@@ -0,0 +1,213 @@
+package org.anne_marschner_project.core.cache;
+
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.RelationCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Keeps parsed input relations on the local disk, so that a file that is submitted again does not have to be parsed
+ * and searched for keys again. A relation is stored under a key that is the SHA-256 hash of the uploaded content
+ * and the options it was parsed with, in the binary form of the {@link RelationCodec}.
+ * The total size of the cache is bounded: when it is exceeded, the relations that were used least recently
+ * (by the modification time of their files) are removed.
+ */
+public class IngestCache {
+
+    private static final String FILE_SUFFIX = ".rel"; // Suffix of the files of cached relations
+    private static final String TEMP_SUFFIX = ".tmp"; // Suffix of files that are being written
+    private static final int BUFFER_SIZE = 1 << 16; // Number of bytes hashed at once
+
+    private final Path directory; // Holds the directory of the cached relations
+    private final long maxBytes; // Holds the maximal total size of the cached relations in bytes
+
+
+    /**
+     * Constructs an IngestCache.
+     *
+     * @param directory the directory of the cached relations, which is created if it does not exist.
+     * @param maxBytes  the maximal total size of the cached relations in bytes.
+     */
+    public IngestCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+
+    /**
+     * Creates a digest for the content of an upload, which is passed to {@link #createKey(MessageDigest, boolean, char, char, char)}
+     * after the content was added.
+     *
+     * @return a new SHA-256 digest.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+
+    /**
+     * Creates the key of an upload by hashing its whole content together with the parse options.
+     *
+     * @param content    the content of the upload, which is read to the end but not closed.
+     * @param hasHeaders whether the first record holds the column names.
+     * @param separator  the separator of the values.
+     * @param quoteChar  the quote character.
+     * @param escapeChar the escape character.
+     * @return the key as hexadecimal String.
+     * @throws IOException if the content cannot be read.
+     */
+    public static String createKey(InputStream content, boolean hasHeaders, char separator, char quoteChar, char escapeChar) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = content.read(buffer)) >= 0) {
+            digest.update(buffer, 0, read);
+        }
+        return createKey(digest, hasHeaders, separator, quoteChar, escapeChar);
+    }
+
+
+    /**
+     * Creates the key of an upload whose content was already added to a digest. The parse options are added
+     * as well, since the same content parsed with other options results in another relation.
+     *
+     * @param digest     the digest of the content, which cannot be used afterwards.
+     * @param hasHeaders whether the first record holds the column names.
+     * @param separator  the separator of the values.
+     * @param quoteChar  the quote character.
+     * @param escapeChar the escape character.
+     * @return the key as hexadecimal String.
+     */
+    public static String createKey(MessageDigest digest, boolean hasHeaders, char separator, char quoteChar, char escapeChar) {
+        String options = "|" + hasHeaders + "|" + separator + "|" + quoteChar + "|" + escapeChar;
+        digest.update(options.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+
+    /**
+     * Returns the relation stored under a key and marks it as recently used.
+     * Files that cannot be read (e.g. of an older version) are removed.
+     *
+     * @param key the key of the relation.
+     * @return the relation with its statistics and key indices, or null if no relation is stored under the key.
+     */
+    public Relation get(String key) {
+        Path file = directory.resolve(key + FILE_SUFFIX);
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            Relation relation = RelationCodec.read(inputStream);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return relation;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading cached relation: " + e.getMessage());
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+
+    /**
+     * Stores a relation under a key. The file is written under a temporary name first, so that other jobs never
+     * read a partly written relation. Afterwards the least recently used relations are removed until the cache
+     * fits into its size again.
+     *
+     * @param key      the key of the relation.
+     * @param relation the relation, which has to be supported by the {@link RelationCodec}.
+     * @throws IOException if the relation cannot be written.
+     */
+    public synchronized void put(String key, Relation relation) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(key + FILE_SUFFIX);
+        Path tempFile = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                RelationCodec.write(relation, outputStream);
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            deleteQuietly(tempFile);
+        }
+        evict();
+    }
+
+
+    /**
+     * Removes the least recently used relations until the total size of the cache is at most its maximal size.
+     *
+     * @throws IOException if the directory cannot be listed.
+     */
+    private void evict() throws IOException {
+
+        // Collect the cached relations with their size and time of last use
+        List<Path> files = new ArrayList<>();
+        List<BasicFileAttributes> attributes = new ArrayList<>();
+        long totalBytes = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                try {
+                    BasicFileAttributes fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.add(file);
+                    attributes.add(fileAttributes);
+                    totalBytes += fileAttributes.size();
+                } catch (NoSuchFileException e) {
+                    // The file was removed in the meantime
+                }
+            }
+        }
+
+        // Remove the oldest relations first
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+        for (int i : order) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            deleteQuietly(files.get(i));
+            totalBytes -= attributes.get(i).size();
+        }
+    }
+
+
+    /**
+     * Deletes a file and ignores errors, since a file that cannot be deleted is only a missed clean up.
+     *
+     * @param file the file to delete.
+     */
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting cached relation: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.anne_marschner_project.core.columnarTool;
+
+import org.anne_marschner_project.core.data.ColumnBuilder;
+import org.anne_marschner_project.core.data.Type;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseIntVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.FloatingPointVector;
+import org.apache.arrow.vector.TimeStampVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads an Apache Arrow IPC file (file or stream format) record batch by record batch into column builders.
+ * Integer, floating point and decimal vectors are appended as numbers, all other vectors as their String values.
+ * Dictionary-encoded vectors are decoded first, null entries are read as empty entries (as in CSV files).
+ */
+class ArrowColumnReader {
+
+    private static final int MAX_DECIMAL_DIGITS = 18; // Decimals with more digits do not fit into a long value
+
+    private String[] headers; // Holds the names of the columns
+
+
+    /**
+     * Reads all record batches of a file.
+     *
+     * @param file         the Arrow file.
+     * @param streamFormat whether the file has the stream format instead of the file format.
+     * @return the filled builders, one per column of the schema.
+     * @throws IOException if the file cannot be read or is no valid Arrow file.
+     */
+    List<ColumnBuilder> read(Path file, boolean streamFormat) throws IOException {
+        try (BufferAllocator allocator = new RootAllocator();
+             FileChannel channel = FileChannel.open(file);
+             ArrowReader reader = open(channel, streamFormat, allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            List<Field> fields = root.getSchema().getFields();
+
+            // Create one builder per field with the type of its (decoded) values
+            headers = new String[fields.size()];
+            List<ColumnBuilder> columns = new ArrayList<>();
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
+                headers[i] = field.getName();
+                ArrowType valueType = field.getDictionary() != null
+                        ? reader.getDictionaryVectors().get(field.getDictionary().getId()).getVectorType()
+                        : field.getType();
+                columns.add(new ColumnBuilder(typeOf(valueType), 0));
+            }
+
+            // Append the vectors of each record batch
+            while (reader.loadNextBatch()) {
+                for (int i = 0; i < fields.size(); i++) {
+                    FieldVector vector = root.getVector(i);
+                    if (fields.get(i).getDictionary() == null) {
+                        appendVector(vector, columns.get(i));
+                        continue;
+                    }
+                    Dictionary dictionary = reader.getDictionaryVectors().get(fields.get(i).getDictionary().getId());
+                    try (ValueVector decoded = DictionaryEncoder.decode(vector, dictionary)) {
+                        appendVector(decoded, columns.get(i));
+                    }
+                }
+            }
+            return columns;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("The file is no valid Arrow file: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Reads the number of columns from the schema of a file.
+     *
+     * @param file         the Arrow file.
+     * @param streamFormat whether the file has the stream format instead of the file format.
+     * @return the number of columns.
+     * @throws IOException if the file cannot be read or is no valid Arrow file.
+     */
+    static int readNumOfColumns(Path file, boolean streamFormat) throws IOException {
+        try (BufferAllocator allocator = new RootAllocator();
+             FileChannel channel = FileChannel.open(file);
+             ArrowReader reader = open(channel, streamFormat, allocator)) {
+            return reader.getVectorSchemaRoot().getSchema().getFields().size();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("The file is no valid Arrow file: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Returns the names of the columns of the file that was read.
+     *
+     * @return the names of the columns.
+     */
+    String[] getHeaders() {
+        return headers;
+    }
+
+
+    /**
+     * Opens a reader for the file or stream format.
+     *
+     * @param channel      the channel of the file.
+     * @param streamFormat whether the file has the stream format.
+     * @param allocator    the allocator for the vectors.
+     * @return the reader.
+     */
+    private static ArrowReader open(FileChannel channel, boolean streamFormat, BufferAllocator allocator) {
+        return streamFormat ? new ArrowStreamReader(Channels.newInputStream(channel), allocator) : new ArrowFileReader(channel, allocator);
+    }
+
+
+    /**
+     * Determines the type of a column from the Arrow type of its values.
+     *
+     * @param arrowType the type of the values.
+     * @return {@link Type#DOUBLE} for integers, floating point numbers and decimals, otherwise {@link Type#STRING}.
+     */
+    private static Type typeOf(ArrowType arrowType) {
+        return switch (arrowType.getTypeID()) {
+            case Int, FloatingPoint, Decimal -> Type.DOUBLE;
+            default -> Type.STRING;
+        };
+    }
+
+
+    /**
+     * Appends the entries of one vector of a record batch to a column.
+     *
+     * @param vector the vector.
+     * @param column the builder of the column.
+     */
+    private static void appendVector(ValueVector vector, ColumnBuilder column) {
+        int valueCount = vector.getValueCount();
+        if (vector instanceof BaseIntVector intVector) {
+            for (int i = 0; i < valueCount; i++) {
+                if (vector.isNull(i)) {
+                    column.append("");
+                } else {
+                    column.appendDecimal(intVector.getValueAsLong(i), 0);
+                }
+            }
+        } else if (vector instanceof FloatingPointVector floatingPointVector) {
+            for (int i = 0; i < valueCount; i++) {
+                if (vector.isNull(i)) {
+                    column.append("");
+                } else {
+                    column.appendDouble(floatingPointVector.getValueAsDouble(i));
+                }
+            }
+        } else if (vector instanceof DecimalVector decimalVector
+                && decimalVector.getPrecision() <= MAX_DECIMAL_DIGITS && decimalVector.getScale() >= 0) {
+
+            // The 128-bit values are stored little-endian, values with at most 18 digits are the lower 64 bits
+            for (int i = 0; i < valueCount; i++) {
+                if (vector.isNull(i)) {
+                    column.append("");
+                } else {
+                    long unscaled = decimalVector.getDataBuffer().getLong((long) i * DecimalVector.TYPE_WIDTH);
+                    column.appendDecimal(unscaled, decimalVector.getScale());
+                }
+            }
+        } else if (vector instanceof TimeStampVector timeStampVector
+                && ((ArrowType.Timestamp) vector.getField().getType()).getTimezone() != null) {
+
+            // Timestamps with a time zone are read as epoch values, they are written as UTC instants
+            TimeUnit unit = toTimeUnit(((ArrowType.Timestamp) vector.getField().getType()).getUnit());
+            for (int i = 0; i < valueCount; i++) {
+                if (vector.isNull(i)) {
+                    column.append("");
+                } else {
+                    long nanos = unit.toNanos(timeStampVector.get(i));
+                    column.append(Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L)).toString());
+                }
+            }
+        } else {
+            for (int i = 0; i < valueCount; i++) {
+                Object value = vector.getObject(i);
+                if (value instanceof BigDecimal decimal) {
+                    column.append(decimal.toPlainString());
+                } else {
+                    column.append(value == null ? "" : value.toString());
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Converts the unit of an Arrow timestamp.
+     *
+     * @param unit the Arrow time unit.
+     * @return the corresponding time unit.
+     */
+    private static TimeUnit toTimeUnit(org.apache.arrow.vector.types.TimeUnit unit) {
+        return switch (unit) {
+            case SECOND -> TimeUnit.SECONDS;
+            case MILLISECOND -> TimeUnit.MILLISECONDS;
+            case MICROSECOND -> TimeUnit.MICROSECONDS;
+            case NANOSECOND -> TimeUnit.NANOSECONDS;
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package org.anne_marschner_project.core.columnarTool;
+
+import org.anne_marschner_project.core.data.DictionaryColumn;
+import org.anne_marschner_project.core.data.NumberParser;
+import org.anne_marschner_project.core.data.Relation;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the columns of a relation as Apache Arrow IPC file (file or stream format) in record batches.
+ * The vectors of each batch are filled directly from the typed columns: decimals of numeric columns are written from
+ * their stored digits, and the entries of dictionary columns are encoded only once per distinct value.
+ */
+class ArrowColumnWriter {
+
+    private static final int BATCH_SIZE = 1 << 16; // Number of rows of a record batch
+
+
+    /**
+     * Writes a relation.
+     *
+     * @param relation     the relation to write.
+     * @param columnOrder  the indices of the columns in the order they are written.
+     * @param rowOrder     the indices of the rows in the order they are written, or null to keep the order.
+     * @param outputStream the stream to write to, which is closed afterwards.
+     * @param streamFormat whether the stream format is written instead of the file format.
+     * @throws IOException if the stream cannot be written.
+     */
+    void write(Relation relation, List<Integer> columnOrder, int[] rowOrder, OutputStream outputStream, boolean streamFormat) throws IOException {
+
+        // Create the schema with one nullable field per column
+        String[] names = ColumnarTool.createColumnNames(relation, columnOrder);
+        List<List<String>> columns = new ArrayList<>();
+        ColumnarTool.ValueType[] valueTypes = new ColumnarTool.ValueType[columnOrder.size()];
+        List<Field> fields = new ArrayList<>();
+        for (int i = 0; i < columnOrder.size(); i++) {
+            int columnIndex = columnOrder.get(i);
+            columns.add(relation.getData().get(columnIndex));
+            valueTypes[i] = ColumnarTool.valueTypeOf(relation.getSchema().get(columnIndex).getDataType(), columns.get(i));
+            ArrowType type = switch (valueTypes[i]) {
+                case INTEGER -> new ArrowType.Int(64, true);
+                case DOUBLE -> new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+                default -> ArrowType.Utf8.INSTANCE;
+            };
+            fields.add(new Field(names[i], FieldType.nullable(type), null));
+        }
+        byte[][][] dictionaryValues = new byte[columns.size()][][];
+        for (int i = 0; i < columns.size(); i++) {
+            if (valueTypes[i] == ColumnarTool.ValueType.STRING && columns.get(i) instanceof DictionaryColumn dictionaryColumn) {
+                dictionaryValues[i] = new byte[dictionaryColumn.getCardinality()][];
+            }
+        }
+
+        // Fill and write the vectors batch by batch
+        try (BufferAllocator allocator = new RootAllocator();
+             VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields), allocator);
+             ArrowWriter writer = streamFormat
+                     ? new ArrowStreamWriter(root, null, Channels.newChannel(outputStream))
+                     : new ArrowFileWriter(root, null, Channels.newChannel(outputStream))) {
+            writer.start();
+            int numOfRows = relation.getNumOfRows();
+            for (int start = 0; start < numOfRows; start += BATCH_SIZE) {
+                int count = Math.min(BATCH_SIZE, numOfRows - start);
+                root.allocateNew();
+                for (int i = 0; i < columns.size(); i++) {
+                    fillVector(root.getVector(i), columns.get(i), valueTypes[i], dictionaryValues[i], rowOrder, start, count);
+                }
+                root.setRowCount(count);
+                writer.writeBatch();
+            }
+            writer.end();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("The relation cannot be written as Arrow file: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Fills the vector of a column with the entries of one batch.
+     *
+     * @param vector           the vector, which was allocated for the batch.
+     * @param column           the column.
+     * @param valueType        the type the column is written with.
+     * @param dictionaryValues the encoded dictionary entries of a dictionary column (null for other columns).
+     * @param rowOrder         the indices of the rows in the order they are written, or null to keep the order.
+     * @param start            the position of the first row of the batch.
+     * @param count            the number of rows of the batch.
+     */
+    private static void fillVector(FieldVector vector, List<String> column, ColumnarTool.ValueType valueType,
+                                   byte[][] dictionaryValues, int[] rowOrder, int start, int count) {
+        for (int i = 0; i < count; i++) {
+            int row = rowOrder == null ? start + i : rowOrder[start + i];
+            if (ColumnarTool.isMissing(column, row)) {
+                vector.setNull(i);
+                continue;
+            }
+            switch (valueType) {
+                case INTEGER -> ((BigIntVector) vector).setSafe(i, ColumnarTool.integerAt(column, row));
+                case DOUBLE -> ((Float8Vector) vector).setSafe(i, NumberParser.valueAt(column, row));
+                default -> ((VarCharVector) vector).setSafe(i, stringAt(column, dictionaryValues, row));
+            }
+        }
+        vector.setValueCount(count);
+    }
+
+
+    /**
+     * Returns the UTF-8 encoded entry of a String column. Entries of dictionary columns are encoded once per code.
+     *
+     * @param column           the column.
+     * @param dictionaryValues the encoded dictionary entries of a dictionary column (null for other columns).
+     * @param row              the index of the row.
+     * @return the encoded entry.
+     */
+    private static byte[] stringAt(List<String> column, byte[][] dictionaryValues, int row) {
+        if (dictionaryValues != null) {
+            int code = ((DictionaryColumn) column).getCode(row);
+            if (dictionaryValues[code] == null) {
+                dictionaryValues[code] = column.get(row).getBytes(StandardCharsets.UTF_8);
+            }
+            return dictionaryValues[code];
+        }
+        return column.get(row).getBytes(StandardCharsets.UTF_8);
+    }
+}
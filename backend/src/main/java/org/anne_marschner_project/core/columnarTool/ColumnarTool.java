@@ -0,0 +1,290 @@
+package org.anne_marschner_project.core.columnarTool;
+
+import org.anne_marschner_project.core.csvTool.RelationSizeEstimator;
+import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.ColumnBuilder;
+import org.anne_marschner_project.core.data.NumberParser;
+import org.anne_marschner_project.core.data.NumericColumn;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.Type;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Reads columnar input files (Apache Arrow IPC and Apache Parquet) into a {@link Relation} and writes relations
+ * in these formats. Unlike CSV files, these files already contain the type of each column, so numeric columns are
+ * stored in typed columns directly, without formatting the values as Strings and parsing them again.
+ * The column names are taken from the schema of the file.
+ */
+public class ColumnarTool {
+
+    private static final byte[] PARQUET_MAGIC = {'P', 'A', 'R', '1'};
+    private static final byte[] ARROW_FILE_MAGIC = {'A', 'R', 'R', 'O', 'W', '1'};
+    private static final byte[] ARROW_STREAM_MAGIC = {-1, -1, -1, -1}; // Marker in front of each message of the Arrow stream format
+    private static final int MAGIC_BYTES = 6; // Number of bytes needed to recognize a format
+
+    /**
+     * The formats of columnar input files.
+     */
+    public enum Format { PARQUET, ARROW_FILE, ARROW_STREAM }
+
+
+    /**
+     * The types of the values of a written column.
+     */
+    enum ValueType { INTEGER, DOUBLE, STRING }
+
+
+    /**
+     * Recognizes a columnar format by the magic bytes at the beginning of the content. The stream is reset afterwards.
+     *
+     * @param inputStream the content, which has to support mark and reset.
+     * @return the format, or null if the content is not a columnar file (e.g. CSV).
+     * @throws IOException if the stream cannot be read.
+     */
+    public static Format detectFormat(InputStream inputStream) throws IOException {
+        inputStream.mark(MAGIC_BYTES);
+        byte[] magic = inputStream.readNBytes(MAGIC_BYTES);
+        inputStream.reset();
+        if (startsWith(magic, PARQUET_MAGIC)) {
+            return Format.PARQUET;
+        }
+        if (startsWith(magic, ARROW_FILE_MAGIC)) {
+            return Format.ARROW_FILE;
+        }
+        if (startsWith(magic, ARROW_STREAM_MAGIC)) {
+            return Format.ARROW_STREAM;
+        }
+        return null;
+    }
+
+
+    /**
+     * Recognizes the columnar format of a file.
+     *
+     * @param file the file.
+     * @return the format, or null if the file is not a columnar file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static Format detectFormat(Path file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file), MAGIC_BYTES)) {
+            return detectFormat(inputStream);
+        }
+    }
+
+
+    /**
+     * Reads a columnar file and converts it into a Relation object.
+     *
+     * @param file   the file to be read.
+     * @param format the format of the file, see {@link #detectFormat(Path)}.
+     * @return a Relation object containing the data and schema from the file.
+     * @throws IOException if the file cannot be read, is empty or contains nested columns.
+     */
+    public Relation readColumns(Path file, Format format) throws IOException {
+        List<ColumnBuilder> columns;
+        String[] headers;
+        if (format == Format.PARQUET) {
+            ParquetColumnReader reader = new ParquetColumnReader();
+            columns = reader.read(file);
+            headers = reader.getHeaders();
+        } else {
+            ArrowColumnReader reader = new ArrowColumnReader();
+            columns = reader.read(file, format == Format.ARROW_STREAM);
+            headers = reader.getHeaders();
+        }
+        if (columns.isEmpty()) {
+            throw new IOException("The file has no columns.");
+        }
+        return buildRelation(columns, headers);
+    }
+
+
+    /**
+     * Writes the columns of a relation in a columnar format. Numeric columns whose entries are all integers are written
+     * as 64 bit integers, other numeric columns whose entries are all numbers as doubles, and all remaining columns
+     * as UTF-8 Strings. Null and empty entries are written as null.
+     *
+     * @param relation     the relation to write.
+     * @param columnOrder  the indices of the columns in the order they are written.
+     * @param rowOrder     the indices of the rows in the order they are written, or null to keep the order.
+     * @param outputStream the stream to write to, which is closed afterwards.
+     * @param format       the format (Parquet or Arrow IPC file format).
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeColumns(Relation relation, List<Integer> columnOrder, int[] rowOrder, OutputStream outputStream, Format format) throws IOException {
+        if (format == Format.PARQUET) {
+            new ParquetColumnWriter().write(relation, columnOrder, rowOrder, outputStream);
+        } else {
+            new ArrowColumnWriter().write(relation, columnOrder, rowOrder, outputStream, format == Format.ARROW_STREAM);
+        }
+    }
+
+
+    /**
+     * Determines the type a column is written with.
+     *
+     * @param type   the type of the attribute of the column.
+     * @param column the entries of the column.
+     * @return INTEGER or DOUBLE if the attribute is numeric and every entry that is not null or empty is such a number,
+     *         otherwise STRING.
+     */
+    static ValueType valueTypeOf(Type type, List<String> column) {
+        if (type != Type.DOUBLE) {
+            return ValueType.STRING;
+        }
+        boolean integers = true;
+        for (int row = 0; row < column.size(); row++) {
+
+            // Decimals of numeric columns are checked by their scale, without creating a String
+            if (column instanceof NumericColumn numericColumn && numericColumn.getScale(row) >= 0) {
+                integers &= numericColumn.getScale(row) == 0;
+                continue;
+            }
+            String value = column.get(row);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if (!NumberParser.isNumber(value)) {
+                return ValueType.STRING;
+            }
+            integers = false;
+        }
+        return integers ? ValueType.INTEGER : ValueType.DOUBLE;
+    }
+
+
+    /**
+     * Checks whether an entry is written as null.
+     *
+     * @param column the column.
+     * @param row    the index of the row.
+     * @return true if the entry is null or empty.
+     */
+    static boolean isMissing(List<String> column, int row) {
+        if (column instanceof NumericColumn numericColumn && numericColumn.getScale(row) >= 0) {
+            return false;
+        }
+        String value = column.get(row);
+        return value == null || value.isEmpty();
+    }
+
+
+    /**
+     * Returns an entry of a column whose value type is INTEGER.
+     *
+     * @param column the column.
+     * @param row    the index of the row, whose entry is not missing.
+     * @return the integer value of the entry.
+     */
+    static long integerAt(List<String> column, int row) {
+        if (column instanceof NumericColumn numericColumn) {
+            return numericColumn.getUnscaledValue(row);
+        }
+        return Long.parseLong(column.get(row).trim());
+    }
+
+
+    /**
+     * Creates the names of the written columns. Columns without name are named by their position,
+     * and names that occur more than once get a suffix, since the columnar formats identify columns by name.
+     *
+     * @param relation    the relation.
+     * @param columnOrder the indices of the columns in the order they are written.
+     * @return the names in the order of the columns.
+     */
+    static String[] createColumnNames(Relation relation, List<Integer> columnOrder) {
+        String[] names = new String[columnOrder.size()];
+        Set<String> usedNames = new HashSet<>();
+        for (int i = 0; i < columnOrder.size(); i++) {
+            String name = relation.getSchema().get(columnOrder.get(i)).getColumnName();
+            if (name == null || name.isBlank()) {
+                name = "column" + (i + 1);
+            }
+            String uniqueName = name;
+            for (int suffix = 2; !usedNames.add(uniqueName); suffix++) {
+                uniqueName = name + "_" + suffix;
+            }
+            names[i] = uniqueName;
+        }
+        return names;
+    }
+
+
+    /**
+     * Estimates the heap memory the relation of a columnar file needs. For Parquet files the number of rows and
+     * the uncompressed size of the columns are taken from the footer. Arrow files store the entries uncompressed,
+     * so the number of rows is projected from the file size, assuming 8 bytes per entry.
+     *
+     * @param file   the file.
+     * @param format the format of the file.
+     * @return the estimate for the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static RelationSizeEstimator estimate(Path file, Format format) throws IOException {
+        if (format == Format.PARQUET) {
+            return ParquetColumnReader.estimate(file);
+        }
+        int numOfColumns = ArrowColumnReader.readNumOfColumns(file, format == Format.ARROW_STREAM);
+        long numOfRows = numOfColumns == 0 ? 0 : Files.size(file) / (8L * numOfColumns);
+        return RelationSizeEstimator.of(numOfColumns, numOfRows, 8);
+    }
+
+
+    /**
+     * Creates the relation out of the filled column builders.
+     *
+     * @param columns the builders of the columns.
+     * @param headers the names of the columns.
+     * @return the relation with typed columns and the statistics collected while reading.
+     */
+    private Relation buildRelation(List<ColumnBuilder> columns, String[] headers) {
+
+        // Convert each column into its final storage (columns are independent, so this runs in parallel)
+        int numberOfColumns = columns.size();
+        Type[] columnTypes = new Type[numberOfColumns];
+        List<List<String>> typedColumns = IntStream.range(0, numberOfColumns).parallel()
+                .mapToObj(i -> {
+                    columnTypes[i] = columns.get(i).determineType();
+                    return columns.get(i).build(columnTypes[i]);
+                })
+                .toList();
+
+        Relation.Builder relation = Relation.builder();
+        for (int i = 0; i < numberOfColumns; i++) {
+            relation.attribute(i, new Attribute(headers[i], columnTypes[i]))
+                    .column(i, typedColumns.get(i))
+                    .statistics(i, columns.get(i).getStatistics());
+        }
+        return relation.build();
+    }
+
+
+    /**
+     * Checks whether an array starts with the given bytes.
+     *
+     * @param bytes  the array to check.
+     * @param prefix the expected first bytes.
+     * @return true if the array starts with the prefix, otherwise false.
+     */
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,312 @@
+package org.anne_marschner_project.core.columnarTool;
+
+import org.anne_marschner_project.core.csvTool.RelationSizeEstimator;
+import org.anne_marschner_project.core.data.ColumnBuilder;
+import org.anne_marschner_project.core.data.Type;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.io.LocalInputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads an Apache Parquet file row group by row group into column builders. Each column chunk is read with its own
+ * column reader (without assembling records), so integers, floating point numbers and decimals are appended as numbers.
+ * Dates, times and timestamps are written in ISO-8601, other values as Strings. Null entries are read as empty
+ * entries (as in CSV files). Only flat schemas can be read, repeated (list or map) columns are rejected.
+ */
+class ParquetColumnReader {
+
+    private static final int MAX_DECIMAL_DIGITS = 18; // Decimals with more digits do not fit into a long value
+    private static final long JULIAN_DAY_OF_EPOCH = 2_440_588; // Julian day of 1970-01-01 (used by INT96 timestamps)
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private String[] headers; // Holds the names of the columns (the path of nested fields joined with dots)
+
+
+    /**
+     * Reads all row groups of a file.
+     *
+     * @param file the Parquet file.
+     * @return the filled builders, one per column of the schema.
+     * @throws IOException if the file cannot be read, is no valid Parquet file or contains repeated columns.
+     */
+    List<ColumnBuilder> read(Path file) throws IOException {
+        try (ParquetFileReader reader = open(file)) {
+            FileMetaData metaData = reader.getFooter().getFileMetaData();
+            MessageType schema = metaData.getSchema();
+            List<ColumnDescriptor> descriptors = schema.getColumns();
+
+            // Create one builder per column with the type given by the schema
+            headers = new String[descriptors.size()];
+            List<ColumnBuilder> columns = new ArrayList<>();
+            int expectedSize = (int) Math.min(reader.getRecordCount(), Integer.MAX_VALUE - 8);
+            for (int i = 0; i < descriptors.size(); i++) {
+                ColumnDescriptor descriptor = descriptors.get(i);
+                if (descriptor.getMaxRepetitionLevel() > 0) {
+                    throw new IOException("Repeated columns are not supported: " + String.join(".", descriptor.getPath()));
+                }
+                headers[i] = String.join(".", descriptor.getPath());
+                columns.add(new ColumnBuilder(typeOf(descriptor.getPrimitiveType()), expectedSize));
+            }
+
+            // Read the column chunks of each row group
+            PageReadStore rowGroup;
+            while ((rowGroup = reader.readNextRowGroup()) != null) {
+                ColumnReadStoreImpl columnReadStore = new ColumnReadStoreImpl(rowGroup,
+                        new GroupRecordConverter(schema).getRootConverter(), schema, metaData.getCreatedBy());
+                for (int i = 0; i < descriptors.size(); i++) {
+                    long numOfValues = rowGroup.getPageReader(descriptors.get(i)).getTotalValueCount();
+                    appendColumnChunk(columnReadStore.getColumnReader(descriptors.get(i)), descriptors.get(i), numOfValues, columns.get(i));
+                }
+            }
+            return columns;
+        } catch (RuntimeException e) {
+            throw new IOException("The file is no valid Parquet file: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Estimates the size of the relation of a file from its footer.
+     *
+     * @param file the Parquet file.
+     * @return the estimate with the number of rows, the column types and the average uncompressed size of an entry.
+     * @throws IOException if the file cannot be read or is no valid Parquet file.
+     */
+    static RelationSizeEstimator estimate(Path file) throws IOException {
+        try (ParquetFileReader reader = open(file)) {
+            List<ColumnDescriptor> descriptors = reader.getFooter().getFileMetaData().getSchema().getColumns();
+            int numOfColumns = descriptors.size();
+            Type[] columnTypes = new Type[numOfColumns];
+            for (int i = 0; i < numOfColumns; i++) {
+                columnTypes[i] = typeOf(descriptors.get(i).getPrimitiveType());
+            }
+            long numOfRows = reader.getRecordCount();
+            long uncompressedBytes = 0;
+            for (BlockMetaData block : reader.getFooter().getBlocks()) {
+                for (ColumnChunkMetaData columnChunk : block.getColumns()) {
+                    uncompressedBytes += columnChunk.getTotalUncompressedSize();
+                }
+            }
+            double averageEntryWidth = numOfRows * numOfColumns == 0 ? 0 : (double) uncompressedBytes / (numOfRows * numOfColumns);
+            return RelationSizeEstimator.of(numOfRows, columnTypes, averageEntryWidth);
+        } catch (RuntimeException e) {
+            throw new IOException("The file is no valid Parquet file: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Returns the names of the columns of the file that was read.
+     *
+     * @return the names of the columns.
+     */
+    String[] getHeaders() {
+        return headers;
+    }
+
+
+    /**
+     * Opens a file without a Hadoop file system.
+     *
+     * @param file the Parquet file.
+     * @return the reader of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    private static ParquetFileReader open(Path file) throws IOException {
+        ParquetReadOptions options = ParquetReadOptions.builder(new PlainParquetConfiguration()).build();
+        return ParquetFileReader.open(new LocalInputFile(file), options);
+    }
+
+
+    /**
+     * Determines the type of a column from its physical and logical type.
+     *
+     * @param primitiveType the type of the column.
+     * @return {@link Type#DOUBLE} for integers, floating point numbers and decimals, otherwise {@link Type#STRING}.
+     */
+    private static Type typeOf(PrimitiveType primitiveType) {
+        LogicalTypeAnnotation annotation = primitiveType.getLogicalTypeAnnotation();
+        return switch (primitiveType.getPrimitiveTypeName()) {
+            case FLOAT, DOUBLE -> Type.DOUBLE;
+            case INT32, INT64 -> annotation == null
+                    || annotation instanceof LogicalTypeAnnotation.IntLogicalTypeAnnotation
+                    || annotation instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation ? Type.DOUBLE : Type.STRING;
+            case BINARY, FIXED_LEN_BYTE_ARRAY -> annotation instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation
+                    ? Type.DOUBLE : Type.STRING;
+            default -> Type.STRING;
+        };
+    }
+
+
+    /**
+     * Appends all entries of a column chunk to a column.
+     *
+     * @param reader      the reader of the column chunk.
+     * @param descriptor  the descriptor of the column.
+     * @param numOfValues the number of values in the column chunk (as given by its pages).
+     * @param column      the builder of the column.
+     */
+    private static void appendColumnChunk(ColumnReader reader, ColumnDescriptor descriptor, long numOfValues, ColumnBuilder column) {
+        PrimitiveType primitiveType = descriptor.getPrimitiveType();
+        LogicalTypeAnnotation annotation = primitiveType.getLogicalTypeAnnotation();
+        int maxDefinitionLevel = descriptor.getMaxDefinitionLevel();
+        for (long i = numOfValues; i > 0; i--) {
+            if (reader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                column.append("");
+            } else {
+                switch (primitiveType.getPrimitiveTypeName()) {
+                    case INT32 -> appendInt(reader.getInteger(), annotation, column);
+                    case INT64 -> appendLong(reader.getLong(), annotation, column);
+                    case FLOAT -> column.appendFloat(reader.getFloat());
+                    case DOUBLE -> column.appendDouble(reader.getDouble());
+                    case BOOLEAN -> column.append(Boolean.toString(reader.getBoolean()));
+                    case INT96 -> column.append(int96ToTimestamp(reader.getBinary()));
+                    default -> appendBinary(reader.getBinary(), annotation, column);
+                }
+            }
+            reader.consume();
+        }
+    }
+
+
+    /**
+     * Appends an INT32 entry.
+     *
+     * @param value      the entry.
+     * @param annotation the logical type of the column (may be null).
+     * @param column     the builder of the column.
+     */
+    private static void appendInt(int value, LogicalTypeAnnotation annotation, ColumnBuilder column) {
+        if (annotation instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation decimal) {
+            appendDecimal(BigInteger.valueOf(value), decimal.getScale(), column);
+        } else if (annotation instanceof LogicalTypeAnnotation.DateLogicalTypeAnnotation) {
+            column.append(LocalDate.ofEpochDay(value).toString());
+        } else if (annotation instanceof LogicalTypeAnnotation.TimeLogicalTypeAnnotation) {
+            column.append(LocalTime.ofNanoOfDay(value * 1_000_000L).toString());
+        } else if (annotation instanceof LogicalTypeAnnotation.IntLogicalTypeAnnotation intType && !intType.isSigned()) {
+            column.appendDecimal(Integer.toUnsignedLong(value), 0);
+        } else {
+            column.appendDecimal(value, 0);
+        }
+    }
+
+
+    /**
+     * Appends an INT64 entry.
+     *
+     * @param value      the entry.
+     * @param annotation the logical type of the column (may be null).
+     * @param column     the builder of the column.
+     */
+    private static void appendLong(long value, LogicalTypeAnnotation annotation, ColumnBuilder column) {
+        if (annotation instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation decimal) {
+            appendDecimal(BigInteger.valueOf(value), decimal.getScale(), column);
+        } else if (annotation instanceof LogicalTypeAnnotation.TimestampLogicalTypeAnnotation timestamp) {
+            long nanos = toNanos(value, timestamp.getUnit());
+            long seconds = Math.floorDiv(nanos, NANOS_PER_SECOND);
+            int nanoOfSecond = (int) Math.floorMod(nanos, NANOS_PER_SECOND);
+            column.append(timestamp.isAdjustedToUTC()
+                    ? Instant.ofEpochSecond(seconds, nanoOfSecond).toString()
+                    : LocalDateTime.ofEpochSecond(seconds, nanoOfSecond, ZoneOffset.UTC).toString());
+        } else if (annotation instanceof LogicalTypeAnnotation.TimeLogicalTypeAnnotation time) {
+            column.append(LocalTime.ofNanoOfDay(toNanos(value, time.getUnit())).toString());
+        } else if (annotation instanceof LogicalTypeAnnotation.IntLogicalTypeAnnotation intType && !intType.isSigned() && value < 0) {
+            column.append(Long.toUnsignedString(value));
+        } else {
+            column.appendDecimal(value, 0);
+        }
+    }
+
+
+    /**
+     * Appends a BINARY or FIXED_LEN_BYTE_ARRAY entry.
+     *
+     * @param value      the entry.
+     * @param annotation the logical type of the column (may be null).
+     * @param column     the builder of the column.
+     */
+    private static void appendBinary(Binary value, LogicalTypeAnnotation annotation, ColumnBuilder column) {
+        if (annotation instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation decimal) {
+            appendDecimal(new BigInteger(value.getBytes()), decimal.getScale(), column);
+        } else if (annotation instanceof LogicalTypeAnnotation.UUIDLogicalTypeAnnotation) {
+            ByteBuffer bytes = value.toByteBuffer();
+            column.append(new UUID(bytes.getLong(bytes.position()), bytes.getLong(bytes.position() + 8)).toString());
+        } else {
+            column.append(value.toStringUsingUTF8());
+        }
+    }
+
+
+    /**
+     * Appends a decimal entry, decimals that do not fit into a long value are appended as String.
+     *
+     * @param unscaled the digits of the decimal.
+     * @param scale    the number of decimal places.
+     * @param column   the builder of the column.
+     */
+    private static void appendDecimal(BigInteger unscaled, int scale, ColumnBuilder column) {
+        if (unscaled.bitLength() < Long.SIZE && scale >= 0 && scale <= MAX_DECIMAL_DIGITS) {
+            column.appendDecimal(unscaled.longValue(), scale);
+        } else {
+            column.append(new BigDecimal(unscaled, scale).toPlainString());
+        }
+    }
+
+
+    /**
+     * Converts a legacy INT96 timestamp (nanoseconds of the day and Julian day, little-endian) into ISO-8601.
+     *
+     * @param value the 12 bytes of the timestamp.
+     * @return the timestamp as String.
+     */
+    private static String int96ToTimestamp(Binary value) {
+        ByteBuffer bytes = value.toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        long nanoOfDay = bytes.getLong(bytes.position());
+        long julianDay = bytes.getInt(bytes.position() + 8);
+        return LocalDateTime.of(LocalDate.ofEpochDay(julianDay - JULIAN_DAY_OF_EPOCH), LocalTime.ofNanoOfDay(nanoOfDay)).toString();
+    }
+
+
+    /**
+     * Converts a value of a time unit into nanoseconds.
+     *
+     * @param value the value.
+     * @param unit  the unit of the value.
+     * @return the value in nanoseconds.
+     */
+    private static long toNanos(long value, LogicalTypeAnnotation.TimeUnit unit) {
+        return switch (unit) {
+            case MILLIS -> value * 1_000_000L;
+            case MICROS -> value * 1_000L;
+            case NANOS -> value;
+        };
+    }
+}
@@ -0,0 +1,355 @@
+package org.anne_marschner_project.core.columnarTool;
+
+import org.anne_marschner_project.core.data.DictionaryColumn;
+import org.anne_marschner_project.core.data.NumberParser;
+import org.anne_marschner_project.core.data.Relation;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.conf.ParquetConfiguration;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Writes the columns of a relation as Apache Parquet file (Snappy-compressed). The entries are handed to the
+ * Parquet writer row by row directly from the typed columns: decimals of numeric columns are written from their
+ * stored digits, and the entries of dictionary columns are encoded only once per distinct value.
+ */
+class ParquetColumnWriter {
+
+    private static final long ROW_GROUP_SIZE = 64L << 20; // Number of bytes of a row group that is buffered before it is written
+
+
+    /**
+     * Writes a relation.
+     *
+     * @param relation     the relation to write.
+     * @param columnOrder  the indices of the columns in the order they are written.
+     * @param rowOrder     the indices of the rows in the order they are written, or null to keep the order.
+     * @param outputStream the stream to write to, which is closed afterwards.
+     * @throws IOException if the stream cannot be written.
+     */
+    void write(Relation relation, List<Integer> columnOrder, int[] rowOrder, OutputStream outputStream) throws IOException {
+
+        // Create the schema with one optional field per column
+        String[] names = ColumnarTool.createColumnNames(relation, columnOrder);
+        List<?>[] columns = new List<?>[columnOrder.size()];
+        ColumnarTool.ValueType[] valueTypes = new ColumnarTool.ValueType[columnOrder.size()];
+        Types.MessageTypeBuilder schemaBuilder = Types.buildMessage();
+        for (int i = 0; i < columnOrder.size(); i++) {
+            int columnIndex = columnOrder.get(i);
+            columns[i] = relation.getData().get(columnIndex);
+            valueTypes[i] = ColumnarTool.valueTypeOf(relation.getSchema().get(columnIndex).getDataType(), relation.getData().get(columnIndex));
+            switch (valueTypes[i]) {
+                case INTEGER -> schemaBuilder.optional(PrimitiveTypeName.INT64).named(names[i]);
+                case DOUBLE -> schemaBuilder.optional(PrimitiveTypeName.DOUBLE).named(names[i]);
+                default -> schemaBuilder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(names[i]);
+            }
+        }
+        MessageType schema = schemaBuilder.named("relation");
+
+        // Write the rows in the given order
+        RowWriteSupport writeSupport = new RowWriteSupport(schema, names, columns, valueTypes);
+        try (ParquetWriter<Integer> writer = new Builder(new StreamOutputFile(outputStream), writeSupport)
+                .withConf(new PlainParquetConfiguration())
+                .withCompressionCodec(CompressionCodecName.SNAPPY)
+                .withRowGroupSize(ROW_GROUP_SIZE)
+                .build()) {
+            int numOfRows = relation.getNumOfRows();
+            for (int i = 0; i < numOfRows; i++) {
+                writer.write(rowOrder == null ? i : rowOrder[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Hands the entries of one row (given by its index) to the record consumer of the Parquet writer.
+     */
+    private static class RowWriteSupport extends WriteSupport<Integer> {
+
+        private final MessageType schema; // Holds the schema of the file
+        private final String[] names; // Holds the names of the fields
+        private final List<?>[] columns; // Holds the columns in the order of the fields
+        private final ColumnarTool.ValueType[] valueTypes; // Holds the type each column is written with
+        private final Binary[][] dictionaryValues; // Holds the encoded dictionary entries of dictionary columns
+        private RecordConsumer recordConsumer; // Holds the consumer of the Parquet writer
+
+
+        /**
+         * Constructs a RowWriteSupport.
+         *
+         * @param schema     the schema of the file.
+         * @param names      the names of the fields.
+         * @param columns    the columns in the order of the fields.
+         * @param valueTypes the type each column is written with.
+         */
+        RowWriteSupport(MessageType schema, String[] names, List<?>[] columns, ColumnarTool.ValueType[] valueTypes) {
+            this.schema = schema;
+            this.names = names;
+            this.columns = columns;
+            this.valueTypes = valueTypes;
+            this.dictionaryValues = new Binary[columns.length][];
+            for (int i = 0; i < columns.length; i++) {
+                if (valueTypes[i] == ColumnarTool.ValueType.STRING && columns[i] instanceof DictionaryColumn dictionaryColumn) {
+                    dictionaryValues[i] = new Binary[dictionaryColumn.getCardinality()];
+                }
+            }
+        }
+
+
+        /**
+         * Returns the schema of the file.
+         *
+         * @param configuration the Hadoop configuration of the writer.
+         * @return the write context with the schema.
+         * @deprecated only implemented because it is abstract, the writer is configured with a
+         * {@link ParquetConfiguration} and calls {@link #init(ParquetConfiguration)}.
+         */
+        @Override
+        @Deprecated
+        public WriteContext init(Configuration configuration) {
+            return new WriteContext(schema, new HashMap<>());
+        }
+
+
+        /**
+         * Returns the schema of the file.
+         *
+         * @param configuration the configuration of the writer.
+         * @return the write context with the schema.
+         */
+        @Override
+        public WriteContext init(ParquetConfiguration configuration) {
+            return new WriteContext(schema, new HashMap<>());
+        }
+
+
+        /**
+         * Keeps the record consumer the rows are handed to.
+         *
+         * @param recordConsumer the consumer of the Parquet writer.
+         */
+        @Override
+        public void prepareForWrite(RecordConsumer recordConsumer) {
+            this.recordConsumer = recordConsumer;
+        }
+
+
+        /**
+         * Hands the entries of a row to the record consumer. Missing entries are left out, which makes them null.
+         *
+         * @param row the index of the row.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public void write(Integer row) {
+            recordConsumer.startMessage();
+            for (int i = 0; i < columns.length; i++) {
+                List<String> column = (List<String>) columns[i];
+                if (ColumnarTool.isMissing(column, row)) {
+                    continue;
+                }
+                recordConsumer.startField(names[i], i);
+                switch (valueTypes[i]) {
+                    case INTEGER -> recordConsumer.addLong(ColumnarTool.integerAt(column, row));
+                    case DOUBLE -> recordConsumer.addDouble(NumberParser.valueAt(column, row));
+                    default -> recordConsumer.addBinary(stringAt(i, column, row));
+                }
+                recordConsumer.endField(names[i], i);
+            }
+            recordConsumer.endMessage();
+        }
+
+
+        /**
+         * Returns the UTF-8 encoded entry of a String column. Entries of dictionary columns are encoded once per code.
+         *
+         * @param field  the index of the field.
+         * @param column the column.
+         * @param row    the index of the row.
+         * @return the encoded entry.
+         */
+        private Binary stringAt(int field, List<String> column, int row) {
+            if (dictionaryValues[field] != null) {
+                int code = ((DictionaryColumn) column).getCode(row);
+                Binary value = dictionaryValues[field][code];
+                if (value == null) {
+                    value = Binary.fromConstantByteArray(column.get(row).getBytes(StandardCharsets.UTF_8));
+                    dictionaryValues[field][code] = value;
+                }
+                return value;
+            }
+            return Binary.fromString(column.get(row));
+        }
+    }
+
+
+    /**
+     * Builds a ParquetWriter with the RowWriteSupport.
+     */
+    private static class Builder extends ParquetWriter.Builder<Integer, Builder> {
+
+        private final RowWriteSupport writeSupport; // Holds the write support of the relation
+
+
+        /**
+         * Constructs a Builder.
+         *
+         * @param file         the file to write.
+         * @param writeSupport the write support of the relation.
+         */
+        Builder(OutputFile file, RowWriteSupport writeSupport) {
+            super(file);
+            this.writeSupport = writeSupport;
+        }
+
+
+        /**
+         * Returns this builder.
+         *
+         * @return this builder.
+         */
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+
+        /**
+         * Returns the write support of the relation.
+         *
+         * @param configuration the Hadoop configuration of the writer.
+         * @return the write support.
+         * @deprecated only implemented because it is abstract, the writer is configured with a
+         * {@link ParquetConfiguration} and calls {@link #getWriteSupport(ParquetConfiguration)}.
+         */
+        @Override
+        @Deprecated
+        protected WriteSupport<Integer> getWriteSupport(Configuration configuration) {
+            return writeSupport;
+        }
+
+
+        /**
+         * Returns the write support of the relation.
+         *
+         * @param configuration the configuration of the writer.
+         * @return the write support.
+         */
+        @Override
+        protected WriteSupport<Integer> getWriteSupport(ParquetConfiguration configuration) {
+            return writeSupport;
+        }
+    }
+
+
+    /**
+     * A Parquet output file that is written to a stream, e.g. an entry of a ZIP archive.
+     * Parquet files are written sequentially, only the position has to be known for the footer.
+     */
+    private static class StreamOutputFile implements OutputFile {
+
+        private final OutputStream outputStream; // Holds the stream the file is written to
+
+
+        /**
+         * Constructs a StreamOutputFile.
+         *
+         * @param outputStream the stream the file is written to.
+         */
+        StreamOutputFile(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+
+        /**
+         * Returns the stream of the file, which counts the written bytes.
+         *
+         * @param blockSizeHint ignored, since the stream has no blocks.
+         * @return the stream.
+         */
+        @Override
+        public PositionOutputStream create(long blockSizeHint) {
+            return new PositionOutputStream() {
+
+                private long position = 0; // Holds the number of written bytes
+
+                @Override
+                public long getPos() {
+                    return position;
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    outputStream.write(b);
+                    position++;
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    outputStream.write(bytes, offset, length);
+                    position += length;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    outputStream.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    outputStream.close();
+                }
+            };
+        }
+
+
+        /**
+         * Returns the stream of the file, a stream has no content that could be overwritten.
+         *
+         * @param blockSizeHint ignored, since the stream has no blocks.
+         * @return the stream.
+         */
+        @Override
+        public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+            return create(blockSizeHint);
+        }
+
+
+        /**
+         * Returns whether the file has blocks.
+         *
+         * @return false, since the stream has no blocks.
+         */
+        @Override
+        public boolean supportsBlockSize() {
+            return false;
+        }
+
+
+        /**
+         * Returns the block size of the file.
+         *
+         * @return 0, since the stream has no blocks.
+         */
+        @Override
+        public long defaultBlockSize() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.data.ColumnBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits CSV content into entries and writes them directly into {@link ColumnBuilder}s, without creating an object
+ * per record. The characters are scanned in a reusable buffer and each entry is collected in a reusable field buffer,
+ * so the only objects created while reading are the Strings of the entries.
+ * The tokenizer follows the rules of the commons-csv format used by {@link CSVTool}: custom separator, quote and escape
+ * characters, empty lines are ignored and spaces around entries are removed (spaces inside quotes are kept).
+ * <p>
+ * The content is either read from a {@link Reader} or taken directly from the UTF-8 encoded bytes of a
+ * {@link ByteBuffer}, e.g. a memory-mapped range of a file. In the byte mode the content is not decoded as a whole:
+ * the separator, quote and escape characters are ASCII characters, which never occur inside the multi-byte sequences
+ * of UTF-8, so only the bytes of each entry are decoded when its String is created. In this mode only ASCII spaces
+ * are removed around unquoted entries.
+ */
+class CSVTokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 16; // Number of characters read from the reader at once
+    private static final int END_OF_FILE = -1;
+    private static final int UNDEFINED = -2; // Holds the "last character" before the first character was read
+
+    // Types of the tokens returned by nextToken()
+    private static final int TOKEN = 0; // An entry followed by a separator
+    private static final int END_OF_RECORD = 1; // The last entry of a record
+    private static final int END = 2; // The end of the content (there is an entry if tokenReady is true)
+
+    private final Reader reader; // Holds the reader of the content (null in the byte mode)
+    private final ByteBuffer bytes; // Holds the UTF-8 encoded content in the byte mode (null if a reader is used)
+    private final char separator;
+    private final char quoteChar;
+    private final char escapeChar;
+    private final char[] buffer = new char[BUFFER_SIZE]; // Holds the characters read from the reader
+    private int position = 0; // Holds the position of the next character in the buffer
+    private int limit = 0; // Holds the number of characters in the buffer
+    private int lastChar = UNDEFINED; // Holds the character that was read last
+    private char[] field = new char[64]; // Holds the characters of the current entry
+    private byte[] fieldBytes; // Holds the bytes of the current entry in the byte mode
+    private int fieldLength = 0; // Holds the number of characters of the current entry
+    private boolean tokenReady = false; // Whether the end of the content still completes an entry
+    private boolean lastTokenDelimiter = false; // Whether the character checked last was the separator
+
+
+    /**
+     * Constructs a CSVTokenizer.
+     *
+     * @param reader     the reader of the CSV content.
+     * @param separator  the character used to separate values.
+     * @param quoteChar  the character used for quoted values.
+     * @param escapeChar the escape character.
+     */
+    CSVTokenizer(Reader reader, char separator, char quoteChar, char escapeChar) {
+        this.reader = reader;
+        this.bytes = null;
+        this.separator = separator;
+        this.quoteChar = quoteChar;
+        this.escapeChar = escapeChar;
+    }
+
+
+    /**
+     * Constructs a CSVTokenizer that reads UTF-8 encoded bytes, from the position to the limit of the buffer.
+     *
+     * @param bytes      the content, e.g. a memory-mapped range of a file.
+     * @param separator  the character used to separate values (ASCII).
+     * @param quoteChar  the character used for quoted values (ASCII).
+     * @param escapeChar the escape character (ASCII).
+     */
+    CSVTokenizer(ByteBuffer bytes, char separator, char quoteChar, char escapeChar) {
+        this.reader = null;
+        this.bytes = bytes;
+        this.fieldBytes = new byte[64];
+        this.separator = separator;
+        this.quoteChar = quoteChar;
+        this.escapeChar = escapeChar;
+    }
+
+
+    /**
+     * Reads the next record as a list, e.g. the header or the record that determines the number of columns.
+     *
+     * @return the entries of the record, or null if there are no more records.
+     * @throws IOException if the content cannot be read or is not valid CSV.
+     */
+    List<String> nextRecord() throws IOException {
+        List<String> values = new ArrayList<>();
+        return readRecord(null, values) < 0 ? null : values;
+    }
+
+
+    /**
+     * Reads all remaining records and appends their entries to the columns. Records with fewer entries are filled up
+     * with empty strings, entries beyond the last column are ignored.
+     *
+     * @param columns the builders of the columns.
+     * @throws IOException if the content cannot be read or is not valid CSV.
+     */
+    void readRecords(ColumnBuilder[] columns) throws IOException {
+        int numOfValues;
+        while ((numOfValues = readRecord(columns, null)) >= 0) {
+            for (int i = numOfValues; i < columns.length; i++) {
+                columns[i].append("");
+            }
+        }
+    }
+
+
+    /**
+     * Reads one record and passes its entries either to the columns or to a list.
+     *
+     * @param columns the builders of the columns (null if the entries are added to the list).
+     * @param values  the list for the entries (null if the entries are appended to the columns).
+     * @return the number of entries of the record, or -1 if there are no more records.
+     * @throws IOException if the content cannot be read or is not valid CSV.
+     */
+    private int readRecord(ColumnBuilder[] columns, List<String> values) throws IOException {
+        int fieldIndex = 0;
+        while (true) {
+            int type = nextToken();
+            if (type == END && !tokenReady) {
+                break;
+            }
+
+            // Pass the entry on (entries beyond the last column are not needed)
+            if (values != null) {
+                values.add(fieldValue());
+            } else if (fieldIndex < columns.length) {
+                columns[fieldIndex].append(fieldValue());
+            }
+            fieldIndex++;
+            if (type != TOKEN) {
+                break;
+            }
+        }
+        return fieldIndex == 0 ? -1 : fieldIndex;
+    }
+
+
+    /**
+     * Reads the next entry into the field buffer.
+     *
+     * @return the type of the token: {@link #TOKEN}, {@link #END_OF_RECORD} or {@link #END}.
+     * @throws IOException if the content cannot be read or is not valid CSV.
+     */
+    private int nextToken() throws IOException {
+        fieldLength = 0;
+        tokenReady = false;
+        int previousChar = lastChar;
+        int c = read();
+        boolean endOfLine = readEndOfLine(c);
+
+        // Skip empty lines
+        while (endOfLine && isStartOfLine(previousChar)) {
+            previousChar = c;
+            c = read();
+            endOfLine = readEndOfLine(c);
+            if (c == END_OF_FILE) {
+                return END;
+            }
+        }
+        if (previousChar == END_OF_FILE || (!lastTokenDelimiter && c == END_OF_FILE)) {
+            return END;
+        }
+
+        // Skip spaces before the entry
+        while (Character.isWhitespace((char) c) && !isDelimiter(c) && !endOfLine) {
+            c = read();
+            endOfLine = readEndOfLine(c);
+        }
+
+        if (isDelimiter(c)) {
+            return TOKEN;
+        } else if (endOfLine) {
+            return END_OF_RECORD;
+        } else if (c == quoteChar) {
+            return parseQuotedToken();
+        } else if (c == END_OF_FILE) {
+            tokenReady = true;
+            return END;
+        }
+        return parseSimpleToken(c);
+    }
+
+
+    /**
+     * Reads an entry without quotes. Spaces at the end of the entry are removed.
+     *
+     * @param c the first character of the entry.
+     * @return the type of the token.
+     * @throws IOException if the content cannot be read or an escape sequence is not complete.
+     */
+    private int parseSimpleToken(int c) throws IOException {
+        int type;
+        while (true) {
+            if (readEndOfLine(c)) {
+                type = END_OF_RECORD;
+                break;
+            }
+            if (c == END_OF_FILE) {
+                tokenReady = true;
+                type = END;
+                break;
+            }
+            if (isDelimiter(c)) {
+                type = TOKEN;
+                break;
+            }
+            if (c == escapeChar) {
+                appendEscapedCharacter();
+            } else {
+                append((char) c);
+            }
+
+            // Read the following characters of the buffer directly as long as they have no special meaning
+            if (bytes != null) {
+                appendPlainBytes();
+            }
+            while (position < limit) {
+                char next = buffer[position];
+                if (next == separator || next == escapeChar || next == '\n' || next == '\r') {
+                    break;
+                }
+                append(next);
+                position++;
+                lastChar = next;
+                lastTokenDelimiter = false;
+            }
+            c = read();
+        }
+
+        // Remove spaces at the end of the entry
+        while (fieldLength > 0 && Character.isWhitespace(lastFieldCharacter())) {
+            fieldLength--;
+        }
+        return type;
+    }
+
+
+    /**
+     * Reads a quoted entry. Doubled quotes stand for one quote, spaces between the closing quote and the separator
+     * are skipped.
+     *
+     * @return the type of the token.
+     * @throws IOException if the content cannot be read or the quoted entry is not valid.
+     */
+    private int parseQuotedToken() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == escapeChar) {
+                appendEscapedCharacter();
+            } else if (c == quoteChar) {
+                if (peek() == quoteChar) {
+                    // Doubled quote
+                    append((char) read());
+                } else {
+                    // Closing quote: only spaces may follow until the separator or line break
+                    while (true) {
+                        c = read();
+                        if (isDelimiter(c)) {
+                            return TOKEN;
+                        }
+                        if (c == END_OF_FILE) {
+                            tokenReady = true;
+                            return END;
+                        }
+                        if (readEndOfLine(c)) {
+                            return END_OF_RECORD;
+                        }
+                        if (!Character.isWhitespace((char) c)) {
+                            throw new IOException("Invalid character between encapsulated token and delimiter.");
+                        }
+                    }
+                }
+            } else if (c == END_OF_FILE) {
+                throw new IOException("EOF reached before encapsulated token finished.");
+            } else {
+                append((char) c);
+            }
+        }
+    }
+
+
+    /**
+     * Appends the character after an escape character. The sequences \r, \n, \t, \b and \f stand for control characters,
+     * escaped separators, quotes, escape characters and control characters stand for themselves.
+     * Any other escaped character is kept together with the escape character.
+     *
+     * @throws IOException if the content ends after the escape character.
+     */
+    private void appendEscapedCharacter() throws IOException {
+        if (peek() == separator) {
+            append((char) read());
+            return;
+        }
+        int c = read();
+        switch (c) {
+            case 'r' -> append('\r');
+            case 'n' -> append('\n');
+            case 't' -> append('\t');
+            case 'b' -> append('\b');
+            case 'f' -> append('\f');
+            case '\r', '\n', '\f', '\t', '\b' -> append((char) c);
+            case END_OF_FILE -> throw new IOException("EOF whilst processing escape sequence");
+            default -> {
+                if (c != escapeChar && c != quoteChar) {
+                    append(escapeChar);
+                }
+                append((char) c);
+            }
+        }
+    }
+
+
+    /**
+     * Checks whether a character is a line break. A carriage return followed by a line feed is read as one line break.
+     *
+     * @param c the character that was read last.
+     * @return true if the character is a line break, otherwise false.
+     * @throws IOException if the content cannot be read.
+     */
+    private boolean readEndOfLine(int c) throws IOException {
+        if (c == '\r' && peek() == '\n') {
+            c = read();
+        }
+        return c == '\n' || c == '\r';
+    }
+
+
+    /**
+     * Checks whether a character is the separator and remembers the result for the end of the content.
+     *
+     * @param c the character to check.
+     * @return true if the character is the separator, otherwise false.
+     */
+    private boolean isDelimiter(int c) {
+        lastTokenDelimiter = c == separator;
+        return lastTokenDelimiter;
+    }
+
+
+    /**
+     * Checks whether a character is followed by the start of a line.
+     *
+     * @param c the character to check.
+     * @return true if the character is a line break or nothing was read before, otherwise false.
+     */
+    private static boolean isStartOfLine(int c) {
+        return c == '\n' || c == '\r' || c == UNDEFINED;
+    }
+
+
+    /**
+     * Reads the next character.
+     *
+     * @return the character, or {@link #END_OF_FILE} at the end of the content.
+     * @throws IOException if the content cannot be read.
+     */
+    private int read() throws IOException {
+        if (bytes != null) {
+            lastChar = bytes.hasRemaining() ? bytes.get() & 0xFF : END_OF_FILE;
+            return lastChar;
+        }
+        if (position == limit && !fill()) {
+            lastChar = END_OF_FILE;
+            return END_OF_FILE;
+        }
+        lastChar = buffer[position++];
+        return lastChar;
+    }
+
+
+    /**
+     * Returns the next character without reading it.
+     *
+     * @return the character, or {@link #END_OF_FILE} at the end of the content.
+     * @throws IOException if the content cannot be read.
+     */
+    private int peek() throws IOException {
+        if (bytes != null) {
+            return bytes.hasRemaining() ? bytes.get(bytes.position()) & 0xFF : END_OF_FILE;
+        }
+        if (position == limit && !fill()) {
+            return END_OF_FILE;
+        }
+        return buffer[position];
+    }
+
+
+    /**
+     * Fills the buffer with the next characters of the reader.
+     *
+     * @return true if characters were read, false at the end of the content.
+     * @throws IOException if the content cannot be read.
+     */
+    private boolean fill() throws IOException {
+        int count;
+        do {
+            count = reader.read(buffer, 0, buffer.length);
+        } while (count == 0);
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+
+    /**
+     * Appends a character to the current entry.
+     *
+     * @param c the character to append.
+     */
+    private void append(char c) {
+        if (bytes != null) {
+            if (fieldLength == fieldBytes.length) {
+                fieldBytes = Arrays.copyOf(fieldBytes, fieldLength * 2);
+            }
+            fieldBytes[fieldLength++] = (byte) c;
+            return;
+        }
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, fieldLength * 2);
+        }
+        field[fieldLength++] = c;
+    }
+
+
+    /**
+     * Appends the following bytes of the content to the current entry as long as they have no special meaning.
+     * The bytes are copied in one step, without looking at them one by one again.
+     */
+    private void appendPlainBytes() {
+        int start = bytes.position();
+        int end = start;
+        int contentLimit = bytes.limit();
+        while (end < contentLimit) {
+            byte next = bytes.get(end);
+            if (next == separator || next == escapeChar || next == '\n' || next == '\r') {
+                break;
+            }
+            end++;
+        }
+        int count = end - start;
+        if (count == 0) {
+            return;
+        }
+        if (fieldLength + count > fieldBytes.length) {
+            fieldBytes = Arrays.copyOf(fieldBytes, Math.max(fieldBytes.length * 2, fieldLength + count));
+        }
+        bytes.get(start, fieldBytes, fieldLength, count);
+        bytes.position(end);
+        fieldLength += count;
+        lastChar = fieldBytes[fieldLength - 1] & 0xFF;
+        lastTokenDelimiter = false;
+    }
+
+
+    /**
+     * Returns the last character of the current entry. In the byte mode this is the last byte, which is only a space
+     * if it is an ASCII space, since the bytes of multi-byte UTF-8 sequences are all at least 0x80.
+     *
+     * @return the last character.
+     */
+    private char lastFieldCharacter() {
+        return bytes != null ? (char) (fieldBytes[fieldLength - 1] & 0xFF) : field[fieldLength - 1];
+    }
+
+
+    /**
+     * Creates the String of the current entry, in the byte mode by decoding its UTF-8 bytes.
+     *
+     * @return the entry.
+     */
+    private String fieldValue() {
+        return bytes != null ? new String(fieldBytes, 0, fieldLength, StandardCharsets.UTF_8) : new String(field, 0, fieldLength);
+    }
+}
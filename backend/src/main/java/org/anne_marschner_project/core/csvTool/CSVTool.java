@@ -1,9 +1,17 @@
 package org.anne_marschner_project.core.csvTool;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.anne_marschner_project.core.columnarTool.ColumnarTool;
 import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.ColumnBuilder;
 import org.anne_marschner_project.core.data.Dataset;
+import org.anne_marschner_project.core.data.MetadataFormat;
+import org.anne_marschner_project.core.data.OutputFormat;
 import org.anne_marschner_project.core.data.Relation;
 import org.anne_marschner_project.core.data.Type;
+import org.anne_marschner_project.core.noise.RowNoise;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -11,9 +19,12 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * The CSVTool class provides methods to read and write CSV files.
@@ -22,7 +33,83 @@ import java.util.stream.IntStream;
  */
 public class CSVTool {
 
-    private Map<Integer, List<List<Integer>>> columnOrders = new HashMap<>();
+    private static final int GZIP_BUFFER_SIZE = 1 << 16; // Number of bytes the gzip compressor takes at once
+    private static final int SHUFFLE_BUCKET_ROWS = 1 << 19; // Number of rows per bucket of the external row shuffle
+    private static final long SHUFFLE_BUCKET_BYTES = 64L << 20; // Maximal size in bytes of a bucket that is shuffled in memory
+    private static final JsonFactory JSON_FACTORY = new JsonFactory(); // Creates the generators of the JSON key and mapping files
+    private static final int PIPELINE_BATCH_ROWS = 4096; // Number of rows of a batch of the row pipeline
+    private static final int PIPELINE_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2); // Number of threads that perturb batches
+
+    private Map<Integer, List<List<Integer>>> columnOrders = new ConcurrentHashMap<>(); // Datasets are written concurrently
+    private final Path scratchDirectory; // Holds the directory for off-heap columns (null if columns are kept on the heap)
+    private final long offHeapThreshold; // Holds the file size in bytes from which columns are stored off-heap
+    private final long parallelThreshold; // Holds the file size in bytes from which files are parsed in parallel
+    private final boolean useTokenizer; // Whether records are read with the CSVTokenizer instead of commons-csv
+    private final int externalShuffleRows; // Holds the number of rows from which rows are shuffled out of core
+
+
+    /**
+     * Constructs a CSVTool that keeps all columns on the heap.
+     */
+    public CSVTool() {
+        this(null, Long.MAX_VALUE);
+    }
+
+
+    /**
+     * Constructs a CSVTool that stores the columns of large files off-heap in memory-mapped files.
+     *
+     * @param scratchDirectory the directory for the files of off-heap columns.
+     * @param offHeapThreshold the file size in bytes from which columns are stored off-heap.
+     */
+    public CSVTool(Path scratchDirectory, long offHeapThreshold) {
+        this(scratchDirectory, offHeapThreshold, Long.MAX_VALUE);
+    }
+
+
+    /**
+     * Constructs a CSVTool that stores the columns of large files off-heap and parses large files in parallel.
+     *
+     * @param scratchDirectory  the directory for the files of off-heap columns.
+     * @param offHeapThreshold  the file size in bytes from which columns are stored off-heap.
+     * @param parallelThreshold the file size in bytes from which files are split into chunks that are parsed in parallel.
+     */
+    public CSVTool(Path scratchDirectory, long offHeapThreshold, long parallelThreshold) {
+        this(scratchDirectory, offHeapThreshold, parallelThreshold, true);
+    }
+
+
+    /**
+     * Constructs a CSVTool that stores the columns of large files off-heap, parses large files in parallel
+     * and reads the records either with the {@link CSVTokenizer} or with commons-csv.
+     *
+     * @param scratchDirectory  the directory for the files of off-heap columns.
+     * @param offHeapThreshold  the file size in bytes from which columns are stored off-heap.
+     * @param parallelThreshold the file size in bytes from which files are split into chunks that are parsed in parallel.
+     * @param useTokenizer      whether the records are read with the CSVTokenizer (otherwise with commons-csv).
+     */
+    public CSVTool(Path scratchDirectory, long offHeapThreshold, long parallelThreshold, boolean useTokenizer) {
+        this(scratchDirectory, offHeapThreshold, parallelThreshold, useTokenizer, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Constructs a CSVTool that additionally shuffles the rows of relations with many rows out of core,
+     * in bucket files in the scratch directory.
+     *
+     * @param scratchDirectory    the directory for the files of off-heap columns and of the row shuffle.
+     * @param offHeapThreshold    the file size in bytes from which columns are stored off-heap.
+     * @param parallelThreshold   the file size in bytes from which files are split into chunks that are parsed in parallel.
+     * @param useTokenizer        whether the records are read with the CSVTokenizer (otherwise with commons-csv).
+     * @param externalShuffleRows the number of rows from which "Shuffle Rows" uses the external bucket shuffle.
+     */
+    public CSVTool(Path scratchDirectory, long offHeapThreshold, long parallelThreshold, boolean useTokenizer, int externalShuffleRows) {
+        this.scratchDirectory = scratchDirectory;
+        this.offHeapThreshold = offHeapThreshold;
+        this.parallelThreshold = parallelThreshold;
+        this.useTokenizer = useTokenizer;
+        this.externalShuffleRows = externalShuffleRows;
+    }
 
     /**
      * Reads a CSV file and converts it into a Relation object.
@@ -37,89 +124,308 @@ public class CSVTool {
      */
     public Relation readCSVColumns(MultipartFile file, boolean hasHeader, char separator, char quoteChar, char escapeChar) throws IOException {
 
-        // Read the CSV file
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            reader.mark(1024);
-            String firstLine = reader.readLine();
-            if (firstLine == null) {
-                throw new IOException("The CSV file is empty.");
+        // Read the CSV file, compressed files are decompressed while they are parsed
+        try (InputStream inputStream = file.getInputStream()) {
+            CompressedInput input = CompressedInput.open(inputStream);
+            boolean parallel = file.getSize() >= parallelThreshold && ParallelCSVReader.supports(separator, quoteChar, escapeChar);
+            if (input.getFormat() != CompressedInput.Format.PLAIN || !parallel) {
+                return readCSVColumns(input.getContent(), input.projectContentSize(file.getSize()), hasHeader, separator, quoteChar, escapeChar);
             }
-            // return to the beginning of the file
-            reader.reset();
-
-            // Set up CSV format with custom separator, quote character, escape character, and if leading white space is ignored
-            CSVFormat csvFormat = CSVFormat.DEFAULT
-                    .withDelimiter(separator)
-                    .withQuote(quoteChar)
-                    .withEscape(escapeChar)
-                    .withIgnoreEmptyLines(true)
-                    .withIgnoreSurroundingSpaces(true);
-
-            // If there is a header, parse with headers
-            if (hasHeader) {
-                csvFormat = csvFormat.withFirstRecordAsHeader();
+        }
+
+        // Parse large plain files in parallel chunks
+        return readCSVColumnsInParallel(file, hasHeader, separator, quoteChar, escapeChar);
+    }
+
+
+    /**
+     * Reads a CSV file that is stored on the server and converts it into a Relation object.
+     * Large files are not copied: the chunks of the file are memory-mapped and the tokenizer only decodes the bytes
+     * of the entries. Files below the parallel threshold, compressed files and files with non-ASCII separator,
+     * quote or escape characters are read as a stream.
+     *
+     * @param file  the CSV file to be read.
+     * @param hasHeader whether the CSV file contains a header row.
+     * @param separator the character used to separate values in the CSV file.
+     * @param quoteChar the character used for quoted values in the CSV file.
+     * @param escapeChar the escape character used in the CSV file.
+     * @return a Relation object containing the data and schema from the CSV file.
+     * @throws IOException if an I/O error occurs or if the file is empty.
+     */
+    public Relation readCSVColumns(Path file, boolean hasHeader, char separator, char quoteChar, char escapeChar) throws IOException {
+        long size = Files.size(file);
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            CompressedInput input = CompressedInput.open(inputStream);
+            boolean parallel = size >= parallelThreshold && ParallelCSVReader.supports(separator, quoteChar, escapeChar);
+            if (input.getFormat() != CompressedInput.Format.PLAIN || !parallel) {
+                return readCSVColumns(input.getContent(), input.projectContentSize(size), hasHeader, separator, quoteChar, escapeChar);
             }
+        }
+        boolean offHeap = scratchDirectory != null && size >= offHeapThreshold;
+        return readFileInParallel(file, hasHeader, separator, quoteChar, escapeChar, offHeap);
+    }
 
-            // Initialize structures for schema and data
-            Map<Integer, Attribute> schema = new HashMap<>();
-            List<List<String>> columns = new ArrayList<>();
-
-            try (CSVParser csvParser = csvFormat.parse(reader)) {
-                // Determine the number of columns
-                int numberOfColumns;
-                String[] headers = null;
-
-                if (hasHeader) {
-                    numberOfColumns = csvParser.getHeaderMap().size();
-                    headers = csvParser.getHeaderNames().toArray(new String[0]);
-                } else {
-                    // Get first record to determine number of columns when there's no header
-                    Iterator<CSVRecord> iterator = csvParser.iterator();
-                    CSVRecord firstRecord = iterator.next();
-                    numberOfColumns = firstRecord.size();
-                    // Initialize lists for each column
-                    for (int i = 0; i < numberOfColumns; i++) {
-                        List<String> columnData = new ArrayList<>();
-                        columnData.add(firstRecord.get(i));
-                        columns.add(columnData);
-                    }
-                }
 
-                // If headers are not null, initialize columns
-                if (columns.isEmpty()) {
-                    for (int i = 0; i < numberOfColumns; i++) {
-                        columns.add(new ArrayList<>());
-                    }
+    /**
+     * Reads CSV content from a stream and converts it into a Relation object. The records are parsed while the
+     * content arrives, e.g. directly from the body of an upload, so the content is never stored as a whole.
+     *
+     * @param inputStream the CSV content.
+     * @param size the size of the content in bytes (used to decide whether the columns are stored off-heap).
+     * @param hasHeader whether the CSV file contains a header row.
+     * @param separator the character used to separate values in the CSV file.
+     * @param quoteChar the character used for quoted values in the CSV file.
+     * @param escapeChar the escape character used in the CSV file.
+     * @return a Relation object containing the data and schema from the CSV file.
+     * @throws IOException if an I/O error occurs or if the content is empty.
+     */
+    public Relation readCSVColumns(InputStream inputStream, long size, boolean hasHeader, char separator, char quoteChar, char escapeChar) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        // Check that there is content (only one character is looked at, so the header is not read twice)
+        reader.mark(1);
+        if (reader.read() == -1) {
+            throw new IOException("The CSV file is empty.");
+        }
+        reader.reset();
+
+        // Set up CSV format with custom separator, quote character, escape character, and if leading white space is ignored
+        CSVFormat csvFormat = createFormat(separator, quoteChar, escapeChar);
+
+        // If there is a header, parse with headers
+        if (hasHeader) {
+            csvFormat = csvFormat.builder().setHeader().setSkipHeaderRecord(true).build();
+        }
+
+        // Initialize structures for the columns
+        List<ColumnBuilder> columns = new ArrayList<>();
+        boolean offHeap = scratchDirectory != null && size >= offHeapThreshold;
+
+        // Read the records with the tokenizer, which writes the entries directly into the columns
+        if (useTokenizer) {
+            return readColumnsWithTokenizer(reader, hasHeader, separator, quoteChar, escapeChar, offHeap);
+        }
+
+        try (CSVParser csvParser = csvFormat.parse(reader)) {
+            // Determine the number of columns
+            int numberOfColumns;
+            String[] headers = null;
+
+            if (hasHeader) {
+                numberOfColumns = csvParser.getHeaderMap().size();
+                headers = csvParser.getHeaderNames().toArray(new String[0]);
+            } else {
+                // Get first record to determine number of columns when there's no header
+                Iterator<CSVRecord> iterator = csvParser.iterator();
+                CSVRecord firstRecord = iterator.next();
+                numberOfColumns = firstRecord.size();
+                // Initialize lists for each column
+                for (int i = 0; i < numberOfColumns; i++) {
+                    ColumnBuilder columnData = createColumnBuilder(offHeap);
+                    columnData.append(firstRecord.get(i));
+                    columns.add(columnData);
                 }
+            }
 
-                // Process remaining records
-                for (CSVRecord record : csvParser) {
-                    for (int i = 0; i < numberOfColumns; i++) {
-                        // If the record has fewer columns add an empty string
-                        String value = record.size() > i ? record.get(i) : "";
-                        columns.get(i).add(value);
-                    }
+            // If headers are not null, initialize columns
+            if (columns.isEmpty()) {
+                for (int i = 0; i < numberOfColumns; i++) {
+                    columns.add(createColumnBuilder(offHeap));
                 }
+            }
 
-                // Determine the type of each attribute and add to schema
+            // Process remaining records
+            for (CSVRecord record : csvParser) {
                 for (int i = 0; i < numberOfColumns; i++) {
-                    String columnName = (hasHeader && headers != null) ? headers[i] : null;
-                    Type columnType = Type.determineType(columns.get(i));
-                    schema.put(i, new Attribute(columnName, columnType));
+                    // If the record has fewer columns add an empty string
+                    String value = record.size() > i ? record.get(i) : "";
+                    columns.get(i).append(value);
                 }
             }
 
-            // Convert columns into a Map
-            Map<Integer, List<String>> data = new HashMap<>();
-            for (int i = 0; i < columns.size(); i++) {
-                data.put(i, columns.get(i));
+            return buildRelation(columns, hasHeader ? headers : null);
+        } catch (UncheckedIOException e) {
+            // Writing an off-heap column failed
+            throw e.getCause();
+        }
+    }
+
+
+    /**
+     * Reads the records of a CSV file with a {@link CSVTokenizer}.
+     *
+     * @param reader the reader of the CSV content.
+     * @param hasHeader whether the CSV file contains a header row.
+     * @param separator the character used to separate values in the CSV file.
+     * @param quoteChar the character used for quoted values in the CSV file.
+     * @param escapeChar the escape character used in the CSV file.
+     * @param offHeap whether the entries are stored off-heap in memory-mapped files.
+     * @return a Relation object containing the data and schema from the CSV file.
+     * @throws IOException if an I/O error occurs or if the file is empty.
+     */
+    private Relation readColumnsWithTokenizer(Reader reader, boolean hasHeader, char separator, char quoteChar,
+                                              char escapeChar, boolean offHeap) throws IOException {
+        CSVFormat csvFormat = createFormat(separator, quoteChar, escapeChar);
+        CSVTokenizer tokenizer = new CSVTokenizer(reader, separator, quoteChar, escapeChar);
+
+        // The first record is either the header or determines the number of columns
+        List<String> firstRecord = tokenizer.nextRecord();
+        if (firstRecord == null && !hasHeader) {
+            throw new IOException("The CSV file is empty.");
+        }
+        String[] headers = null;
+        int numberOfColumns;
+        if (hasHeader) {
+            // Check the header names the same way commons-csv does (names must not be missing, duplicates count once)
+            String[] headerRecord = firstRecord == null ? new String[0] : firstRecord.toArray(new String[0]);
+            try (CSVParser headerParser = csvFormat.builder().setHeader(headerRecord).build().parse(new StringReader(""))) {
+                headers = headerParser.getHeaderNames().toArray(new String[0]);
+                numberOfColumns = headerParser.getHeaderMap().size();
+            }
+        } else {
+            numberOfColumns = firstRecord.size();
+        }
+
+        // Initialize the columns and read all records into them
+        ColumnBuilder[] columns = new ColumnBuilder[numberOfColumns];
+        for (int i = 0; i < numberOfColumns; i++) {
+            columns[i] = createColumnBuilder(offHeap);
+            if (!hasHeader) {
+                columns[i].append(firstRecord.get(i));
             }
+        }
+        try {
+            tokenizer.readRecords(columns);
+        } catch (UncheckedIOException e) {
+            // Writing an off-heap column failed
+            throw e.getCause();
+        }
+        return buildRelation(Arrays.asList(columns), headers);
+    }
+
+
+    /**
+     * Reads a large CSV file in parallel chunks with a {@link ParallelCSVReader}.
+     * The upload is stored in a file first, so that the chunks can be read independently. The file is kept in a directory
+     * of its own inside the scratch directory, which is deleted once the file was read.
+     *
+     * @param file  the CSV file to be read.
+     * @param hasHeader whether the CSV file contains a header row.
+     * @param separator the character used to separate values in the CSV file.
+     * @param quoteChar the character used for quoted values in the CSV file.
+     * @param escapeChar the escape character used in the CSV file.
+     * @return a Relation object containing the data and schema from the CSV file.
+     * @throws IOException if an I/O error occurs or if the file is empty.
+     */
+    private Relation readCSVColumnsInParallel(MultipartFile file, boolean hasHeader, char separator, char quoteChar, char escapeChar) throws IOException {
+        boolean offHeap = scratchDirectory != null && file.getSize() >= offHeapThreshold;
+        Path directory;
+        if (scratchDirectory != null) {
+            Files.createDirectories(scratchDirectory);
+            directory = Files.createTempDirectory(scratchDirectory, "ingest");
+        } else {
+            directory = Files.createTempDirectory("ingest");
+        }
 
-            return new Relation(schema, data);
+        Path inputFile = directory.resolve("input.csv");
+        try {
+            file.transferTo(inputFile);
+            return readFileInParallel(inputFile, hasHeader, separator, quoteChar, escapeChar, offHeap);
+        } finally {
+            Files.deleteIfExists(inputFile);
+            Files.deleteIfExists(directory);
         }
     }
 
 
+    /**
+     * Reads a CSV file in chunks with a {@link ParallelCSVReader}.
+     *
+     * @param file the CSV file to be read.
+     * @param hasHeader whether the CSV file contains a header row.
+     * @param separator the character used to separate values in the CSV file.
+     * @param quoteChar the character used for quoted values in the CSV file.
+     * @param escapeChar the escape character used in the CSV file.
+     * @param offHeap whether the entries are stored off-heap in memory-mapped files.
+     * @return a Relation object containing the data and schema from the CSV file.
+     * @throws IOException if an I/O error occurs or if the file is empty.
+     */
+    private Relation readFileInParallel(Path file, boolean hasHeader, char separator, char quoteChar, char escapeChar, boolean offHeap) throws IOException {
+        try {
+            ParallelCSVReader reader = new ParallelCSVReader(createFormat(separator, quoteChar, escapeChar), hasHeader,
+                    separator, quoteChar, escapeChar, offHeap ? scratchDirectory : null, useTokenizer);
+            List<ColumnBuilder> columns = reader.read(file);
+            return buildRelation(columns, reader.getHeaders());
+        } catch (UncheckedIOException e) {
+            // Writing an off-heap column failed
+            throw e.getCause();
+        }
+    }
+
+
+    /**
+     * Creates the CSV format with custom separator, quote character, escape character, and ignored surrounding spaces.
+     *
+     * @param separator the character used to separate values in the CSV file.
+     * @param quoteChar the character used for quoted values in the CSV file.
+     * @param escapeChar the escape character used in the CSV file.
+     * @return the CSV format (without header handling).
+     */
+    static CSVFormat createFormat(char separator, char quoteChar, char escapeChar) {
+        return CSVFormat.DEFAULT.builder()
+                .setDelimiter(separator)
+                .setQuote(quoteChar)
+                .setEscape(escapeChar)
+                .setIgnoreEmptyLines(true)
+                .setIgnoreSurroundingSpaces(true)
+                .build();
+    }
+
+
+    /**
+     * Creates a Relation out of the column builders that hold the entries of a file.
+     *
+     * @param columns the builders of the columns, in the order of the file.
+     * @param headers the column names, or null if the file has no header.
+     * @return the Relation with typed columns and the statistics collected while reading.
+     */
+    private Relation buildRelation(List<ColumnBuilder> columns, String[] headers) {
+
+        // Convert each column into typed storage, the type is known from the counts collected while reading
+        // (columns are independent, so this runs in parallel on the fork-join pool)
+        int numberOfColumns = columns.size();
+        Type[] columnTypes = new Type[numberOfColumns];
+        List<List<String>> typedColumns = IntStream.range(0, numberOfColumns).parallel()
+                .mapToObj(i -> {
+                    columnTypes[i] = columns.get(i).determineType();
+                    return columns.get(i).build(columnTypes[i]);
+                })
+                .toList();
+
+        // Add the attributes, the typed columns and the statistics collected while reading to the relation
+        Relation.Builder relation = Relation.builder();
+        for (int i = 0; i < numberOfColumns; i++) {
+            String columnName = headers != null ? headers[i] : null;
+            relation.attribute(i, new Attribute(columnName, columnTypes[i]))
+                    .column(i, typedColumns.get(i))
+                    .statistics(i, columns.get(i).getStatistics());
+        }
+        return relation.build();
+    }
+
+
+    /**
+     * Creates a builder for the entries of one column.
+     *
+     * @param offHeap whether the entries are stored off-heap in memory-mapped files.
+     * @return a new ColumnBuilder.
+     * @throws IOException if the files for an off-heap column cannot be created.
+     */
+    private ColumnBuilder createColumnBuilder(boolean offHeap) throws IOException {
+        return offHeap ? new ColumnBuilder(scratchDirectory) : new ColumnBuilder(0);
+    }
+
+
 
     /**
      * Writes a Relation object to a CSV file with optional column or row shuffling.
@@ -135,19 +441,10 @@ public class CSVTool {
     public List<Integer> writeCSV(Relation relation, String filePath, char separator, char quoteChar, String shuffleType) throws IOException {
 
         // Ensure the directory for the file path exists
-        File file = new File(filePath);
-        File parentDirectory = file.getParentFile();
-        if (parentDirectory != null && !parentDirectory.exists()) {
-            if (!parentDirectory.mkdirs()) {
-                throw new IOException("Failed to create the directory: " + parentDirectory.getAbsolutePath());
-            }
-        }
+        createParentDirectory(filePath);
 
         // Check that Relation cannot be null in order to write it in CSV
-        if (relation == null || relation.getData() == null || relation.getSchema() == null
-                || relation.getData().isEmpty() || relation.getSchema().isEmpty()) {
-            throw new IllegalArgumentException("Relation, schema, or data cannot be null.");
-        }
+        checkRelation(relation);
 
         // Choose shuffle Type and apply it while writing
         return switch (shuffleType) {
@@ -159,73 +456,138 @@ public class CSVTool {
 
 
     /**
-     * Writes a CSV file with columns shuffled.
+     * Writes a Relation object as CSV content to a stream with optional column or row shuffling,
+     * e.g. directly into an entry of a ZIP archive.
      *
-     * @param relation   the Relation object containing data and schema to be written.
-     * @param filePath   the path to the CSV file to be created.
-     * @param separator  the character used to separate values in the CSV file.
-     * @param quoteChar  the character used to quote values in the CSV file.
+     * @param relation     the Relation object containing data and schema to be written.
+     * @param outputStream the stream to write to, which is closed afterwards.
+     * @param separator    the character used to separate values in the CSV content.
+     * @param quoteChar    the character used to quote values in the CSV content.
+     * @param shuffleType  the type of shuffling to apply ("Shuffle Columns", "Shuffle Rows", or "No Change").
      * @return A List of the column indices in correct order.
      * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the relation, schema, or data is null or empty.
      */
-    public List<Integer> writeShuffledColumns(Relation relation, String filePath, char separator, char quoteChar) throws IOException {
+    public List<Integer> writeCSV(Relation relation, OutputStream outputStream, char separator, char quoteChar, String shuffleType) throws IOException {
+        return writeRelation(relation, outputStream, separator, quoteChar, shuffleType, OutputFormat.CSV);
+    }
 
-        // Get schema and data from Relation
-        Map<Integer, Attribute> schema = relation.getSchema();
-        Map<Integer, List<String>> data = relation.getData();
 
-        // Get the number of rows from first column in the relation
-        int numberOfRows = data.values().iterator().next().size();
+    /**
+     * Writes a Relation object to a file in the given format with optional column or row shuffling.
+     *
+     * @param relation    the Relation object containing data and schema to be written.
+     * @param filePath    the path to the file to be created.
+     * @param separator   the character used to separate values (only used for CSV).
+     * @param quoteChar   the character used to quote values (only used for CSV).
+     * @param shuffleType the type of shuffling to apply ("Shuffle Columns", "Shuffle Rows", or "No Change").
+     * @param format      the format of the file.
+     * @return A List of the column indices in correct order.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the relation, schema, or data is null or empty.
+     */
+    public List<Integer> writeRelation(Relation relation, String filePath, char separator, char quoteChar, String shuffleType, OutputFormat format) throws IOException {
+        return writeRelation(relation, filePath, separator, quoteChar, shuffleType, format, null);
+    }
+
+
+    /**
+     * Writes a Relation object to a file in the given format with optional column or row shuffling, and applies
+     * the planned noise of its rows while it is written.
+     *
+     * @param relation    the Relation object containing data and schema to be written.
+     * @param filePath    the path to the file to be created.
+     * @param separator   the character used to separate values (only used for CSV).
+     * @param quoteChar   the character used to quote values (only used for CSV).
+     * @param shuffleType the type of shuffling to apply ("Shuffle Columns", "Shuffle Rows", or "No Change").
+     * @param format      the format of the file.
+     * @param rowNoise    the planned noise of the rows, or null if the rows receive no noise.
+     * @return A List of the column indices in correct order.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the relation, schema, or data is null or empty.
+     */
+    public List<Integer> writeRelation(Relation relation, String filePath, char separator, char quoteChar, String shuffleType,
+                                       OutputFormat format, RowNoise rowNoise) throws IOException {
+        createParentDirectory(filePath);
+        checkRelation(relation);
+        return write(relation, Files.newOutputStream(Path.of(filePath)), separator, quoteChar,
+                "Shuffle Columns".equals(shuffleType), "Shuffle Rows".equals(shuffleType), format, rowNoise);
+    }
 
-        // Collect the column indices from the data map and shuffle them
-        List<Integer> columnIndices = new ArrayList<>(data.keySet());
-        Collections.shuffle(columnIndices);
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
+    /**
+     * Writes a Relation object to a stream in the given format with optional column or row shuffling,
+     * e.g. directly into an entry of a ZIP archive.
+     *
+     * @param relation     the Relation object containing data and schema to be written.
+     * @param outputStream the stream to write to, which is closed afterwards.
+     * @param separator    the character used to separate values (only used for CSV).
+     * @param quoteChar    the character used to quote values (only used for CSV).
+     * @param shuffleType  the type of shuffling to apply ("Shuffle Columns", "Shuffle Rows", or "No Change").
+     * @param format       the format of the content.
+     * @return A List of the column indices in correct order.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the relation, schema, or data is null or empty.
+     */
+    public List<Integer> writeRelation(Relation relation, OutputStream outputStream, char separator, char quoteChar, String shuffleType, OutputFormat format) throws IOException {
+        return writeRelation(relation, outputStream, separator, quoteChar, shuffleType, format, null);
+    }
 
-            // If headers exist write them in the first row of the CSV
-            if (relation.getSchema().entrySet().iterator().next().getValue().getColumnName() != null) {
-                for (int listIndex = 0; listIndex < columnIndices.size(); listIndex++) {
-                    int colIndex = columnIndices.get(listIndex);
-                    Attribute attribute = schema.get(colIndex);
-                    String columnName = attribute.getColumnName();
-                    if (columnName != null && columnName.indexOf(separator) >= 0) {
-                        columnName = quoteChar + columnName + quoteChar;
-                    }
-                    writer.write(columnName != null ? columnName : "");
-                    if (listIndex < columnIndices.size() - 1) {
-                        // Divide attributes with separator
-                        writer.write(separator);
-                    }
-                }
-                // Add new line after header row
-                writer.newLine();
-            }
 
-            // Write data in CSV File
-            for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
-                for (int listIndex = 0; listIndex < columnIndices.size(); listIndex++) {
-                    int colIndex = columnIndices.get(listIndex);
-                    String value = data.get(colIndex).get(rowIndex);
-                    if (value != null && value.indexOf(separator) >= 0) {
-                        value = quoteChar + value + quoteChar;
-                    }
-                    writer.write(value != null ? value : "");
-                    if (listIndex < columnIndices.size() - 1) {
-                        // Divide column entries with separator
-                        writer.write(separator);
-                    }
-                }
-                // Add new line after each row
-                writer.newLine();
+    /**
+     * Writes a Relation object to a stream in the given format with optional column or row shuffling, and applies
+     * the planned noise of its rows while it is written, e.g. directly into an entry of a ZIP archive.
+     *
+     * @param relation     the Relation object containing data and schema to be written.
+     * @param outputStream the stream to write to, which is closed afterwards.
+     * @param separator    the character used to separate values (only used for CSV).
+     * @param quoteChar    the character used to quote values (only used for CSV).
+     * @param shuffleType  the type of shuffling to apply ("Shuffle Columns", "Shuffle Rows", or "No Change").
+     * @param format       the format of the content.
+     * @param rowNoise     the planned noise of the rows, or null if the rows receive no noise.
+     * @return A List of the column indices in correct order.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the relation, schema, or data is null or empty.
+     */
+    public List<Integer> writeRelation(Relation relation, OutputStream outputStream, char separator, char quoteChar, String shuffleType,
+                                       OutputFormat format, RowNoise rowNoise) throws IOException {
+        checkRelation(relation);
+        return write(relation, outputStream, separator, quoteChar, "Shuffle Columns".equals(shuffleType), "Shuffle Rows".equals(shuffleType), format, rowNoise);
+    }
+
+
+    /**
+     * Creates the directory of a file if it does not exist yet.
+     *
+     * @param filePath the path to the file.
+     * @throws IOException if the directory cannot be created.
+     */
+    private static void createParentDirectory(String filePath) throws IOException {
+        File parentDirectory = new File(filePath).getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists()) {
+            if (!parentDirectory.mkdirs()) {
+                throw new IOException("Failed to create the directory: " + parentDirectory.getAbsolutePath());
             }
         }
-        return columnIndices;
     }
 
 
     /**
-     * Writes a CSV file with rows shuffled.
+     * Checks that a relation has a schema and data, so that it can be written.
+     *
+     * @param relation the Relation object to check.
+     * @throws IllegalArgumentException if the relation, schema, or data is null or empty.
+     */
+    private static void checkRelation(Relation relation) {
+        if (relation == null || relation.getData() == null || relation.getSchema() == null
+                || relation.getData().isEmpty() || relation.getSchema().isEmpty()) {
+            throw new IllegalArgumentException("Relation, schema, or data cannot be null.");
+        }
+    }
+
+
+    /**
+     * Writes a CSV file with columns shuffled.
      *
      * @param relation   the Relation object containing data and schema to be written.
      * @param filePath   the path to the CSV file to be created.
@@ -234,62 +596,23 @@ public class CSVTool {
      * @return A List of the column indices in correct order.
      * @throws IOException if an I/O error occurs.
      */
-    public List<Integer> writeShuffledRows(Relation relation, String filePath, char separator, char quoteChar) throws IOException {
-
-        // Get schema and data from Relation
-        Map<Integer, Attribute> schema = relation.getSchema();
-        Map<Integer, List<String>> data = relation.getData();
-
-        // Get the number of rows from first column in the relation
-        int numberOfRows = data.values().iterator().next().size();
-
-        // Collect row indices and shuffle them
-        List<Integer> rowIndices = IntStream.range(0, numberOfRows).boxed().collect(Collectors.toList());
-        Collections.shuffle(rowIndices);
-
-        // Collect the column indices
-        List<Integer> columnIndices = new ArrayList<>(data.keySet());
+    public List<Integer> writeShuffledColumns(Relation relation, String filePath, char separator, char quoteChar) throws IOException {
+        return write(relation, Files.newOutputStream(Path.of(filePath)), separator, quoteChar, true, false, OutputFormat.CSV, null);
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
 
-            // If headers exist write them in the first row of the CSV
-            if (relation.getSchema().entrySet().iterator().next().getValue().getColumnName() != null) {
-                for (int listIndex = 0; listIndex < columnIndices.size(); listIndex++) {
-                    int colIndex = columnIndices.get(listIndex);
-                    Attribute attribute = schema.get(colIndex);
-                    String columnName = attribute.getColumnName();
-                    if (columnName != null && columnName.indexOf(separator) >= 0) {
-                        columnName = quoteChar + columnName + quoteChar;
-                    }
-                    writer.write(columnName != null ? columnName : "");
-                    if (listIndex < columnIndices.size() - 1) {
-                        // Divide attributes with separator
-                        writer.write(separator);
-                    }
-                }
-                // Add new line after header row
-                writer.newLine();
-            }
-
-            // Write data in CSV File
-            for (int rowIndex : rowIndices) {
-                for (int listIndex = 0; listIndex < columnIndices.size(); listIndex++) {
-                    int colIndex = columnIndices.get(listIndex);
-                    String value = data.get(colIndex).get(rowIndex);
-                    if (value != null && value.indexOf(separator) >= 0) {
-                        value = quoteChar + value + quoteChar;
-                    }
-                    writer.write(value != null ? value : "");
-                    if (listIndex < columnIndices.size() - 1) {
-                        // Divide column entries with separator
-                        writer.write(separator);
-                    }
-                }
-                // Add new line after each row
-                writer.newLine();
-            }
-        }
-        return columnIndices;
+    /**
+     * Writes a CSV file with rows shuffled.
+     *
+     * @param relation   the Relation object containing data and schema to be written.
+     * @param filePath   the path to the CSV file to be created.
+     * @param separator  the character used to separate values in the CSV file.
+     * @param quoteChar  the character used to quote values in the CSV file.
+     * @return A List of the column indices in correct order.
+     * @throws IOException if an I/O error occurs.
+     */
+    public List<Integer> writeShuffledRows(Relation relation, String filePath, char separator, char quoteChar) throws IOException {
+        return write(relation, Files.newOutputStream(Path.of(filePath)), separator, quoteChar, false, true, OutputFormat.CSV, null);
     }
 
 
@@ -304,57 +627,113 @@ public class CSVTool {
      * @throws IOException if an I/O error occurs.
      */
     public List<Integer> writeInOrder(Relation relation, String filePath, char separator, char quoteChar) throws IOException {
+        return write(relation, Files.newOutputStream(Path.of(filePath)), separator, quoteChar, false, false, OutputFormat.CSV, null);
+    }
 
-        // Get schema and data from Relation
-        Map<Integer, Attribute> schema = relation.getSchema();
-        Map<Integer, List<String>> data = relation.getData();
-
-        // Get the number of rows from first column in the relation
-        int numberOfRows = data.values().iterator().next().size();
 
-        // Collect the column indices from the data map
-        List<Integer> columnIndices = new ArrayList<>(data.keySet());
+    /**
+     * Writes a relation as UTF-8 encoded CSV content with the {@link CSVWriter} (gzip-compressed if requested),
+     * or directly from its columns as Parquet or Arrow file with the {@link ColumnarTool}.
+     * Shuffles are applied as permutation of the column or row indices, the entries themselves are not moved.
+     * CSV content of relations with many rows is shuffled out of core by a {@link RowShuffler} instead, which
+     * encodes the records in their original order and keeps only one bucket of records in memory.
+     *
+     * @param relation       the Relation object containing data and schema to be written.
+     * @param outputStream   the stream to write to, which is closed afterwards.
+     * @param separator      the character used to separate values in the CSV file.
+     * @param quoteChar      the character used to quote values in the CSV file.
+     * @param shuffleColumns whether the columns are written in random order.
+     * @param shuffleRows    whether the rows are written in random order.
+     * @param format         the format of the content.
+     * @param rowNoise       the planned noise of the rows, or null if the rows receive no noise.
+     * @return A List of the column indices in the order they were written.
+     * @throws IOException if an I/O error occurs.
+     */
+    private List<Integer> write(Relation relation, OutputStream outputStream, char separator, char quoteChar,
+                                boolean shuffleColumns, boolean shuffleRows, OutputFormat format, RowNoise rowNoise) throws IOException {
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
+        // Collect the column indices from the data map and shuffle them if requested
+        List<Integer> columnIndices = new ArrayList<>(relation.getData().keySet());
+        if (shuffleColumns) {
+            Collections.shuffle(columnIndices);
+        }
 
-            // If headers exist write them in the first row of the CSV
-            if (relation.getSchema().entrySet().iterator().next().getValue().getColumnName() != null) {
-                for (int listIndex = 0; listIndex < columnIndices.size(); listIndex++) {
-                    int colIndex = columnIndices.get(listIndex);
-                    Attribute attribute = schema.get(colIndex);
-                    String columnName = attribute.getColumnName();
-                    if (columnName != null && columnName.indexOf(separator) >= 0) {
-                        columnName = quoteChar + columnName + quoteChar;
-                    }
-                    writer.write(columnName != null ? columnName : "");
-                    if (listIndex < columnIndices.size() - 1) {
-                        // Divide attributes with separator
-                        writer.write(separator);
+        // Huge relations are shuffled out of core, otherwise a random permutation of the row indices is created
+        int numberOfRows = relation.getData().values().iterator().next().size();
+        boolean externalShuffle = shuffleRows && scratchDirectory != null && numberOfRows >= externalShuffleRows
+                && (format == OutputFormat.CSV || format == OutputFormat.CSV_GZIP);
+        int[] rowOrder = shuffleRows && !externalShuffle ? createRowOrder(numberOfRows, new Random()) : null;
+
+        // Write the entries in the requested format, row noise is applied batch by batch while CSV content is written
+        switch (format) {
+            case PARQUET -> new ColumnarTool().writeColumns(applyRowNoise(relation, rowNoise), columnIndices, rowOrder, outputStream, ColumnarTool.Format.PARQUET);
+            case ARROW -> new ColumnarTool().writeColumns(applyRowNoise(relation, rowNoise), columnIndices, rowOrder, outputStream, ColumnarTool.Format.ARROW_FILE);
+            default -> {
+                OutputStream contentStream = format == OutputFormat.CSV_GZIP
+                        ? new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE) : outputStream;
+                try (CSVWriter writer = new CSVWriter(contentStream, separator, quoteChar);
+                     RowShuffler shuffler = externalShuffle ? new RowShuffler(scratchDirectory, numberOfRows / SHUFFLE_BUCKET_ROWS + 1,
+                             SHUFFLE_BUCKET_BYTES, new Random()) : null) {
+                    if (rowNoise != null) {
+                        writer.startRelation(relation, columnIndices, shuffler);
+                        new RowPipeline(PIPELINE_BATCH_ROWS, PIPELINE_WORKERS, 2 * PIPELINE_WORKERS + 2).write(writer, numberOfRows, rowOrder, rowNoise);
+                    } else if (shuffler != null) {
+                        writer.writeShuffledRelation(relation, columnIndices, shuffler);
+                    } else {
+                        writer.writeRelation(relation, columnIndices, rowOrder);
                     }
                 }
-                // Add new line after header row
-                writer.newLine();
             }
+        }
+        return columnIndices;
+    }
 
-            // Write data in CSV File
-            for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
-                for (int listIndex = 0; listIndex < columnIndices.size(); listIndex++) {
-                    int colIndex = columnIndices.get(listIndex);
-                    String value = data.get(colIndex).get(rowIndex);
-                    if (value != null && value.indexOf(separator) >= 0) {
-                        value = quoteChar + value + quoteChar;
-                    }
-                    writer.write(value != null ? value : "");
-                    if (listIndex < columnIndices.size() - 1) {
-                        // Divide attributes with separator
-                        writer.write(separator);
-                    }
+
+    /**
+     * Applies the planned noise of the rows to a relation as a whole, for formats that are written column by column.
+     * A row whose noise cannot be created stays unchanged.
+     *
+     * @param relation the relation.
+     * @param rowNoise the planned noise of the rows, or null if the rows receive no noise.
+     * @return the perturbed relation, or the given relation if the rows receive no noise.
+     */
+    private static Relation applyRowNoise(Relation relation, RowNoise rowNoise) {
+        if (rowNoise == null) {
+            return relation;
+        }
+        Relation.Builder perturbedRelation = relation.toBuilder();
+        for (int rowIndex : rowNoise.getRowsToPerturb()) {
+            try {
+                for (Map.Entry<Integer, String> replacement : rowNoise.perturbRow(rowIndex).entrySet()) {
+                    perturbedRelation.writableColumn(replacement.getKey()).set(rowIndex, replacement.getValue());
                 }
-                // Add new line after each row
-                writer.newLine();
+            } catch (Exception e) {
+                System.err.println("Error perturbing row " + rowIndex + ": " + e.getMessage());
             }
         }
-        return columnIndices;
+        return perturbedRelation.build();
+    }
+
+
+    /**
+     * Creates a random permutation of the row indices (Fisher-Yates) in a primitive array.
+     *
+     * @param numberOfRows the number of rows.
+     * @param random       the source of randomness.
+     * @return the row indices in random order.
+     */
+    static int[] createRowOrder(int numberOfRows, Random random) {
+        int[] rowOrder = new int[numberOfRows];
+        for (int i = 0; i < numberOfRows; i++) {
+            rowOrder[i] = i;
+        }
+        for (int i = numberOfRows - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int row = rowOrder[i];
+            rowOrder[i] = rowOrder[j];
+            rowOrder[j] = row;
+        }
+        return rowOrder;
     }
 
 
@@ -366,9 +745,99 @@ public class CSVTool {
      * @param filepath    The file path where the information will be saved.
      */
     public void writeKeyFile(Dataset dataset, List<List<Integer>> columnOrder, String identifier, String filepath) {
+        writeKeyFile(dataset, columnOrder, identifier, filepath, MetadataFormat.TEXT);
+    }
+
+
+    /**
+     * Writes information about relations, including foreign and primary keys, to an output file in the given format.
+     *
+     * @param dataset     The list of Relation objects in a dataset.
+     * @param columnOrder The list of lists of the indices representing the current order of the columns.
+     * @param filepath    The file path where the information will be saved.
+     * @param format      The format of the file (text, JSON or JSON Lines).
+     */
+    public void writeKeyFile(Dataset dataset, List<List<Integer>> columnOrder, String identifier, String filepath, MetadataFormat format) {
+        try {
+            writeKeyFile(dataset, columnOrder, identifier, new FileOutputStream(filepath), format);
+        } catch (IOException e) {
+            System.err.println("An error occurred while writing to the file: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Writes information about relations, including foreign and primary keys, as UTF-8 encoded text to a stream,
+     * e.g. directly into an entry of a ZIP archive.
+     *
+     * @param dataset      The list of Relation objects in a dataset.
+     * @param columnOrder  The list of lists of the indices representing the current order of the columns.
+     * @param outputStream The stream to write to, which is closed afterwards.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeKeyFile(Dataset dataset, List<List<Integer>> columnOrder, String identifier, OutputStream outputStream) throws IOException {
+        writeKeyFile(dataset, columnOrder, identifier, outputStream, MetadataFormat.TEXT);
+    }
+
+
+    /**
+     * Writes information about relations, including foreign and primary keys, in the given format to a stream.
+     * JSON and JSON Lines are written with a streaming generator, JSON Lines as one object per relation.
+     *
+     * @param dataset      The list of Relation objects in a dataset.
+     * @param columnOrder  The list of lists of the indices representing the current order of the columns.
+     * @param outputStream The stream to write to, which is closed afterwards.
+     * @param format       The format of the file (text, JSON or JSON Lines).
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeKeyFile(Dataset dataset, List<List<Integer>> columnOrder, String identifier, OutputStream outputStream,
+                             MetadataFormat format) throws IOException {
+        if (format == MetadataFormat.TEXT) {
+            writeTextKeyFile(dataset, columnOrder, identifier, outputStream);
+            return;
+        }
+
+        boolean lines = format == MetadataFormat.JSON_LINES;
+        try (JsonGenerator generator = createJsonGenerator(outputStream, lines)) {
+            if (!lines) {
+                generator.writeStartObject();
+                generator.writeStringField("dataset", identifier);
+                generator.writeArrayFieldStart("relations");
+            }
+            for (int j = 1; j <= dataset.getRelations().size(); j++) {
+                Relation relation = dataset.getRelations().get(j - 1);
+                Map<Integer, Integer> translation = createTranslation(columnOrder.get(j - 1));
+
+                // Write the keys of the relation by the numbers of their columns in the written relation
+                generator.writeStartObject();
+                generator.writeStringField("relation", identifier + j);
+                writeColumnNumbers(generator, "primaryKey", relation.getKeyIndices(), translation);
+                writeColumnNumbers(generator, "foreignKey", relation.getForeignKeyIndices(), translation);
+                generator.writeEndObject();
+                if (lines) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (!lines) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }
+    }
+
+
+    /**
+     * Writes information about relations, including foreign and primary keys, as UTF-8 encoded text to a stream.
+     *
+     * @param dataset      The list of Relation objects in a dataset.
+     * @param columnOrder  The list of lists of the indices representing the current order of the columns.
+     * @param outputStream The stream to write to, which is closed afterwards.
+     * @throws IOException if the stream cannot be written.
+     */
+    private void writeTextKeyFile(Dataset dataset, List<List<Integer>> columnOrder, String identifier, OutputStream outputStream) throws IOException {
 
         // Write information of relations in a file
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filepath))) {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
             for (int j = 1; j <= dataset.getRelations().size(); j++) {
 
                 // Write index of relation:
@@ -376,10 +845,7 @@ public class CSVTool {
                 Relation relation = dataset.getRelations().get(j-1);
 
                 // Create translation Map to access corresponding column index (index summary still refers to all columns of relation)
-                Map<Integer, Integer> translation = new HashMap<>();
-                for(int i = 1; i <= relation.getData().keySet().size(); i++) {
-                    translation.put(columnOrder.get(j - 1).get(i - 1), i);
-                }
+                Map<Integer, Integer> translation = createTranslation(columnOrder.get(j - 1));
 
                 // Write foreign keys
                 List<Integer> foreignKeys = relation.getForeignKeyIndices();
@@ -408,8 +874,6 @@ public class CSVTool {
                 }
                 writer.newLine();
             }
-        } catch (IOException e) {
-            System.err.println("An error occurred while writing to the file: " + e.getMessage());
         }
     }
 
@@ -421,13 +885,141 @@ public class CSVTool {
      * @param datasets      a list of Dataset objects containing relations to which the input relation is mapped.
      * @param identifier    an array of unique identifiers for the datasets, used in the mapping to distinguish datasets.
      * @param filepath      the path to the file where the generated mapping will be written.
-     *
-     * @throws IOException if an error occurs while writing the mapping to the specified file.
      */
     public void writeMapping(Relation inputRelation, List<Dataset> datasets, String[] identifier, String filepath) {
+        writeMapping(inputRelation, datasets, identifier, filepath, MetadataFormat.TEXT);
+    }
+
+
+    /**
+     * Writes a mapping of input relation columns to their corresponding columns in multiple datasets to a file
+     * in the given format.
+     *
+     * @param inputRelation the Relation object representing the input relation whose columns are being mapped.
+     * @param datasets      a list of Dataset objects containing relations to which the input relation is mapped.
+     * @param identifier    an array of unique identifiers for the datasets, used in the mapping to distinguish datasets.
+     * @param filepath      the path to the file where the generated mapping will be written.
+     * @param format        the format of the file (text, JSON or JSON Lines).
+     */
+    public void writeMapping(Relation inputRelation, List<Dataset> datasets, String[] identifier, String filepath, MetadataFormat format) {
+        try {
+            writeMapping(inputRelation, datasets, identifier, new FileOutputStream(filepath), format);
+        } catch (IOException e) {
+            System.err.println("Error writing Mapping to file: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Writes a mapping of input relation columns to their corresponding columns in multiple datasets as UTF-8 encoded
+     * text to a stream, e.g. directly into an entry of a ZIP archive. The column orders of all datasets have to be
+     * added to {@link #getColumnOrders()} before.
+     *
+     * @param inputRelation the Relation object representing the input relation whose columns are being mapped.
+     * @param datasets      a list of Dataset objects containing relations to which the input relation is mapped.
+     * @param identifier    an array of unique identifiers for the datasets, used in the mapping to distinguish datasets.
+     * @param outputStream  the stream to write to, which is closed afterwards.
+     * @throws IOException if an error occurs while writing the mapping to the stream.
+     */
+    public void writeMapping(Relation inputRelation, List<Dataset> datasets, String[] identifier, OutputStream outputStream) throws IOException {
+        writeMapping(inputRelation, datasets, identifier, outputStream, MetadataFormat.TEXT);
+    }
+
+
+    /**
+     * Writes a mapping of input relation columns to their corresponding columns in multiple datasets in the given
+     * format to a stream. The column orders of all datasets have to be added to {@link #getColumnOrders()} before.
+     * JSON and JSON Lines are written with a streaming generator in a single pass over the column orders: JSON lists
+     * the columns of each written relation with the input column they come from, JSON Lines writes one object
+     * per written column.
+     *
+     * @param inputRelation the Relation object representing the input relation whose columns are being mapped.
+     * @param datasets      a list of Dataset objects containing relations to which the input relation is mapped.
+     * @param identifier    an array of unique identifiers for the datasets, used in the mapping to distinguish datasets.
+     * @param outputStream  the stream to write to, which is closed afterwards.
+     * @param format        the format of the mapping (text, JSON or JSON Lines).
+     * @throws IOException if an error occurs while writing the mapping to the stream.
+     */
+    public void writeMapping(Relation inputRelation, List<Dataset> datasets, String[] identifier, OutputStream outputStream,
+                             MetadataFormat format) throws IOException {
+        if (format == MetadataFormat.TEXT) {
+            writeTextMapping(inputRelation, datasets, identifier, outputStream);
+            return;
+        }
+
+        boolean lines = format == MetadataFormat.JSON_LINES;
+        Map<Integer, Attribute> inputSchema = inputRelation.getSchema();
+        try (JsonGenerator generator = createJsonGenerator(outputStream, lines)) {
+
+            // Write the columns of the input relation
+            if (!lines) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("inputColumns");
+                for (Map.Entry<Integer, Attribute> entry : inputSchema.entrySet()) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("column", entry.getKey() + 1);
+                    generator.writeStringField("name", entry.getValue().getColumnName());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("relations");
+            }
+
+            // Write the columns of each relation in the order they were written
+            for (int i = 0; i < datasets.size(); i++) {
+                for (int j = 0; j < datasets.get(i).getRelations().size(); j++) {
+                    Relation relation = datasets.get(i).getRelations().get(j);
+                    List<Integer> columnOrder = this.columnOrders.get(i).get(j);
+                    String relationName = identifier[i] + (j + 1);
+                    if (!lines) {
+                        generator.writeStartObject();
+                        generator.writeStringField("relation", relationName);
+                        generator.writeArrayFieldStart("columns");
+                    }
+                    for (int k = 0; k < columnOrder.size(); k++) {
+                        int originalColumnIndex = columnOrder.get(k);
+                        Attribute inputAttribute = inputSchema.get(originalColumnIndex);
+                        generator.writeStartObject();
+                        if (lines) {
+                            generator.writeStringField("relation", relationName);
+                        }
+                        generator.writeNumberField("column", k + 1);
+                        generator.writeStringField("name", relation.getSchema().get(originalColumnIndex).getColumnName());
+                        generator.writeNumberField("inputColumn", originalColumnIndex + 1);
+                        generator.writeStringField("inputName", inputAttribute != null ? inputAttribute.getColumnName() : null);
+                        generator.writeEndObject();
+                        if (lines) {
+                            generator.writeRaw('\n');
+                        }
+                    }
+                    if (!lines) {
+                        generator.writeEndArray();
+                        generator.writeEndObject();
+                    }
+                }
+            }
+            if (!lines) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }
+    }
+
+
+    /**
+     * Writes a mapping of input relation columns to their corresponding columns in multiple datasets as UTF-8 encoded
+     * text to a stream. The correspondences of each input column are collected in its own StringBuilder.
+     *
+     * @param inputRelation the Relation object representing the input relation whose columns are being mapped.
+     * @param datasets      a list of Dataset objects containing relations to which the input relation is mapped.
+     * @param identifier    an array of unique identifiers for the datasets, used in the mapping to distinguish datasets.
+     * @param outputStream  the stream to write to, which is closed afterwards.
+     * @throws IOException if an error occurs while writing the mapping to the stream.
+     */
+    private void writeTextMapping(Relation inputRelation, List<Dataset> datasets, String[] identifier, OutputStream outputStream) throws IOException {
 
         // Create a Map that holds the original columns as key and their mapping as value
-        Map<Integer, String> mapping = new HashMap<>();
+        Map<Integer, StringBuilder> mapping = new HashMap<>();
         for (Map.Entry<Integer, Attribute> entry : inputRelation.getSchema().entrySet()) {
             int columnNumber = entry.getKey() + 1;
             Attribute attribute = entry.getValue();
@@ -436,7 +1028,7 @@ public class CSVTool {
                 columnMapping.append("_\"").append(attribute.getColumnName()).append("\"");
             }
             columnMapping.append(" corresponds to: \n");
-            mapping.put(entry.getKey(), columnMapping.toString());
+            mapping.put(entry.getKey(), columnMapping);
         }
 
         // Loop each relation in each dataset
@@ -449,10 +1041,7 @@ public class CSVTool {
                 List<Integer> columnIndices = new ArrayList<>(relation.getSchema().keySet());
 
                 // Create translation to actual column number
-                Map<Integer, Integer> translation = new HashMap<>();
-                for (int k = 1; k <= columnIndices.size(); k++) {
-                    translation.put(columnOrder.get(k - 1), k);
-                }
+                Map<Integer, Integer> translation = createTranslation(columnOrder);
 
                 // Add number and name of column to mapping
                 for (int k = 0; k < columnIndices.size(); k++) {
@@ -460,29 +1049,83 @@ public class CSVTool {
                     Integer newColumnIndex = translation.get(originalColumnIndex);
                     int relationNumber = j + 1;
 
-                    // Build the additional string
-                    StringBuilder addition = new StringBuilder().append(identifier[i]).append(relationNumber).append("_column").append(newColumnIndex);
+                    // Append the number and name of the column to the mapping of the input column
+                    StringBuilder columnMapping = mapping.get(originalColumnIndex);
+                    columnMapping.append(identifier[i]).append(relationNumber).append("_column").append(newColumnIndex);
                     String columnName = relation.getSchema().get(originalColumnIndex).getColumnName();
                     if (columnName != null) {
-                        addition.append("_\"").append(columnName).append("\"");
+                        columnMapping.append("_\"").append(columnName).append("\"");
                     }
-                    addition.append("; ");
-
-                    // Append the additional string to the existing value in the mapping
-                    mapping.put(originalColumnIndex, mapping.get(originalColumnIndex) + addition);
+                    columnMapping.append("; ");
                 }
             }
         }
 
         // Write Mapping to txt
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filepath))) {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
             // Write the value of each entry in one row of a txt
-            for (String value : mapping.values()) {
-                writer.write(value + System.lineSeparator() + System.lineSeparator());
+            for (StringBuilder value : mapping.values()) {
+                writer.append(value).append(System.lineSeparator()).append(System.lineSeparator());
+            }
+        }
+    }
+
+
+    /**
+     * Creates a map from the original indices of the columns of a relation to their numbers in the written relation.
+     *
+     * @param columnOrder the original indices of the columns in the order they were written.
+     * @return the map from the original column indices to the column numbers (starting at 1).
+     */
+    private static Map<Integer, Integer> createTranslation(List<Integer> columnOrder) {
+        Map<Integer, Integer> translation = new HashMap<>();
+        for (int k = 1; k <= columnOrder.size(); k++) {
+            translation.put(columnOrder.get(k - 1), k);
+        }
+        return translation;
+    }
+
+
+    /**
+     * Creates a streaming JSON generator that writes UTF-8 encoded JSON to a stream and closes it when it is closed.
+     *
+     * @param outputStream the stream to write to.
+     * @param lines        whether JSON Lines are written (objects are separated by line breaks written by the caller).
+     * @return the generator.
+     * @throws IOException if the generator cannot be created.
+     */
+    private static JsonGenerator createJsonGenerator(OutputStream outputStream, boolean lines) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream, JsonEncoding.UTF8);
+        if (lines) {
+            generator.setRootValueSeparator(null);
+        } else {
+            generator.useDefaultPrettyPrinter();
+        }
+        return generator;
+    }
+
+
+    /**
+     * Writes the numbers of key columns in the written relation as a JSON array field.
+     *
+     * @param generator   the generator to write to.
+     * @param fieldName   the name of the field.
+     * @param keyIndices  the original indices of the key columns.
+     * @param translation the map from the original column indices to the column numbers.
+     * @throws IOException if the field cannot be written.
+     */
+    private static void writeColumnNumbers(JsonGenerator generator, String fieldName, List<Integer> keyIndices,
+                                           Map<Integer, Integer> translation) throws IOException {
+        generator.writeArrayFieldStart(fieldName);
+        for (Integer keyIndex : keyIndices) {
+            Integer columnNumber = translation.get(keyIndex);
+            if (columnNumber != null) {
+                generator.writeNumber(columnNumber);
+            } else {
+                generator.writeNull();
             }
-        } catch (IOException e){
-            System.err.println("Error writing Mapping to txt file: " + e.getMessage());
         }
+        generator.writeEndArray();
     }
 
     public Map<Integer, List<List<Integer>>> getColumnOrders() {
@@ -0,0 +1,514 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.DictionaryColumn;
+import org.anne_marschner_project.core.data.NumericColumn;
+import org.anne_marschner_project.core.data.Relation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the records of a {@link Relation} as UTF-8 encoded CSV. The entries are encoded directly into a large
+ * reusable byte buffer, without a Writer and without creating a String per record. The columns are resolved once
+ * before the records are written, and the order of columns and rows is given as permutation, so shuffled and
+ * unshuffled output is written by the same loop. The entries of a {@link DictionaryColumn} are encoded only once
+ * per distinct entry, and the decimals of a {@link NumericColumn} are formatted from their digits without a String.
+ * <p>
+ * Entries are quoted as described in RFC 4180: an entry is enclosed in quote characters if it contains the separator,
+ * the quote character or a line break, and quote characters inside the entry are doubled. Entries with spaces at
+ * the beginning or end are quoted as well, since the spaces would be removed when the file is read again.
+ */
+class CSVWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20; // Number of bytes collected before they are written
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_DECIMAL_BYTES = 21; // Sign, 18 digits, decimal point and a leading zero
+    private static final String DECIMAL_CHARACTERS = "0123456789.-"; // Characters of a formatted decimal
+
+    private final OutputStream outputStream; // Holds the stream the encoded records are written to
+    private final byte separator; // Holds the separator as byte (separators are ASCII characters)
+    private final byte quoteChar; // Holds the quote character as byte (quote characters are ASCII characters)
+    private final boolean formatDecimals; // Whether decimals are formatted directly (they never need quotes)
+    private byte[] buffer = new byte[BUFFER_SIZE]; // Holds the encoded bytes that were not written yet
+    private int position = 0; // Holds the number of bytes in the buffer
+    private boolean buffering = false; // Whether the buffer grows instead of being written (while a record is shuffled)
+    private RowShuffler shuffler; // Holds the shuffler the records of the started relation are handed to (null if they are written)
+    private List<String>[] columns; // Holds the columns of the started relation in the order they are written
+    private int[] columnIndices; // Holds the indices of these columns in the relation
+    private NumericColumn[] numericColumns; // Holds the numeric columns whose decimals are formatted directly (null for others)
+    private DictionaryColumn[] dictionaryColumns; // Holds the dictionary columns (null for others)
+    private byte[][][] encodedDictionaries; // Holds the encoded dictionary entries of the dictionary columns
+
+
+    /**
+     * Constructs a CSVWriter.
+     *
+     * @param outputStream the stream to write to, which is closed together with the writer.
+     * @param separator    the character used to separate values (an ASCII character).
+     * @param quoteChar    the character used to quote values (an ASCII character).
+     */
+    CSVWriter(OutputStream outputStream, char separator, char quoteChar) {
+        if (separator > 0x7F || quoteChar > 0x7F) {
+            throw new IllegalArgumentException("The separator and the quote character must be ASCII characters.");
+        }
+        this.outputStream = outputStream;
+        this.separator = (byte) separator;
+        this.quoteChar = (byte) quoteChar;
+        this.formatDecimals = DECIMAL_CHARACTERS.indexOf(separator) < 0 && DECIMAL_CHARACTERS.indexOf(quoteChar) < 0;
+    }
+
+
+    /**
+     * Writes the records of a relation, with a header record if the first attribute of the schema has a name.
+     *
+     * @param relation    the relation to write.
+     * @param columnOrder the indices of the columns in the order they are written.
+     * @param rowOrder    the indices of the rows in the order they are written, or null to keep the original order.
+     * @throws IOException if the records cannot be written.
+     */
+    void writeRelation(Relation relation, List<Integer> columnOrder, int[] rowOrder) throws IOException {
+        startRelation(relation, columnOrder, null);
+        int numOfRows = columns[0].size();
+        for (int i = 0; i < numOfRows; i++) {
+            writeRow(rowOrder != null ? rowOrder[i] : i, null);
+        }
+        finishRelation();
+    }
+
+
+    /**
+     * Writes the records of a relation in random order with an external bucket shuffle. The records are encoded in
+     * their original order, which reads the columns sequentially, and are handed to the shuffler instead of being
+     * written. The header record is written first.
+     *
+     * @param relation    the relation to write.
+     * @param columnOrder the indices of the columns in the order they are written.
+     * @param shuffler    the shuffler that writes the records in random order.
+     * @throws IOException if the records cannot be written.
+     */
+    void writeShuffledRelation(Relation relation, List<Integer> columnOrder, RowShuffler shuffler) throws IOException {
+        startRelation(relation, columnOrder, shuffler);
+        int numOfRows = columns[0].size();
+        for (int i = 0; i < numOfRows; i++) {
+            writeRow(i, null);
+        }
+        finishRelation();
+    }
+
+
+    /**
+     * Starts writing a relation: resolves its columns and writes the header record if the first attribute of the
+     * schema has a name. The records are written one by one with {@link #writeRow(int, Map)} afterwards.
+     *
+     * @param relation    the relation to write.
+     * @param columnOrder the indices of the columns in the order they are written.
+     * @param shuffler    the shuffler the records are handed to, or null if they are written.
+     * @throws IOException if the header cannot be written.
+     */
+    void startRelation(Relation relation, List<Integer> columnOrder, RowShuffler shuffler) throws IOException {
+        Map<Integer, Attribute> schema = relation.getSchema();
+        int numOfColumns = columnOrder.size();
+
+        // Resolve the columns once instead of looking them up for each entry
+        @SuppressWarnings("unchecked")
+        List<String>[] resolvedColumns = new List[numOfColumns];
+        columns = resolvedColumns;
+        columnIndices = new int[numOfColumns];
+        numericColumns = new NumericColumn[numOfColumns];
+        dictionaryColumns = new DictionaryColumn[numOfColumns];
+        encodedDictionaries = new byte[numOfColumns][][];
+        for (int i = 0; i < numOfColumns; i++) {
+            columnIndices[i] = columnOrder.get(i);
+            columns[i] = relation.getData().get(columnOrder.get(i));
+            if (columns[i] instanceof DictionaryColumn dictionaryColumn) {
+                dictionaryColumns[i] = dictionaryColumn;
+                encodedDictionaries[i] = new byte[dictionaryColumn.getCardinality()][];
+            } else if (columns[i] instanceof NumericColumn numericColumn && formatDecimals) {
+                numericColumns[i] = numericColumn;
+            }
+        }
+
+        // Write the header if the relation has column names
+        if (schema.values().iterator().next().getColumnName() != null) {
+            String[] names = new String[numOfColumns];
+            for (int i = 0; i < numOfColumns; i++) {
+                names[i] = schema.get(columnOrder.get(i)).getColumnName();
+            }
+            writeRecord(names);
+        }
+
+        // A record that is shuffled is handed over as a whole, so the buffer only holds one record
+        this.shuffler = shuffler;
+        if (shuffler != null) {
+            flushBuffer();
+            buffering = true;
+        }
+    }
+
+
+    /**
+     * Writes one record of the started relation. Dictionary entries are encoded once and copied afterwards,
+     * decimals are formatted directly.
+     *
+     * @param rowIndex     the index of the row.
+     * @param replacements the entries that replace the ones of the relation by their column indices (may be null).
+     * @throws IOException if the record cannot be written.
+     */
+    void writeRow(int rowIndex, Map<Integer, String> replacements) throws IOException {
+        int numOfColumns = columns.length;
+        for (int j = 0; j < numOfColumns; j++) {
+            if (j > 0) {
+                writeByte(separator);
+            }
+            String replacement = replacements != null ? replacements.get(columnIndices[j]) : null;
+            if (replacement != null) {
+                writeEntry(replacement, numOfColumns == 1);
+            } else if (dictionaryColumns[j] != null) {
+                int code = dictionaryColumns[j].getCode(rowIndex);
+                if (code >= 0) {
+                    byte[] encoded = encodedDictionaries[j][code];
+                    if (encoded == null) {
+                        encoded = encode(dictionaryColumns[j].getDictionary().get(code), numOfColumns == 1);
+                        encodedDictionaries[j][code] = encoded;
+                    }
+                    writeBytes(encoded);
+                } else if (numOfColumns == 1) {
+                    writeEmptyEntry();
+                }
+            } else if (numericColumns[j] != null && numericColumns[j].getScale(rowIndex) >= 0) {
+                writeDecimal(numericColumns[j].getUnscaledValue(rowIndex), numericColumns[j].getScale(rowIndex));
+            } else {
+                writeEntry(columns[j].get(rowIndex), numOfColumns == 1);
+            }
+        }
+        writeBytes(LINE_SEPARATOR);
+        if (shuffler != null) {
+            shuffler.add(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+
+    /**
+     * Finishes writing the started relation. Records that were handed to a shuffler are written in random order.
+     *
+     * @throws IOException if the records cannot be written.
+     */
+    void finishRelation() throws IOException {
+        RowShuffler finishedShuffler = shuffler;
+        shuffler = null;
+        buffering = false;
+        columns = null;
+        if (finishedShuffler != null) {
+            finishedShuffler.writeTo(outputStream);
+        }
+    }
+
+
+    /**
+     * Writes one record.
+     *
+     * @param entries the entries of the record (may contain null, which is written as empty entry).
+     * @throws IOException if the record cannot be written.
+     */
+    void writeRecord(String[] entries) throws IOException {
+        for (int i = 0; i < entries.length; i++) {
+            if (i > 0) {
+                writeByte(separator);
+            }
+            writeEntry(entries[i], entries.length == 1);
+        }
+        writeBytes(LINE_SEPARATOR);
+    }
+
+
+    /**
+     * Writes the buffered bytes and closes the stream.
+     *
+     * @throws IOException if the bytes cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+
+    /**
+     * Writes the buffered bytes to the stream.
+     *
+     * @throws IOException if the bytes cannot be written.
+     */
+    void flush() throws IOException {
+        if (position > 0) {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+        outputStream.flush();
+    }
+
+
+    /**
+     * Writes one entry, quoted if necessary.
+     *
+     * @param value     the entry (null is written as empty entry).
+     * @param onlyEntry whether the entry is the only one of its record (an empty record would be read as empty line).
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void writeEntry(String value, boolean onlyEntry) throws IOException {
+        if (value == null || value.isEmpty()) {
+            if (onlyEntry) {
+                writeEmptyEntry();
+            }
+            return;
+        }
+        ensureCapacity(maxEncodedLength(value));
+        position = encode(value, buffer, position);
+    }
+
+
+    /**
+     * Writes a decimal given by its digits and number of decimal places, with at least one digit in front of the
+     * decimal point (as {@link NumericColumn} formats it).
+     *
+     * @param unscaled the digits of the decimal as long value (at most 18 digits).
+     * @param scale    the number of decimal places (0 to 18).
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void writeDecimal(long unscaled, int scale) throws IOException {
+        ensureCapacity(MAX_DECIMAL_BYTES);
+        if (unscaled < 0) {
+            buffer[position++] = '-';
+            unscaled = -unscaled;
+        }
+
+        // Write the digits from the last one backwards and insert the decimal point
+        int numOfDigits = 1;
+        for (long rest = unscaled / 10; rest > 0; rest /= 10) {
+            numOfDigits++;
+        }
+        numOfDigits = Math.max(numOfDigits, scale + 1);
+        int end = position + numOfDigits + (scale > 0 ? 1 : 0);
+        int p = end;
+        for (int i = 0; i < numOfDigits; i++) {
+            if (i == scale && scale > 0) {
+                buffer[--p] = '.';
+            }
+            buffer[--p] = (byte) ('0' + unscaled % 10);
+            unscaled /= 10;
+        }
+        position = end;
+    }
+
+
+    /**
+     * Writes an empty quoted entry, which keeps a record with a single empty entry from being read as empty line.
+     *
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void writeEmptyEntry() throws IOException {
+        writeByte(quoteChar);
+        writeByte(quoteChar);
+    }
+
+
+    /**
+     * Encodes one entry into a new array, quoted if necessary.
+     *
+     * @param value     the non-null entry.
+     * @param onlyEntry whether the entry is the only one of its record.
+     * @return the encoded bytes.
+     */
+    private byte[] encode(String value, boolean onlyEntry) {
+        if (value.isEmpty()) {
+            return onlyEntry ? new byte[]{quoteChar, quoteChar} : new byte[0];
+        }
+        byte[] target = new byte[maxEncodedLength(value)];
+        int length = encode(value, target, 0);
+        return Arrays.copyOf(target, length);
+    }
+
+
+    /**
+     * Encodes a non-empty entry as UTF-8. The entry is first encoded without quotes; if a character is found that
+     * requires quotes, the entry is encoded again with quotes, so entries without special characters are read once.
+     *
+     * @param value  the non-empty entry.
+     * @param target the array to encode into, which has room for {@link #maxEncodedLength(String)} bytes.
+     * @param offset the position of the first byte.
+     * @return the position after the last byte.
+     */
+    private int encode(String value, byte[] target, int offset) {
+        int length = value.length();
+        boolean quote = value.charAt(0) == ' ' || value.charAt(length - 1) == ' ';
+        int end = quote ? -1 : encodeUnquoted(value, target, offset);
+        if (end >= 0) {
+            return end;
+        }
+
+        // Enclose the entry in quotes and double the quote characters inside
+        int p = offset;
+        target[p++] = quoteChar;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == quoteChar) {
+                target[p++] = quoteChar;
+                target[p++] = quoteChar;
+            } else if (c < 0x80) {
+                target[p++] = (byte) c;
+            } else {
+                p = encodeNonAscii(value, i, target, p);
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    i++;
+                }
+            }
+        }
+        target[p++] = quoteChar;
+        return p;
+    }
+
+
+    /**
+     * Encodes an entry without quotes as long as it contains no character that requires quotes.
+     *
+     * @param value  the non-empty entry.
+     * @param target the array to encode into.
+     * @param offset the position of the first byte.
+     * @return the position after the last byte, or -1 if the entry has to be quoted.
+     */
+    private int encodeUnquoted(String value, byte[] target, int offset) {
+        int length = value.length();
+        int p = offset;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == separator || c == quoteChar || c == '\n' || c == '\r') {
+                    return -1;
+                }
+                target[p++] = (byte) c;
+            } else {
+                p = encodeNonAscii(value, i, target, p);
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    i++;
+                }
+            }
+        }
+        return p;
+    }
+
+
+    /**
+     * Encodes a character outside of ASCII as UTF-8. A surrogate pair is encoded as one code point of four bytes,
+     * an unpaired surrogate is replaced by '?' (as {@link String#getBytes} does).
+     *
+     * @param value  the entry.
+     * @param index  the position of the character.
+     * @param target the array to encode into.
+     * @param p      the position of the first byte.
+     * @return the position after the last byte.
+     */
+    private static int encodeNonAscii(String value, int index, byte[] target, int p) {
+        char c = value.charAt(index);
+        if (c < 0x800) {
+            target[p++] = (byte) (0xC0 | (c >> 6));
+            target[p++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            if (Character.isHighSurrogate(c) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+                target[p++] = (byte) (0xF0 | (codePoint >> 18));
+                target[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                target[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                target[p++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                target[p++] = '?';
+            }
+        } else {
+            target[p++] = (byte) (0xE0 | (c >> 12));
+            target[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            target[p++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return p;
+    }
+
+
+    /**
+     * Returns the maximal number of bytes of an encoded entry: three bytes per character (a surrogate pair needs
+     * four bytes for two characters) and two quote characters.
+     *
+     * @param value the entry.
+     * @return the number of bytes.
+     */
+    private static int maxEncodedLength(String value) {
+        return value.length() * 3 + 2;
+    }
+
+
+    /**
+     * Writes one byte.
+     *
+     * @param b the byte.
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void writeByte(byte b) throws IOException {
+        if (position == buffer.length) {
+            ensureCapacity(1);
+        }
+        buffer[position++] = b;
+    }
+
+
+    /**
+     * Writes an array of bytes.
+     *
+     * @param bytes the bytes.
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+
+    /**
+     * Makes sure that the buffer has room for the given number of bytes. The buffer is written if it is too full,
+     * and it only grows for entries that are larger than the whole buffer, or for records that are shuffled and
+     * therefore have to stay in the buffer until they are complete.
+     *
+     * @param length the number of bytes.
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void ensureCapacity(int length) throws IOException {
+        if (buffer.length - position >= length) {
+            return;
+        }
+        if (buffering) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            return;
+        }
+        flushBuffer();
+        if (buffer.length < length) {
+            buffer = new byte[length];
+        }
+    }
+
+
+    /**
+     * Writes the buffered bytes to the stream without flushing the stream.
+     *
+     * @throws IOException if the bytes cannot be written.
+     */
+    private void flushBuffer() throws IOException {
+        outputStream.write(buffer, 0, position);
+        position = 0;
+    }
+}
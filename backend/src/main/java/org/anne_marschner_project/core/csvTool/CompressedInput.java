@@ -0,0 +1,203 @@
+package org.anne_marschner_project.core.csvTool;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Opens CSV content that is either plain, gzip compressed (.csv.gz, also with several concatenated members)
+ * or the first file of a zip archive. The format is recognized by the first bytes of the content, and compressed
+ * content is decompressed on the fly while it is parsed, without writing it to an intermediate file.
+ */
+public class CompressedInput {
+
+    /**
+     * The formats of the input.
+     */
+    public enum Format { PLAIN, GZIP, ZIP }
+
+    private static final int DECOMPRESSION_BUFFER_SIZE = 1 << 16; // Number of compressed bytes inflated at once
+
+    private final Format format; // Holds the format of the content
+    private final LongSupplier compressedBytes; // Holds the number of compressed bytes inflated so far
+    private final BufferedInputStream content; // Holds the plain CSV content
+
+
+    /**
+     * Constructs a CompressedInput.
+     *
+     * @param format          the format of the content.
+     * @param compressedBytes the number of compressed bytes inflated so far.
+     * @param content         the plain CSV content.
+     */
+    private CompressedInput(Format format, LongSupplier compressedBytes, BufferedInputStream content) {
+        this.format = format;
+        this.compressedBytes = compressedBytes;
+        this.content = content;
+    }
+
+
+    /**
+     * Opens a stream of CSV content and recognizes whether it is compressed.
+     *
+     * @param inputStream the raw content.
+     * @return the input, whose content is decompressed if necessary.
+     * @throws IOException if the stream cannot be read or a zip archive contains no file.
+     */
+    public static CompressedInput open(InputStream inputStream) throws IOException {
+        BufferedInputStream raw = new BufferedInputStream(inputStream, DECOMPRESSION_BUFFER_SIZE);
+        Format format = detectFormat(raw);
+        switch (format) {
+            case GZIP -> {
+                // GZIPInputStream continues with the next member when one member ends
+                CountingGZIPInputStream gzipInputStream = new CountingGZIPInputStream(raw);
+                return new CompressedInput(format, gzipInputStream::getCompressedBytes,
+                        new BufferedInputStream(gzipInputStream, RelationSizeEstimator.SAMPLE_BYTES));
+            }
+            case ZIP -> {
+                CountingZipInputStream zipInputStream = new CountingZipInputStream(raw);
+                ZipEntry entry;
+                while ((entry = zipInputStream.getNextEntry()) != null && entry.isDirectory()) {
+                    // Skip directories, the first file is read
+                }
+                if (entry == null) {
+                    throw new IOException("The zip archive contains no file.");
+                }
+                return new CompressedInput(format, zipInputStream::getCompressedBytes,
+                        new BufferedInputStream(zipInputStream, RelationSizeEstimator.SAMPLE_BYTES));
+            }
+            default -> {
+                return new CompressedInput(format, () -> 0, raw);
+            }
+        }
+    }
+
+
+    /**
+     * Recognizes the format by the magic bytes at the beginning of the content. The stream is reset afterwards.
+     *
+     * @param inputStream the raw content, which has to support mark and reset.
+     * @return the format of the content.
+     * @throws IOException if the stream cannot be read.
+     */
+    public static Format detectFormat(InputStream inputStream) throws IOException {
+        inputStream.mark(4);
+        byte[] magic = inputStream.readNBytes(4);
+        inputStream.reset();
+        if (magic.length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return Format.GZIP;
+        }
+        if (magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+            return Format.ZIP;
+        }
+        return Format.PLAIN;
+    }
+
+
+    /**
+     * Returns the format of the content.
+     *
+     * @return the format.
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+
+    /**
+     * Returns the plain CSV content. The stream supports mark and reset for at least the size of a sample of the
+     * {@link RelationSizeEstimator}.
+     *
+     * @return the decompressed content.
+     */
+    public BufferedInputStream getContent() {
+        return content;
+    }
+
+
+    /**
+     * Projects the size of the plain content from the size of the raw content. For compressed content the beginning
+     * is decompressed and the ratio between plain and compressed bytes is applied to the whole size.
+     * The content can be read from the beginning afterwards.
+     *
+     * @param rawSize the size of the raw (possibly compressed) content in bytes.
+     * @return the projected size of the plain content in bytes.
+     * @throws IOException if the content cannot be read.
+     */
+    public long projectContentSize(long rawSize) throws IOException {
+        if (format == Format.PLAIN) {
+            return rawSize;
+        }
+        content.mark(RelationSizeEstimator.SAMPLE_BYTES);
+        long compressedBefore = compressedBytes.getAsLong();
+        long sampleLength = content.readNBytes(RelationSizeEstimator.SAMPLE_BYTES).length;
+        long compressedLength = compressedBytes.getAsLong() - compressedBefore;
+        content.reset();
+
+        // The content is complete if it ended within the sample, stored zip entries are not compressed
+        if (sampleLength < RelationSizeEstimator.SAMPLE_BYTES) {
+            return sampleLength;
+        }
+        if (compressedLength <= 0) {
+            return rawSize;
+        }
+        return Math.max(sampleLength, (long) ((double) rawSize * sampleLength / compressedLength));
+    }
+
+
+    /**
+     * Decompresses gzip content and reports the number of compressed bytes that were inflated.
+     */
+    private static class CountingGZIPInputStream extends GZIPInputStream {
+
+        /**
+         * Constructs a CountingGZIPInputStream.
+         *
+         * @param inputStream the gzip compressed content.
+         * @throws IOException if the gzip header cannot be read.
+         */
+        CountingGZIPInputStream(InputStream inputStream) throws IOException {
+            super(inputStream, DECOMPRESSION_BUFFER_SIZE);
+        }
+
+
+        /**
+         * Returns the number of compressed bytes inflated in the current member.
+         *
+         * @return the number of bytes.
+         */
+        long getCompressedBytes() {
+            return inf.getBytesRead();
+        }
+    }
+
+
+    /**
+     * Decompresses the entries of a zip archive and reports the number of compressed bytes that were inflated.
+     */
+    private static class CountingZipInputStream extends ZipInputStream {
+
+        /**
+         * Constructs a CountingZipInputStream.
+         *
+         * @param inputStream the zip archive.
+         */
+        CountingZipInputStream(InputStream inputStream) {
+            super(inputStream);
+        }
+
+
+        /**
+         * Returns the number of compressed bytes inflated in the current entry.
+         *
+         * @return the number of bytes.
+         */
+        long getCompressedBytes() {
+            return inf.getBytesRead();
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.data.ColumnBuilder;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Reads the columns of a large CSV file in parallel. The file is split into byte ranges that end at record boundaries,
+ * which are found in one fast scan over the bytes that keeps track of quoted entries and escaped characters. The scan
+ * uses a {@link StructuralScanner} to find the separators, quotes, escape characters and line breaks 64 bytes at a time.
+ * Each range is parsed on a fork-join worker into its own chunk of {@link ColumnBuilder}s, either by the
+ * {@link CSVTokenizer} directly from the memory-mapped bytes of the range or by commons-csv, and the chunks of each column
+ * are stitched together in order. The types of the columns are determined from the counts collected while parsing.
+ * The separator, quote and escape characters have to be single-byte (ASCII) characters, and the format has to ignore
+ * surrounding spaces (as the format of {@link CSVTool} does), since quotes after leading spaces open a quoted entry.
+ */
+class ParallelCSVReader {
+
+    private static final int MIN_CHUNK_BYTES = 1 << 20; // Minimal size of a byte range that is parsed as one chunk
+    private static final int MAX_CHUNK_BYTES = 1 << 26; // Maximal size of a byte range (unless a record is longer)
+    private static final int READ_BUFFER_BYTES = 1 << 16; // Size of the buffer for reading the file
+
+    // States of the record boundary scan
+    private static final int FIELD_START = 0; // Before the first character of an entry (leading spaces are skipped)
+    private static final int UNQUOTED = 1; // Inside an entry without quotes
+    private static final int UNQUOTED_ESCAPE = 2; // After an escape character outside of quotes
+    private static final int QUOTED = 3; // Inside a quoted entry
+    private static final int QUOTED_ESCAPE = 4; // After an escape character inside of quotes
+    private static final int QUOTE_IN_QUOTED = 5; // After a quote inside a quoted entry (closing or doubled quote)
+    private static final int RECORD_END = 6; // After a line break that ends a record (continues as FIELD_START)
+
+    private final CSVFormat csvFormat; // Holds the format of the records (without header handling)
+    private final boolean hasHeader; // Whether the first record is the header
+    private final byte separator;
+    private final byte quoteChar;
+    private final byte escapeChar;
+    private final Path scratchDirectory; // Holds the directory for off-heap columns (null if columns are kept on the heap)
+    private final boolean useTokenizer; // Whether the ranges are parsed with the CSVTokenizer instead of commons-csv
+    private final StructuralScanner scanner; // Holds the scanner that finds the structural characters for the record boundaries
+    private String[] headers; // Holds the column names once the file was read (null if the file has no header)
+
+
+    /**
+     * Constructs a ParallelCSVReader.
+     *
+     * @param csvFormat        the format of the records, without header handling.
+     * @param hasHeader        whether the first record is the header.
+     * @param separator        the character used to separate values (ASCII).
+     * @param quoteChar        the character used for quoted values (ASCII).
+     * @param escapeChar       the escape character (ASCII).
+     * @param scratchDirectory the directory for off-heap columns, or null to keep the columns on the heap.
+     * @param useTokenizer     whether the ranges are parsed with the CSVTokenizer (otherwise with commons-csv).
+     */
+    ParallelCSVReader(CSVFormat csvFormat, boolean hasHeader, char separator, char quoteChar, char escapeChar,
+                      Path scratchDirectory, boolean useTokenizer) {
+        this.csvFormat = csvFormat;
+        this.hasHeader = hasHeader;
+        this.separator = (byte) separator;
+        this.quoteChar = (byte) quoteChar;
+        this.escapeChar = (byte) escapeChar;
+        this.scratchDirectory = scratchDirectory;
+        this.useTokenizer = useTokenizer;
+        this.scanner = StructuralScanner.create(this.separator, this.quoteChar, this.escapeChar);
+    }
+
+
+    /**
+     * Checks whether the characters of a format can be found byte by byte in UTF-8 encoded files.
+     *
+     * @param characters the separator, quote and escape characters.
+     * @return true if all characters are ASCII characters, otherwise false.
+     */
+    static boolean supports(char... characters) {
+        for (char character : characters) {
+            if (character >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Reads the columns of a UTF-8 encoded CSV file.
+     *
+     * @param file the CSV file.
+     * @return a builder for each column, holding all entries, statistics and counts of the column.
+     * @throws IOException if the file cannot be read or is empty.
+     */
+    List<ColumnBuilder> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new IOException("The CSV file is empty.");
+            }
+
+            // Split the file into ranges at record boundaries (a few ranges per worker)
+            int parallelism = Runtime.getRuntime().availableProcessors();
+            long targetChunkBytes = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, size / (parallelism * 4L)));
+            List<long[]> ranges = findRanges(channel, size, targetChunkBytes);
+
+            // Determine the number of columns from the header or the first record
+            int numberOfColumns = readNumberOfColumns(channel, ranges.get(0));
+
+            // Parse the ranges in parallel, each into its own chunk of columns
+            List<ColumnBuilder[]> chunks;
+            try {
+                chunks = IntStream.range(0, ranges.size()).parallel()
+                        .mapToObj(i -> parseRange(channel, ranges.get(i), i == 0 && hasHeader, numberOfColumns))
+                        .toList();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // Stitch the chunks of each column together in order (columns in parallel)
+            try {
+                return IntStream.range(0, numberOfColumns).parallel()
+                        .mapToObj(columnIndex -> {
+                            ColumnBuilder column = chunks.get(0)[columnIndex];
+                            for (int chunkIndex = 1; chunkIndex < chunks.size(); chunkIndex++) {
+                                column.appendAll(chunks.get(chunkIndex)[columnIndex]);
+                            }
+                            return column;
+                        })
+                        .toList();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+
+    /**
+     * Returns the column names of the header of the file that was read last.
+     *
+     * @return the column names, or null if the file has no header.
+     */
+    String[] getHeaders() {
+        return headers;
+    }
+
+
+    /**
+     * Scans the file for record boundaries and splits it into ranges of about the target size.
+     * A record boundary is a line break that is neither inside a quoted entry nor escaped.
+     *
+     * @param channel          the channel of the file.
+     * @param size             the size of the file in bytes.
+     * @param targetChunkBytes the size a range should have at least.
+     * @return the ranges as pairs of start position and length, in the order of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    List<long[]> findRanges(FileChannel channel, long size, long targetChunkBytes) throws IOException {
+        return findRanges(channel, size, targetChunkBytes, scanner);
+    }
+
+
+    /**
+     * Scans the file for record boundaries with the given scanner. The scanner marks the structural characters of
+     * 64 bytes at a time, and only these characters (and the first byte after them) drive the state of the scan.
+     *
+     * @param channel          the channel of the file.
+     * @param size             the size of the file in bytes.
+     * @param targetChunkBytes the size a range should have at least.
+     * @param scanner          the scanner that finds the structural characters.
+     * @return the ranges as pairs of start position and length, in the order of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    List<long[]> findRanges(FileChannel channel, long size, long targetChunkBytes, StructuralScanner scanner)
+            throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        int state = FIELD_START;
+        long rangeStart = 0;
+        long position = 0;
+
+        while (position < size) {
+            buffer.clear();
+            int length = channel.read(buffer, position);
+            if (length <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            int last = -1; // Holds the index of the byte that was processed last
+            for (int blockStart = 0; blockStart < length; blockStart += StructuralScanner.BLOCK_BYTES) {
+
+                // Ignore the bytes after the end of the read content
+                long mask = scanner.structuralMask(bytes, blockStart);
+                if (length - blockStart < StructuralScanner.BLOCK_BYTES) {
+                    mask &= (1L << (length - blockStart)) - 1;
+                }
+
+                while (mask != 0) {
+                    int i = blockStart + Long.numberOfTrailingZeros(mask);
+                    mask &= mask - 1;
+                    if (i > last + 1) {
+                        state = skipPlainBytes(state, bytes, last + 1, i);
+                    }
+                    state = nextState(state, bytes[i]);
+                    last = i;
+
+                    // Start a new range after this record if the current range is large enough
+                    if (state == RECORD_END) {
+                        state = FIELD_START;
+                        long recordEnd = position + i + 1;
+                        if (recordEnd - rangeStart >= targetChunkBytes && recordEnd < size) {
+                            ranges.add(new long[]{rangeStart, recordEnd - rangeStart});
+                            rangeStart = recordEnd;
+                        }
+                    }
+                }
+            }
+            if (length > last + 1) {
+                state = skipPlainBytes(state, bytes, last + 1, length);
+            }
+            position += length;
+        }
+        ranges.add(new long[]{rangeStart, size - rangeStart});
+        return ranges;
+    }
+
+
+    /**
+     * Returns the state of the scan after a structural character.
+     *
+     * @param state the state before the character.
+     * @param b     the structural character.
+     * @return the state after the character, or {@link #RECORD_END} if the character ends a record.
+     */
+    private int nextState(int state, byte b) {
+        switch (state) {
+            case UNQUOTED_ESCAPE -> {
+                return UNQUOTED;
+            }
+            case QUOTED_ESCAPE -> {
+                return QUOTED;
+            }
+            case QUOTED -> {
+                if (b == escapeChar) {
+                    return QUOTED_ESCAPE;
+                } else if (b == quoteChar) {
+                    return QUOTE_IN_QUOTED;
+                }
+                return QUOTED;
+            }
+            default -> {
+                if (b == quoteChar && state == QUOTE_IN_QUOTED) {
+                    return QUOTED; // Doubled quote inside a quoted entry
+                } else if (b == separator || b == '\r') {
+                    return FIELD_START;
+                } else if (b == '\n') {
+                    return RECORD_END;
+                } else if (b == escapeChar) {
+                    return UNQUOTED_ESCAPE;
+                } else if (state == FIELD_START && b == quoteChar) {
+                    return QUOTED;
+                } else if (state != FIELD_START || !Character.isWhitespace((char) b)) {
+                    return UNQUOTED;
+                }
+                return state;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the state of the scan after a run of bytes without structural characters.
+     * Only the first byte can change the state, except before an entry, where spaces are skipped.
+     *
+     * @param state the state before the run.
+     * @param bytes the bytes.
+     * @param from  the index of the first byte of the run.
+     * @param to    the index after the last byte of the run.
+     * @return the state after the run.
+     */
+    private static int skipPlainBytes(int state, byte[] bytes, int from, int to) {
+        switch (state) {
+            case UNQUOTED_ESCAPE, QUOTE_IN_QUOTED -> {
+                return UNQUOTED;
+            }
+            case QUOTED_ESCAPE -> {
+                return QUOTED;
+            }
+            case FIELD_START -> {
+                for (int i = from; i < to; i++) {
+                    if (!Character.isWhitespace((char) bytes[i])) {
+                        return UNQUOTED;
+                    }
+                }
+                return FIELD_START;
+            }
+            default -> {
+                return state;
+            }
+        }
+    }
+
+
+    /**
+     * Reads the number of columns and the column names from the beginning of the file.
+     *
+     * @param channel    the channel of the file.
+     * @param firstRange the first range of the file, which contains at least one complete record.
+     * @return the number of columns.
+     * @throws IOException if the file cannot be read or contains no records.
+     */
+    private int readNumberOfColumns(FileChannel channel, long[] firstRange) throws IOException {
+        CSVFormat probeFormat = hasHeader ? csvFormat.builder().setHeader().setSkipHeaderRecord(true).build() : csvFormat;
+        try (CSVParser csvParser = probeFormat.parse(openRange(channel, firstRange))) {
+            if (hasHeader) {
+                headers = csvParser.getHeaderNames().toArray(new String[0]);
+                return csvParser.getHeaderMap().size();
+            }
+            Iterator<CSVRecord> iterator = csvParser.iterator();
+            if (!iterator.hasNext()) {
+                throw new IOException("The CSV file is empty.");
+            }
+            headers = null;
+            return iterator.next().size();
+        }
+    }
+
+
+    /**
+     * Parses the records of one range into a new chunk of columns.
+     *
+     * @param channel         the channel of the file.
+     * @param range           the start position and length of the range.
+     * @param skipFirstRecord whether the first record is the header and has to be skipped.
+     * @param numberOfColumns the number of columns of the file.
+     * @return a builder for each column, holding the entries of the range.
+     * @throws UncheckedIOException if the range cannot be read or parsed.
+     */
+    private ColumnBuilder[] parseRange(FileChannel channel, long[] range, boolean skipFirstRecord, int numberOfColumns) {
+        try {
+            ColumnBuilder[] columns = new ColumnBuilder[numberOfColumns];
+            for (int i = 0; i < numberOfColumns; i++) {
+                columns[i] = scratchDirectory != null ? new ColumnBuilder(scratchDirectory) : new ColumnBuilder(0);
+            }
+
+            // Write the entries directly into the columns, the tokenizer reads the memory-mapped bytes of the range
+            if (useTokenizer) {
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1]);
+                CSVTokenizer tokenizer = new CSVTokenizer(bytes, (char) separator, (char) quoteChar, (char) escapeChar);
+                if (skipFirstRecord) {
+                    tokenizer.nextRecord();
+                }
+                tokenizer.readRecords(columns);
+                return columns;
+            }
+
+            try (Reader reader = openRange(channel, range)) {
+                CSVParser csvParser = csvFormat.parse(reader);
+                boolean skip = skipFirstRecord;
+                for (CSVRecord record : csvParser) {
+                    if (skip) {
+                        skip = false;
+                        continue;
+                    }
+                    for (int i = 0; i < numberOfColumns; i++) {
+                        // If the record has fewer columns add an empty string
+                        String value = record.size() > i ? record.get(i) : "";
+                        columns[i].append(value);
+                    }
+                }
+            }
+            return columns;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Opens a reader for one range of the file. Ranges are read with positional reads, so several ranges
+     * can be read from the same channel at the same time.
+     *
+     * @param channel the channel of the file.
+     * @param range   the start position and length of the range.
+     * @return a reader for the UTF-8 encoded characters of the range.
+     */
+    private static Reader openRange(FileChannel channel, long[] range) {
+        return new InputStreamReader(new RangeInputStream(channel, range[0], range[0] + range[1]), StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Reads the bytes of a range of a file channel with positional reads.
+     */
+    private static class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position; // Holds the position of the next byte to read
+        private final long end; // Holds the position after the last byte of the range
+
+
+        /**
+         * Constructs a RangeInputStream.
+         *
+         * @param channel the channel of the file.
+         * @param start   the position of the first byte of the range.
+         * @param end     the position after the last byte of the range.
+         */
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+
+        /**
+         * Reads one byte.
+         *
+         * @return the byte, or -1 at the end of the range.
+         * @throws IOException if the file cannot be read.
+         */
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+
+        /**
+         * Reads bytes into an array.
+         *
+         * @param bytes  the array to fill.
+         * @param offset the position in the array of the first byte.
+         * @param length the maximal number of bytes to read.
+         * @return the number of bytes read, or -1 at the end of the range.
+         * @throws IOException if the file cannot be read.
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int count = (int) Math.min(length, end - position);
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, count), position);
+            if (read <= 0) {
+                return -1;
+            }
+            position += read;
+            return read;
+        }
+    }
+}
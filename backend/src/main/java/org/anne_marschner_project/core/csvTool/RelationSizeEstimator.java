@@ -0,0 +1,329 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.data.ColumnBuilder;
+import org.anne_marschner_project.core.data.NumberParser;
+import org.anne_marschner_project.core.data.Type;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Estimates the heap memory a CSV file needs once it is read into a {@link org.anne_marschner_project.core.data.Relation}.
+ * Only the beginning of the file is parsed: the number of columns and the average width of an entry are taken from
+ * this sample, and the number of rows is projected from the file size and the average size of a sampled row.
+ * Each column is estimated with the storage it is read into: numeric columns as compact {@link Type#DOUBLE} values,
+ * columns with few distinct entries as dictionary codes and the others as Strings. Columns of files that are stored
+ * off-heap only count the part that stays on the heap.
+ */
+public class RelationSizeEstimator {
+
+    public static final int SAMPLE_BYTES = 64 * 1024; // Number of bytes at the beginning of the file that are parsed
+    private static final int BYTES_PER_ENTRY = 56; // Heap overhead of one String entry (reference, String object and its byte array)
+    private static final int NUMERIC_BYTES_PER_ENTRY = Long.BYTES + Byte.BYTES; // Heap size of one numeric entry (unscaled value and scale)
+    private static final int CODE_BYTES_PER_ENTRY = Integer.BYTES; // Heap size of the code of one dictionary entry
+    private static final int DICTIONARY_BYTES_PER_VALUE = 48; // Heap overhead of one distinct dictionary value (map node and boxed code)
+    private static final int OFF_HEAP_BYTES_PER_ENTRY = Integer.BYTES; // Heap size of the row index a view of an off-heap column keeps per entry
+
+    private final int numOfColumns; // Holds the number of columns of the sampled rows
+    private final long numOfRows; // Holds the projected number of rows of the file
+    private final double averageEntryWidth; // Holds the average number of characters of a sampled entry
+    private final long contentSize; // Holds the size of the plain content in bytes (decides whether the columns are stored off-heap)
+    private final Type[] columnTypes; // Holds the type of each column (null if only the average entry width is known)
+    private final double[] columnWidths; // Holds the average number of characters of an entry of each column
+    private final double[] distinctRatios; // Holds the share of distinct entries of each column in the sample
+
+
+    /**
+     * Constructs a RelationSizeEstimator with the values derived from a sample.
+     *
+     * @param numOfColumns      the number of columns.
+     * @param numOfRows         the projected number of rows.
+     * @param averageEntryWidth the average number of characters of an entry.
+     * @param contentSize       the size of the plain content in bytes, or 0 if the columns are never stored off-heap.
+     * @param columnTypes       the type of each column, or null if the types are unknown.
+     * @param columnWidths      the average number of characters of an entry of each column (null if the types are unknown).
+     * @param distinctRatios    the share of distinct entries of each column (null if the types are unknown).
+     */
+    private RelationSizeEstimator(int numOfColumns, long numOfRows, double averageEntryWidth, long contentSize,
+                                  Type[] columnTypes, double[] columnWidths, double[] distinctRatios) {
+        this.numOfColumns = numOfColumns;
+        this.numOfRows = numOfRows;
+        this.averageEntryWidth = averageEntryWidth;
+        this.contentSize = contentSize;
+        this.columnTypes = columnTypes;
+        this.columnWidths = columnWidths;
+        this.distinctRatios = distinctRatios;
+    }
+
+
+    /**
+     * Creates an estimate from values that are already known, e.g. from the metadata of a typed input file.
+     * Since the types are unknown, every entry is counted as String.
+     *
+     * @param numOfColumns      the number of columns.
+     * @param numOfRows         the number of rows.
+     * @param averageEntryWidth the average number of characters of an entry.
+     * @return the estimate.
+     */
+    public static RelationSizeEstimator of(int numOfColumns, long numOfRows, double averageEntryWidth) {
+        return new RelationSizeEstimator(numOfColumns, numOfRows, averageEntryWidth, 0, null, null, null);
+    }
+
+
+    /**
+     * Creates an estimate for a typed input file whose column types are known from its schema.
+     * The entries of {@link Type#STRING} columns are counted as distinct Strings.
+     *
+     * @param numOfRows         the number of rows.
+     * @param columnTypes       the type of each column.
+     * @param averageEntryWidth the average number of characters of an entry.
+     * @return the estimate.
+     */
+    public static RelationSizeEstimator of(long numOfRows, Type[] columnTypes, double averageEntryWidth) {
+        double[] columnWidths = new double[columnTypes.length];
+        double[] distinctRatios = new double[columnTypes.length];
+        Arrays.fill(columnWidths, averageEntryWidth);
+        Arrays.fill(distinctRatios, 1.0);
+        return new RelationSizeEstimator(columnTypes.length, numOfRows, averageEntryWidth, 0, columnTypes, columnWidths, distinctRatios);
+    }
+
+
+    /**
+     * Estimates the size of an uploaded CSV file, which can also be gzip or zip compressed.
+     *
+     * @param file       the CSV file.
+     * @param hasHeader  whether the CSV file contains a header row.
+     * @param separator  the character used to separate values in the CSV file.
+     * @param quoteChar  the character used for quoted values in the CSV file.
+     * @param escapeChar the escape character used in the CSV file.
+     * @return the estimate for the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static RelationSizeEstimator estimate(MultipartFile file, boolean hasHeader, char separator, char quoteChar,
+                                                 char escapeChar) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return estimate(CompressedInput.open(inputStream), file.getSize(), hasHeader, separator, quoteChar, escapeChar);
+        }
+    }
+
+
+    /**
+     * Estimates the size of CSV content that is possibly compressed. The size of the plain content is projected
+     * from the compression ratio of the sample. The content can be read from the beginning afterwards.
+     *
+     * @param input      the opened content.
+     * @param rawSize    the size of the raw (possibly compressed) content in bytes.
+     * @param hasHeader  whether the CSV file contains a header row.
+     * @param separator  the character used to separate values in the CSV file.
+     * @param quoteChar  the character used for quoted values in the CSV file.
+     * @param escapeChar the escape character used in the CSV file.
+     * @return the estimate for the content.
+     * @throws IOException if the content cannot be read.
+     */
+    public static RelationSizeEstimator estimate(CompressedInput input, long rawSize, boolean hasHeader, char separator,
+                                                 char quoteChar, char escapeChar) throws IOException {
+        long contentSize = input.projectContentSize(rawSize);
+        input.getContent().mark(SAMPLE_BYTES);
+        RelationSizeEstimator estimate = estimate(input.getContent(), contentSize, hasHeader, separator, quoteChar, escapeChar);
+        input.getContent().reset();
+        return estimate;
+    }
+
+
+    /**
+     * Estimates the size of a CSV file from the beginning of its content.
+     *
+     * @param inputStream the content of the file (only the first bytes are read).
+     * @param fileSize    the size of the whole file in bytes.
+     * @param hasHeader   whether the CSV file contains a header row.
+     * @param separator   the character used to separate values in the CSV file.
+     * @param quoteChar   the character used for quoted values in the CSV file.
+     * @param escapeChar  the escape character used in the CSV file.
+     * @return the estimate for the file.
+     * @throws IOException if the content cannot be read.
+     */
+    public static RelationSizeEstimator estimate(InputStream inputStream, long fileSize, boolean hasHeader, char separator,
+                                                 char quoteChar, char escapeChar) throws IOException {
+
+        // Read the sample and cut off the last row if the file is longer than the sample
+        byte[] sample = inputStream.readNBytes(SAMPLE_BYTES);
+        int sampleLength = sample.length;
+        if (fileSize > sampleLength) {
+            while (sampleLength > 0 && sample[sampleLength - 1] != '\n') {
+                sampleLength--;
+            }
+            if (sampleLength == 0) {
+                sampleLength = sample.length; // A single row is longer than the sample
+            }
+        }
+        String sampleText = new String(sample, 0, sampleLength, StandardCharsets.UTF_8);
+
+        // Parse the sample with the same format as the file is read later
+        CSVFormat csvFormat = CSVTool.createFormat(separator, quoteChar, escapeChar);
+        long numOfSampledRows = 0;
+        long numOfEntries = 0;
+        long numOfCharacters = 0;
+        List<ColumnSample> columns = new ArrayList<>();
+        try (CSVParser parser = csvFormat.parse(new StringReader(sampleText))) {
+            for (CSVRecord record : parser) {
+                numOfSampledRows++;
+                if (hasHeader && numOfSampledRows == 1) {
+                    continue; // The column names are not part of the columns
+                }
+                for (int i = 0; i < record.size(); i++) {
+                    if (i == columns.size()) {
+                        columns.add(new ColumnSample());
+                    }
+                    String value = record.get(i);
+                    columns.get(i).add(value);
+                    numOfEntries++;
+                    numOfCharacters += value.length();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            // The sample ends inside a quoted entry, use the rows read so far
+        }
+        if (numOfSampledRows == 0) {
+            return new RelationSizeEstimator(0, 0, 0, fileSize, null, null, null);
+        }
+
+        // Project the number of rows from the average size of a sampled row
+        double bytesPerRow = (double) sampleLength / numOfSampledRows;
+        long numOfRows = Math.max(1, Math.round(fileSize / bytesPerRow) - (hasHeader ? 1 : 0));
+        double averageEntryWidth = numOfEntries == 0 ? 0 : (double) numOfCharacters / numOfEntries;
+
+        // Determine the storage of each column as the column builders do
+        int numOfColumns = columns.size();
+        Type[] columnTypes = new Type[numOfColumns];
+        double[] columnWidths = new double[numOfColumns];
+        double[] distinctRatios = new double[numOfColumns];
+        for (int i = 0; i < numOfColumns; i++) {
+            ColumnSample column = columns.get(i);
+            columnTypes[i] = Type.fromCounts(column.numOfNumbers, column.numOfEntries);
+            columnWidths[i] = (double) column.numOfCharacters / column.numOfEntries;
+            distinctRatios[i] = (double) column.distinctValues.size() / column.numOfEntries;
+        }
+        return new RelationSizeEstimator(numOfColumns, numOfRows, averageEntryWidth, fileSize, columnTypes, columnWidths, distinctRatios);
+    }
+
+
+    /**
+     * Returns the number of columns of the sampled rows.
+     *
+     * @return the number of columns.
+     */
+    public int getNumOfColumns() {
+        return numOfColumns;
+    }
+
+
+    /**
+     * Returns the projected number of rows of the file.
+     *
+     * @return the number of rows.
+     */
+    public long getNumOfRows() {
+        return numOfRows;
+    }
+
+
+    /**
+     * Returns the average number of characters of a sampled entry.
+     *
+     * @return the average entry width.
+     */
+    public double getAverageEntryWidth() {
+        return averageEntryWidth;
+    }
+
+
+    /**
+     * Returns the estimated heap memory of the relation read from the file, if all columns are kept on the heap.
+     *
+     * @return the estimated size in bytes.
+     */
+    public long getEstimatedHeapBytes() {
+        return getEstimatedHeapBytes(Long.MAX_VALUE);
+    }
+
+
+    /**
+     * Returns the estimated heap memory of the relation read from the file. Files of at least the off-heap threshold
+     * are read into memory-mapped columns, of which only the row indices of the views derived from them stay on the heap.
+     * The distinct entries of dictionary columns are projected from the sample, so the estimate is an upper bound.
+     *
+     * @param offHeapThreshold the size of the plain content in bytes from which columns are stored off-heap.
+     * @return the estimated size in bytes.
+     */
+    public long getEstimatedHeapBytes(long offHeapThreshold) {
+        if (contentSize > 0 && contentSize >= offHeapThreshold) {
+            return numOfRows * numOfColumns * OFF_HEAP_BYTES_PER_ENTRY;
+        }
+        if (columnTypes == null) {
+            return (long) (numOfRows * numOfColumns * (BYTES_PER_ENTRY + averageEntryWidth));
+        }
+        double bytes = 0;
+        for (int i = 0; i < numOfColumns; i++) {
+            bytes += estimateColumnBytes(i);
+        }
+        return (long) bytes;
+    }
+
+
+    /**
+     * Estimates the heap memory of a column on the heap with the storage the column builders choose for it:
+     * numeric values, dictionary codes with the distinct entries, or one String per entry.
+     *
+     * @param columnIndex the index of the column.
+     * @return the estimated size in bytes.
+     */
+    private double estimateColumnBytes(int columnIndex) {
+        if (columnTypes[columnIndex] == Type.DOUBLE) {
+            return (double) numOfRows * NUMERIC_BYTES_PER_ENTRY;
+        }
+        double stringBytes = BYTES_PER_ENTRY + columnWidths[columnIndex];
+        if (distinctRatios[columnIndex] > ColumnBuilder.MAX_DISTINCT_RATIO) {
+            return numOfRows * stringBytes;
+        }
+        return numOfRows * (CODE_BYTES_PER_ENTRY + distinctRatios[columnIndex] * (stringBytes + DICTIONARY_BYTES_PER_VALUE));
+    }
+
+
+    /**
+     * Collects the counts of the sampled entries of one column.
+     */
+    private static class ColumnSample {
+
+        private final Set<String> distinctValues = new HashSet<>(); // Holds the distinct sampled entries
+        private long numOfEntries = 0; // Holds the number of sampled entries
+        private long numOfNumbers = 0; // Holds the number of sampled entries that are numbers
+        private long numOfCharacters = 0; // Holds the number of characters of the sampled entries
+
+
+        /**
+         * Adds a sampled entry.
+         *
+         * @param value the entry.
+         */
+        private void add(String value) {
+            numOfEntries++;
+            numOfCharacters += value.length();
+            if (NumberParser.isNumber(value)) {
+                numOfNumbers++;
+            }
+            distinctValues.add(value);
+        }
+    }
+}
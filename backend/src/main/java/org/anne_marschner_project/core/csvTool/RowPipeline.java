@@ -0,0 +1,130 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.noise.RowNoise;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the rows of a relation through a pipeline of row-local stages, so that computing the rows overlaps writing
+ * them. A producer cuts the row order into batches, noise workers apply the planned {@link RowNoise} to the rows
+ * of each batch, and the calling thread encodes the batches with a {@link CSVWriter} in their order.
+ * The batches flow through a bounded queue: the producer waits while the queue is full, so only a few batches
+ * are held in memory at any time and the perturbed relation is never built as a whole.
+ */
+class RowPipeline {
+
+    private final int batchRows; // Holds the number of rows of a batch
+    private final int numOfWorkers; // Holds the number of threads that perturb batches
+    private final int queueCapacity; // Holds the number of batches that may wait to be written
+
+
+    /**
+     * A batch of rows on its way through the pipeline.
+     *
+     * @param rowIndices   the indices of the rows in the order they are written.
+     * @param count        the number of rows of the batch.
+     * @param replacements the perturbed entries of each row by their column indices (null for rows without noise).
+     */
+    private record RowBatch(int[] rowIndices, int count, Map<Integer, String>[] replacements) {
+    }
+
+
+    /**
+     * Constructs a RowPipeline.
+     *
+     * @param batchRows     the number of rows of a batch.
+     * @param numOfWorkers  the number of threads that perturb batches.
+     * @param queueCapacity the number of batches that may wait to be written.
+     */
+    RowPipeline(int batchRows, int numOfWorkers, int queueCapacity) {
+        this.batchRows = Math.max(1, batchRows);
+        this.numOfWorkers = Math.max(1, numOfWorkers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+
+    /**
+     * Writes the rows of a started relation in the given order with their planned noise, and finishes the relation.
+     *
+     * @param writer    the writer, on which the relation was started.
+     * @param numOfRows the number of rows of the relation.
+     * @param rowOrder  the indices of the rows in the order they are written, or null to keep the original order.
+     * @param rowNoise  the planned noise of the rows, or null if the rows receive no noise.
+     * @throws IOException if the rows cannot be written.
+     */
+    void write(CSVWriter writer, int numOfRows, int[] rowOrder, RowNoise rowNoise) throws IOException {
+        BlockingQueue<Future<RowBatch>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService workers = Executors.newFixedThreadPool(numOfWorkers);
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+
+            // Cut the row order into batches and hand them to the workers (blocks while the queue is full)
+            Future<?> production = producer.submit(() -> {
+                for (int start = 0; start < numOfRows; start += batchRows) {
+                    int count = Math.min(batchRows, numOfRows - start);
+                    int[] rowIndices = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        rowIndices[i] = rowOrder != null ? rowOrder[start + i] : start + i;
+                    }
+                    queue.put(rowNoise != null
+                            ? workers.submit(() -> perturb(rowIndices, count, rowNoise))
+                            : CompletableFuture.completedFuture(new RowBatch(rowIndices, count, null)));
+                }
+                return null;
+            });
+
+            // Write the batches in their order while the next ones are produced and perturbed
+            for (int written = 0; written < numOfRows; ) {
+                RowBatch batch = queue.take().get();
+                for (int i = 0; i < batch.count(); i++) {
+                    writer.writeRow(batch.rowIndices()[i], batch.replacements() != null ? batch.replacements()[i] : null);
+                }
+                written += batch.count();
+            }
+            production.get();
+            writer.finishRelation();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Writing the rows was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Error in the row pipeline: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            producer.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Applies the planned noise to the rows of a batch. A row whose noise cannot be created is written unchanged.
+     *
+     * @param rowIndices the indices of the rows.
+     * @param count      the number of rows.
+     * @param rowNoise   the planned noise of the rows.
+     * @return the batch with the perturbed entries of its rows.
+     */
+    private static RowBatch perturb(int[] rowIndices, int count, RowNoise rowNoise) {
+        @SuppressWarnings("unchecked")
+        Map<Integer, String>[] replacements = new Map[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                replacements[i] = rowNoise.perturbRow(rowIndices[i]);
+            } catch (Exception e) {
+                System.err.println("Error perturbing row " + rowIndices[i] + ": " + e.getMessage());
+            }
+        }
+        return new RowBatch(rowIndices, count, replacements);
+    }
+}
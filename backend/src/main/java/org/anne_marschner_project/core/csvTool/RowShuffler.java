@@ -0,0 +1,267 @@
+package org.anne_marschner_project.core.csvTool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Shuffles encoded records out of core with an external bucket shuffle: each record is appended to a randomly chosen
+ * bucket file, and afterwards the buckets are read one after another, their records are shuffled in memory and
+ * written in the new order. Since every record is placed into a uniformly chosen bucket and each bucket is shuffled
+ * uniformly, the result is a uniformly random permutation, while only one bucket is held in memory and all files
+ * are written and read sequentially. Buckets that turn out larger than the memory limit are split again the same way.
+ */
+class RowShuffler implements Closeable {
+
+    private static final int BUCKET_BUFFER_SIZE = 1 << 15; // Number of bytes buffered per bucket file
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20; // Number of bytes collected before the shuffled records are written
+    private static final int MAX_BUCKETS = 512; // Maximal number of bucket files that are open at the same time
+
+    private final Path directory; // Holds the directory of the bucket files
+    private final long maxBucketBytes; // Holds the maximal size in bytes of a bucket that is shuffled in memory
+    private final Random random; // Holds the source of randomness of the shuffle
+    private final List<Path> bucketFiles = new ArrayList<>(); // Holds the files of the buckets
+    private final List<OutputStream> bucketStreams = new ArrayList<>(); // Holds the open streams of the buckets
+    private final long[] bucketSizes; // Holds the number of bytes written into each bucket
+    private final byte[] lengthBytes = new byte[4]; // Holds the encoded length of a record
+    private int numOfSplits = 0; // Holds the number of buckets that were created by splitting a larger bucket
+
+
+    /**
+     * Constructs a RowShuffler and creates its bucket files.
+     *
+     * @param scratchDirectory the directory in which the directory of the bucket files is created.
+     * @param numOfBuckets     the number of buckets the records are scattered into.
+     * @param maxBucketBytes   the maximal size in bytes of a bucket that is shuffled in memory (larger ones are split).
+     * @param random           the source of randomness of the shuffle.
+     * @throws IOException if the bucket files cannot be created.
+     */
+    RowShuffler(Path scratchDirectory, int numOfBuckets, long maxBucketBytes, Random random) throws IOException {
+        Files.createDirectories(scratchDirectory);
+        this.directory = Files.createTempDirectory(scratchDirectory, "shuffle");
+        this.maxBucketBytes = maxBucketBytes;
+        this.random = random;
+        int buckets = Math.max(1, Math.min(numOfBuckets, MAX_BUCKETS));
+        this.bucketSizes = new long[buckets];
+        try {
+            for (int i = 0; i < buckets; i++) {
+                Path file = directory.resolve("bucket" + i);
+                bucketFiles.add(file);
+                bucketStreams.add(new BufferedOutputStream(Files.newOutputStream(file), BUCKET_BUFFER_SIZE));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Appends a record to a randomly chosen bucket.
+     *
+     * @param bytes  the array that contains the record.
+     * @param offset the position of the record in the array.
+     * @param length the number of bytes of the record.
+     * @throws IOException if the bucket file cannot be written.
+     */
+    void add(byte[] bytes, int offset, int length) throws IOException {
+        int bucket = random.nextInt(bucketSizes.length);
+        writeRecord(bucketStreams.get(bucket), bytes, offset, length);
+        bucketSizes[bucket] += 4 + length;
+    }
+
+
+    /**
+     * Writes all added records in random order. The bucket files are deleted once they were written.
+     *
+     * @param outputStream the stream to write to, which is not closed.
+     * @throws IOException if the bucket files cannot be read or the stream cannot be written.
+     */
+    void writeTo(OutputStream outputStream) throws IOException {
+        closeBucketStreams();
+        byte[] output = new byte[OUTPUT_BUFFER_SIZE];
+        int outputPosition = 0;
+        for (int i = 0; i < bucketFiles.size(); i++) {
+            Path file = bucketFiles.get(i);
+            if (bucketSizes[i] > maxBucketBytes) {
+                outputStream.write(output, 0, outputPosition);
+                outputPosition = 0;
+                writeSplit(file, bucketSizes[i], outputStream);
+            } else {
+                outputPosition = writeBucket(Files.readAllBytes(file), output, outputPosition, outputStream);
+            }
+            Files.deleteIfExists(file);
+        }
+        outputStream.write(output, 0, outputPosition);
+    }
+
+
+    /**
+     * Deletes the bucket files and their directory.
+     *
+     * @throws IOException if the files cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        closeBucketStreams();
+        for (Path file : bucketFiles) {
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+
+    /**
+     * Shuffles the records of a bucket in memory and copies them in the new order into the output buffer.
+     *
+     * @param content        the content of the bucket file.
+     * @param output         the output buffer.
+     * @param outputPosition the number of bytes in the output buffer.
+     * @param outputStream   the stream the output buffer is written to when it is full.
+     * @return the number of bytes in the output buffer afterwards.
+     * @throws IOException if the stream cannot be written.
+     */
+    private int writeBucket(byte[] content, byte[] output, int outputPosition, OutputStream outputStream) throws IOException {
+
+        // Find the positions of the records
+        int[] offsets = new int[1024];
+        int numOfRecords = 0;
+        for (int position = 0; position < content.length; position += 4 + readLength(content, position)) {
+            if (numOfRecords == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[numOfRecords++] = position;
+        }
+
+        // Shuffle the positions (Fisher-Yates)
+        for (int i = numOfRecords - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int offset = offsets[i];
+            offsets[i] = offsets[j];
+            offsets[j] = offset;
+        }
+
+        // Copy the records in the new order
+        for (int i = 0; i < numOfRecords; i++) {
+            int length = readLength(content, offsets[i]);
+            if (output.length - outputPosition < length) {
+                outputStream.write(output, 0, outputPosition);
+                outputPosition = 0;
+                if (length > output.length) {
+                    outputStream.write(content, offsets[i] + 4, length);
+                    continue;
+                }
+            }
+            System.arraycopy(content, offsets[i] + 4, output, outputPosition, length);
+            outputPosition += length;
+        }
+        return outputPosition;
+    }
+
+
+    /**
+     * Shuffles a bucket that is too large to be held in memory by scattering its records into new buckets.
+     *
+     * @param file         the file of the bucket.
+     * @param size         the size of the bucket in bytes.
+     * @param outputStream the stream to write to.
+     * @throws IOException if the files cannot be read or written.
+     */
+    private void writeSplit(Path file, long size, OutputStream outputStream) throws IOException {
+        int numOfBuckets = (int) Math.min(MAX_BUCKETS, 2 * (size / maxBucketBytes) + 2);
+        try (RowShuffler split = new RowShuffler(directory, numOfBuckets, maxBucketBytes, random);
+             DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUCKET_BUFFER_SIZE))) {
+            numOfSplits += split.bucketSizes.length;
+            byte[] record = new byte[1024];
+            while (true) {
+                int length;
+                try {
+                    length = inputStream.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (record.length < length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                inputStream.readFully(record, 0, length);
+                split.add(record, 0, length);
+            }
+            split.writeTo(outputStream);
+            numOfSplits += split.numOfSplits;
+        }
+    }
+
+
+    /**
+     * Returns the number of buckets that were created by splitting buckets that were too large.
+     *
+     * @return the number of additional buckets.
+     */
+    int getNumOfSplits() {
+        return numOfSplits;
+    }
+
+
+    /**
+     * Writes a record with its length in front of it.
+     *
+     * @param outputStream the stream of the bucket.
+     * @param bytes        the array that contains the record.
+     * @param offset       the position of the record in the array.
+     * @param length       the number of bytes of the record.
+     * @throws IOException if the stream cannot be written.
+     */
+    private void writeRecord(OutputStream outputStream, byte[] bytes, int offset, int length) throws IOException {
+        lengthBytes[0] = (byte) (length >>> 24);
+        lengthBytes[1] = (byte) (length >>> 16);
+        lengthBytes[2] = (byte) (length >>> 8);
+        lengthBytes[3] = (byte) length;
+        outputStream.write(lengthBytes);
+        outputStream.write(bytes, offset, length);
+    }
+
+
+    /**
+     * Reads the length written in front of a record.
+     *
+     * @param content  the content of a bucket file.
+     * @param position the position of the record.
+     * @return the number of bytes of the record.
+     */
+    private static int readLength(byte[] content, int position) {
+        return (content[position] & 0xFF) << 24 | (content[position + 1] & 0xFF) << 16
+                | (content[position + 2] & 0xFF) << 8 | (content[position + 3] & 0xFF);
+    }
+
+
+    /**
+     * Closes the streams of the bucket files, so that their content is completely written.
+     *
+     * @throws IOException if a stream cannot be closed.
+     */
+    private void closeBucketStreams() throws IOException {
+        IOException exception = null;
+        for (OutputStream stream : bucketStreams) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        bucketStreams.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.anne_marschner_project.core.csvTool;
+
+/**
+ * Finds the structural characters of a block by comparing the bytes one by one.
+ * Used when the Vector API is not available.
+ */
+final class ScalarStructuralScanner extends StructuralScanner {
+
+    /**
+     * Constructs a ScalarStructuralScanner.
+     *
+     * @param separator  the byte used to separate values.
+     * @param quoteChar  the byte used for quoted values.
+     * @param escapeChar the escape byte.
+     */
+    ScalarStructuralScanner(byte separator, byte quoteChar, byte escapeChar) {
+        super(separator, quoteChar, escapeChar);
+    }
+
+
+    /**
+     * Finds the structural characters in a block of 64 bytes.
+     *
+     * @param bytes  the bytes, with at least 64 bytes after the offset.
+     * @param offset the position of the first byte of the block.
+     * @return a bitmask in which bit i is set if the byte at offset + i is a structural character.
+     */
+    @Override
+    long structuralMask(byte[] bytes, int offset) {
+        long mask = 0;
+        for (int i = 0; i < BLOCK_BYTES; i++) {
+            byte b = bytes[offset + i];
+            if (b == separator || b == quoteChar || b == escapeChar || b == '\n' || b == '\r') {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+
+    /**
+     * Returns a short name of the scanner for logging and benchmarks.
+     *
+     * @return the name of the scanner.
+     */
+    @Override
+    String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,92 @@
+package org.anne_marschner_project.core.csvTool;
+
+/**
+ * Finds the structural characters of CSV content (separator, quote, escape character, line feed and carriage return)
+ * in blocks of 64 bytes. The positions are returned as a bitmask, so that the bytes between the structural characters
+ * do not have to be looked at one by one. The Vector API implementation compares up to 64 bytes per instruction,
+ * the scalar implementation is used when the Vector API is not available.
+ */
+abstract class StructuralScanner {
+
+    static final int BLOCK_BYTES = 64; // Number of bytes covered by one bitmask
+    private static final String VECTOR_SCANNER_CLASS = "org.anne_marschner_project.core.csvTool.VectorStructuralScanner"; // Class of the Vector API scanner
+
+    protected final byte separator;
+    protected final byte quoteChar;
+    protected final byte escapeChar;
+
+
+    /**
+     * Constructs a StructuralScanner.
+     *
+     * @param separator  the byte used to separate values.
+     * @param quoteChar  the byte used for quoted values.
+     * @param escapeChar the escape byte.
+     */
+    protected StructuralScanner(byte separator, byte quoteChar, byte escapeChar) {
+        this.separator = separator;
+        this.quoteChar = quoteChar;
+        this.escapeChar = escapeChar;
+    }
+
+
+    /**
+     * Creates the fastest scanner that is available in the running JVM. The Vector API is only used when the backend
+     * was built with the profile "vector", the module jdk.incubator.vector was added (--add-modules jdk.incubator.vector)
+     * and the CPU compares at least 16 bytes at once.
+     *
+     * @param separator  the byte used to separate values.
+     * @param quoteChar  the byte used for quoted values.
+     * @param escapeChar the escape byte.
+     * @return a Vector API scanner if possible, otherwise a scalar scanner.
+     */
+    static StructuralScanner create(byte separator, byte quoteChar, byte escapeChar) {
+        StructuralScanner vectorScanner = createVectorScanner(separator, quoteChar, escapeChar);
+        return vectorScanner != null ? vectorScanner : new ScalarStructuralScanner(separator, quoteChar, escapeChar);
+    }
+
+
+    /**
+     * Creates a Vector API scanner. Its class is only compiled with the profile "vector" (source directory src/vector),
+     * so it is loaded by name and the rest of the backend does not need the incubator module.
+     *
+     * @param separator  the byte used to separate values.
+     * @param quoteChar  the byte used for quoted values.
+     * @param escapeChar the escape byte.
+     * @return a Vector API scanner, or null if it is not available or not faster than the scalar scanner.
+     */
+    static StructuralScanner createVectorScanner(byte separator, byte quoteChar, byte escapeChar) {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            Class<?> scannerClass = Class.forName(VECTOR_SCANNER_CLASS);
+            if (!(boolean) scannerClass.getDeclaredMethod("isSupported").invoke(null)) {
+                return null;
+            }
+            return (StructuralScanner) scannerClass.getDeclaredConstructor(byte.class, byte.class, byte.class)
+                    .newInstance(separator, quoteChar, escapeChar);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // The scanner was not compiled or the Vector API cannot be used, fall back to the scalar scanner
+            return null;
+        }
+    }
+
+
+    /**
+     * Finds the structural characters in a block of 64 bytes.
+     *
+     * @param bytes  the bytes, with at least 64 bytes after the offset.
+     * @param offset the position of the first byte of the block.
+     * @return a bitmask in which bit i is set if the byte at offset + i is a structural character.
+     */
+    abstract long structuralMask(byte[] bytes, int offset);
+
+
+    /**
+     * Returns a short name of the scanner for logging and benchmarks.
+     *
+     * @return the name of the scanner.
+     */
+    abstract String getName();
+}
@@ -4,10 +4,11 @@ package org.anne_marschner_project.core.data;
 /**
  * Represents an attribute of a {@link Relation}, including its column name and data type.
  * This class is used to define metadata for columns within a {@link Relation}.
+ * Attributes are immutable, so they can be shared by several relations.
  */
 public class Attribute {
-    private String columnName;
-    private Type type;
+    private final String columnName;
+    private final Type type;
 
 
     /**
@@ -40,11 +41,6 @@ public class Attribute {
         return type;
     }
 
-    public void setColumnName(String columnName) {
-        this.columnName = columnName;
-    }
-
-
     /**
      * Returns the data type that represents both attributes.
      *
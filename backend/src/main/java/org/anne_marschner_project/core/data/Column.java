@@ -0,0 +1,289 @@
+package org.anne_marschner_project.core.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Represents the entries of one column of a {@link Relation} in a typed, compact storage.
+ * A Column is a {@link List} of Strings, so it can be used wherever the data of a relation is accessed
+ * through {@link Relation#getData()}. Internally the entries are kept in primitive arrays instead of boxed Strings.
+ * Entries that are null are tracked in a validity bitmap.
+ */
+public abstract class Column extends AbstractList<String> implements RandomAccess {
+
+    protected static final int DEFAULT_CAPACITY = 16;
+    protected static final int OBJECT_HEADER_BYTES = 16; // Approximate size of an object header (with compressed references)
+    protected static final int REFERENCE_BYTES = 4; // Approximate size of a reference (with compressed references)
+
+    protected BitSet validity = new BitSet(); // Holds a set bit for each row whose entry is not null
+    protected int size; // Holds the number of entries in the column
+
+
+    /**
+     * Creates a typed Column out of a list of column entries.
+     * Columns of {@link Type#DOUBLE} are stored as {@link NumericColumn}, all others as {@link DictionaryColumn},
+     * or as {@link StringColumn} if they contain too many distinct entries.
+     *
+     * @param values the entries of the column.
+     * @param type   the type of the column.
+     * @return a Column containing the same entries as the given list.
+     */
+    public static Column of(List<String> values, Type type) {
+        ColumnBuilder builder = new ColumnBuilder(values.size());
+        for (String value : values) {
+            builder.append(value);
+        }
+        return builder.buildColumn(type);
+    }
+
+
+    /**
+     * Copies a list of column entries. Typed columns stay typed and views keep sharing their base column,
+     * other lists are copied into an ArrayList.
+     *
+     * @param values the entries of the column.
+     * @return a modifiable copy of the given list.
+     */
+    public static List<String> copyOf(List<String> values) {
+        if (values instanceof Column column) {
+            return column.copy();
+        }
+        if (values instanceof ColumnView view) {
+            return view.copy();
+        }
+        return new ArrayList<>(values);
+    }
+
+
+    /**
+     * Returns the entry at the given row.
+     *
+     * @param rowIndex the index of the row.
+     * @return the entry as String, or null if the entry is null.
+     */
+    @Override
+    public String get(int rowIndex) {
+        checkIndex(rowIndex);
+        if (!validity.get(rowIndex)) {
+            return null;
+        }
+        return getValue(rowIndex);
+    }
+
+
+    /**
+     * Replaces the entry at the given row.
+     *
+     * @param rowIndex the index of the row.
+     * @param value    the new entry (may be null).
+     * @return the previous entry at the given row.
+     */
+    @Override
+    public String set(int rowIndex, String value) {
+        String previous = get(rowIndex);
+        store(rowIndex, value);
+        return previous;
+    }
+
+
+    /**
+     * Appends an entry to the end of the column. Entries can only be appended, not inserted.
+     *
+     * @param rowIndex the index at which the entry is added, which has to be the current size.
+     * @param value    the entry to add (may be null).
+     */
+    @Override
+    public void add(int rowIndex, String value) {
+        if (rowIndex != size) {
+            throw new UnsupportedOperationException("Entries can only be appended to a column.");
+        }
+        ensureCapacity(size + 1);
+        size++;
+        store(rowIndex, value);
+        modCount++;
+    }
+
+
+    /**
+     * Returns the number of entries in the column.
+     *
+     * @return the number of rows.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Checks whether the entry at the given row is null.
+     *
+     * @param rowIndex the index of the row.
+     * @return true if the entry is null, otherwise false.
+     */
+    public boolean isNull(int rowIndex) {
+        checkIndex(rowIndex);
+        return !validity.get(rowIndex);
+    }
+
+
+    /**
+     * Estimates the number of bytes the column occupies on the heap.
+     *
+     * @return the estimated size in bytes.
+     */
+    public long estimateMemoryUsage() {
+        return OBJECT_HEADER_BYTES + alignedArraySize(validity.size() / Long.SIZE, Long.BYTES);
+    }
+
+
+    /**
+     * Estimates the number of bytes a list of boxed Strings occupies on the heap.
+     * Every entry is counted as its own String object, as it is the case after parsing a CSV file.
+     *
+     * @param values the list of entries.
+     * @return the estimated size in bytes.
+     */
+    public static long estimateMemoryUsage(List<String> values) {
+        if (values instanceof Column column) {
+            return column.estimateMemoryUsage();
+        }
+        if (values instanceof ColumnView view) {
+            return view.estimateMemoryUsage();
+        }
+        long bytes = OBJECT_HEADER_BYTES + alignedArraySize(values.size(), REFERENCE_BYTES);
+        for (String value : values) {
+            bytes += estimateStringSize(value);
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Estimates the number of bytes a single String occupies on the heap.
+     *
+     * @param value the String (may be null).
+     * @return the estimated size in bytes.
+     */
+    protected static long estimateStringSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+        // String object with hash and coder fields plus its byte array (one byte per character for Latin-1 content)
+        return 24 + alignedArraySize(value.length(), 1);
+    }
+
+
+    /**
+     * Calculates the size of an array on the heap including its header and alignment.
+     *
+     * @param length      the number of array elements.
+     * @param elementSize the size of one element in bytes.
+     * @return the size of the array in bytes.
+     */
+    protected static long alignedArraySize(long length, int elementSize) {
+        long bytes = OBJECT_HEADER_BYTES + length * elementSize;
+        return (bytes + 7) & ~7L;
+    }
+
+
+    /**
+     * Writes the number of entries and the validity bitmap, which are read back by {@link #readValidity}.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    void writeValidity(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        long[] words = validity.toLongArray();
+        out.writeInt(words.length);
+        RelationCodec.writeLongs(out, words, words.length);
+    }
+
+
+    /**
+     * Reads the number of entries and the validity bitmap written by {@link #writeValidity}.
+     *
+     * @param in the stream to read from.
+     * @throws IOException if the stream cannot be read.
+     */
+    void readValidity(DataInputStream in) throws IOException {
+        size = in.readInt();
+        validity = BitSet.valueOf(RelationCodec.readLongs(in, in.readInt()));
+    }
+
+
+    /**
+     * Throws an exception if the given row index is outside the column.
+     *
+     * @param rowIndex the index of the row.
+     */
+    protected void checkIndex(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= size) {
+            throw new IndexOutOfBoundsException("Index " + rowIndex + " out of bounds for length " + size);
+        }
+    }
+
+
+    /**
+     * Calculates a new capacity for a growing array.
+     *
+     * @param currentCapacity the current length of the array.
+     * @param minCapacity     the minimal length that is needed.
+     * @return the new length of the array.
+     */
+    protected static int grow(int currentCapacity, int minCapacity) {
+        int newCapacity = Math.max(currentCapacity + (currentCapacity >> 1), DEFAULT_CAPACITY);
+        return Math.max(newCapacity, minCapacity);
+    }
+
+
+    /**
+     * Creates a copy of this column.
+     *
+     * @return a new Column of the same kind with the same entries.
+     */
+    public abstract Column copy();
+
+
+    /**
+     * Creates a new column containing only the entries of the given rows.
+     *
+     * @param rowIndices the indices of the rows to keep, in the order they should appear.
+     * @return a new Column of the same kind with the selected entries.
+     */
+    public abstract Column select(int[] rowIndices);
+
+
+    /**
+     * Returns the non-null entry at the given row as String.
+     *
+     * @param rowIndex the index of the row.
+     * @return the entry as String.
+     */
+    protected abstract String getValue(int rowIndex);
+
+
+    /**
+     * Stores an entry at the given row, which lies within the current size of the column.
+     * Implementations have to update the validity bitmap.
+     *
+     * @param rowIndex the index of the row.
+     * @param value    the entry to store (may be null).
+     */
+    protected abstract void store(int rowIndex, String value);
+
+
+    /**
+     * Makes sure that the column can hold at least the given number of entries.
+     *
+     * @param minCapacity the number of entries that need to fit into the column.
+     */
+    protected abstract void ensureCapacity(int minCapacity);
+}
@@ -0,0 +1,270 @@
+package org.anne_marschner_project.core.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Collects the entries of one column while a file is read and creates a typed {@link Column} out of them.
+ * Entries are interned in a {@link DictionaryColumn}, so repeating entries are stored only once.
+ * If a column turns out to have too many distinct entries, the builder falls back to a {@link StringColumn}.
+ * For inputs that do not fit into the heap, the builder can instead write the entries off-heap into a {@link MappedColumn}.
+ * While the entries are added, the builder also collects the {@link ColumnStatistics} of the column and counts
+ * the numeric entries, so the {@link Type} of the column is known without another pass.
+ * Builders of consecutive chunks of a column, which were filled in parallel, can be stitched together in order.
+ * Columns of typed input files are built with a known type, so numeric values are stored without formatting them as Strings.
+ */
+public class ColumnBuilder {
+
+    private static final int CHECK_INTERVAL = 4096; // Number of entries after which the cardinality is checked
+    public static final double MAX_DISTINCT_RATIO = 0.5; // Maximal share of distinct entries for a dictionary
+
+    private Column column; // Holds the entries that were added so far (on the heap)
+    private MappedColumnWriter writer; // Writes the added entries off-heap (null if the entries are kept on the heap)
+    private MappedColumn mappedColumn; // Holds the off-heap entries once writing is finished
+    private final ColumnStatistics statistics = new ColumnStatistics(); // Holds the statistics of the added entries
+    private int numOfNumbers = 0; // Holds the number of added entries that are numbers (including "NaN")
+    private Type nativeType; // Holds the type given by a typed input file (null if the type is determined from the entries)
+
+
+    /**
+     * Constructs a ColumnBuilder.
+     *
+     * @param expectedSize the expected number of entries, used as initial capacity.
+     */
+    public ColumnBuilder(int expectedSize) {
+        this.column = new DictionaryColumn(Math.max(expectedSize, 1));
+    }
+
+
+    /**
+     * Constructs a ColumnBuilder for a column whose type is already known, e.g. from the schema of a typed input file.
+     * Entries of {@link Type#DOUBLE} columns are stored in a {@link NumericColumn} right away.
+     *
+     * @param nativeType   the type of the column.
+     * @param expectedSize the expected number of entries, used as initial capacity.
+     */
+    public ColumnBuilder(Type nativeType, int expectedSize) {
+        this.nativeType = nativeType;
+        this.column = nativeType == Type.DOUBLE ? new NumericColumn(Math.max(expectedSize, 1)) : new DictionaryColumn(Math.max(expectedSize, 1));
+    }
+
+
+    /**
+     * Constructs a ColumnBuilder that writes the entries into memory-mapped files instead of the heap.
+     *
+     * @param scratchDirectory the directory for the column files.
+     * @throws IOException if the column files cannot be created.
+     */
+    public ColumnBuilder(Path scratchDirectory) throws IOException {
+        this.writer = new MappedColumnWriter(scratchDirectory);
+    }
+
+
+    /**
+     * Appends an entry to the column.
+     *
+     * @param value the entry to add (may be null).
+     * @throws UncheckedIOException if an off-heap entry cannot be written.
+     */
+    public void append(String value) {
+        double numericValue = NumberParser.parseDouble(value);
+        if (!Double.isNaN(numericValue) || NumberParser.isNumber(value)) {
+            numOfNumbers++;
+        }
+        statistics.add(value, numericValue);
+        store(value);
+    }
+
+
+    /**
+     * Appends a decimal entry given by its digits and number of decimal places to a {@link Type#DOUBLE} column.
+     *
+     * @param unscaled the digits of the decimal as long value.
+     * @param scale    the number of decimal places (0 to 18).
+     * @throws IllegalStateException if the builder was not created for a {@link Type#DOUBLE} column.
+     */
+    public void appendDecimal(long unscaled, int scale) {
+        numericColumn().addDecimal(unscaled, scale);
+        numOfNumbers++;
+        statistics.addNumber(scale == 0 ? unscaled : unscaled / Math.pow(10, scale));
+    }
+
+
+    /**
+     * Appends a double entry to a {@link Type#DOUBLE} column.
+     *
+     * @param value the entry to add.
+     * @throws IllegalStateException if the builder was not created for a {@link Type#DOUBLE} column.
+     */
+    public void appendDouble(double value) {
+        numericColumn().addDouble(value);
+        numOfNumbers++;
+        statistics.addNumber(value);
+    }
+
+
+    /**
+     * Appends a float entry to a {@link Type#DOUBLE} column.
+     *
+     * @param value the entry to add.
+     * @throws IllegalStateException if the builder was not created for a {@link Type#DOUBLE} column.
+     */
+    public void appendFloat(float value) {
+        numericColumn().addFloat(value);
+        numOfNumbers++;
+        statistics.addNumber(value);
+    }
+
+
+    /**
+     * Returns the column of a builder that was created for a {@link Type#DOUBLE} column.
+     *
+     * @return the numeric column.
+     * @throws IllegalStateException if the builder holds no numeric column.
+     */
+    private NumericColumn numericColumn() {
+        if (!(column instanceof NumericColumn numericColumn)) {
+            throw new IllegalStateException("Numeric entries can only be appended to a column of type DOUBLE.");
+        }
+        return numericColumn;
+    }
+
+
+    /**
+     * Appends all entries of the builder of the following chunk of the column. Its statistics and counts are merged,
+     * so the result is the same as if the entries had been appended one by one.
+     *
+     * @param chunk the builder of the next chunk (is not changed).
+     * @throws UncheckedIOException if an off-heap entry cannot be written or read.
+     */
+    public void appendAll(ColumnBuilder chunk) {
+        statistics.merge(chunk.statistics);
+        numOfNumbers += chunk.numOfNumbers;
+        List<String> values = chunk.values();
+        for (int rowIndex = 0; rowIndex < values.size(); rowIndex++) {
+            store(values.get(rowIndex));
+        }
+    }
+
+
+    /**
+     * Stores an entry in the heap column or off-heap.
+     *
+     * @param value the entry to store (may be null).
+     * @throws UncheckedIOException if an off-heap entry cannot be written.
+     */
+    private void store(String value) {
+        if (writer != null) {
+            try {
+                writer.append(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+        column.add(value);
+
+        // Stop using a dictionary if most entries are distinct
+        if (column.size() % CHECK_INTERVAL == 0 && column instanceof DictionaryColumn dictionaryColumn
+                && dictionaryColumn.getCardinality() > column.size() * MAX_DISTINCT_RATIO) {
+            StringColumn stringColumn = new StringColumn(column.size() * 2);
+            stringColumn.addAll(column);
+            column = stringColumn;
+        }
+    }
+
+
+    /**
+     * Returns the entries that were added so far, e.g. to determine the type of the column.
+     *
+     * @return the entries as list.
+     */
+    public List<String> values() {
+        if (writer == null) {
+            return column;
+        }
+        if (mappedColumn == null) {
+            try {
+                mappedColumn = writer.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return mappedColumn;
+    }
+
+
+    /**
+     * Returns the statistics of the entries that were added so far.
+     *
+     * @return the statistics of the column.
+     */
+    public ColumnStatistics getStatistics() {
+        return statistics;
+    }
+
+
+    /**
+     * Determines the type of the column from the entries that were counted while they were added,
+     * or returns the type the builder was created with.
+     *
+     * @return the type of the column, see {@link Type#fromCounts(long, long)}.
+     */
+    public Type determineType() {
+        if (nativeType != null) {
+            return nativeType;
+        }
+        return Type.fromCounts(numOfNumbers, statistics.getRowCount());
+    }
+
+
+    /**
+     * Creates the final column for the given type.
+     * Off-heap columns are returned as {@link ColumnView}, so that later changes do not touch the mapped files.
+     *
+     * @param type the type of the column.
+     * @return the entries as list.
+     */
+    public List<String> build(Type type) {
+        if (writer != null) {
+            return ColumnView.of(values());
+        }
+        return buildColumn(type);
+    }
+
+
+    /**
+     * Creates the final heap column for the given type.
+     *
+     * @param type the type of the column.
+     * @return a {@link NumericColumn} for {@link Type#DOUBLE} columns, otherwise the dictionary or String column.
+     */
+    Column buildColumn(Type type) {
+        if (column instanceof NumericColumn) {
+            return type == Type.DOUBLE ? column : Column.of(column, type);
+        }
+        if (type != Type.DOUBLE) {
+            return column;
+        }
+        NumericColumn numericColumn = new NumericColumn(column.size());
+        if (!(column instanceof DictionaryColumn dictionaryColumn)) {
+            numericColumn.addAll(column);
+            return numericColumn;
+        }
+
+        // Encode each distinct entry only once and copy the encoded value into every row
+        NumericColumn encodedDictionary = new NumericColumn(dictionaryColumn.getCardinality());
+        encodedDictionary.addAll(dictionaryColumn.getDictionary());
+        for (int rowIndex = 0; rowIndex < dictionaryColumn.size(); rowIndex++) {
+            int code = dictionaryColumn.getCode(rowIndex);
+            if (code < 0) {
+                numericColumn.add(null);
+            } else {
+                numericColumn.appendFrom(encodedDictionary, code);
+            }
+        }
+        return numericColumn;
+    }
+}
@@ -0,0 +1,335 @@
+package org.anne_marschner_project.core.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Holds statistics of one column of a {@link Relation}: the number of rows, the number of null or empty entries,
+ * minimum, maximum, mean and variance of the numeric entries, and an approximate number of distinct entries.
+ * The statistics are collected in one pass over the entries (mean and variance with Welford's algorithm,
+ * the distinct count with a HyperLogLog sketch), so they can be computed while a file is read.
+ * Once collected, the statistics cannot be changed from outside the package and can be shared between relations.
+ */
+public class ColumnStatistics {
+
+    private static final int PRECISION = 11; // Number of hash bits that select a register of the sketch
+    private static final int NUM_OF_REGISTERS = 1 << PRECISION; // Number of registers (relative error of about 2.3%)
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / NUM_OF_REGISTERS); // Bias correction of the estimate
+
+    private int rowCount = 0; // Holds the number of entries
+    private int emptyCount = 0; // Holds the number of null or empty entries
+    private int numericCount = 0; // Holds the number of numeric entries (NaN is not counted)
+    private double min = Double.NaN; // Holds the smallest numeric entry
+    private double max = Double.NaN; // Holds the largest numeric entry
+    private double mean = 0.0; // Holds the running mean of the numeric entries
+    private double sumOfSquaredDeviations = 0.0; // Holds the running sum of squared deviations from the mean
+    private final byte[] registers = new byte[NUM_OF_REGISTERS]; // Holds the registers of the distinct count sketch
+
+
+    /**
+     * Collects the statistics of a column in one pass. Typed columns provide their numeric values without parsing.
+     *
+     * @param column the entries of the column.
+     * @return the statistics of the column.
+     */
+    public static ColumnStatistics of(List<String> column) {
+        ColumnStatistics statistics = new ColumnStatistics();
+        for (int rowIndex = 0; rowIndex < column.size(); rowIndex++) {
+            statistics.add(column.get(rowIndex), NumberParser.valueAt(column, rowIndex));
+        }
+        return statistics;
+    }
+
+
+    /**
+     * Adds an entry to the statistics.
+     *
+     * @param value the entry to add (may be null).
+     */
+    void add(String value) {
+        add(value, NumberParser.parseDouble(value));
+    }
+
+
+    /**
+     * Adds an entry with its already known numeric value to the statistics.
+     *
+     * @param value        the entry to add (may be null).
+     * @param numericValue the numeric value of the entry, or NaN if the entry is not a number.
+     */
+    void add(String value, double numericValue) {
+        rowCount++;
+        if (value == null || value.isEmpty()) {
+            emptyCount++;
+            return;
+        }
+        addToSketch(hash(value));
+
+        if (!Double.isNaN(numericValue)) {
+            addToMoments(numericValue);
+        }
+    }
+
+
+    /**
+     * Adds a numeric entry that is not available as String, e.g. a value of a typed input file.
+     * The distinct count sketch hashes the bits of the value instead of its characters.
+     *
+     * @param numericValue the numeric value of the entry.
+     */
+    void addNumber(double numericValue) {
+        rowCount++;
+        addToSketch(mix(Double.doubleToLongBits(numericValue + 0.0)));
+        if (!Double.isNaN(numericValue)) {
+            addToMoments(numericValue);
+        }
+    }
+
+
+    /**
+     * Adds a numeric entry to minimum, maximum, mean and variance.
+     *
+     * @param numericValue the numeric value (not NaN).
+     */
+    private void addToMoments(double numericValue) {
+
+        // Update minimum, maximum, mean and sum of squared deviations (Welford)
+        numericCount++;
+        if (numericCount == 1) {
+            min = numericValue;
+            max = numericValue;
+        } else {
+            min = Math.min(min, numericValue);
+            max = Math.max(max, numericValue);
+        }
+        double deviation = numericValue - mean;
+        mean += deviation / numericCount;
+        sumOfSquaredDeviations += deviation * (numericValue - mean);
+    }
+
+
+    /**
+     * Adds the statistics of another part of the same column, e.g. of a chunk that was read in parallel.
+     * Mean and variance are combined with the parallel form of Welford's algorithm, the sketches by their registers.
+     *
+     * @param other the statistics of the entries that follow the entries of these statistics.
+     */
+    void merge(ColumnStatistics other) {
+        rowCount += other.rowCount;
+        emptyCount += other.emptyCount;
+        for (int i = 0; i < NUM_OF_REGISTERS; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+        if (other.numericCount == 0) {
+            return;
+        }
+        if (numericCount == 0) {
+            numericCount = other.numericCount;
+            min = other.min;
+            max = other.max;
+            mean = other.mean;
+            sumOfSquaredDeviations = other.sumOfSquaredDeviations;
+            return;
+        }
+
+        // Combine mean and sum of squared deviations of both parts (Chan et al.)
+        double totalCount = (double) numericCount + other.numericCount;
+        double deviation = other.mean - mean;
+        sumOfSquaredDeviations += other.sumOfSquaredDeviations + deviation * deviation * numericCount * other.numericCount / totalCount;
+        mean += deviation * other.numericCount / totalCount;
+        numericCount += other.numericCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+
+    /**
+     * Writes the statistics in the binary form of the {@link RelationCodec}.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(rowCount);
+        out.writeInt(emptyCount);
+        out.writeInt(numericCount);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeDouble(mean);
+        out.writeDouble(sumOfSquaredDeviations);
+        out.write(registers);
+    }
+
+
+    /**
+     * Reads statistics written by {@link #writeTo}.
+     *
+     * @param in the stream to read from.
+     * @return the statistics.
+     * @throws IOException if the stream cannot be read.
+     */
+    static ColumnStatistics readFrom(DataInputStream in) throws IOException {
+        ColumnStatistics statistics = new ColumnStatistics();
+        statistics.rowCount = in.readInt();
+        statistics.emptyCount = in.readInt();
+        statistics.numericCount = in.readInt();
+        statistics.min = in.readDouble();
+        statistics.max = in.readDouble();
+        statistics.mean = in.readDouble();
+        statistics.sumOfSquaredDeviations = in.readDouble();
+        in.readFully(statistics.registers);
+        return statistics;
+    }
+
+
+    /**
+     * Returns the number of entries of the column.
+     *
+     * @return the number of rows.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+
+    /**
+     * Returns the number of entries that are null or empty.
+     *
+     * @return the number of null or empty entries.
+     */
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+
+    /**
+     * Returns the number of numeric entries.
+     *
+     * @return the number of entries that can be read as number.
+     */
+    public int getNumericCount() {
+        return numericCount;
+    }
+
+
+    /**
+     * Returns the smallest numeric entry.
+     *
+     * @return the minimum, or NaN if the column has no numeric entries.
+     */
+    public double getMin() {
+        return min;
+    }
+
+
+    /**
+     * Returns the largest numeric entry.
+     *
+     * @return the maximum, or NaN if the column has no numeric entries.
+     */
+    public double getMax() {
+        return max;
+    }
+
+
+    /**
+     * Returns the mean of the numeric entries.
+     *
+     * @return the mean, or 0.0 if the column has no numeric entries.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+
+    /**
+     * Returns the (population) variance of the numeric entries.
+     *
+     * @return the variance, or 0.0 if the column has no numeric entries.
+     */
+    public double getVariance() {
+        return numericCount == 0 ? 0.0 : sumOfSquaredDeviations / numericCount;
+    }
+
+
+    /**
+     * Returns the (population) standard deviation of the numeric entries.
+     *
+     * @return the standard deviation, or 0.0 if the column has no numeric entries.
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+
+    /**
+     * Returns the approximate number of distinct entries. Null and empty entries are not counted.
+     *
+     * @return the estimated number of distinct entries.
+     */
+    public long getDistinctCount() {
+        double sum = 0;
+        int numOfEmptyRegisters = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                numOfEmptyRegisters++;
+            }
+        }
+        double estimate = ALPHA * NUM_OF_REGISTERS * NUM_OF_REGISTERS / sum;
+
+        // Small numbers of distinct entries are counted more exactly by the number of empty registers
+        if (estimate <= 2.5 * NUM_OF_REGISTERS && numOfEmptyRegisters > 0) {
+            estimate = NUM_OF_REGISTERS * Math.log((double) NUM_OF_REGISTERS / numOfEmptyRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+
+    /**
+     * Adds an entry to the distinct count sketch. The first bits of the hash select a register,
+     * which keeps the highest position of the first set bit among the remaining bits.
+     *
+     * @param hash the 64-bit hash of the entry.
+     */
+    private void addToSketch(long hash) {
+        int registerIndex = (int) (hash >>> (Long.SIZE - PRECISION));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (rank > registers[registerIndex]) {
+            registers[registerIndex] = rank;
+        }
+    }
+
+
+    /**
+     * Calculates a 64-bit hash of an entry (FNV-1a over the characters, followed by the finalizer of MurmurHash3).
+     *
+     * @param value the entry to hash.
+     * @return the hash of the entry.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+
+    /**
+     * Spreads the bits of a value over the whole hash (finalizer of MurmurHash3).
+     *
+     * @param hash the value to mix.
+     * @return the mixed hash.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
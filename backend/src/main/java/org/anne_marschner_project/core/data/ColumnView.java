@@ -0,0 +1,228 @@
+package org.anne_marschner_project.core.data;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Represents the entries of a column as a view over a shared base column, so that splitting a {@link Relation}
+ * does not copy any data. The view either shows all rows of the base column (column projection) or
+ * only the rows of a row-selection vector.
+ * The base column is never changed by a view. Written entries are kept in the view itself (copy-on-write),
+ * and once many entries were written the view copies the selected rows into its own column.
+ */
+public class ColumnView extends AbstractList<String> implements RandomAccess {
+
+    private static final int MIN_ENTRIES_TO_MATERIALIZE = 64; // Minimal number of written entries before the view copies its rows
+    private static final double MAX_WRITTEN_RATIO = 0.25; // Maximal share of written entries before the view copies its rows
+
+    private List<String> base; // Holds the column the view reads from
+    private int[] rowIndices; // Holds the rows of the base column shown by the view (null if all rows are shown)
+    private Map<Integer, String> writtenEntries = new HashMap<>(); // Holds the entries that were written to the view
+    private boolean ownsBase = false; // Whether the base column is a private copy that can be written directly
+
+
+    /**
+     * Constructs a view over a base column.
+     *
+     * @param base       the column the view reads from.
+     * @param rowIndices the rows of the base column shown by the view, or null to show all rows.
+     */
+    private ColumnView(List<String> base, int[] rowIndices) {
+        this.base = base;
+        this.rowIndices = rowIndices;
+    }
+
+
+    /**
+     * Creates a view that shows all rows of a column (column projection).
+     * The column itself is not changed by writes to the view.
+     *
+     * @param column the column to be shared.
+     * @return a view over the given column.
+     */
+    public static ColumnView of(List<String> column) {
+        if (column instanceof ColumnView view && view.isUnchanged()) {
+            return new ColumnView(view.base, view.rowIndices);
+        }
+        return new ColumnView(column, null);
+    }
+
+
+    /**
+     * Creates a view that shows the given rows of a column (row selection).
+     * If the column is an unchanged view itself, the new view reads directly from its base column.
+     *
+     * @param column     the column to be shared.
+     * @param rowIndices the rows of the column shown by the view, in the order they should appear.
+     * @return a view over the selected rows of the given column.
+     */
+    public static ColumnView select(List<String> column, int[] rowIndices) {
+        if (column instanceof ColumnView view && view.isUnchanged()) {
+            if (view.rowIndices == null) {
+                return new ColumnView(view.base, rowIndices);
+            }
+
+            // Translate the selected rows into rows of the base column
+            int[] baseRowIndices = new int[rowIndices.length];
+            for (int i = 0; i < rowIndices.length; i++) {
+                baseRowIndices[i] = view.rowIndices[rowIndices[i]];
+            }
+            return new ColumnView(view.base, baseRowIndices);
+        }
+        return new ColumnView(column, rowIndices);
+    }
+
+
+    /**
+     * Returns the entry at the given row. Written entries are returned instead of the entries of the base column.
+     *
+     * @param rowIndex the index of the row.
+     * @return the entry as String.
+     */
+    @Override
+    public String get(int rowIndex) {
+        checkIndex(rowIndex);
+        if (!writtenEntries.isEmpty() && writtenEntries.containsKey(rowIndex)) {
+            return writtenEntries.get(rowIndex);
+        }
+        return base.get(rowIndices == null ? rowIndex : rowIndices[rowIndex]);
+    }
+
+
+    /**
+     * Replaces the entry at the given row without changing the base column.
+     *
+     * @param rowIndex the index of the row.
+     * @param value    the new entry.
+     * @return the previous entry at the given row.
+     */
+    @Override
+    public String set(int rowIndex, String value) {
+        if (ownsBase) {
+            return base.set(rowIndex, value);
+        }
+        String previous = get(rowIndex);
+        writtenEntries.put(rowIndex, value);
+
+        // Copy the rows once too many entries were written
+        if (writtenEntries.size() >= MIN_ENTRIES_TO_MATERIALIZE && writtenEntries.size() > size() * MAX_WRITTEN_RATIO) {
+            materialize();
+        }
+        return previous;
+    }
+
+
+    /**
+     * Returns the entry at the given row as double. Unchanged entries of a {@link NumericColumn} are not parsed again.
+     *
+     * @param rowIndex the index of the row.
+     * @return the numeric value of the entry, or NaN if the entry is not a number.
+     */
+    public double getDouble(int rowIndex) {
+        checkIndex(rowIndex);
+        if (!writtenEntries.isEmpty() && writtenEntries.containsKey(rowIndex)) {
+            return NumberParser.parseDouble(writtenEntries.get(rowIndex));
+        }
+        return NumberParser.valueAt(base, rowIndices == null ? rowIndex : rowIndices[rowIndex]);
+    }
+
+
+    /**
+     * Returns the number of rows shown by the view.
+     *
+     * @return the number of rows.
+     */
+    @Override
+    public int size() {
+        return rowIndices == null ? base.size() : rowIndices.length;
+    }
+
+
+    /**
+     * Creates a copy of this view that shares the same base column but has its own written entries.
+     *
+     * @return a new view with the same entries.
+     */
+    public ColumnView copy() {
+        if (ownsBase) {
+            ColumnView copy = new ColumnView(Column.copyOf(base), null);
+            copy.ownsBase = true;
+            return copy;
+        }
+        ColumnView copy = new ColumnView(base, rowIndices);
+        copy.writtenEntries.putAll(writtenEntries);
+        return copy;
+    }
+
+
+    /**
+     * Estimates the number of bytes the view itself occupies on the heap. The shared base column is not counted,
+     * unless it is a private copy of the view.
+     *
+     * @return the estimated size in bytes.
+     */
+    public long estimateMemoryUsage() {
+        long bytes = Column.OBJECT_HEADER_BYTES;
+        if (rowIndices != null) {
+            bytes += Column.alignedArraySize(rowIndices.length, Integer.BYTES);
+        }
+        if (ownsBase) {
+            bytes += Column.estimateMemoryUsage(base);
+        }
+
+        // Each written entry needs a map node, a boxed index and the String itself
+        for (String value : writtenEntries.values()) {
+            bytes += 32 + 16 + Column.estimateStringSize(value);
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Checks whether no entry was written to the view, so that it still shows the entries of its base column.
+     *
+     * @return true if the view shows the unchanged entries of its base column.
+     */
+    private boolean isUnchanged() {
+        return !ownsBase && writtenEntries.isEmpty();
+    }
+
+
+    /**
+     * Copies the shown rows and the written entries into a private column of the view.
+     * Typed columns stay typed.
+     */
+    private void materialize() {
+        List<String> ownColumn;
+        if (base instanceof Column column) {
+            ownColumn = (rowIndices == null) ? column.copy() : column.select(rowIndices);
+        } else {
+            ownColumn = new StringColumn(size());
+            for (int i = 0; i < size(); i++) {
+                ownColumn.add(base.get(rowIndices == null ? i : rowIndices[i]));
+            }
+        }
+        for (Map.Entry<Integer, String> entry : writtenEntries.entrySet()) {
+            ownColumn.set(entry.getKey(), entry.getValue());
+        }
+        base = ownColumn;
+        rowIndices = null;
+        writtenEntries = new HashMap<>();
+        ownsBase = true;
+    }
+
+
+    /**
+     * Throws an exception if the given row index is outside the view.
+     *
+     * @param rowIndex the index of the row.
+     */
+    private void checkIndex(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= size()) {
+            throw new IndexOutOfBoundsException("Index " + rowIndex + " out of bounds for length " + size());
+        }
+    }
+}
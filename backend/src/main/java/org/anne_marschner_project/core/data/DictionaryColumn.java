@@ -0,0 +1,230 @@
+package org.anne_marschner_project.core.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Column} for entries of {@link Type#STRING} columns.
+ * Every distinct entry is stored only once in a dictionary and each row holds the int code of its entry.
+ */
+public class DictionaryColumn extends Column {
+
+    private int[] codes; // Holds the dictionary code of the entry in each row
+    private final List<String> dictionary; // Holds the distinct entries, the code is the position
+    private final Map<String, Integer> codeByValue; // Maps each distinct entry to its code
+
+
+    /**
+     * Constructs an empty DictionaryColumn.
+     */
+    public DictionaryColumn() {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Constructs an empty DictionaryColumn with space for the given number of entries.
+     *
+     * @param initialCapacity the number of entries the column can hold before it has to grow.
+     */
+    public DictionaryColumn(int initialCapacity) {
+        this.codes = new int[initialCapacity];
+        this.dictionary = new ArrayList<>();
+        this.codeByValue = new HashMap<>();
+    }
+
+
+    /**
+     * Constructs an empty DictionaryColumn that starts with a copy of the dictionary of another column.
+     *
+     * @param initialCapacity the number of entries the column can hold before it has to grow.
+     * @param other           the column whose dictionary is copied.
+     */
+    private DictionaryColumn(int initialCapacity, DictionaryColumn other) {
+        this.codes = new int[initialCapacity];
+        this.dictionary = new ArrayList<>(other.dictionary);
+        this.codeByValue = new HashMap<>(other.codeByValue);
+    }
+
+
+    /**
+     * Returns the dictionary code of the entry at the given row.
+     *
+     * @param rowIndex the index of the row.
+     * @return the code of the entry, or -1 if the entry is null.
+     */
+    public int getCode(int rowIndex) {
+        checkIndex(rowIndex);
+        return validity.get(rowIndex) ? codes[rowIndex] : -1;
+    }
+
+
+    /**
+     * Returns the distinct entries of the column. The position of an entry is its code.
+     * The dictionary can contain entries that are no longer used after entries were replaced.
+     *
+     * @return an unmodifiable view of the dictionary.
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+
+    /**
+     * Returns the number of distinct entries in the dictionary.
+     *
+     * @return the size of the dictionary.
+     */
+    public int getCardinality() {
+        return dictionary.size();
+    }
+
+
+    /**
+     * Creates a copy of this column.
+     *
+     * @return a new DictionaryColumn with the same entries.
+     */
+    @Override
+    public DictionaryColumn copy() {
+        DictionaryColumn copy = new DictionaryColumn(0, this);
+        copy.codes = Arrays.copyOf(codes, size);
+        copy.validity = (BitSet) validity.clone();
+        copy.size = size;
+        return copy;
+    }
+
+
+    /**
+     * Creates a new column containing only the entries of the given rows.
+     * The new column uses the same codes as this column.
+     *
+     * @param rowIndices the indices of the rows to keep, in the order they should appear.
+     * @return a new DictionaryColumn with the selected entries.
+     */
+    @Override
+    public DictionaryColumn select(int[] rowIndices) {
+        DictionaryColumn selection = new DictionaryColumn(rowIndices.length, this);
+        for (int i = 0; i < rowIndices.length; i++) {
+            checkIndex(rowIndices[i]);
+            selection.codes[i] = codes[rowIndices[i]];
+            selection.validity.set(i, validity.get(rowIndices[i]));
+        }
+        selection.size = rowIndices.length;
+        return selection;
+    }
+
+
+    /**
+     * Writes the dictionary and the codes in the binary form of the {@link RelationCodec}.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        writeValidity(out);
+        out.writeInt(dictionary.size());
+        for (String value : dictionary) {
+            RelationCodec.writeString(out, value);
+        }
+        RelationCodec.writeInts(out, codes, size);
+    }
+
+
+    /**
+     * Reads a column written by {@link #writeTo}.
+     *
+     * @param in the stream to read from.
+     * @return the column.
+     * @throws IOException if the stream cannot be read.
+     */
+    static DictionaryColumn readFrom(DataInputStream in) throws IOException {
+        DictionaryColumn column = new DictionaryColumn(0);
+        column.readValidity(in);
+        int cardinality = in.readInt();
+        for (int code = 0; code < cardinality; code++) {
+            String value = RelationCodec.readString(in);
+            column.dictionary.add(value);
+            column.codeByValue.put(value, code);
+        }
+        column.codes = RelationCodec.readInts(in, column.size);
+        return column;
+    }
+
+
+    /**
+     * Estimates the number of bytes the column occupies on the heap.
+     *
+     * @return the estimated size in bytes.
+     */
+    @Override
+    public long estimateMemoryUsage() {
+        long bytes = super.estimateMemoryUsage()
+                + alignedArraySize(codes.length, Integer.BYTES)
+                + OBJECT_HEADER_BYTES + alignedArraySize(dictionary.size(), REFERENCE_BYTES)
+                + OBJECT_HEADER_BYTES + alignedArraySize(Integer.highestOneBit(Math.max(dictionary.size(), 1)) * 2L, REFERENCE_BYTES);
+
+        // Each distinct entry is stored once and needs a map node and a boxed code
+        for (String value : dictionary) {
+            bytes += estimateStringSize(value) + 32 + 16;
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Returns the non-null entry at the given row as String.
+     *
+     * @param rowIndex the index of the row.
+     * @return the entry as String.
+     */
+    @Override
+    protected String getValue(int rowIndex) {
+        return dictionary.get(codes[rowIndex]);
+    }
+
+
+    /**
+     * Stores the code of an entry at the given row and adds the entry to the dictionary if it is new.
+     *
+     * @param rowIndex the index of the row.
+     * @param value    the entry to store (may be null).
+     */
+    @Override
+    protected void store(int rowIndex, String value) {
+        if (value == null) {
+            validity.clear(rowIndex);
+            codes[rowIndex] = 0;
+            return;
+        }
+        validity.set(rowIndex);
+        Integer code = codeByValue.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            codeByValue.put(value, code);
+        }
+        codes[rowIndex] = code;
+    }
+
+
+    /**
+     * Makes sure that the column can hold at least the given number of entries.
+     *
+     * @param minCapacity the number of entries that need to fit into the column.
+     */
+    @Override
+    protected void ensureCapacity(int minCapacity) {
+        if (minCapacity > codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length, minCapacity));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.anne_marschner_project.core.data;
+
+import org.anne_marschner_project.core.noise.RowNoise;
+
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the datasets a job generated from its input relation, together with the options needed to write them.
+ * The datasets are processed completely before anything is written, so they can be written either into files
+ * or directly into the ZIP archive of the response.
+ */
+public class GeneratedDatasets {
+
+    private final Relation inputRelation; // Holds the input relation the datasets were generated from
+    private final List<Dataset> datasets; // Holds the processed datasets in the order of their identifiers
+    private final String[] shuffleTypes; // Holds the shuffle type of each dataset
+    private final char separator; // Holds the separator of the written CSV files
+    private final char quoteChar; // Holds the quote character of the written CSV files
+    private final OutputFormat outputFormat; // Holds the format the relations are written in
+    private final Map<Relation, RowNoise> rowNoises; // Holds the row noise that is applied while a relation is written
+    private final Path scratchDirectory; // Holds the directory for the scratch files of the job (null to use the default one)
+
+
+    /**
+     * Constructs a GeneratedDatasets object.
+     *
+     * @param inputRelation the input relation the datasets were generated from.
+     * @param datasets      the processed datasets.
+     * @param shuffleTypes  the shuffle type of each dataset ("Shuffle Columns", "Shuffle Rows", or "No Change").
+     * @param separator     the separator of the written CSV files.
+     * @param quoteChar     the quote character of the written CSV files.
+     */
+    public GeneratedDatasets(Relation inputRelation, List<Dataset> datasets, String[] shuffleTypes, char separator, char quoteChar) {
+        this(inputRelation, datasets, shuffleTypes, separator, quoteChar, OutputFormat.CSV);
+    }
+
+
+    /**
+     * Constructs a GeneratedDatasets object whose relations are written in the given format.
+     *
+     * @param inputRelation the input relation the datasets were generated from.
+     * @param datasets      the processed datasets.
+     * @param shuffleTypes  the shuffle type of each dataset ("Shuffle Columns", "Shuffle Rows", or "No Change").
+     * @param separator     the separator of the written CSV files.
+     * @param quoteChar     the quote character of the written CSV files.
+     * @param outputFormat  the format the relations are written in.
+     */
+    public GeneratedDatasets(Relation inputRelation, List<Dataset> datasets, String[] shuffleTypes, char separator, char quoteChar,
+                             OutputFormat outputFormat) {
+        this(inputRelation, datasets, shuffleTypes, separator, quoteChar, outputFormat, new IdentityHashMap<>());
+    }
+
+
+    /**
+     * Constructs a GeneratedDatasets object whose relations are written in the given format, and whose row noise
+     * is applied while the relations are written (pipelined generation).
+     *
+     * @param inputRelation the input relation the datasets were generated from.
+     * @param datasets      the processed datasets.
+     * @param shuffleTypes  the shuffle type of each dataset ("Shuffle Columns", "Shuffle Rows", or "No Change").
+     * @param separator     the separator of the written CSV files.
+     * @param quoteChar     the quote character of the written CSV files.
+     * @param outputFormat  the format the relations are written in.
+     * @param rowNoises     the planned row noise of the relations that still have to receive it.
+     */
+    public GeneratedDatasets(Relation inputRelation, List<Dataset> datasets, String[] shuffleTypes, char separator, char quoteChar,
+                             OutputFormat outputFormat, Map<Relation, RowNoise> rowNoises) {
+        this(inputRelation, datasets, shuffleTypes, separator, quoteChar, outputFormat, rowNoises, null);
+    }
+
+
+    /**
+     * Constructs a GeneratedDatasets object whose scratch files (e.g. of the row shuffle) are written into the
+     * directory of its job.
+     *
+     * @param inputRelation    the input relation the datasets were generated from.
+     * @param datasets         the processed datasets.
+     * @param shuffleTypes     the shuffle type of each dataset ("Shuffle Columns", "Shuffle Rows", or "No Change").
+     * @param separator        the separator of the written CSV files.
+     * @param quoteChar        the quote character of the written CSV files.
+     * @param outputFormat     the format the relations are written in.
+     * @param rowNoises        the planned row noise of the relations that still have to receive it.
+     * @param scratchDirectory the directory for the scratch files of the job, or null to use the default one.
+     */
+    public GeneratedDatasets(Relation inputRelation, List<Dataset> datasets, String[] shuffleTypes, char separator, char quoteChar,
+                             OutputFormat outputFormat, Map<Relation, RowNoise> rowNoises, Path scratchDirectory) {
+        this.inputRelation = inputRelation;
+        this.datasets = datasets;
+        this.shuffleTypes = shuffleTypes;
+        this.separator = separator;
+        this.quoteChar = quoteChar;
+        this.outputFormat = outputFormat;
+        this.rowNoises = rowNoises;
+        this.scratchDirectory = scratchDirectory;
+    }
+
+
+    /**
+     * Returns the input relation the datasets were generated from.
+     *
+     * @return the input relation.
+     */
+    public Relation getInputRelation() {
+        return inputRelation;
+    }
+
+
+    /**
+     * Returns the processed datasets.
+     *
+     * @return the list of datasets.
+     */
+    public List<Dataset> getDatasets() {
+        return datasets;
+    }
+
+
+    /**
+     * Returns the shuffle type of a dataset.
+     *
+     * @param index the index of the dataset.
+     * @return the shuffle type.
+     */
+    public String getShuffleType(int index) {
+        return shuffleTypes[index];
+    }
+
+
+    /**
+     * Returns the separator of the written CSV files.
+     *
+     * @return the separator.
+     */
+    public char getSeparator() {
+        return separator;
+    }
+
+
+    /**
+     * Returns the quote character of the written CSV files.
+     *
+     * @return the quote character.
+     */
+    public char getQuoteChar() {
+        return quoteChar;
+    }
+
+
+    /**
+     * Returns the format the relations are written in.
+     *
+     * @return the output format.
+     */
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+
+    /**
+     * Returns the planned row noise of a relation, which is applied while the relation is written.
+     *
+     * @param relation a relation of the datasets.
+     * @return the row noise, or null if the relation already received its noise.
+     */
+    public RowNoise getRowNoise(Relation relation) {
+        return rowNoises.get(relation);
+    }
+
+
+    /**
+     * Returns the directory for the scratch files of the job.
+     *
+     * @return the directory, or null if the default one is used.
+     */
+    public Path getScratchDirectory() {
+        return scratchDirectory;
+    }
+}
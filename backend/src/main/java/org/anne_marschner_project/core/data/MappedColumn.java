@@ -0,0 +1,142 @@
+package org.anne_marschner_project.core.data;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Represents the entries of a column that are stored off-heap in memory-mapped files.
+ * The entries are kept UTF-8 encoded one after another in a data file, and an offsets file holds
+ * the end position of each entry. Only the parts of the files that are read are loaded by the operating system,
+ * so columns larger than the heap can be processed.
+ * A MappedColumn is read-only. Use a {@link ColumnView} on top of it to change entries.
+ * MappedColumns are created with a {@link MappedColumnWriter}.
+ */
+public class MappedColumn extends AbstractList<String> implements RandomAccess {
+
+    private static final int DATA_CHUNK_BYTES = 1 << 30; // Size of one mapped part of the data file
+    private static final int OFFSETS_PER_CHUNK = 1 << 27; // Number of offsets in one mapped part of the offsets file
+
+    private final MappedByteBuffer[] dataChunks; // Holds the mapped parts of the data file
+    private final MappedByteBuffer[] offsetChunks; // Holds the mapped parts of the offsets file
+    private final int size; // Holds the number of entries in the column
+
+
+    /**
+     * Maps the files of a column that were written by a {@link MappedColumnWriter}.
+     *
+     * @param dataFile    the file with the encoded entries.
+     * @param dataLength  the number of bytes in the data file.
+     * @param offsetsFile the file with the end position of each entry.
+     * @param size        the number of entries in the column.
+     * @throws IOException if the files cannot be mapped.
+     */
+    MappedColumn(Path dataFile, long dataLength, Path offsetsFile, int size) throws IOException {
+        this.size = size;
+        this.dataChunks = map(dataFile, dataLength, DATA_CHUNK_BYTES);
+        this.offsetChunks = map(offsetsFile, (long) size * Long.BYTES, OFFSETS_PER_CHUNK * Long.BYTES);
+    }
+
+
+    /**
+     * Returns the entry at the given row by decoding it from the data file.
+     *
+     * @param rowIndex the index of the row.
+     * @return the entry as String, or null if the entry is null.
+     */
+    @Override
+    public String get(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= size) {
+            throw new IndexOutOfBoundsException("Index " + rowIndex + " out of bounds for length " + size);
+        }
+        long end = readOffset(rowIndex);
+        if (end < 0) {
+            return null;
+        }
+        long start = (rowIndex == 0) ? 0 : decodeOffset(readOffset(rowIndex - 1));
+        return new String(readBytes(start, (int) (end - start)), StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Returns the number of entries in the column.
+     *
+     * @return the number of rows.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Reads the stored end position of an entry.
+     * Null entries are stored as negative value (-end - 1).
+     *
+     * @param rowIndex the index of the row.
+     * @return the stored end position.
+     */
+    private long readOffset(int rowIndex) {
+        return offsetChunks[rowIndex / OFFSETS_PER_CHUNK].getLong((rowIndex % OFFSETS_PER_CHUNK) * Long.BYTES);
+    }
+
+
+    /**
+     * Returns the end position of an entry, no matter if the entry is null.
+     *
+     * @param offset the stored end position.
+     * @return the end position in the data file.
+     */
+    static long decodeOffset(long offset) {
+        return offset < 0 ? -offset - 1 : offset;
+    }
+
+
+    /**
+     * Copies bytes out of the data file. The bytes can span several mapped parts.
+     *
+     * @param start  the position of the first byte.
+     * @param length the number of bytes to read.
+     * @return the read bytes.
+     */
+    private byte[] readBytes(long start, int length) {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long position = start + copied;
+            MappedByteBuffer chunk = dataChunks[(int) (position / DATA_CHUNK_BYTES)];
+            int positionInChunk = (int) (position % DATA_CHUNK_BYTES);
+            int bytesToCopy = Math.min(length - copied, chunk.capacity() - positionInChunk);
+            chunk.get(positionInChunk, bytes, copied, bytesToCopy);
+            copied += bytesToCopy;
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Maps a file read-only in parts of the given size.
+     *
+     * @param file      the file to map.
+     * @param length    the number of bytes to map.
+     * @param chunkSize the maximal size of one mapped part.
+     * @return the mapped parts of the file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    private static MappedByteBuffer[] map(Path file, long length, int chunkSize) throws IOException {
+        int numOfChunks = (int) ((length + chunkSize - 1) / chunkSize);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[numOfChunks];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < numOfChunks; i++) {
+                long position = (long) i * chunkSize;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, length - position));
+            }
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,83 @@
+package org.anne_marschner_project.core.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the entries of a column into files in a scratch directory, so they can be read as {@link MappedColumn}.
+ * The files are not deleted by the writer: they are created in the directory of the job or the registered relation
+ * (see {@link org.anne_marschner_project.core.scratch.JobDirectory}) and are deleted together with it.
+ */
+public class MappedColumnWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path dataFile; // Holds the path of the file with the encoded entries
+    private final Path offsetsFile; // Holds the path of the file with the end position of each entry
+    private final OutputStream dataStream;
+    private final DataOutputStream offsetsStream;
+    private long dataLength = 0; // Holds the number of bytes written to the data file
+    private int size = 0; // Holds the number of written entries
+
+
+    /**
+     * Constructs a MappedColumnWriter that creates its files in the given directory.
+     *
+     * @param scratchDirectory the directory for the column files, which is deleted when the column is no longer needed.
+     * @throws IOException if the files cannot be created.
+     */
+    public MappedColumnWriter(Path scratchDirectory) throws IOException {
+        Files.createDirectories(scratchDirectory);
+        this.dataFile = Files.createTempFile(scratchDirectory, "column", ".data");
+        this.offsetsFile = Files.createTempFile(scratchDirectory, "column", ".offsets");
+        this.dataStream = new BufferedOutputStream(Files.newOutputStream(dataFile), BUFFER_SIZE);
+        this.offsetsStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetsFile), BUFFER_SIZE));
+    }
+
+
+    /**
+     * Appends an entry to the column files.
+     *
+     * @param value the entry to add (may be null).
+     * @throws IOException if the entry cannot be written.
+     */
+    public void append(String value) throws IOException {
+        if (value == null) {
+            offsetsStream.writeLong(-dataLength - 1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            dataStream.write(bytes);
+            dataLength += bytes.length;
+            offsetsStream.writeLong(dataLength);
+        }
+        size++;
+    }
+
+
+    /**
+     * Returns the number of entries written so far.
+     *
+     * @return the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Closes the column files and maps them for reading.
+     *
+     * @return a MappedColumn with all written entries.
+     * @throws IOException if the files cannot be closed or mapped.
+     */
+    public MappedColumn finish() throws IOException {
+        dataStream.close();
+        offsetsStream.close();
+        return new MappedColumn(dataFile, dataLength, offsetsFile, size);
+    }
+}
@@ -0,0 +1,58 @@
+package org.anne_marschner_project.core.data;
+
+/**
+ * The formats in which the metadata of generated datasets (the key files and the column mapping) can be written.
+ * JSON and JSON Lines are written in a single streaming pass and can be read by tools, the text format is meant
+ * to be read by people.
+ */
+public enum MetadataFormat {
+
+    TEXT("Text", ".txt"), // Free text
+    JSON("JSON", ".json"), // One JSON document per file
+    JSON_LINES("JSONL", ".jsonl"); // One JSON object per line
+
+    private final String name; // Holds the name of the format in the configuration
+    private final String extension; // Holds the extension of the written files
+
+
+    /**
+     * Constructs a MetadataFormat.
+     *
+     * @param name      the name of the format in the configuration.
+     * @param extension the extension of the written files.
+     */
+    MetadataFormat(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+
+    /**
+     * Returns the extension of the written files.
+     *
+     * @return the extension including the leading dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+
+    /**
+     * Returns the format with the given name.
+     *
+     * @param name the name of the format in the configuration ("Text", "JSON" or "JSONL").
+     * @return the format, or JSON if no name is given.
+     * @throws IllegalArgumentException if the name is unknown.
+     */
+    public static MetadataFormat fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return JSON;
+        }
+        for (MetadataFormat format : values()) {
+            if (format.name.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown metadata format: " + name);
+    }
+}
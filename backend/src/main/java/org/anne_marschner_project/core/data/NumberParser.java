@@ -0,0 +1,306 @@
+package org.anne_marschner_project.core.data;
+
+import java.util.List;
+
+/**
+ * Recognizes and parses numeric entries without throwing exceptions.
+ * An entry is a number if {@link Double#parseDouble(String)} would accept it, but the check is done by a
+ * hand-written lexer, so non-numeric entries do not cost a {@link NumberFormatException}.
+ */
+public final class NumberParser {
+
+    private static final int MAX_EXACT_DIGITS = 15; // Maximal number of digits that are exact in a double
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+
+    private NumberParser() {
+    }
+
+
+    /**
+     * Checks whether an entry is a number.
+     *
+     * @param value the entry to check (may be null).
+     * @return true if the entry can be read as double, otherwise false.
+     */
+    public static boolean isNumber(String value) {
+        return value != null && scan(value) != null;
+    }
+
+
+    /**
+     * Parses an entry as double.
+     *
+     * @param value the entry to parse (may be null).
+     * @return the numeric value of the entry, or NaN if the entry is not a number.
+     */
+    public static double parseDouble(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        Scan scan = scan(value);
+        if (scan == null) {
+            return Double.NaN;
+        }
+
+        // Small decimals are calculated exactly from their digits, all others are parsed by the JDK (never throws here)
+        if (scan.fastPath) {
+            double digits = scan.significand;
+            double result = scan.exponent < 0 ? digits / POWERS_OF_TEN[-scan.exponent] : digits * POWERS_OF_TEN[scan.exponent];
+            return scan.negative ? -result : result;
+        }
+        return Double.parseDouble(value);
+    }
+
+
+    /**
+     * Returns the numeric value of an entry of a column. Typed columns return their stored value,
+     * so the entry does not have to be parsed again.
+     *
+     * @param column   the column.
+     * @param rowIndex the index of the row.
+     * @return the numeric value of the entry, or NaN if the entry is not a number.
+     */
+    public static double valueAt(List<String> column, int rowIndex) {
+        if (column instanceof NumericColumn numericColumn) {
+            return numericColumn.getDouble(rowIndex);
+        }
+        if (column instanceof ColumnView view) {
+            return view.getDouble(rowIndex);
+        }
+        return parseDouble(column.get(rowIndex));
+    }
+
+
+    /**
+     * Checks whether an entry of a column is a number. Like {@link #isNumber(String)}, the entry "NaN" counts as number,
+     * although its value is NaN. Typed columns are checked without parsing their stored values.
+     *
+     * @param column   the column.
+     * @param rowIndex the index of the row.
+     * @return true if the entry can be read as double, otherwise false.
+     */
+    public static boolean isNumberAt(List<String> column, int rowIndex) {
+        if (column instanceof NumericColumn numericColumn) {
+            return numericColumn.isNumeric(rowIndex);
+        }
+
+        // Only entries without a numeric value have to be checked for "NaN"
+        return !Double.isNaN(valueAt(column, rowIndex)) || isNumber(column.get(rowIndex));
+    }
+
+
+    /**
+     * Reads an entry with the grammar of {@link Double#parseDouble(String)}: surrounding whitespace, an optional sign,
+     * "NaN", "Infinity", decimal digits with optional decimal point and exponent, or hexadecimal floating point
+     * numbers, followed by an optional type suffix (f, F, d or D).
+     *
+     * @param value the entry to read.
+     * @return the result of the scan, or null if the entry is not a number.
+     */
+    private static Scan scan(String value) {
+
+        // Skip surrounding whitespace (the same characters String.trim removes)
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+
+        // Read the sign
+        int position = start;
+        boolean negative = false;
+        char c = value.charAt(position);
+        if (c == '+' || c == '-') {
+            negative = c == '-';
+            position++;
+        }
+        if (position == end) {
+            return null;
+        }
+
+        // Special values may not have a suffix
+        c = value.charAt(position);
+        if (c == 'N') {
+            return value.startsWith("NaN", position) && position + 3 == end ? Scan.SLOW : null;
+        }
+        if (c == 'I') {
+            return value.startsWith("Infinity", position) && position + 8 == end ? Scan.SLOW : null;
+        }
+
+        // Remove the type suffix
+        char last = value.charAt(end - 1);
+        boolean hasSuffix = last == 'f' || last == 'F' || last == 'd' || last == 'D';
+
+        if (c == '0' && position + 1 < end && (value.charAt(position + 1) == 'x' || value.charAt(position + 1) == 'X')) {
+            return scanHex(value, position + 2, hasSuffix ? end - 1 : end);
+        }
+        if (hasSuffix) {
+            end--;
+        }
+        return scanDecimal(value, position, end, negative);
+    }
+
+
+    /**
+     * Reads decimal digits with optional decimal point and exponent.
+     *
+     * @param value    the entry to read.
+     * @param position the position of the first digit.
+     * @param end      the position behind the number.
+     * @param negative whether the number has a minus sign.
+     * @return the result of the scan, or null if the entry is not a number.
+     */
+    private static Scan scanDecimal(String value, int position, int end, boolean negative) {
+        long significand = 0;
+        int numOfSignificantDigits = 0;
+        int numOfDigits = 0;
+        int decimalExponent = 0;
+        boolean exact = true;
+
+        // Read digits and the decimal point
+        boolean hasPoint = false;
+        for (; position < end; position++) {
+            char c = value.charAt(position);
+            if (c >= '0' && c <= '9') {
+                numOfDigits++;
+                if (significand == 0 && c == '0') {
+                    // Leading zeros do not count as significant digits
+                    if (hasPoint) {
+                        decimalExponent--;
+                    }
+                    continue;
+                }
+                if (numOfSignificantDigits < MAX_EXACT_DIGITS) {
+                    significand = significand * 10 + (c - '0');
+                    numOfSignificantDigits++;
+                    if (hasPoint) {
+                        decimalExponent--;
+                    }
+                } else {
+                    exact = false;
+                    if (!hasPoint) {
+                        decimalExponent++;
+                    }
+                }
+            } else if (c == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (numOfDigits == 0) {
+            return null;
+        }
+
+        // Read the exponent
+        if (position < end) {
+            char c = value.charAt(position);
+            if (c != 'e' && c != 'E') {
+                return null;
+            }
+            position++;
+            boolean negativeExponent = false;
+            if (position < end && (value.charAt(position) == '+' || value.charAt(position) == '-')) {
+                negativeExponent = value.charAt(position) == '-';
+                position++;
+            }
+            int exponentStart = position;
+            int exponent = 0;
+            for (; position < end; position++) {
+                c = value.charAt(position);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                if (exponent < 100000) {
+                    exponent = exponent * 10 + (c - '0');
+                }
+            }
+            if (position == exponentStart) {
+                return null;
+            }
+            decimalExponent += negativeExponent ? -exponent : exponent;
+        }
+
+        // Only exact significands with small exponents can be calculated without rounding errors
+        if (!exact || decimalExponent < -22 || decimalExponent > 22) {
+            return Scan.SLOW;
+        }
+        return new Scan(negative, significand, decimalExponent);
+    }
+
+
+    /**
+     * Reads a hexadecimal floating point number behind the "0x" prefix, which requires a binary exponent ("p").
+     *
+     * @param value    the entry to read.
+     * @param position the position of the first hexadecimal digit.
+     * @param end      the position behind the number.
+     * @return the result of the scan, or null if the entry is not a number.
+     */
+    private static Scan scanHex(String value, int position, int end) {
+        int numOfDigits = 0;
+        boolean hasPoint = false;
+        for (; position < end; position++) {
+            char c = value.charAt(position);
+            if (Character.digit(c, 16) >= 0 && c < 128) {
+                numOfDigits++;
+            } else if (c == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (numOfDigits == 0 || position == end || (value.charAt(position) != 'p' && value.charAt(position) != 'P')) {
+            return null;
+        }
+        position++;
+        if (position < end && (value.charAt(position) == '+' || value.charAt(position) == '-')) {
+            position++;
+        }
+        int exponentStart = position;
+        for (; position < end; position++) {
+            char c = value.charAt(position);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        return position == exponentStart ? null : Scan.SLOW;
+    }
+
+
+    /**
+     * Holds the result of reading a number.
+     * If the fast path is possible, the value is (-)significand * 10^exponent and can be calculated exactly.
+     */
+    private static final class Scan {
+
+        private static final Scan SLOW = new Scan(); // Result for numbers that have to be parsed by the JDK
+
+        private final boolean fastPath;
+        private final boolean negative;
+        private final long significand;
+        private final int exponent;
+
+        private Scan() {
+            this.fastPath = false;
+            this.negative = false;
+            this.significand = 0;
+            this.exponent = 0;
+        }
+
+        private Scan(boolean negative, long significand, int exponent) {
+            this.fastPath = true;
+            this.negative = negative;
+            this.significand = significand;
+            this.exponent = exponent;
+        }
+    }
+}
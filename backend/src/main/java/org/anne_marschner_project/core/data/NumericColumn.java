@@ -0,0 +1,473 @@
+package org.anne_marschner_project.core.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link Column} for entries of {@link Type#DOUBLE} columns.
+ * Decimal entries are stored as a long value without decimal point and the number of decimal places (scale),
+ * so that each entry is returned exactly as it was read (e.g. "100.50" stays "100.50").
+ * Entries that cannot be represented this way (e.g. alphanumeric entries in a mostly numeric column) are kept as text.
+ */
+public class NumericColumn extends Column {
+
+    private static final byte SCALE_TEXT = -1; // Marks entries that are stored in the text map
+    private static final byte SCALE_EMPTY = -2; // Marks entries that are the empty String
+    private static final int MAX_DIGITS = 18; // Maximal number of digits that always fit into a long
+    private static final long MAX_EXACT_DOUBLE = 1L << 53; // Largest long that can be converted to double exactly
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18};
+
+    private long[] unscaledValues; // Holds the digits of each decimal entry as long value
+    private byte[] scales; // Holds the number of decimal places of each entry (or a marker for special entries)
+    private final Map<Integer, String> texts = new HashMap<>(); // Holds the entries that are not decimals
+
+
+    /**
+     * Constructs an empty NumericColumn.
+     */
+    public NumericColumn() {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Constructs an empty NumericColumn with space for the given number of entries.
+     *
+     * @param initialCapacity the number of entries the column can hold before it has to grow.
+     */
+    public NumericColumn(int initialCapacity) {
+        this.unscaledValues = new long[initialCapacity];
+        this.scales = new byte[initialCapacity];
+    }
+
+
+    /**
+     * Checks whether the entry at the given row is a number.
+     *
+     * @param rowIndex the index of the row.
+     * @return true if the entry can be read as double, otherwise false.
+     */
+    public boolean isNumeric(int rowIndex) {
+        checkIndex(rowIndex);
+        if (!validity.get(rowIndex) || scales[rowIndex] == SCALE_EMPTY) {
+            return false;
+        }
+        if (scales[rowIndex] != SCALE_TEXT) {
+            return true;
+        }
+
+        // Text entries can still be numbers in other notations (e.g. "1e5" or "NaN")
+        return NumberParser.isNumber(texts.get(rowIndex));
+    }
+
+
+    /**
+     * Returns the entry at the given row as double.
+     *
+     * @param rowIndex the index of the row.
+     * @return the numeric value of the entry, or NaN if the entry is not a number.
+     */
+    public double getDouble(int rowIndex) {
+        checkIndex(rowIndex);
+        if (!validity.get(rowIndex) || scales[rowIndex] == SCALE_EMPTY) {
+            return Double.NaN;
+        }
+        if (scales[rowIndex] == SCALE_TEXT) {
+            return NumberParser.parseDouble(texts.get(rowIndex));
+        }
+
+        // Division of two exact doubles is correctly rounded, otherwise the exact value has to be parsed
+        long unscaled = unscaledValues[rowIndex];
+        if (Math.abs(unscaled) <= MAX_EXACT_DOUBLE) {
+            return unscaled / POWERS_OF_TEN[scales[rowIndex]];
+        }
+        return Double.parseDouble(getValue(rowIndex));
+    }
+
+
+    /**
+     * Returns the number of decimal places of the entry at the given row, so that decimals can be formatted
+     * without creating a String (see {@link #getUnscaledValue(int)}).
+     *
+     * @param rowIndex the index of the row.
+     * @return the scale (0 to 18), or -1 if the entry is null, empty or stored as text.
+     */
+    public int getScale(int rowIndex) {
+        checkIndex(rowIndex);
+        return validity.get(rowIndex) ? Math.max(scales[rowIndex], -1) : -1;
+    }
+
+
+    /**
+     * Returns the digits of the decimal entry at the given row as long value.
+     *
+     * @param rowIndex the index of the row, whose entry has a scale of at least 0.
+     * @return the digits of the decimal without decimal point.
+     */
+    public long getUnscaledValue(int rowIndex) {
+        checkIndex(rowIndex);
+        return unscaledValues[rowIndex];
+    }
+
+
+    /**
+     * Appends a decimal given by its digits and number of decimal places, e.g. a value of a typed input file,
+     * without formatting it as String.
+     *
+     * @param unscaled the digits of the decimal as long value.
+     * @param scale    the number of decimal places (0 to 18).
+     */
+    public void addDecimal(long unscaled, int scale) {
+        if (scale < 0 || scale > MAX_DIGITS) {
+            throw new IllegalArgumentException("The scale must be between 0 and " + MAX_DIGITS + ": " + scale);
+        }
+        ensureCapacity(size + 1);
+        unscaledValues[size] = unscaled;
+        scales[size] = (byte) scale;
+        validity.set(size);
+        size++;
+        modCount++;
+    }
+
+
+    /**
+     * Appends a double value. The value is stored as the decimal with the fewest decimal places that is converted
+     * back to exactly the same double, values that have no such decimal (e.g. NaN or 1e300) are kept as text.
+     *
+     * @param value the value to append.
+     */
+    public void addDouble(double value) {
+        if (!addShortestDecimal(value, false)) {
+            add(Double.toString(value));
+        }
+    }
+
+
+    /**
+     * Appends a float value as the decimal with the fewest decimal places that is converted back to the same float,
+     * so that e.g. 0.1f is stored as "0.1" and not with the digits of its double value.
+     *
+     * @param value the value to append.
+     */
+    public void addFloat(float value) {
+        if (!addShortestDecimal(value, true)) {
+            add(Float.toString(value));
+        }
+    }
+
+
+    /**
+     * Appends the decimal with the fewest decimal places that is converted back to the given value.
+     *
+     * @param value           the value to append.
+     * @param singlePrecision whether the decimal only has to match the value as float.
+     * @return true if the value was appended, false if it has no such decimal.
+     */
+    private boolean addShortestDecimal(double value, boolean singlePrecision) {
+        if (value == 0 && 1 / value < 0) {
+            return false; // "-0" cannot be restored from a long value
+        }
+        for (int scale = 0; scale <= MAX_DIGITS; scale++) {
+            double scaled = value * POWERS_OF_TEN[scale];
+            if (!(Math.abs(scaled) <= MAX_EXACT_DOUBLE)) {
+                return false;
+            }
+            long unscaled = Math.round(scaled);
+            double restored = unscaled / POWERS_OF_TEN[scale];
+            if (singlePrecision ? (float) restored == (float) value : restored == value) {
+                addDecimal(unscaled, scale);
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Appends an entry of another NumericColumn without encoding it again.
+     *
+     * @param source    the column that holds the entry.
+     * @param sourceRow the index of the row in the other column.
+     */
+    void appendFrom(NumericColumn source, int sourceRow) {
+        source.checkIndex(sourceRow);
+        ensureCapacity(size + 1);
+        unscaledValues[size] = source.unscaledValues[sourceRow];
+        scales[size] = source.scales[sourceRow];
+        validity.set(size, source.validity.get(sourceRow));
+        if (source.scales[sourceRow] == SCALE_TEXT) {
+            texts.put(size, source.texts.get(sourceRow));
+        }
+        size++;
+        modCount++;
+    }
+
+
+    /**
+     * Creates a copy of this column.
+     *
+     * @return a new NumericColumn with the same entries.
+     */
+    @Override
+    public NumericColumn copy() {
+        NumericColumn copy = new NumericColumn(0);
+        copy.unscaledValues = Arrays.copyOf(unscaledValues, size);
+        copy.scales = Arrays.copyOf(scales, size);
+        copy.texts.putAll(texts);
+        copy.validity = (BitSet) validity.clone();
+        copy.size = size;
+        return copy;
+    }
+
+
+    /**
+     * Creates a new column containing only the entries of the given rows.
+     *
+     * @param rowIndices the indices of the rows to keep, in the order they should appear.
+     * @return a new NumericColumn with the selected entries.
+     */
+    @Override
+    public NumericColumn select(int[] rowIndices) {
+        NumericColumn selection = new NumericColumn(rowIndices.length);
+        for (int i = 0; i < rowIndices.length; i++) {
+            int rowIndex = rowIndices[i];
+            checkIndex(rowIndex);
+            selection.unscaledValues[i] = unscaledValues[rowIndex];
+            selection.scales[i] = scales[rowIndex];
+            selection.validity.set(i, validity.get(rowIndex));
+            if (scales[rowIndex] == SCALE_TEXT) {
+                selection.texts.put(i, texts.get(rowIndex));
+            }
+        }
+        selection.size = rowIndices.length;
+        return selection;
+    }
+
+
+    /**
+     * Writes the decimals, their scales and the text entries in the binary form of the {@link RelationCodec}.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        writeValidity(out);
+        RelationCodec.writeLongs(out, unscaledValues, size);
+        out.write(scales, 0, size);
+        out.writeInt(texts.size());
+        for (Map.Entry<Integer, String> entry : texts.entrySet()) {
+            out.writeInt(entry.getKey());
+            RelationCodec.writeString(out, entry.getValue());
+        }
+    }
+
+
+    /**
+     * Reads a column written by {@link #writeTo}.
+     *
+     * @param in the stream to read from.
+     * @return the column.
+     * @throws IOException if the stream cannot be read.
+     */
+    static NumericColumn readFrom(DataInputStream in) throws IOException {
+        NumericColumn column = new NumericColumn(0);
+        column.readValidity(in);
+        column.unscaledValues = RelationCodec.readLongs(in, column.size);
+        column.scales = new byte[column.size];
+        in.readFully(column.scales);
+        int numOfTexts = in.readInt();
+        for (int i = 0; i < numOfTexts; i++) {
+            int rowIndex = in.readInt();
+            column.texts.put(rowIndex, RelationCodec.readString(in));
+        }
+        return column;
+    }
+
+
+    /**
+     * Estimates the number of bytes the column occupies on the heap.
+     *
+     * @return the estimated size in bytes.
+     */
+    @Override
+    public long estimateMemoryUsage() {
+        long bytes = super.estimateMemoryUsage()
+                + alignedArraySize(unscaledValues.length, Long.BYTES)
+                + alignedArraySize(scales.length, Byte.BYTES);
+
+        // Each text entry needs a map node, a boxed index and the String itself
+        for (String text : texts.values()) {
+            bytes += 32 + 16 + estimateStringSize(text);
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Returns the non-null entry at the given row as String.
+     *
+     * @param rowIndex the index of the row.
+     * @return the entry as String.
+     */
+    @Override
+    protected String getValue(int rowIndex) {
+        byte scale = scales[rowIndex];
+        if (scale == SCALE_EMPTY) {
+            return "";
+        }
+        if (scale == SCALE_TEXT) {
+            return texts.get(rowIndex);
+        }
+        return formatDecimal(unscaledValues[rowIndex], scale);
+    }
+
+
+    /**
+     * Stores an entry at the given row as decimal, or as text if it is not a decimal.
+     *
+     * @param rowIndex the index of the row.
+     * @param value    the entry to store (may be null).
+     */
+    @Override
+    protected void store(int rowIndex, String value) {
+
+        // Remove an old text entry that is replaced
+        if (scales[rowIndex] == SCALE_TEXT) {
+            texts.remove(rowIndex);
+        }
+        unscaledValues[rowIndex] = 0;
+        scales[rowIndex] = 0;
+
+        if (value == null) {
+            validity.clear(rowIndex);
+            return;
+        }
+        validity.set(rowIndex);
+
+        if (value.isEmpty()) {
+            scales[rowIndex] = SCALE_EMPTY;
+        } else if (!storeDecimal(rowIndex, value)) {
+            scales[rowIndex] = SCALE_TEXT;
+            texts.put(rowIndex, value);
+        }
+    }
+
+
+    /**
+     * Makes sure that the column can hold at least the given number of entries.
+     *
+     * @param minCapacity the number of entries that need to fit into the column.
+     */
+    @Override
+    protected void ensureCapacity(int minCapacity) {
+        if (minCapacity > unscaledValues.length) {
+            int newCapacity = grow(unscaledValues.length, minCapacity);
+            unscaledValues = Arrays.copyOf(unscaledValues, newCapacity);
+            scales = Arrays.copyOf(scales, newCapacity);
+        }
+    }
+
+
+    /**
+     * Tries to store an entry as decimal. This is only possible if formatting the decimal again
+     * results in exactly the same String (no exponent, no plus sign, no leading zeros, at most 18 digits).
+     *
+     * @param rowIndex the index of the row.
+     * @param value    the non-empty entry.
+     * @return true if the entry was stored as decimal, otherwise false.
+     */
+    private boolean storeDecimal(int rowIndex, String value) {
+        int length = value.length();
+        int position = 0;
+        boolean negative = value.charAt(0) == '-';
+        if (negative) {
+            position++;
+        }
+
+        // Read the digits in front of the decimal point
+        long unscaled = 0;
+        int numOfDigits = 0;
+        int integerStart = position;
+        while (position < length && isDigit(value.charAt(position))) {
+            if (++numOfDigits > MAX_DIGITS) {
+                return false;
+            }
+            unscaled = unscaled * 10 + (value.charAt(position) - '0');
+            position++;
+        }
+        int numOfIntegerDigits = position - integerStart;
+        if (numOfIntegerDigits == 0 || (numOfIntegerDigits > 1 && value.charAt(integerStart) == '0')) {
+            return false;
+        }
+
+        // Read the digits behind the decimal point
+        int scale = 0;
+        if (position < length && value.charAt(position) == '.') {
+            position++;
+            int fractionStart = position;
+            while (position < length && isDigit(value.charAt(position))) {
+                if (++numOfDigits > MAX_DIGITS) {
+                    return false;
+                }
+                unscaled = unscaled * 10 + (value.charAt(position) - '0');
+                position++;
+            }
+            scale = position - fractionStart;
+            if (scale == 0) {
+                return false;
+            }
+        }
+
+        // The whole entry has to be a decimal and "-0" cannot be restored from a long value
+        if (position != length || (negative && unscaled == 0)) {
+            return false;
+        }
+        unscaledValues[rowIndex] = negative ? -unscaled : unscaled;
+        scales[rowIndex] = (byte) scale;
+        return true;
+    }
+
+
+    /**
+     * Formats a decimal given by its digits and number of decimal places.
+     *
+     * @param unscaled the digits of the decimal as long value.
+     * @param scale    the number of decimal places.
+     * @return the decimal as String.
+     */
+    private static String formatDecimal(long unscaled, int scale) {
+        if (scale == 0) {
+            return Long.toString(unscaled);
+        }
+
+        // Pad the digits with leading zeros so that there is at least one digit in front of the decimal point
+        String digits = Long.toString(Math.abs(unscaled));
+        StringBuilder builder = new StringBuilder(digits.length() + 3);
+        if (unscaled < 0) {
+            builder.append('-');
+        }
+        for (int i = digits.length(); i <= scale; i++) {
+            builder.append('0');
+        }
+        builder.append(digits);
+        builder.insert(builder.length() - scale, '.');
+        return builder.toString();
+    }
+
+
+    /**
+     * Checks whether a character is an ASCII digit.
+     *
+     * @param c the character to check.
+     * @return true if the character is between '0' and '9'.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
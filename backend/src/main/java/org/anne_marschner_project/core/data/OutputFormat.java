@@ -0,0 +1,58 @@
+package org.anne_marschner_project.core.data;
+
+/**
+ * The formats in which generated relations can be written. Besides CSV, relations can be written gzip-compressed
+ * or in the columnar formats Apache Parquet and Apache Arrow IPC (file format), which keep numeric columns as numbers.
+ */
+public enum OutputFormat {
+
+    CSV("CSV", ".csv"), // Plain CSV
+    CSV_GZIP("GzipCSV", ".csv.gz"), // CSV compressed with gzip
+    PARQUET("Parquet", ".parquet"), // Apache Parquet
+    ARROW("Arrow", ".arrow"); // Apache Arrow IPC file format
+
+    private final String name; // Holds the name of the format in the parameters of a job
+    private final String extension; // Holds the extension of the written files
+
+
+    /**
+     * Constructs an OutputFormat.
+     *
+     * @param name      the name of the format in the parameters of a job.
+     * @param extension the extension of the written files.
+     */
+    OutputFormat(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+
+    /**
+     * Returns the extension of the written files.
+     *
+     * @return the extension including the leading dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+
+    /**
+     * Returns the format with the given name.
+     *
+     * @param name the name of the format in the parameters of a job ("CSV", "GzipCSV", "Parquet" or "Arrow").
+     * @return the format, or CSV if no name is given.
+     * @throws IllegalArgumentException if the name is unknown.
+     */
+    public static OutputFormat fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return CSV;
+        }
+        for (OutputFormat format : values()) {
+            if (format.name.equals(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format: " + name);
+    }
+}
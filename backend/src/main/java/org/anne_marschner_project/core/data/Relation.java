@@ -1,22 +1,33 @@
 package org.anne_marschner_project.core.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a relation, which is a collection of attributes and their corresponding data.
  * A relation can either be a source relation with no overlap or a result relation that has overlapping columns or rows.
+ * Relations are immutable: schema, data and index lists cannot be changed after construction, and the columns
+ * must not be written. To derive a changed relation, use a {@link Builder} (see {@link #toBuilder()}), which shares
+ * all untouched columns with this relation and writes changed entries into copy-on-write {@link ColumnView}s.
+ * Therefore, relations that share columns can be processed concurrently.
  */
 public class Relation {
 
-    private Map<Integer, Attribute> schema; // A map of indices and their attributes
-    private Map<Integer,List<String>> data; // A map of column indices (=keys) and Lists of column entries (=values)
-    private List<Integer> keyIndices; // Holds the indices of the key columns
-    private List<Integer> foreignKeyIndices; // Holds the indices of the foreign key columns
-    private List<Integer> overlappingColumnsIndices; // Holds all Indices of the overlapping columns with other created Relations
-    private Integer numOfOverlappingRows; // Holds the number of rows that overlap with other result Relation
-    private List<Integer> keysBeforeNormalization = new ArrayList<>(); // Holds the keys of the original Relation that was normalized
+    private final Map<Integer, Attribute> schema; // A map of indices and their attributes
+    private final Map<Integer,List<String>> data; // A map of column indices (=keys) and Lists of column entries (=values)
+    private final List<Integer> keyIndices; // Holds the indices of the key columns
+    private final List<Integer> foreignKeyIndices; // Holds the indices of the foreign key columns
+    private final List<Integer> overlappingColumnsIndices; // Holds all Indices of the overlapping columns with other created Relations
+    private final Integer numOfOverlappingRows; // Holds the number of rows that overlap with other result Relation
+    private final List<Integer> keysBeforeNormalization; // Holds the keys of the original Relation that was normalized
+    private final Map<Integer, ColumnStatistics> statistics; // Holds the statistics of the columns (missing ones are collected on demand)
 
 
     /**
@@ -26,12 +37,7 @@ public class Relation {
      * @param data a map of column indices and their lists of data entries.
      */
     public Relation(Map<Integer, Attribute> schema, Map<Integer,List<String>> data) {
-        this.schema = schema;
-        this.data = data;
-        this.keyIndices = new ArrayList<>();
-        this.foreignKeyIndices = new ArrayList<>();
-        this.overlappingColumnsIndices = null;
-        this.numOfOverlappingRows = null;
+        this(schema, data, new ArrayList<>(), new ArrayList<>(), null, null, new ArrayList<>(), Map.of());
     }
 
 
@@ -45,12 +51,7 @@ public class Relation {
      */
     public Relation(Map<Integer, Attribute> schema, Map<Integer,List<String>> data, List<Integer> keyIndices,
                     List<Integer> overlappingColumnsIndices) {
-        this.schema = schema;
-        this.data = data;
-        this.keyIndices = keyIndices;
-        this.foreignKeyIndices = new ArrayList<>();
-        this.overlappingColumnsIndices = overlappingColumnsIndices;
-        this.numOfOverlappingRows = null;
+        this(schema, data, keyIndices, new ArrayList<>(), overlappingColumnsIndices, null, new ArrayList<>(), Map.of());
     }
 
 
@@ -64,12 +65,7 @@ public class Relation {
      */
     public Relation(Map<Integer, Attribute> schema, Map<Integer,List<String>> data, List<Integer> keyIndices,
                     Integer numOfOverlappingRows) {
-        this.schema = schema;
-        this.data = data;
-        this.keyIndices = keyIndices;
-        this.foreignKeyIndices = new ArrayList<>();
-        this.overlappingColumnsIndices = null;
-        this.numOfOverlappingRows = numOfOverlappingRows;
+        this(schema, data, keyIndices, new ArrayList<>(), null, numOfOverlappingRows, new ArrayList<>(), Map.of());
     }
 
 
@@ -84,12 +80,7 @@ public class Relation {
      */
     public Relation(Map<Integer, Attribute> schema, Map<Integer,List<String>> data, List<Integer> keyIndices,
                     List<Integer> overlappingColumnsIndices, Integer numOfOverlappingRows) {
-        this.schema = schema;
-        this.data = data;
-        this.keyIndices = keyIndices;
-        this.foreignKeyIndices = new ArrayList<>();
-        this.overlappingColumnsIndices = overlappingColumnsIndices;
-        this.numOfOverlappingRows = numOfOverlappingRows;
+        this(schema, data, keyIndices, new ArrayList<>(), overlappingColumnsIndices, numOfOverlappingRows, new ArrayList<>(), Map.of());
     }
 
 
@@ -104,12 +95,7 @@ public class Relation {
      */
     public Relation(Map<Integer, Attribute> schema, Map<Integer,List<String>> data, List<Integer> keyIndices,
                     List<Integer> foreignKeyIndices, List<Integer> overlappingColumnsIndices) {
-        this.schema = schema;
-        this.data = data;
-        this.keyIndices = keyIndices;
-        this.foreignKeyIndices = foreignKeyIndices;
-        this.overlappingColumnsIndices = overlappingColumnsIndices;
-        this.numOfOverlappingRows = null;
+        this(schema, data, keyIndices, foreignKeyIndices, overlappingColumnsIndices, null, new ArrayList<>(), Map.of());
     }
 
 
@@ -125,12 +111,62 @@ public class Relation {
      */
     public Relation(Map<Integer, Attribute> schema, Map<Integer,List<String>> data, List<Integer> keyIndices,
                     List<Integer> foreignKeyIndices, List<Integer> overlappingColumnsIndices, Integer numOfOverlappingRows) {
-        this.schema = schema;
-        this.data = data;
-        this.keyIndices = keyIndices;
-        this.foreignKeyIndices = foreignKeyIndices;
-        this.overlappingColumnsIndices = overlappingColumnsIndices;
+        this(schema, data, keyIndices, foreignKeyIndices, overlappingColumnsIndices, numOfOverlappingRows, new ArrayList<>(), Map.of());
+    }
+
+
+    /**
+     * Constructs a Relation out of copies of the given collections, which keep the order of the columns.
+     * The columns themselves are shared.
+     *
+     * @param schema a map of column indices and their attributes.
+     * @param data a map of column indices and their lists of data entries.
+     * @param keyIndices a list of indices that represent the key columns.
+     * @param foreignKeyIndices a list of indices that represent the foreign key columns.
+     * @param overlappingColumnsIndices a list of indices that represent overlapping columns with other relations.
+     * @param numOfOverlappingRows the number of rows that overlap with other result relations.
+     * @param keysBeforeNormalization a list of indices that represent the key columns before normalization.
+     * @param statistics a map of column indices and their known statistics.
+     */
+    private Relation(Map<Integer, Attribute> schema, Map<Integer,List<String>> data, List<Integer> keyIndices,
+                     List<Integer> foreignKeyIndices, List<Integer> overlappingColumnsIndices, Integer numOfOverlappingRows,
+                     List<Integer> keysBeforeNormalization, Map<Integer, ColumnStatistics> statistics) {
+        this.schema = Collections.unmodifiableMap(new LinkedHashMap<>(schema));
+        this.data = Collections.unmodifiableMap(new LinkedHashMap<>(data));
+        this.keyIndices = unmodifiableCopy(keyIndices);
+        this.foreignKeyIndices = unmodifiableCopy(foreignKeyIndices);
+        this.overlappingColumnsIndices = unmodifiableCopy(overlappingColumnsIndices);
         this.numOfOverlappingRows = numOfOverlappingRows;
+        this.keysBeforeNormalization = unmodifiableCopy(keysBeforeNormalization);
+
+        // Only keep the statistics of columns of this relation
+        this.statistics = new ConcurrentHashMap<>();
+        for (Map.Entry<Integer, ColumnStatistics> entry : statistics.entrySet()) {
+            if (this.data.containsKey(entry.getKey())) {
+                this.statistics.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+
+    /**
+     * Creates a builder for a new relation without columns.
+     *
+     * @return a new Builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+
+    /**
+     * Creates a builder for a relation that starts with the schema, data, indices and statistics of this relation.
+     * The columns are shared until they are changed through the builder.
+     *
+     * @return a new Builder.
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
     }
 
 
@@ -155,52 +191,82 @@ public class Relation {
 
 
     /**
-     * Returns the list of indices of overlapping columns.
+     * Estimates the number of bytes the data of this relation occupies on the heap.
      *
-     * @return a list of column indices that overlap with other relations.
+     * @return the estimated size of all columns in bytes.
      */
-    public List<Integer> getOverlappingColumnsIndices() {
-        return overlappingColumnsIndices;
+    public long estimateMemoryUsage() {
+        long bytes = 0;
+        for (List<String> column : data.values()) {
+            bytes += Column.estimateMemoryUsage(column);
+        }
+        return bytes;
     }
 
 
     /**
-     * Returns the number of overlapping rows with other result relations.
+     * Returns the number of rows of this relation. The row count of the statistics is used if it is known.
      *
-     * @return the number of overlapping rows.
+     * @return the number of rows, or 0 if the relation has no columns.
      */
-    public Integer getNumOfOverlappingRows() {
-        return numOfOverlappingRows;
+    public int getNumOfRows() {
+        if (!statistics.isEmpty()) {
+            return statistics.values().iterator().next().getRowCount();
+        }
+        return data.isEmpty() ? 0 : data.values().iterator().next().size();
     }
 
 
     /**
-     * Sets the schema for this relation.
+     * Returns the statistics of a column. If they are not known yet, they are collected in one pass over the column
+     * and kept for later calls.
      *
-     * @param schema the new schema to be set.
+     * @param columnIndex the index of the column.
+     * @return the statistics of the column.
      */
-    public void setSchema(Map<Integer, Attribute> schema) {
-        this.schema = schema;
+    public ColumnStatistics getColumnStatistics(int columnIndex) {
+        return statistics.computeIfAbsent(columnIndex, index -> ColumnStatistics.of(data.get(index)));
     }
 
 
     /**
-     * Returns the list of indices that represent the key columns of this relation.
+     * Returns the statistics catalog of this relation, which is a map of column indices and the known statistics
+     * of the columns. Missing statistics are only added through {@link #getColumnStatistics(int)}.
      *
-     * @return a list of indices representing the key columns.
+     * @return an unmodifiable map of column indices and their statistics.
      */
-    public List<Integer> getKeyIndices() {
-        return keyIndices;
+    public Map<Integer, ColumnStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+
+    /**
+     * Returns the list of indices of overlapping columns.
+     *
+     * @return a list of column indices that overlap with other relations.
+     */
+    public List<Integer> getOverlappingColumnsIndices() {
+        return overlappingColumnsIndices;
+    }
+
+
+    /**
+     * Returns the number of overlapping rows with other result relations.
+     *
+     * @return the number of overlapping rows.
+     */
+    public Integer getNumOfOverlappingRows() {
+        return numOfOverlappingRows;
     }
 
 
     /**
-     * Sets the list of key indices for this relation.
+     * Returns the list of indices that represent the key columns of this relation.
      *
-     * @param keyIndices a list of indices representing the key columns.
+     * @return a list of indices representing the key columns.
      */
-    public void setKeyIndices(List<Integer> keyIndices) {
-        this.keyIndices = keyIndices;
+    public List<Integer> getKeyIndices() {
+        return keyIndices;
     }
 
 
@@ -222,13 +288,242 @@ public class Relation {
         return keysBeforeNormalization;
     }
 
+
     /**
-     * Sets the list of key indices that represent the key columns of the original relation before Normalization.
+     * Copies a list of indices into an unmodifiable list.
      *
-     * @param keysBeforeNormalization a list of indices representing the key columns.
+     * @param indices the list to copy (may be null).
+     * @return an unmodifiable copy of the list, or null if the list is null.
+     */
+    private static List<Integer> unmodifiableCopy(List<Integer> indices) {
+        return indices == null ? null : Collections.unmodifiableList(new ArrayList<>(indices));
+    }
+
+
+    /**
+     * Collects the changes of a relation and creates a new immutable {@link Relation} out of them.
+     * Columns that are not changed are shared with the relation the builder was created from.
+     * Columns that are returned by {@link #writableColumn(int)} are copy-on-write views, so writing entries
+     * never changes the shared columns.
      */
-    public void setKeysBeforeNormalization(List<Integer> keysBeforeNormalization) {
-        this.keysBeforeNormalization = keysBeforeNormalization;
+    public static class Builder {
+
+        private final Map<Integer, Attribute> schema;
+        private final Map<Integer, List<String>> data;
+        private List<Integer> keyIndices;
+        private List<Integer> foreignKeyIndices;
+        private List<Integer> overlappingColumnsIndices;
+        private Integer numOfOverlappingRows;
+        private List<Integer> keysBeforeNormalization;
+        private final Map<Integer, ColumnStatistics> originalStatistics; // Holds the statistics catalog of the original relation
+        private final Map<Integer, ColumnStatistics> addedStatistics = new HashMap<>(); // Holds statistics set through the builder
+        private final Set<Integer> replacedColumns = new HashSet<>(); // Holds the indices of columns with new entries
+        private final Set<Integer> writableColumns = new HashSet<>(); // Holds the indices of columns that are already views
+
+
+        /**
+         * Constructs a Builder for a relation without columns.
+         */
+        private Builder() {
+            this.schema = new LinkedHashMap<>();
+            this.data = new LinkedHashMap<>();
+            this.keyIndices = new ArrayList<>();
+            this.foreignKeyIndices = new ArrayList<>();
+            this.overlappingColumnsIndices = null;
+            this.numOfOverlappingRows = null;
+            this.keysBeforeNormalization = new ArrayList<>();
+            this.originalStatistics = Map.of();
+        }
+
+
+        /**
+         * Constructs a Builder that starts with the content of a relation.
+         *
+         * @param relation the relation to start with.
+         */
+        private Builder(Relation relation) {
+            this.schema = new LinkedHashMap<>(relation.schema);
+            this.data = new LinkedHashMap<>(relation.data);
+            this.keyIndices = relation.keyIndices;
+            this.foreignKeyIndices = relation.foreignKeyIndices;
+            this.overlappingColumnsIndices = relation.overlappingColumnsIndices;
+            this.numOfOverlappingRows = relation.numOfOverlappingRows;
+            this.keysBeforeNormalization = relation.keysBeforeNormalization;
+            this.originalStatistics = relation.statistics;
+        }
+
+
+        /**
+         * Returns the column at the given index as it will be in the new relation.
+         *
+         * @param columnIndex the index of the column.
+         * @return the entries of the column, or null if there is no column at the index.
+         */
+        public List<String> getColumn(int columnIndex) {
+            return data.get(columnIndex);
+        }
+
+
+        /**
+         * Returns the attribute at the given index as it will be in the new relation.
+         *
+         * @param columnIndex the index of the column.
+         * @return the attribute, or null if there is no column at the index.
+         */
+        public Attribute getAttribute(int columnIndex) {
+            return schema.get(columnIndex);
+        }
+
+
+        /**
+         * Returns a column whose entries can be written without changing the shared column.
+         * The statistics of the column are dropped, since they would describe the entries before they were changed.
+         *
+         * @param columnIndex the index of the column.
+         * @return a copy-on-write view of the column.
+         */
+        public List<String> writableColumn(int columnIndex) {
+            if (writableColumns.add(columnIndex)) {
+                data.put(columnIndex, ColumnView.of(data.get(columnIndex)));
+            }
+            replacedColumns.add(columnIndex);
+            addedStatistics.remove(columnIndex);
+            return data.get(columnIndex);
+        }
+
+
+        /**
+         * Sets the attribute at the given index.
+         *
+         * @param columnIndex the index of the column.
+         * @param attribute   the new attribute.
+         * @return this builder.
+         */
+        public Builder attribute(int columnIndex, Attribute attribute) {
+            schema.put(columnIndex, attribute);
+            return this;
+        }
+
+
+        /**
+         * Sets the entries of the column at the given index. The column is taken over as it is and must not be
+         * written afterwards. Statistics of a previous column at the index are dropped.
+         *
+         * @param columnIndex the index of the column.
+         * @param column      the entries of the column.
+         * @return this builder.
+         */
+        public Builder column(int columnIndex, List<String> column) {
+            data.put(columnIndex, column);
+            writableColumns.remove(columnIndex);
+            replacedColumns.add(columnIndex);
+            addedStatistics.remove(columnIndex);
+            return this;
+        }
+
+
+        /**
+         * Removes the attribute and the entries of the column at the given index.
+         *
+         * @param columnIndex the index of the column.
+         * @return this builder.
+         */
+        public Builder removeColumn(int columnIndex) {
+            schema.remove(columnIndex);
+            data.remove(columnIndex);
+            writableColumns.remove(columnIndex);
+            replacedColumns.add(columnIndex);
+            addedStatistics.remove(columnIndex);
+            return this;
+        }
+
+
+        /**
+         * Sets the indices of the key columns.
+         *
+         * @param keyIndices a list of indices that represent the key columns.
+         * @return this builder.
+         */
+        public Builder keyIndices(List<Integer> keyIndices) {
+            this.keyIndices = keyIndices;
+            return this;
+        }
+
+
+        /**
+         * Sets the indices of the foreign key columns.
+         *
+         * @param foreignKeyIndices a list of indices that represent the foreign key columns.
+         * @return this builder.
+         */
+        public Builder foreignKeyIndices(List<Integer> foreignKeyIndices) {
+            this.foreignKeyIndices = foreignKeyIndices;
+            return this;
+        }
+
+
+        /**
+         * Sets the indices of the columns that overlap with other relations.
+         *
+         * @param overlappingColumnsIndices a list of indices that represent overlapping columns (may be null).
+         * @return this builder.
+         */
+        public Builder overlappingColumnsIndices(List<Integer> overlappingColumnsIndices) {
+            this.overlappingColumnsIndices = overlappingColumnsIndices;
+            return this;
+        }
+
+
+        /**
+         * Sets the number of rows that overlap with other relations.
+         *
+         * @param numOfOverlappingRows the number of overlapping rows (may be null).
+         * @return this builder.
+         */
+        public Builder numOfOverlappingRows(Integer numOfOverlappingRows) {
+            this.numOfOverlappingRows = numOfOverlappingRows;
+            return this;
+        }
+
+
+        /**
+         * Sets the indices of the key columns of the original relation before normalization.
+         *
+         * @param keysBeforeNormalization a list of indices representing the key columns.
+         * @return this builder.
+         */
+        public Builder keysBeforeNormalization(List<Integer> keysBeforeNormalization) {
+            this.keysBeforeNormalization = keysBeforeNormalization;
+            return this;
+        }
+
+
+        /**
+         * Sets the statistics of a column, e.g. if they were collected while the column was read.
+         *
+         * @param columnIndex      the index of the column.
+         * @param columnStatistics the statistics of the column.
+         * @return this builder.
+         */
+        public Builder statistics(int columnIndex, ColumnStatistics columnStatistics) {
+            addedStatistics.put(columnIndex, columnStatistics);
+            return this;
+        }
+
+
+        /**
+         * Creates the new relation. The statistics of columns that were not replaced are taken over,
+         * including the ones the original relation collected after the builder was created.
+         *
+         * @return a new immutable Relation.
+         */
+        public Relation build() {
+            Map<Integer, ColumnStatistics> keptStatistics = new HashMap<>(originalStatistics);
+            keptStatistics.keySet().removeAll(replacedColumns);
+            keptStatistics.putAll(addedStatistics);
+            return new Relation(schema, data, keyIndices, foreignKeyIndices, overlappingColumnsIndices,
+                    numOfOverlappingRows, keysBeforeNormalization, keptStatistics);
+        }
     }
 }
 
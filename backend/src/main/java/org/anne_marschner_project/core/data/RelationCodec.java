@@ -0,0 +1,268 @@
+package org.anne_marschner_project.core.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link Relation} in a compact binary form and reads it back, e.g. to keep a parsed input relation on disk.
+ * The typed columns are written with their primitive arrays (decimals, dictionary codes and validity bitmaps),
+ * so reading a relation back is much faster than parsing the CSV file again. The schema, the statistics of all
+ * columns and the key indices are kept as well.
+ * Only relations whose columns are all heap columns can be written, see {@link #supports(Relation)}.
+ */
+public final class RelationCodec {
+
+    private static final int MAGIC = 0x53594443; // Marks the beginning of a written relation ("SYDC")
+    private static final int VERSION = 1; // Version of the binary form, relations of other versions are not read
+    private static final int BUFFER_SIZE = 1 << 16; // Number of bytes buffered when reading or writing
+
+    private static final byte NUMERIC = 0; // Marks a NumericColumn
+    private static final byte DICTIONARY = 1; // Marks a DictionaryColumn
+    private static final byte STRINGS = 2; // Marks a StringColumn
+
+
+    /**
+     * Prevents instances, the codec only has static methods.
+     */
+    private RelationCodec() {
+    }
+
+
+    /**
+     * Checks whether a relation can be written. Columns that are stored off-heap or are views of other columns
+     * are not written, since they would have to be copied to the heap first.
+     *
+     * @param relation the relation to check.
+     * @return true if every column is a NumericColumn, DictionaryColumn or StringColumn, otherwise false.
+     */
+    public static boolean supports(Relation relation) {
+        for (List<String> column : relation.getData().values()) {
+            if (!(column instanceof NumericColumn || column instanceof DictionaryColumn || column instanceof StringColumn)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Writes a relation with its schema, columns, statistics and key indices. Missing statistics are collected first.
+     *
+     * @param relation     the relation to write.
+     * @param outputStream the stream to write to, which is flushed but not closed.
+     * @throws IOException if the stream cannot be written.
+     * @throws IllegalArgumentException if the relation is not supported (see {@link #supports(Relation)}).
+     */
+    public static void write(Relation relation, OutputStream outputStream) throws IOException {
+        if (!supports(relation)) {
+            throw new IllegalArgumentException("Only relations with heap columns can be written.");
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(relation.getSchema().size());
+
+        // Write each column with its attribute and statistics
+        for (Map.Entry<Integer, Attribute> entry : relation.getSchema().entrySet()) {
+            int columnIndex = entry.getKey();
+            Attribute attribute = entry.getValue();
+            out.writeInt(columnIndex);
+            out.writeBoolean(attribute.getColumnName() != null);
+            if (attribute.getColumnName() != null) {
+                writeString(out, attribute.getColumnName());
+            }
+            out.writeByte(attribute.getDataType().ordinal());
+
+            List<String> column = relation.getData().get(columnIndex);
+            if (column instanceof NumericColumn numericColumn) {
+                out.writeByte(NUMERIC);
+                numericColumn.writeTo(out);
+            } else if (column instanceof DictionaryColumn dictionaryColumn) {
+                out.writeByte(DICTIONARY);
+                dictionaryColumn.writeTo(out);
+            } else {
+                out.writeByte(STRINGS);
+                ((StringColumn) column).writeTo(out);
+            }
+            relation.getColumnStatistics(columnIndex).writeTo(out);
+        }
+
+        // Write the key indices (-1 if they are not known)
+        List<Integer> keyIndices = relation.getKeyIndices();
+        out.writeInt(keyIndices == null ? -1 : keyIndices.size());
+        if (keyIndices != null) {
+            for (int keyIndex : keyIndices) {
+                out.writeInt(keyIndex);
+            }
+        }
+        out.flush();
+    }
+
+
+    /**
+     * Reads a relation written by {@link #write(Relation, OutputStream)}.
+     *
+     * @param inputStream the stream to read from, which is not closed.
+     * @return the relation with its statistics and key indices.
+     * @throws IOException if the stream cannot be read or does not contain a relation of this version.
+     */
+    public static Relation read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, BUFFER_SIZE));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("The stream does not contain a relation of version " + VERSION + ".");
+        }
+        Type[] types = Type.values();
+        int numOfColumns = in.readInt();
+
+        // Read each column with its attribute and statistics
+        Relation.Builder builder = Relation.builder();
+        for (int i = 0; i < numOfColumns; i++) {
+            int columnIndex = in.readInt();
+            String columnName = in.readBoolean() ? readString(in) : null;
+            int typeOrdinal = in.readUnsignedByte();
+            if (typeOrdinal >= types.length) {
+                throw new IOException("Unknown column type " + typeOrdinal + ".");
+            }
+            byte encoding = in.readByte();
+            Column column = switch (encoding) {
+                case NUMERIC -> NumericColumn.readFrom(in);
+                case DICTIONARY -> DictionaryColumn.readFrom(in);
+                case STRINGS -> StringColumn.readFrom(in);
+                default -> throw new IOException("Unknown column encoding " + encoding + ".");
+            };
+            builder.attribute(columnIndex, new Attribute(columnName, types[typeOrdinal]))
+                    .column(columnIndex, column)
+                    .statistics(columnIndex, ColumnStatistics.readFrom(in));
+        }
+
+        // Read the key indices
+        int numOfKeys = in.readInt();
+        if (numOfKeys >= 0) {
+            List<Integer> keyIndices = new ArrayList<>(numOfKeys);
+            for (int i = 0; i < numOfKeys; i++) {
+                keyIndices.add(in.readInt());
+            }
+            builder.keyIndices(keyIndices);
+        }
+        return builder.build();
+    }
+
+
+    /**
+     * Writes a String as its number of UTF-8 bytes followed by the bytes. Unlike {@link DataOutputStream#writeUTF},
+     * the String can be longer than 65535 bytes.
+     *
+     * @param out   the stream to write to.
+     * @param value the String to write.
+     * @throws IOException if the stream cannot be written.
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    /**
+     * Reads a String written by {@link #writeString}.
+     *
+     * @param in the stream to read from.
+     * @return the String.
+     * @throws IOException if the stream cannot be read.
+     */
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid length of a String: " + length);
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Writes the first values of a long array in chunks instead of one value at a time.
+     *
+     * @param out    the stream to write to.
+     * @param values the array.
+     * @param length the number of values to write.
+     * @throws IOException if the stream cannot be written.
+     */
+    static void writeLongs(DataOutputStream out, long[] values, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for (int offset = 0; offset < length; offset += BUFFER_SIZE / Long.BYTES) {
+            int count = Math.min(BUFFER_SIZE / Long.BYTES, length - offset);
+            buffer.clear();
+            buffer.asLongBuffer().put(values, offset, count);
+            out.write(buffer.array(), 0, count * Long.BYTES);
+        }
+    }
+
+
+    /**
+     * Reads a long array written by {@link #writeLongs}.
+     *
+     * @param in     the stream to read from.
+     * @param length the number of values to read.
+     * @return the array of the given length.
+     * @throws IOException if the stream cannot be read.
+     */
+    static long[] readLongs(DataInputStream in, int length) throws IOException {
+        long[] values = new long[length];
+        byte[] bytes = new byte[BUFFER_SIZE];
+        for (int offset = 0; offset < length; offset += BUFFER_SIZE / Long.BYTES) {
+            int count = Math.min(BUFFER_SIZE / Long.BYTES, length - offset);
+            in.readFully(bytes, 0, count * Long.BYTES);
+            ByteBuffer.wrap(bytes).asLongBuffer().get(values, offset, count);
+        }
+        return values;
+    }
+
+
+    /**
+     * Writes the first values of an int array in chunks instead of one value at a time.
+     *
+     * @param out    the stream to write to.
+     * @param values the array.
+     * @param length the number of values to write.
+     * @throws IOException if the stream cannot be written.
+     */
+    static void writeInts(DataOutputStream out, int[] values, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for (int offset = 0; offset < length; offset += BUFFER_SIZE / Integer.BYTES) {
+            int count = Math.min(BUFFER_SIZE / Integer.BYTES, length - offset);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, offset, count);
+            out.write(buffer.array(), 0, count * Integer.BYTES);
+        }
+    }
+
+
+    /**
+     * Reads an int array written by {@link #writeInts}.
+     *
+     * @param in     the stream to read from.
+     * @param length the number of values to read.
+     * @return the array of the given length.
+     * @throws IOException if the stream cannot be read.
+     */
+    static int[] readInts(DataInputStream in, int length) throws IOException {
+        int[] values = new int[length];
+        byte[] bytes = new byte[BUFFER_SIZE];
+        for (int offset = 0; offset < length; offset += BUFFER_SIZE / Integer.BYTES) {
+            int count = Math.min(BUFFER_SIZE / Integer.BYTES, length - offset);
+            in.readFully(bytes, 0, count * Integer.BYTES);
+            ByteBuffer.wrap(bytes).asIntBuffer().get(values, offset, count);
+        }
+        return values;
+    }
+}
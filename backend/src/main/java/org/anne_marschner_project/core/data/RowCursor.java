@@ -0,0 +1,107 @@
+package org.anne_marschner_project.core.data;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Iterates over the rows of a {@link Relation} without creating a list for every row.
+ * The columns are resolved once in the order of the schema, and the cursor itself is the current row:
+ * it reads the entries directly from the column lists of the row it points at.
+ * The row therefore changes whenever the cursor is moved and must be copied if it is needed afterwards.
+ */
+public class RowCursor extends AbstractList<String> implements RandomAccess {
+
+    private final List<String>[] columns; // Holds the columns of the relation in the order of the schema
+    private final int numOfRows; // Holds the number of rows of the relation
+    private int rowIndex = -1; // Holds the index of the current row (-1 before the first row)
+
+
+    /**
+     * Constructs a RowCursor that points before the first row of a relation.
+     *
+     * @param relation the relation to iterate over.
+     */
+    @SuppressWarnings("unchecked")
+    public RowCursor(Relation relation) {
+        List<List<String>> orderedColumns = new ArrayList<>(relation.getSchema().size());
+        for (Integer columnIndex : relation.getSchema().keySet()) {
+            orderedColumns.add(relation.getData().get(columnIndex));
+        }
+        this.columns = orderedColumns.toArray(new List[0]);
+        this.numOfRows = relation.getNumOfRows();
+    }
+
+
+    /**
+     * Checks if there is a row after the current row.
+     *
+     * @return {@code true} if the cursor can be moved further and {@code false} otherwise.
+     */
+    public boolean hasNext() {
+        return rowIndex + 1 < numOfRows;
+    }
+
+
+    /**
+     * Moves the cursor to the next row.
+     *
+     * @return {@code true} if the cursor points at a row and {@code false} if there are no more rows.
+     */
+    public boolean next() {
+        if (!hasNext()) {
+            rowIndex = numOfRows;
+            return false;
+        }
+        rowIndex++;
+        return true;
+    }
+
+
+    /**
+     * Returns the index of the row the cursor points at.
+     *
+     * @return the index of the current row.
+     */
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+
+    /**
+     * Returns the number of rows of the relation.
+     *
+     * @return the number of rows.
+     */
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+
+    /**
+     * Returns an entry of the current row.
+     *
+     * @param columnPosition the position of the column in the order of the schema.
+     * @return the entry of the column in the current row.
+     * @throws IllegalStateException if the cursor does not point at a row.
+     */
+    @Override
+    public String get(int columnPosition) {
+        if (rowIndex < 0 || rowIndex >= numOfRows) {
+            throw new IllegalStateException("The cursor does not point at a row.");
+        }
+        return columns[columnPosition].get(rowIndex);
+    }
+
+
+    /**
+     * Returns the number of entries of a row.
+     *
+     * @return the number of columns.
+     */
+    @Override
+    public int size() {
+        return columns.length;
+    }
+}
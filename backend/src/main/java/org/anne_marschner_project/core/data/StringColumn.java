@@ -0,0 +1,154 @@
+package org.anne_marschner_project.core.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A {@link Column} that stores each entry as its own String.
+ * It is used for {@link Type#STRING} columns with too many distinct entries for a {@link DictionaryColumn}.
+ */
+public class StringColumn extends Column {
+
+    private String[] values; // Holds the entry of each row
+
+
+    /**
+     * Constructs an empty StringColumn.
+     */
+    public StringColumn() {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Constructs an empty StringColumn with space for the given number of entries.
+     *
+     * @param initialCapacity the number of entries the column can hold before it has to grow.
+     */
+    public StringColumn(int initialCapacity) {
+        this.values = new String[initialCapacity];
+    }
+
+
+    /**
+     * Creates a copy of this column.
+     *
+     * @return a new StringColumn with the same entries.
+     */
+    @Override
+    public StringColumn copy() {
+        StringColumn copy = new StringColumn(0);
+        copy.values = Arrays.copyOf(values, size);
+        copy.validity = (BitSet) validity.clone();
+        copy.size = size;
+        return copy;
+    }
+
+
+    /**
+     * Creates a new column containing only the entries of the given rows.
+     *
+     * @param rowIndices the indices of the rows to keep, in the order they should appear.
+     * @return a new StringColumn with the selected entries.
+     */
+    @Override
+    public StringColumn select(int[] rowIndices) {
+        StringColumn selection = new StringColumn(rowIndices.length);
+        for (int rowIndex : rowIndices) {
+            selection.add(get(rowIndex));
+        }
+        return selection;
+    }
+
+
+    /**
+     * Writes the entries in the binary form of the {@link RelationCodec}.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        writeValidity(out);
+        for (int i = 0; i < size; i++) {
+            if (validity.get(i)) {
+                RelationCodec.writeString(out, values[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Reads a column written by {@link #writeTo}.
+     *
+     * @param in the stream to read from.
+     * @return the column.
+     * @throws IOException if the stream cannot be read.
+     */
+    static StringColumn readFrom(DataInputStream in) throws IOException {
+        StringColumn column = new StringColumn(0);
+        column.readValidity(in);
+        column.values = new String[column.size];
+        for (int i = 0; i < column.size; i++) {
+            if (column.validity.get(i)) {
+                column.values[i] = RelationCodec.readString(in);
+            }
+        }
+        return column;
+    }
+
+
+    /**
+     * Estimates the number of bytes the column occupies on the heap.
+     *
+     * @return the estimated size in bytes.
+     */
+    @Override
+    public long estimateMemoryUsage() {
+        long bytes = super.estimateMemoryUsage() + alignedArraySize(values.length, REFERENCE_BYTES);
+        for (int i = 0; i < size; i++) {
+            bytes += estimateStringSize(values[i]);
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Returns the non-null entry at the given row.
+     *
+     * @param rowIndex the index of the row.
+     * @return the entry as String.
+     */
+    @Override
+    protected String getValue(int rowIndex) {
+        return values[rowIndex];
+    }
+
+
+    /**
+     * Stores an entry at the given row.
+     *
+     * @param rowIndex the index of the row.
+     * @param value    the entry to store (may be null).
+     */
+    @Override
+    protected void store(int rowIndex, String value) {
+        values[rowIndex] = value;
+        validity.set(rowIndex, value != null);
+    }
+
+
+    /**
+     * Makes sure that the column can hold at least the given number of entries.
+     *
+     * @param minCapacity the number of entries that need to fit into the column.
+     */
+    @Override
+    protected void ensureCapacity(int minCapacity) {
+        if (minCapacity > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, minCapacity));
+        }
+    }
+}
@@ -30,18 +30,17 @@ public enum Type {
         // Loop through all column values
         for (String value : columnValues) {
 
-            // Try to parse value to Double
-            try {
-                // Count if Double was parsed successfully
-                Double.parseDouble(value);
+            // Check if the value is a Double (without parsing it)
+            if (NumberParser.isNumber(value)) {
+                // Count if value is a Double
                 doubleCount++;
 
                 // If at least 75 % are Double: return DOUBLE
                 if (doubleCount >= Math.ceil(totalCount * 0.75)) {
                     return Type.DOUBLE;
                 }
-            } catch (NumberFormatException e) {
-                // Count if Double was not parsed
+            } else {
+                // Count if value is not a Double
                 stringCount++;
 
                 //  If more than 25 % are String: return String
@@ -52,7 +51,20 @@ public enum Type {
         }
 
         // Check if enough Double values were found
-        if (doubleCount >= Math.ceil(totalCount * 0.75)) {
+        return fromCounts(doubleCount, totalCount);
+    }
+
+
+    /**
+     * Determines the Type of a column from the number of numeric values, e.g. when the values were counted while reading.
+     * The decision is the same as in {@link #determineType(List)}.
+     *
+     * @param numericCount the number of values that are numeric.
+     * @param totalCount   the number of all values of the column.
+     * @return {@link Type#DOUBLE} if at least 75% of the values are numeric, otherwise {@link Type#STRING}
+     */
+    public static Type fromCounts(long numericCount, long totalCount) {
+        if (numericCount >= Math.ceil(totalCount * 0.75)) {
             return Type.DOUBLE;
         } else {
             return Type.STRING;
@@ -4,35 +4,33 @@ package org.anne_marschner_project.core.keys;
 import de.metanome.algorithm_integration.input.InputIterationException;
 import de.metanome.algorithm_integration.input.RelationalInput;
 import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.RowCursor;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Provides a custom implementation of the {@link RelationalInput} interface,
  * enabling iteration over rows of a given {@link Relation} object.
  * This class is used to provide relational data to HyUCC.
+ * The rows are read through a {@link RowCursor}, so no list is created per row. The returned row is only
+ * valid until the next call of {@link #next()}, which is enough for HyUCC since it encodes each row right away.
  */
 public class CustomRelationalInput implements RelationalInput {
-    private Relation relation;
-    private int currentRowIndex;
-    private int numRows;
+    private RowCursor cursor;
     private String relationName;
     private List<String> columnNames;
 
 
     /**
      * Constructs a CustomRelationalObject with a specified relation and relation name.
-     * Automatically retrieves column names from the schema and calculates the row count.
+     * Automatically retrieves column names from the schema and resolves the columns once.
      *
      * @param relation The Relation object representing the data to iterate over.
      * @param relationName The name of the relation as a string.
      */
     public CustomRelationalInput(Relation relation, String relationName) {
-        this.relation = relation;
+        this.cursor = new RowCursor(relation);
         this.relationName = relationName;
-        this.currentRowIndex = 0;
-        this.numRows = relation.getData().values().iterator().next().size();
 
         // Use indices as column names
         this.columnNames = relation.getSchema().keySet().stream()
@@ -48,12 +46,13 @@ public class CustomRelationalInput implements RelationalInput {
      */
     @Override
     public boolean hasNext() {
-        return currentRowIndex < numRows;
+        return cursor.hasNext();
     }
 
 
     /**
      * Retrieves the next row in the relation as a list of strings.
+     * The list is reused for all rows, so it only holds the values until the next call.
      *
      * @return A list of strings representing the values of the next row.
      * @throws InputIterationException if there are no more rows to retrieve.
@@ -61,18 +60,10 @@ public class CustomRelationalInput implements RelationalInput {
     @Override
     public List<String> next() throws InputIterationException {
 
-        if (!hasNext()) {
+        if (!cursor.next()) {
             throw new InputIterationException("No more rows.");
         }
-
-        List<String> row = new ArrayList<>();
-        for (Integer colIndex : relation.getSchema().keySet()) {
-            String cellValue = relation.getData().get(colIndex).get(currentRowIndex);
-            row.add(cellValue);
-        }
-
-        currentRowIndex++;
-        return row;
+        return cursor;
     }
 
 
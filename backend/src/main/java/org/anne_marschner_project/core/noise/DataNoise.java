@@ -1,6 +1,8 @@
 package org.anne_marschner_project.core.noise;
 
 import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.ColumnStatistics;
+import org.anne_marschner_project.core.data.NumberParser;
 import org.anne_marschner_project.core.data.Relation;
 import org.anne_marschner_project.core.data.Type;
 
@@ -16,7 +18,8 @@ public class DataNoise extends Noise {
     private List<String> selectedStringMethods;     // List of noise methods for alphanumeric entries selected by the user
     private List<String> selectedNumericMethods;    // List of noise methods for numeric entries selected by the user
     private final List<String> existingNumericMethods = new ArrayList<>(Arrays.asList("changeValue", "changeValueToOutlier"));
-    Map<Integer, StatisticValues> statisticValuesOfColumns = new HashMap<>();     // Map to store precomputed statistical values for columns
+    private Relation sourceRelation;     // The relation that is perturbed, whose catalog provides the statistics of its columns
+    Map<Integer, ColumnStatistics> statisticsOfColumns = new HashMap<>();     // Statistics of columns that are perturbed without a relation
 
 
     /**
@@ -86,22 +89,53 @@ public class DataNoise extends Noise {
      */
     public Relation perturbRowData(Relation relation, int noisePercentage, int noiseInsidePercentage ,boolean dataNoiseInKeys, boolean columnPerturbation) throws Exception {
 
-        // Get schema, data and number of row overlap from relation
-        Map<Integer, Attribute> schema = relation.getSchema();
-        Map<Integer, List<String>> data = relation.getData();
+        // Plan which rows and columns receive noise
+        RowNoise rowNoise = planRowNoise(relation, noisePercentage, noiseInsidePercentage, dataNoiseInKeys, columnPerturbation);
+        if (rowNoise == null) {
+            return relation;
+        }
+
+        // Entries are written into copy-on-write views of the columns, so the given relation stays unchanged
+        Relation.Builder perturbedRelation = relation.toBuilder();
+
+        // Loop through all rows that should be perturbed
+        for (int rowIndex : rowNoise.getRowsToPerturb()) {
+            for (Map.Entry<Integer, String> replacement : rowNoise.perturbRow(rowIndex).entrySet()) {
+                perturbedRelation.writableColumn(replacement.getKey()).set(rowIndex, replacement.getValue());
+            }
+        }
+        return perturbedRelation.build();
+    }
+
+
+    /**
+     * Plans the noise of random rows within a Relation without applying it, so that the rows can be perturbed
+     * one by one later, e.g. while the relation is written.
+     *
+     * @param relation The Relation to be perturbed.
+     * @param noisePercentage The percentage of rows to apply noise to.
+     * @param noiseInsidePercentage The percentage of entries within a row to receive noise.
+     * @param dataNoiseInKeys Whether keys in the data can receive noise.
+     * @param columnPerturbation Whether the data already includes noise in columns.
+     * @return The planned noise of the rows, or null if no row receives noise.
+     */
+    public RowNoise planRowNoise(Relation relation, int noisePercentage, int noiseInsidePercentage, boolean dataNoiseInKeys, boolean columnPerturbation) {
+
+        // Get number of row overlap from relation
         Integer numOfOverlappingRows = relation.getNumOfOverlappingRows();
+        sourceRelation = relation;
 
         // Calculate number of rows to perturb based on the percentage
         int numToPerturb = (int) Math.round((noisePercentage / 100.0) * numOfOverlappingRows);
         if (numToPerturb == 0) {
-            return relation;
+            return null;
         }
 
         // Pick numToPerturb random indices from the first numOverlappingRows of the data
         Set<Integer> indicesToPerturb = pickUniqueRandomIndices(numOfOverlappingRows, numToPerturb);
 
         // Get the column indices of the entries that are allowed to be perturbed
-        List<Integer> selectableIndices = new ArrayList<>(data.keySet());
+        List<Integer> selectableIndices = new ArrayList<>(relation.getData().keySet());
 
         // Remove keys if they shall not receive noise
         if (!dataNoiseInKeys) {
@@ -114,26 +148,7 @@ public class DataNoise extends Noise {
         if (columnPerturbation) {
             selectableIndices.removeAll(relation.getOverlappingColumnsIndices());
         }
-
-        // Loop through all rows that should be perturbed
-        for (int rowIndex : indicesToPerturb) {
-
-            // Determine the number of values that can be perturbed
-            int numOfValues = selectableIndices.size();
-
-            // Calculate number of errors that will be added in row entries
-            int numOfErrors = (int) Math.round((double) (numOfValues * noiseInsidePercentage) / 100);
-
-            // Add noise into numOfErrors random entries
-            Collections.shuffle(selectableIndices);
-            for (int i = 0; i < numOfErrors; i++) {
-                int columnIndex = selectableIndices.get(i);
-                String entry = data.get(columnIndex).get(rowIndex);
-                String replacement = chooseNoise(entry, schema.get(columnIndex), columnIndex, data.get(columnIndex));
-                data.get(columnIndex).set(rowIndex, replacement);
-            }
-        }
-        return relation;
+        return new RowNoise(this, relation, indicesToPerturb, selectableIndices, noiseInsidePercentage);
     }
 
 
@@ -149,10 +164,10 @@ public class DataNoise extends Noise {
      */
     public Relation perturbColumnData(Relation relation, int noisePercentage, int noiseInsidePercentage, boolean dataNoiseInKeys) throws Exception {
 
-        // Get schema, data and overlapping columns indices from relation
+        // Get schema and overlapping columns indices from relation
         Map<Integer, Attribute> schema = relation.getSchema();
-        Map<Integer, List<String>> data = relation.getData();
         List<Integer> candidateColumnsIndices = new ArrayList<>(relation.getOverlappingColumnsIndices());
+        sourceRelation = relation;
 
         // Remove keys if they shall not receive noise
         if (!dataNoiseInKeys) {
@@ -184,11 +199,24 @@ public class DataNoise extends Noise {
         int numNumericPerturbation = calculateNumOfNumericPerturbation(numToPerturb, numCandidateColumns, numericIndices.size(), stringIndices.size());
         int numStringPerturbation = numToPerturb - numNumericPerturbation;
 
+        // The candidate columns receive noise through copy-on-write views, so the given relation stays unchanged
+        Relation.Builder perturbedRelation = relation.toBuilder();
+        Map<Integer, List<String>> candidateData = new HashMap<>();
+        for (Integer index : candidateColumnsIndices) {
+            candidateData.put(index, perturbedRelation.writableColumn(index));
+        }
+
         // Add Noise into data
-        Map<Integer, List<String>> dataWithNumericErrors = perturbNumericColumnData(data, numNumericPerturbation, numericIndices, noiseInsidePercentage);
+        Map<Integer, List<String>> dataWithNumericErrors = perturbNumericColumnData(candidateData, numNumericPerturbation, numericIndices, noiseInsidePercentage);
         Map<Integer, List<String>> dataWithAllErrors = perturbStringColumnData(dataWithNumericErrors, numStringPerturbation, stringIndices, noiseInsidePercentage);
 
-        return new Relation(schema, dataWithAllErrors, relation.getKeyIndices(), relation.getForeignKeyIndices(), relation.getOverlappingColumnsIndices(), relation.getNumOfOverlappingRows());
+        // Take over the columns that were replaced as a whole (e.g. by mapColumn)
+        for (Map.Entry<Integer, List<String>> column : dataWithAllErrors.entrySet()) {
+            if (column.getValue() != perturbedRelation.getColumn(column.getKey())) {
+                perturbedRelation.column(column.getKey(), column.getValue());
+            }
+        }
+        return perturbedRelation.build();
     }
 
 
@@ -213,20 +241,22 @@ public class DataNoise extends Noise {
             int colIndex = numericIndices.get(i);
             List<String> column = data.get(colIndex);
 
-            // Calculate mean, standard deviation and number of errors that will be added in column entries
-            List<Double> numericColumn = createListOfDouble(column);
-            double mean = calculateMean(numericColumn);
-            double standardDeviation = calculateStandardDeviation(numericColumn, mean);
-            int numOfErrors = (int) Math.round((double) (numericColumn.size() * noiseInsidePercentage) / 100);
+            // Get mean and standard deviation from the statistics (collected only if unknown)
+            ColumnStatistics statistics = getStatistics(colIndex, column);
+            double mean = statistics.getMean();
+            double standardDeviation = statistics.getStandardDeviation();
 
-            // Filter indices of Double values
+            // Filter indices of Double values (typed columns provide their values without parsing)
             List<Integer> doubleIndices = new ArrayList<>();
             for (int rowIndex = 0; rowIndex < column.size(); rowIndex++) {
-                if (isDouble(column.get(rowIndex))) {
+                if (NumberParser.isNumberAt(column, rowIndex)) {
                     doubleIndices.add(rowIndex);
                 }
             }
 
+            // Calculate the number of errors from the entries that can receive numeric noise (including "NaN")
+            int numOfErrors = (int) Math.round((double) (doubleIndices.size() * noiseInsidePercentage) / 100);
+
             // Shuffle and pick the first numOfErrors indices to perturb
             Collections.shuffle(doubleIndices);
             List<Integer> indicesToModify = doubleIndices.subList(0, Math.min(numOfErrors, doubleIndices.size()));
@@ -303,27 +333,16 @@ public class DataNoise extends Noise {
         // Determine which Type of entry it is
         if (attribute.getDataType().equals(Type.DOUBLE)) {
 
-            // Calculate mean and standardDeviation, but only if they have not been calculated yet
-            double mean;
-            double standardDeviation;
-
-            if (statisticValuesOfColumns.containsKey(columnIndex)) {
-                mean = statisticValuesOfColumns.get(columnIndex).getMean();
-                standardDeviation = statisticValuesOfColumns.get(columnIndex).getStandardDeviation();
-            } else {
-                List<Double> doubleValues = createListOfDouble(columnValues);
-                mean = calculateMean(doubleValues);
-                standardDeviation = calculateStandardDeviation(doubleValues, mean);
-                statisticValuesOfColumns.put(columnIndex, new StatisticValues(mean, standardDeviation));
-            }
+            // Get mean and standardDeviation from the statistics, which are only collected if they are not known yet
+            ColumnStatistics statistics = getStatistics(columnIndex, columnValues);
+            double mean = statistics.getMean();
+            double standardDeviation = statistics.getStandardDeviation();
 
             // Check if it really is a Double value (since DOUBLE columns can include some alphanumeric values)
-            try {
-                Double.parseDouble(entry);
+            if (NumberParser.isNumber(entry)) {
                 return chooseNumericNoise(entry, mean, standardDeviation);
-            } catch (NumberFormatException e) {
-                return chooseNumericNoise("0", mean, standardDeviation);
             }
+            return chooseNumericNoise("0", mean, standardDeviation);
         } else {
             // For alphanumeric entry: find applicable Methods and apply one
             List<String> applicableMethods = findApplicableMethods(entry);
@@ -332,6 +351,22 @@ public class DataNoise extends Noise {
     }
 
 
+    /**
+     * Returns the statistics of a column. They are taken from the catalog of the perturbed relation, which collects
+     * them from its unchanged column if they are not known yet. Without a relation, they are collected from the given entries.
+     *
+     * @param columnIndex The index of the column.
+     * @param columnValues All values in the column.
+     * @return The statistics of the column.
+     */
+    private ColumnStatistics getStatistics(int columnIndex, List<String> columnValues) {
+        if (sourceRelation != null && sourceRelation.getData().containsKey(columnIndex)) {
+            return sourceRelation.getColumnStatistics(columnIndex);
+        }
+        return statisticsOfColumns.computeIfAbsent(columnIndex, index -> ColumnStatistics.of(columnValues));
+    }
+
+
     /**
      * Randomly selects a numeric noise method and applies it to a given entry.
      *
@@ -499,12 +534,7 @@ public class DataNoise extends Noise {
      * @return True if the object is a double, otherwise false.
      */
     public boolean isDouble(String string) {
-        try {
-            Double.valueOf(string);         // Try to convert to Double
-        } catch (NumberFormatException e) {
-            return false;
-        }
-        return true;
+        return NumberParser.isNumber(string);
     }
 
 
@@ -2,6 +2,8 @@ package org.anne_marschner_project.core.noise;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.anne_marschner_project.core.data.DictionaryColumn;
+import org.anne_marschner_project.core.data.NumberParser;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -803,16 +805,14 @@ public class Noise {
      * @return A list of doubles with valid numeric values.
      */
     public List<Double> createListOfDouble(List<String> column) {
-        return column.stream()
-                .map(value -> {
-                    try {
-                        return Double.valueOf(value); // Try to convert to Double
-                    } catch (NumberFormatException e) {
-                        return null; // If not possible return null
-                    }
-                })
-                .filter(Objects::nonNull) // Filter all null-values
-                .toList();
+        List<Double> numericValues = new ArrayList<>(column.size());
+        for (int rowIndex = 0; rowIndex < column.size(); rowIndex++) {
+            // Typed columns provide their values without parsing, non-numeric values are left out ("NaN" is kept)
+            if (NumberParser.isNumberAt(column, rowIndex)) {
+                numericValues.add(NumberParser.valueAt(column, rowIndex));
+            }
+        }
+        return numericValues;
     }
 
 
@@ -861,6 +861,11 @@ public class Noise {
      */
     public List<String> mapColumn(List<String> inputColumn) {
 
+        // Dictionary encoded columns can be mapped on their codes
+        if (inputColumn instanceof DictionaryColumn dictionaryColumn) {
+            return mapDictionaryColumn(dictionaryColumn);
+        }
+
         Set<String> uniqueValues = new LinkedHashSet<>(inputColumn);
 
         // Create Mapping
@@ -875,4 +880,38 @@ public class Noise {
                 .map(dynamicMapping::get)
                 .collect(Collectors.toList());
     }
+
+
+    /**
+     * Maps the unique values of a dictionary encoded column to a sequence of numeric strings ("0", "1", ..., "n")
+     * in the order of their first occurrence. Each distinct entry is only looked at once through its code.
+     *
+     * @param inputColumn the dictionary encoded column to be mapped.
+     * @return a new column where each entry is replaced by its corresponding numeric mapping.
+     */
+    private List<String> mapDictionaryColumn(DictionaryColumn inputColumn) {
+
+        // Create Mapping from codes to numeric strings (null entries get their own number as well)
+        String[] mappingByCode = new String[inputColumn.getCardinality()];
+        String mappingOfNull = null;
+        int index = 0;
+
+        // Change each entry
+        DictionaryColumn mappedColumn = new DictionaryColumn(inputColumn.size());
+        for (int row = 0; row < inputColumn.size(); row++) {
+            int code = inputColumn.getCode(row);
+            if (code < 0) {
+                if (mappingOfNull == null) {
+                    mappingOfNull = String.valueOf(index++);
+                }
+                mappedColumn.add(mappingOfNull);
+            } else {
+                if (mappingByCode[code] == null) {
+                    mappingByCode[code] = String.valueOf(index++);
+                }
+                mappedColumn.add(mappingByCode[code]);
+            }
+        }
+        return mappedColumn;
+    }
 }
@@ -0,0 +1,83 @@
+package org.anne_marschner_project.core.noise;
+
+import org.anne_marschner_project.core.data.Relation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The planned data noise of the rows of a {@link Relation}: which rows receive noise and which columns may be
+ * perturbed. The replacements of a row are only created when the row is perturbed, so the noise can be applied
+ * row by row while the relation is written, without building a perturbed copy of the relation first.
+ * Rows can be perturbed concurrently, since each call works on its own copy of the selectable columns.
+ */
+public class RowNoise {
+
+    private final DataNoise dataNoise; // Holds the noise methods and the statistics catalog of the relation
+    private final Relation relation; // Holds the relation whose rows are perturbed
+    private final Set<Integer> rowsToPerturb; // Holds the indices of the rows that receive noise
+    private final List<Integer> selectableIndices; // Holds the indices of the columns whose entries may be perturbed
+    private final int noiseInsidePercentage; // Holds the percentage of entries within a row to receive noise
+
+
+    /**
+     * Constructs a RowNoise plan.
+     *
+     * @param dataNoise             the noise methods, whose statistics catalog is the one of the relation.
+     * @param relation              the relation whose rows are perturbed.
+     * @param rowsToPerturb         the indices of the rows that receive noise.
+     * @param selectableIndices     the indices of the columns whose entries may be perturbed.
+     * @param noiseInsidePercentage the percentage of entries within a row to receive noise.
+     */
+    RowNoise(DataNoise dataNoise, Relation relation, Set<Integer> rowsToPerturb, List<Integer> selectableIndices, int noiseInsidePercentage) {
+        this.dataNoise = dataNoise;
+        this.relation = relation;
+        this.rowsToPerturb = rowsToPerturb;
+        this.selectableIndices = selectableIndices;
+        this.noiseInsidePercentage = noiseInsidePercentage;
+    }
+
+
+    /**
+     * Returns the indices of the rows that receive noise.
+     *
+     * @return the row indices.
+     */
+    public Set<Integer> getRowsToPerturb() {
+        return rowsToPerturb;
+    }
+
+
+    /**
+     * Creates the noise of one row.
+     *
+     * @param rowIndex the index of the row.
+     * @return the replacements of the perturbed entries by their column indices, or null if the row receives no noise.
+     * @throws Exception If noise cannot be applied.
+     */
+    public Map<Integer, String> perturbRow(int rowIndex) throws Exception {
+        if (!rowsToPerturb.contains(rowIndex)) {
+            return null;
+        }
+
+        // Calculate number of errors that will be added in row entries
+        int numOfValues = selectableIndices.size();
+        int numOfErrors = (int) Math.round((double) (numOfValues * noiseInsidePercentage) / 100);
+
+        // Add noise into numOfErrors random entries
+        List<Integer> columnIndices = new ArrayList<>(selectableIndices);
+        Collections.shuffle(columnIndices);
+        Map<Integer, String> replacements = new HashMap<>();
+        for (int i = 0; i < numOfErrors; i++) {
+            int columnIndex = columnIndices.get(i);
+            List<String> column = relation.getData().get(columnIndex);
+            String replacement = dataNoise.chooseNoise(column.get(rowIndex), relation.getSchema().get(columnIndex), columnIndex, column);
+            replacements.put(columnIndex, replacement);
+        }
+        return replacements;
+    }
+}
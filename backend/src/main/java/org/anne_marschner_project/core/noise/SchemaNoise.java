@@ -84,7 +84,8 @@ public class SchemaNoise extends Noise {
         // Shuffle the list of column indices to randomize which ones will be perturbed
         Collections.shuffle(columnsToConsider);
 
-        // Perturb the column names for the selected columns
+        // Perturb the column names for the selected columns (in a new relation that shares the columns)
+        Relation.Builder perturbedRelation = relation.toBuilder();
         for (int i = 0; i < numToPerturb; i++) {
             int colIndex = columnsToConsider.get(i);
             Attribute attribute = schema.get(colIndex);
@@ -94,12 +95,11 @@ public class SchemaNoise extends Noise {
 
             // Update the schema with the new perturbed attribute name
             Attribute newAttribute = new Attribute(perturbedName, attribute.getDataType());
-            schema.put(colIndex, newAttribute);
+            perturbedRelation.attribute(colIndex, newAttribute);
         }
 
         // Return the new relation with the perturbed schema
-        relation.setSchema(schema);
-        return relation;
+        return perturbedRelation.build();
     }
 
 
@@ -107,13 +107,14 @@ public class SchemaNoise extends Noise {
      * Deletes the headers of the relation by setting them to null.
      *
      * @param relation the Relation which headers should be removed.
-     * @return the Relation without headers.
+     * @return a new Relation without headers that shares the columns of the given relation.
      */
     public Relation deleteHeaders(Relation relation) {
+        Relation.Builder relationWithoutHeaders = relation.toBuilder();
         for (Map.Entry<Integer, Attribute> entry: relation.getSchema().entrySet()) {
-            relation.getSchema().get(entry.getKey()).setColumnName(null);
+            relationWithoutHeaders.attribute(entry.getKey(), new Attribute(null, entry.getValue().getDataType()));
         }
-        return relation;
+        return relationWithoutHeaders.build();
     }
 
 
@@ -0,0 +1,441 @@
+package org.anne_marschner_project.core.registry;
+
+import org.anne_marschner_project.core.data.Relation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps input relations that were registered once, so that datasets can be generated from them many times
+ * without uploading, parsing and searching for keys again. Registered relations are identified by a random ID.
+ * The registry is bounded: relations that were not used for the retention time are removed, and when the number
+ * of relations or their estimated heap memory exceeds the limits, the least recently used relations are removed.
+ * Resources that belong to a relation (e.g. the directory of its off-heap columns and its reservation of heap memory)
+ * are closed when it is removed, or only when the last job that acquired it ended, if it is still in use.
+ */
+@Service
+public class DatasetRegistry {
+
+    private final int maxDatasets; // Holds the maximal number of registered relations
+    private final long maxBytes; // Holds the maximal estimated heap memory of all registered relations
+    private final Duration retention; // Holds the time after which an unused relation is removed
+    private final Clock clock; // Holds the clock used for the times of last use
+    private final LinkedHashMap<String, RegisteredDataset> datasets = new LinkedHashMap<>(16, 0.75f, true); // Holds the relations by ID, least recently used first
+    private long registeredBytes = 0; // Holds the estimated heap memory of all registered relations (without removed ones that are still in use)
+
+
+    /**
+     * Constructs a DatasetRegistry.
+     *
+     * @param maxDatasets      the maximal number of registered relations.
+     * @param maxBytes         the maximal estimated heap memory of all registered relations in bytes.
+     * @param retentionMinutes the number of minutes after which an unused relation is removed.
+     */
+    @Autowired
+    public DatasetRegistry(@Value("${sydag.registry.max-datasets:8}") int maxDatasets,
+                           @Value("${sydag.registry.max-bytes:536870912}") long maxBytes,
+                           @Value("${sydag.registry.retention-minutes:60}") long retentionMinutes) {
+        this(maxDatasets, maxBytes, Duration.ofMinutes(retentionMinutes), Clock.systemUTC());
+    }
+
+
+    /**
+     * Constructs a DatasetRegistry with a given clock.
+     *
+     * @param maxDatasets the maximal number of registered relations.
+     * @param maxBytes    the maximal estimated heap memory of all registered relations in bytes.
+     * @param retention   the time after which an unused relation is removed.
+     * @param clock       the clock used for the times of last use.
+     */
+    DatasetRegistry(int maxDatasets, long maxBytes, Duration retention, Clock clock) {
+        this.maxDatasets = maxDatasets;
+        this.maxBytes = maxBytes;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Registers a relation, which should already have its key indices. Least recently used relations are removed
+     * if the registry would exceed its limits otherwise.
+     *
+     * @param name       the name of the dataset (e.g. the name of the uploaded file).
+     * @param relation   the input relation.
+     * @param hasHeaders whether the file had column names.
+     * @param separator  the separator the file was read with.
+     * @param quoteChar  the quote character the file was read with.
+     * @param escapeChar the escape character the file was read with.
+     * @param resources  the resources that belong to the relation, which are closed when it is removed
+     *                   (or right away if it cannot be registered).
+     * @return the registered dataset with its new ID.
+     * @throws IllegalArgumentException if the relation alone exceeds the memory limit of the registry.
+     */
+    public synchronized RegisteredDataset register(String name, Relation relation, boolean hasHeaders,
+                                                   char separator, char quoteChar, char escapeChar, AutoCloseable... resources) {
+        long bytes = relation.estimateMemoryUsage();
+        if (bytes > maxBytes) {
+            close(resources);
+            throw new IllegalArgumentException("The dataset needs " + bytes + " bytes, but the registry can only hold " + maxBytes + " bytes.");
+        }
+        RegisteredDataset dataset = new RegisteredDataset(UUID.randomUUID().toString(), name, relation, bytes,
+                hasHeaders, separator, quoteChar, escapeChar, clock.instant(), resources);
+
+        // Make room for the new relation, starting with the least recently used one
+        removeExpired();
+        Iterator<RegisteredDataset> iterator = datasets.values().iterator();
+        while (iterator.hasNext() && (datasets.size() >= maxDatasets || registeredBytes + bytes > maxBytes)) {
+            RegisteredDataset evicted = iterator.next();
+            iterator.remove();
+            release(evicted);
+        }
+        datasets.put(dataset.getId(), dataset);
+        registeredBytes += bytes;
+        return dataset;
+    }
+
+
+    /**
+     * Returns a registered dataset and marks it as recently used. The dataset may be removed at any time afterwards,
+     * so jobs that use its relation have to {@link #acquire(String) acquire} it instead.
+     *
+     * @param id the ID of the dataset.
+     * @return the dataset, or null if no dataset is registered under the ID or it was removed.
+     */
+    public synchronized RegisteredDataset get(String id) {
+        removeExpired();
+        RegisteredDataset dataset = datasets.get(id);
+        if (dataset != null) {
+            dataset.lastUsed = clock.instant();
+        }
+        return dataset;
+    }
+
+
+    /**
+     * Acquires a registered dataset for a job and marks it as recently used. The dataset can still be removed
+     * from the registry, but its resources (e.g. the reservation of its relation and the directory of its off-heap
+     * columns) are only closed once every lease was closed.
+     *
+     * @param id the ID of the dataset.
+     * @return the lease of the dataset, or null if no dataset is registered under the ID or it was removed.
+     */
+    public synchronized Lease acquire(String id) {
+        RegisteredDataset dataset = get(id);
+        if (dataset == null) {
+            return null;
+        }
+        dataset.users++;
+        return new Lease(this, dataset);
+    }
+
+
+    /**
+     * Removes a registered dataset.
+     *
+     * @param id the ID of the dataset.
+     * @return true if the dataset was registered, otherwise false.
+     */
+    public synchronized boolean remove(String id) {
+        RegisteredDataset dataset = datasets.remove(id);
+        if (dataset == null) {
+            return false;
+        }
+        release(dataset);
+        return true;
+    }
+
+
+    /**
+     * Returns all registered datasets, least recently used first.
+     *
+     * @return a copy of the list of datasets.
+     */
+    public synchronized List<RegisteredDataset> list() {
+        removeExpired();
+        return new ArrayList<>(datasets.values());
+    }
+
+
+    /**
+     * Returns the estimated heap memory of all registered relations.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getRegisteredBytes() {
+        return registeredBytes;
+    }
+
+
+    /**
+     * Removes the datasets that were not used for the retention time. Since the datasets are ordered by their last use,
+     * only the beginning of the map has to be checked.
+     */
+    private void removeExpired() {
+        Instant oldestAllowed = clock.instant().minus(retention);
+        Iterator<RegisteredDataset> iterator = datasets.values().iterator();
+        while (iterator.hasNext()) {
+            RegisteredDataset dataset = iterator.next();
+            if (!dataset.lastUsed.isBefore(oldestAllowed)) {
+                break;
+            }
+            iterator.remove();
+            release(dataset);
+        }
+    }
+
+
+    /**
+     * Releases the memory of a dataset that was removed from the map. Its resources are closed right away,
+     * or when the last lease of the dataset is closed if it is still in use.
+     *
+     * @param dataset the removed dataset.
+     */
+    private void release(RegisteredDataset dataset) {
+        registeredBytes -= dataset.getEstimatedBytes();
+        dataset.removed = true;
+        if (dataset.users == 0) {
+            close(dataset.resources);
+        }
+    }
+
+
+    /**
+     * Ends one use of a dataset and closes its resources if it was removed and this was the last use.
+     *
+     * @param dataset the dataset of a closed lease.
+     */
+    private synchronized void endUse(RegisteredDataset dataset) {
+        dataset.users--;
+        if (dataset.users == 0 && dataset.removed) {
+            close(dataset.resources);
+        }
+    }
+
+
+    /**
+     * Closes the resources of a dataset. Failures are reported, but do not stop the other resources from being closed.
+     *
+     * @param resources the resources to close.
+     */
+    private static void close(AutoCloseable[] resources) {
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("Error closing resource of registered dataset: " + e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * A registered input relation together with the options its file was read with.
+     */
+    public static class RegisteredDataset {
+
+        private final String id; // Holds the ID of the dataset
+        private final String name; // Holds the name of the dataset
+        private final Relation relation; // Holds the input relation with its key indices
+        private final long estimatedBytes; // Holds the estimated heap memory of the relation
+        private final boolean hasHeaders; // Whether the file had column names
+        private final char separator; // Holds the separator the file was read with
+        private final char quoteChar; // Holds the quote character the file was read with
+        private final char escapeChar; // Holds the escape character the file was read with
+        private final Instant registered; // Holds the time of the registration
+        private final AutoCloseable[] resources; // Holds the resources that are closed when the dataset is removed
+        private Instant lastUsed; // Holds the time of the last use (guarded by the registry)
+        private int users = 0; // Holds the number of open leases (guarded by the registry)
+        private boolean removed = false; // Whether the dataset was removed from the registry (guarded by the registry)
+
+
+        /**
+         * Constructs a RegisteredDataset.
+         *
+         * @param id             the ID of the dataset.
+         * @param name           the name of the dataset.
+         * @param relation       the input relation.
+         * @param estimatedBytes the estimated heap memory of the relation.
+         * @param hasHeaders     whether the file had column names.
+         * @param separator      the separator the file was read with.
+         * @param quoteChar      the quote character the file was read with.
+         * @param escapeChar     the escape character the file was read with.
+         * @param registered     the time of the registration.
+         * @param resources      the resources that are closed when the dataset is removed.
+         */
+        RegisteredDataset(String id, String name, Relation relation, long estimatedBytes, boolean hasHeaders,
+                          char separator, char quoteChar, char escapeChar, Instant registered, AutoCloseable... resources) {
+            this.id = id;
+            this.name = name;
+            this.relation = relation;
+            this.estimatedBytes = estimatedBytes;
+            this.hasHeaders = hasHeaders;
+            this.separator = separator;
+            this.quoteChar = quoteChar;
+            this.escapeChar = escapeChar;
+            this.registered = registered;
+            this.lastUsed = registered;
+            this.resources = resources;
+        }
+
+
+        /**
+         * Returns the ID of the dataset.
+         *
+         * @return the ID.
+         */
+        public String getId() {
+            return id;
+        }
+
+
+        /**
+         * Returns the name of the dataset.
+         *
+         * @return the name.
+         */
+        public String getName() {
+            return name;
+        }
+
+
+        /**
+         * Returns the input relation, which is immutable and can be used by several jobs at the same time.
+         *
+         * @return the relation with its key indices.
+         */
+        public Relation getRelation() {
+            return relation;
+        }
+
+
+        /**
+         * Returns the estimated heap memory of the relation.
+         *
+         * @return the number of bytes.
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+
+        /**
+         * Returns whether the file had column names.
+         *
+         * @return true if the first record held the column names.
+         */
+        public boolean hasHeaders() {
+            return hasHeaders;
+        }
+
+
+        /**
+         * Returns the separator the file was read with.
+         *
+         * @return the separator.
+         */
+        public char getSeparator() {
+            return separator;
+        }
+
+
+        /**
+         * Returns the quote character the file was read with.
+         *
+         * @return the quote character.
+         */
+        public char getQuoteChar() {
+            return quoteChar;
+        }
+
+
+        /**
+         * Returns the escape character the file was read with.
+         *
+         * @return the escape character.
+         */
+        public char getEscapeChar() {
+            return escapeChar;
+        }
+
+
+        /**
+         * Returns the time of the registration.
+         *
+         * @return the time.
+         */
+        public Instant getRegistered() {
+            return registered;
+        }
+    }
+
+
+    /**
+     * The use of a registered dataset by one job. The resources of the dataset are kept until the lease is closed,
+     * even if the dataset is removed from the registry in the meantime.
+     */
+    public static class Lease implements AutoCloseable {
+
+        private final DatasetRegistry registry; // Holds the registry of the dataset
+        private final RegisteredDataset dataset; // Holds the acquired dataset
+        private boolean closed = false; // Whether the lease was already closed or handed over
+
+
+        /**
+         * Constructs a Lease.
+         *
+         * @param registry the registry of the dataset.
+         * @param dataset  the acquired dataset.
+         */
+        private Lease(DatasetRegistry registry, RegisteredDataset dataset) {
+            this.registry = registry;
+            this.dataset = dataset;
+        }
+
+
+        /**
+         * Returns the acquired dataset.
+         *
+         * @return the dataset.
+         */
+        public RegisteredDataset getDataset() {
+            return dataset;
+        }
+
+
+        /**
+         * Hands the lease over to a new Lease, e.g. to the response that still reads the relation after the request
+         * was handled. Closing this object has no effect afterwards.
+         *
+         * @return the Lease that ends the use of the dataset once it is closed.
+         */
+        public synchronized Lease handOver() {
+            if (closed) {
+                throw new IllegalStateException("The lease of dataset " + dataset.getId() + " was already closed.");
+            }
+            closed = true;
+            return new Lease(registry, dataset);
+        }
+
+
+        /**
+         * Ends the use of the dataset. Further calls have no effect.
+         */
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            registry.endUse(dataset);
+        }
+    }
+}
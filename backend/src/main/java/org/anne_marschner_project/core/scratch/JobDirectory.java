@@ -0,0 +1,96 @@
+package org.anne_marschner_project.core.scratch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A directory that belongs to one job (or one registered dataset) and holds all of its scratch files, such as stored
+ * uploads, the files of off-heap columns and the bucket files of the row shuffle. Each job gets its own directory
+ * with a random name, so jobs that run at the same time never touch each other's files, and closing the directory
+ * deletes it together with everything inside.
+ */
+public class JobDirectory implements AutoCloseable {
+
+    private final Path path; // Holds the path of the directory
+    private boolean closed = false; // Whether the directory was already deleted or handed over
+
+
+    /**
+     * Constructs a JobDirectory for an existing directory.
+     *
+     * @param path the path of the directory.
+     */
+    private JobDirectory(Path path) {
+        this.path = path;
+    }
+
+
+    /**
+     * Creates a new directory with a random name for a job.
+     *
+     * @param parent the directory in which the directory of the job is created (created if it does not exist).
+     * @return the directory of the job.
+     * @throws IOException if the directory cannot be created.
+     */
+    public static JobDirectory create(Path parent) throws IOException {
+        Files.createDirectories(parent);
+        return new JobDirectory(Files.createTempDirectory(parent, "job"));
+    }
+
+
+    /**
+     * Returns the path of the directory.
+     *
+     * @return the path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+
+    /**
+     * Hands the deletion of the directory over to a new JobDirectory, e.g. to the response that still reads the files
+     * after the request was handled. Closing this object has no effect afterwards.
+     *
+     * @return the JobDirectory that deletes the directory once it is closed.
+     */
+    public synchronized JobDirectory handOver() {
+        if (closed) {
+            throw new IllegalStateException("The directory " + path + " was already closed.");
+        }
+        closed = true;
+        return new JobDirectory(path);
+    }
+
+
+    /**
+     * Deletes the directory with all files inside. Further calls have no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        // Delete the files before the directories that contain them
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(path)) {
+            paths = walk.sorted(Comparator.reverseOrder()).toList();
+        } catch (IOException e) {
+            System.err.println("Error deleting job directory: " + e.getMessage());
+            return;
+        }
+        for (Path file : paths) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Error deleting job directory: " + e.getMessage());
+            }
+        }
+    }
+}
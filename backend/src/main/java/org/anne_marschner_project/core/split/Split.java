@@ -1,6 +1,7 @@
 package org.anne_marschner_project.core.split;
 
 import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.ColumnView;
 import org.anne_marschner_project.core.data.Relation;
 
 import java.util.*;
@@ -53,8 +54,8 @@ public class Split {
         Map<Integer, Attribute> sourceSchema = source.getSchema();
         Map<Integer, List<String>> sourceData = source.getData();
 
-        // Get number of rows in Relation
-        int numRows = sourceData.get(0).size();
+        // Get number of rows in Relation (from the statistics if they are known)
+        int numRows = source.getNumOfRows();
 
         // Calculate the number of rows that should overlap
         int numOverlapRows = (int) Math.round(numRows * (overlapPercentage / 100.0));
@@ -68,57 +69,46 @@ public class Split {
         Random random = new Random();
         int overlapStartIndex = random.nextInt(numRows - numOverlapRows + 1);
 
-        // Create new Maps for the data
-        Map<Integer, List<String>> dataTop = new HashMap<>();
-        Map<Integer, List<String>> dataBottom = new HashMap<>();
-
-        // Fill both Relations
-        for (Map.Entry<Integer, List<String>> column : sourceData.entrySet()) {
-            // Get data from one Column
-            List<String> fullColumn = column.getValue();
-
-            // The rows starting at the chosen index are the overlapping ones and put into both Relations
-            List<String> topColumnData = new ArrayList<>(fullColumn.subList(overlapStartIndex, overlapStartIndex + numOverlapRows));
-            List<String> bottomColumnData = new ArrayList<>(fullColumn.subList(overlapStartIndex, overlapStartIndex + numOverlapRows));
-
-            // The first half of the not overlapping rows is put into topColumnData
-            // Try adding values from above the overlapping data
-            int firstMissingTopRows = numTopRows - topColumnData.size();
-            if (firstMissingTopRows > 0) {
-                topColumnData.addAll(fullColumn.subList(0, Math.min(overlapStartIndex, firstMissingTopRows)));
-            }
-            // Try adding values from below the overlapping data if not enough have been added
-            int secondMissingTopRows = numTopRows - topColumnData.size();
-            if (secondMissingTopRows > 0) {
-                topColumnData.addAll(fullColumn.subList(overlapStartIndex + numOverlapRows, overlapStartIndex + numOverlapRows + secondMissingTopRows));
-            }
+        // The rows starting at the chosen index are the overlapping ones and put into both Relations
+        int[] topRows = new int[numTopRows];
+        int[] bottomRows = new int[numRows - numTopRows + numOverlapRows];
+        int numTopRowsAdded = addRows(topRows, 0, overlapStartIndex, overlapStartIndex + numOverlapRows);
+        int numBottomRowsAdded = addRows(bottomRows, 0, overlapStartIndex, overlapStartIndex + numOverlapRows);
+
+        // The first half of the not overlapping rows is put into the top relation
+        // Try adding rows from above the overlapping data
+        int firstMissingTopRows = numTopRows - numTopRowsAdded;
+        if (firstMissingTopRows > 0) {
+            numTopRowsAdded = addRows(topRows, numTopRowsAdded, 0, Math.min(overlapStartIndex, firstMissingTopRows));
+        }
+        // Try adding rows from below the overlapping data if not enough have been added
+        int secondMissingTopRows = numTopRows - numTopRowsAdded;
+        if (secondMissingTopRows > 0) {
+            addRows(topRows, numTopRowsAdded, overlapStartIndex + numOverlapRows, overlapStartIndex + numOverlapRows + secondMissingTopRows);
+        }
 
-            // The second half of the not overlapping rows is put into bottomColumnData
-            // Try adding values from above the overlapping data
-            if (firstMissingTopRows < overlapStartIndex) {
-                bottomColumnData.addAll(fullColumn.subList(firstMissingTopRows, overlapStartIndex));
-            }
-            if (secondMissingTopRows > 0) {
-                bottomColumnData.addAll(fullColumn.subList(overlapStartIndex + numOverlapRows + secondMissingTopRows, numRows));
-            } else {
-                bottomColumnData.addAll(fullColumn.subList(overlapStartIndex + numOverlapRows, numRows));
-            }
-            // add the data to the new relations
-            dataTop.put(column.getKey(), topColumnData);
-            dataBottom.put(column.getKey(), bottomColumnData);
+        // The second half of the not overlapping rows is put into the bottom relation
+        // Try adding rows from above the overlapping data
+        if (firstMissingTopRows < overlapStartIndex) {
+            numBottomRowsAdded = addRows(bottomRows, numBottomRowsAdded, firstMissingTopRows, overlapStartIndex);
+        }
+        if (secondMissingTopRows > 0) {
+            addRows(bottomRows, numBottomRowsAdded, overlapStartIndex + numOverlapRows + secondMissingTopRows, numRows);
+        } else {
+            addRows(bottomRows, numBottomRowsAdded, overlapStartIndex + numOverlapRows, numRows);
         }
 
-        // Schema stays the same in both relations (make deep copy)
-        Map<Integer, Attribute> schemaTop = new HashMap<>();
-        Map<Integer, Attribute> schemaBottom = new HashMap<>();
-        for (Map.Entry<Integer, Attribute> entry : sourceSchema.entrySet()) {
-            schemaTop.put(entry.getKey(), new Attribute(entry.getValue().getColumnName(), entry.getValue().getDataType()));
-            schemaBottom.put(entry.getKey(), new Attribute(entry.getValue().getColumnName(), entry.getValue().getDataType()));
+        // Both relations show their rows of the shared columns without copying them
+        Map<Integer, List<String>> dataTop = new HashMap<>();
+        Map<Integer, List<String>> dataBottom = new HashMap<>();
+        for (Map.Entry<Integer, List<String>> column : sourceData.entrySet()) {
+            dataTop.put(column.getKey(), ColumnView.select(column.getValue(), topRows));
+            dataBottom.put(column.getKey(), ColumnView.select(column.getValue(), bottomRows));
         }
 
-        // Create new relations and return them
-        Relation relationTop = new Relation(schemaTop, dataTop, new ArrayList<>(source.getKeyIndices()), numOverlapRows);
-        Relation relationBottom = new Relation(schemaBottom, dataBottom, new ArrayList<>(source.getKeyIndices()), numOverlapRows);
+        // Create new relations and return them (the schema stays the same and is shared, since attributes are immutable)
+        Relation relationTop = new Relation(sourceSchema, dataTop, source.getKeyIndices(), numOverlapRows);
+        Relation relationBottom = new Relation(sourceSchema, dataBottom, source.getKeyIndices(), numOverlapRows);
 
         return new ArrayList<>(Arrays.asList(relationTop, relationBottom));
     }
@@ -140,8 +130,8 @@ public class Split {
         Map<Integer, Attribute> sourceSchema = source.getSchema();
         Map<Integer, List<String>> sourceData = source.getData();
 
-        // Get number of rows in relation
-        int numRows = sourceData.get(0).size();
+        // Get number of rows in relation (from the statistics if they are known)
+        int numRows = source.getNumOfRows();
 
         // Calculate the number of rows that should overlap
         int numOverlapRows = (int) Math.round(numRows * (overlapPercentage / 100.0));
@@ -164,31 +154,19 @@ public class Split {
         List<Integer> bottomIndices = new ArrayList<>(overlapIndices); // Start with overlap
         bottomIndices.addAll(nonOverlapIndices.subList(numTopNonOverlapRows, nonOverlapIndices.size()).stream().sorted().toList());
 
-        // Create new maps for the data
+        // Both relations show their rows of the shared columns without copying them
+        int[] topRows = topIndices.stream().mapToInt(Integer::intValue).toArray();
+        int[] bottomRows = bottomIndices.stream().mapToInt(Integer::intValue).toArray();
         Map<Integer, List<String>> dataTop = new HashMap<>();
         Map<Integer, List<String>> dataBottom = new HashMap<>();
-
-        // Fill both relations
         for (Map.Entry<Integer, List<String>> column : sourceData.entrySet()) {
-            List<String> fullColumn = column.getValue();
-            List<String> topColumnData = topIndices.stream().map(fullColumn::get).collect(Collectors.toList());
-            List<String> bottomColumnData = bottomIndices.stream().map(fullColumn::get).collect(Collectors.toList());
-
-            dataTop.put(column.getKey(), topColumnData);
-            dataBottom.put(column.getKey(), bottomColumnData);
+            dataTop.put(column.getKey(), ColumnView.select(column.getValue(), topRows));
+            dataBottom.put(column.getKey(), ColumnView.select(column.getValue(), bottomRows));
         }
 
-        // Schema stays the same in both relations (make deep copy)
-        Map<Integer, Attribute> schemaTop = new HashMap<>();
-        Map<Integer, Attribute> schemaBottom = new HashMap<>();
-        for (Map.Entry<Integer, Attribute> entry : sourceSchema.entrySet()) {
-            schemaTop.put(entry.getKey(), new Attribute(entry.getValue().getColumnName(), entry.getValue().getDataType()));
-            schemaBottom.put(entry.getKey(), new Attribute(entry.getValue().getColumnName(), entry.getValue().getDataType()));
-        }
-
-        // Create new relations and return them
-        Relation relationTop = new Relation(schemaTop, dataTop, new ArrayList<>(source.getKeyIndices()), numOverlapRows);
-        Relation relationBottom = new Relation(schemaBottom, dataBottom, new ArrayList<>(source.getKeyIndices()), numOverlapRows);
+        // Create new relations and return them (the schema stays the same and is shared, since attributes are immutable)
+        Relation relationTop = new Relation(sourceSchema, dataTop, source.getKeyIndices(), numOverlapRows);
+        Relation relationBottom = new Relation(sourceSchema, dataBottom, source.getKeyIndices(), numOverlapRows);
 
         return new ArrayList<>(Arrays.asList(relationTop, relationBottom));
     }
@@ -206,9 +184,8 @@ public class Split {
      */
     public List<Relation> splitVertically(Relation source, Integer overlapPercentage, Integer columnDistribution) {
 
-        // Get schema, data and keys from relation
+        // Get schema and keys from relation
         Map<Integer, Attribute> sourceSchema = source.getSchema();
-        Map<Integer, List<String>> sourceData = source.getData();
         List<Integer> keyIndices = source.getKeyIndices();
 
         // Get total number of columns
@@ -233,19 +210,13 @@ public class Split {
         // Include key indices in the overlap columns to ensure they are in both relations
         overlapColumnIndices.addAll(keyIndices);
 
-        // Initialize schema and data for the two new relations
-        Map<Integer, Attribute> schemaLeft = new HashMap<>();
-        Map<Integer, Attribute> schemaRight = new HashMap<>();
-        Map<Integer, List<String>> dataLeft = new HashMap<>();
-        Map<Integer, List<String>> dataRight = new HashMap<>();
-
-        // Add key and overlap columns to both relations (deep copy since the columns are used by both relations)
-        for (Integer overlapIndex : overlapColumnIndices) {
-            schemaLeft.put(overlapIndex, new Attribute(sourceSchema.get(overlapIndex).getColumnName(), sourceSchema.get(overlapIndex).getDataType()));
-            schemaRight.put(overlapIndex, new Attribute(sourceSchema.get(overlapIndex).getColumnName(), sourceSchema.get(overlapIndex).getDataType()));
-            dataLeft.put(overlapIndex, new ArrayList<>(sourceData.get(overlapIndex)));
-            dataRight.put(overlapIndex, new ArrayList<>(sourceData.get(overlapIndex)));
-        }
+        // Both relations start with all columns of the source and share them (relations are immutable)
+        Relation.Builder left = source.toBuilder()
+                .keyIndices(keyIndices)
+                .overlappingColumnsIndices(overlapColumnIndices);
+        Relation.Builder right = source.toBuilder()
+                .keyIndices(keyIndices)
+                .overlappingColumnsIndices(overlapColumnIndices);
 
         // Get the Indices of the remaining columns that need to be perturbed
         List<Integer> nonOverlapColumnIndices = nonKeyColumnIndices.subList(numOverlapColumns, nonKeyColumnIndices.size()); // rest of the list
@@ -253,22 +224,38 @@ public class Split {
         // Calculate the number of columns to distribute based on columnDistribution percentage
         int numColumnsForLeft = (int) Math.round((columnDistribution / 100.0) * nonOverlapColumnIndices.size());
 
-        // Add the specified percentage of columns to the left relation (happens randomly since non-key column indices were shuffled)
+        // Keep the specified percentage of columns only in the left relation and the others only in the right relation
+        // (happens randomly since non-key column indices were shuffled)
         for (int i = 0; i < nonOverlapColumnIndices.size(); i++) {
             Integer nonOverlapIndex = nonOverlapColumnIndices.get(i);
             if (i < numColumnsForLeft) {
-                schemaLeft.put(nonOverlapIndex, sourceSchema.get(nonOverlapIndex));
-                dataLeft.put(nonOverlapIndex, sourceData.get(nonOverlapIndex));
+                right.removeColumn(nonOverlapIndex);
             } else {
-                schemaRight.put(nonOverlapIndex, sourceSchema.get(nonOverlapIndex));
-                dataRight.put(nonOverlapIndex, sourceData.get(nonOverlapIndex));
+                left.removeColumn(nonOverlapIndex);
             }
         }
 
-        // Create the new relations and return them
-        Relation leftRelation = new Relation(schemaLeft, dataLeft, new ArrayList<>(keyIndices), new ArrayList<>(overlapColumnIndices), source.getNumOfOverlappingRows());
-        Relation rightRelation = new Relation(schemaRight, dataRight, new ArrayList<>(keyIndices), new ArrayList<>(overlapColumnIndices), source.getNumOfOverlappingRows());
+        // Create the new relations (all rows of the columns are kept, so the statistics of the source stay valid)
+        Relation leftRelation = left.build();
+        Relation rightRelation = right.build();
 
         return new ArrayList<>(Arrays.asList(leftRelation, rightRelation));
     }
+
+
+    /**
+     * Adds a range of row indices to an array of row indices.
+     *
+     * @param rows     the array the row indices are added to.
+     * @param position the position in the array at which the first row index is added.
+     * @param from     the first row index to add (inclusive).
+     * @param to       the last row index to add (exclusive).
+     * @return the position in the array behind the last added row index.
+     */
+    private int addRows(int[] rows, int position, int from, int to) {
+        for (int rowIndex = from; rowIndex < to; rowIndex++) {
+            rows[position++] = rowIndex;
+        }
+        return position;
+    }
 }
@@ -63,20 +63,21 @@ public class Merge {
      */
     public Relation executeMerge(Relation relation, Integer numOfColumnsToMerge, List<Integer> columnsToConsider, char mergeSeparator){
 
-        Map<Integer, Attribute> schema = relation.getSchema();
-        Map<Integer, List<String>> data = relation.getData();
-        List<Integer> keys = relation.getKeyIndices();
+        Relation mergedRelation = relation;
+        List<Integer> keys = new ArrayList<>(relation.getKeyIndices());
         Set<Integer> mergedColumnIndices = new HashSet<>();
 
         // Merge until the desired number of merged columns in achieved
         while (mergedColumnIndices.size() < numOfColumnsToMerge) {
-            int[] indicesToMerge = findBestMerge(relation, columnsToConsider, mergedColumnIndices);
+            Map<Integer, Attribute> schema = mergedRelation.getSchema();
+            Map<Integer, List<String>> data = mergedRelation.getData();
+            int[] indicesToMerge = findBestMerge(mergedRelation, columnsToConsider, mergedColumnIndices);
             Integer firstColumnIndex = indicesToMerge[0];
             Integer secondColumnIndex = indicesToMerge[1];
 
             // Create multivalued attribute from the two columns
             Attribute mergedAttribute;
-            if (relation.getSchema().entrySet().iterator().next().getValue().getColumnName() != null) {
+            if (schema.entrySet().iterator().next().getValue().getColumnName() != null) {
                 String firstAttributeName = schema.get(firstColumnIndex).getColumnName();
                 String secondAttributeName = schema.get(secondColumnIndex).getColumnName();
                 String mergedAttributeName = firstAttributeName + mergeSeparator + secondAttributeName;
@@ -99,10 +100,11 @@ public class Merge {
             }
 
             // Set the merged column and attribute at firstColumnIndex and remove the ones at secondColumnIndex
-            data.put(firstColumnIndex, mergedColumn);
-            data.remove(secondColumnIndex);
-            schema.put(firstColumnIndex, mergedAttribute);
-            schema.remove(secondColumnIndex);
+            // (in a new relation that shares all other columns)
+            Relation.Builder builder = mergedRelation.toBuilder()
+                    .column(firstColumnIndex, mergedColumn)
+                    .attribute(firstColumnIndex, mergedAttribute)
+                    .removeColumn(secondColumnIndex);
             if (keys.contains(secondColumnIndex)) {
                 if (!keys.contains(firstColumnIndex)) {
                     keys.add(firstColumnIndex);
@@ -111,15 +113,16 @@ public class Merge {
                 keys.remove(secondColumnIndex);
             }
 
+            mergedRelation = builder.keyIndices(keys).build();
+
             // Update values to keep track
             mergedColumnIndices.add(firstColumnIndex);
             mergedColumnIndices.add(secondColumnIndex);
             columnsToConsider.remove(secondColumnIndex);
         }
 
-        // Return the modified relation
-        return new Relation(schema, data, keys, relation.getOverlappingColumnsIndices(),
-                relation.getNumOfOverlappingRows());
+        // Return the merged relation (the statistics of the unchanged columns stay valid)
+        return mergedRelation;
     }
 
 
@@ -8,7 +8,9 @@ import de.metanome.algorithms.normalize.Normi;
 import de.metanome.backend.input.file.DefaultFileInputGenerator;
 import de.metanome.backend.result_receiver.ResultCache;
 import org.anne_marschner_project.core.csvTool.CSVTool;
-import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.Column;
+import org.anne_marschner_project.core.data.ColumnView;
+import org.anne_marschner_project.core.data.DictionaryColumn;
 import org.anne_marschner_project.core.data.Relation;
 
 import java.io.FileNotFoundException;
@@ -267,14 +269,11 @@ public class Normalization {
         // Create new relations out of each IndexSummary object, which describes a relation
         for (IndexSummary indicesOfRelation: indicesRelations) {
 
-            // Create new data and schema
-            Map<Integer, Attribute> schema = new HashMap<>();
-            Map<Integer, List<String>> data = new HashMap<>();
-
-            // Add attribute and column at each index of relation
+            // Add attribute and column at each index of relation (both are shared, since relations are immutable)
+            Relation.Builder createdRelation = Relation.builder();
             for (Integer index: indicesOfRelation.getColumnIndices()) {
-                schema.put(index, new Attribute(relation.getSchema().get(index).getColumnName(), relation.getSchema().get(index).getDataType()));
-                data.put(index, new ArrayList<>(relation.getData().get(index)));
+                createdRelation.attribute(index, relation.getSchema().get(index));
+                createdRelation.column(index, relation.getData().get(index));
             }
 
             // Get key Indices of new relation
@@ -289,9 +288,13 @@ public class Normalization {
                 overlappingColumnIndices = new ArrayList<>(relation.getOverlappingColumnsIndices());
                 overlappingColumnIndices.retainAll(indicesOfRelation.getColumnIndices());
             }
-            Relation createdRelation = new Relation(schema, data, keyIndices, foreignKeyIndices, overlappingColumnIndices, relation.getNumOfOverlappingRows());
-            createdRelation.setKeysBeforeNormalization(relation.getKeyIndices());
-            relations.add(createdRelation);
+            relations.add(createdRelation
+                    .keyIndices(keyIndices)
+                    .foreignKeyIndices(foreignKeyIndices)
+                    .overlappingColumnsIndices(overlappingColumnIndices)
+                    .numOfOverlappingRows(relation.getNumOfOverlappingRows())
+                    .keysBeforeNormalization(relation.getKeyIndices())
+                    .build());
         }
 
         // Clean each new relation (remove redundant records)
@@ -315,25 +318,32 @@ public class Normalization {
         // Determine the number of rows
         int numRows = relation.getData().values().iterator().next().size();
 
-        // Create Set to store unique rows as strings
-        Set<String> uniqueRows = new HashSet<>();
-        List<Integer> rowsToKeep = new ArrayList<>();
+        // Encode each column as int codes, so rows can be compared without building strings
+        List<Integer> columnIndices = new ArrayList<>(relation.getData().keySet());
+        int[][] columnCodes = new int[columnIndices.size()][];
+        for (int i = 0; i < columnIndices.size(); i++) {
+            columnCodes[i] = encodeColumn(relation.getData().get(columnIndices.get(i)), numRows);
+        }
+
+        // Create Set to store unique rows as code combinations
+        Set<RowKey> uniqueRows = new HashSet<>();
+        int[] rowsToKeep = new int[numRows];
+        int numRowsToKeep = 0;
 
         // Set counter for remaining overlapping rows
         Integer remainingOverlappingRows = (relation.getNumOfOverlappingRows() != null) ? 0 : null;
 
         // Iterate over each row
         for (int rowIndex = 0; rowIndex < numRows; rowIndex++) {
-            // Build a unique representation of the row as a string
-            StringBuilder rowRepresentation = new StringBuilder();
-            for (List<String> column : relation.getData().values()) {
-                rowRepresentation.append(column.get(rowIndex)).append(",");
+            // Build a unique representation of the row out of the codes of its entries
+            int[] rowCodes = new int[columnCodes.length];
+            for (int i = 0; i < columnCodes.length; i++) {
+                rowCodes[i] = columnCodes[i][rowIndex];
             }
-            String rowKey = rowRepresentation.toString();
 
             // If the row representation is not in uniqueRows, it is unique
-            if (uniqueRows.add(rowKey)) {
-                rowsToKeep.add(rowIndex); // Keep this row
+            if (uniqueRows.add(new RowKey(rowCodes))) {
+                rowsToKeep[numRowsToKeep++] = rowIndex; // Keep this row
 
                 // Check if the row is within the overlapping rows range
                 if (remainingOverlappingRows != null && rowIndex < relation.getNumOfOverlappingRows()) {
@@ -341,23 +351,67 @@ public class Normalization {
                 }
             }
         }
+        rowsToKeep = Arrays.copyOf(rowsToKeep, numRowsToKeep);
 
-        // Create new data for the resulting relation without duplicate rows
-        Map<Integer, List<String>> newData = new HashMap<>();
+        // Create a new relation without duplicate rows
+        Relation.Builder cleanedRelation = relation.toBuilder().numOfOverlappingRows(remainingOverlappingRows);
         for (Map.Entry<Integer, List<String>> entry : relation.getData().entrySet()) {
             Integer columnIndex = entry.getKey();
             List<String> originalColumnValues = entry.getValue();
-            List<String> filteredColumnValues = new ArrayList<>();
 
-            // Only add rows that are in rowsToKeep
-            for (Integer rowIndex : rowsToKeep) {
-                filteredColumnValues.add(originalColumnValues.get(rowIndex));
+            // Only add rows that are in rowsToKeep (typed columns keep their storage, other columns are shown as views)
+            if (originalColumnValues instanceof Column column) {
+                cleanedRelation.column(columnIndex, column.select(rowsToKeep));
+            } else {
+                cleanedRelation.column(columnIndex, ColumnView.select(originalColumnValues, rowsToKeep));
+            }
+        }
+        return cleanedRelation.build();
+    }
+
+
+    /**
+     * Assigns an int code to each entry of a column, so that equal entries get equal codes.
+     * Dictionary encoded columns already provide these codes.
+     *
+     * @param column  the entries of the column.
+     * @param numRows the number of rows of the column.
+     * @return an array with the code of each row.
+     */
+    private int[] encodeColumn(List<String> column, int numRows) {
+        int[] codes = new int[numRows];
+        if (column instanceof DictionaryColumn dictionaryColumn) {
+            for (int rowIndex = 0; rowIndex < numRows; rowIndex++) {
+                codes[rowIndex] = dictionaryColumn.getCode(rowIndex);
             }
-            newData.put(columnIndex, filteredColumnValues);
+            return codes;
         }
 
-        Relation cleanedRelation = new Relation(relation.getSchema(), newData, relation.getKeyIndices(), relation.getForeignKeyIndices() ,relation.getOverlappingColumnsIndices(), remainingOverlappingRows);
-        cleanedRelation.setKeysBeforeNormalization(relation.getKeysBeforeNormalization());
-        return cleanedRelation;
+        // Other columns are encoded by numbering their distinct entries
+        Map<String, Integer> codeByValue = new HashMap<>();
+        for (int rowIndex = 0; rowIndex < numRows; rowIndex++) {
+            Integer code = codeByValue.putIfAbsent(column.get(rowIndex), codeByValue.size());
+            codes[rowIndex] = (code != null) ? code : codeByValue.size() - 1;
+        }
+        return codes;
+    }
+
+
+    /**
+     * Represents a row by the codes of its entries.
+     *
+     * @param codes the code of the entry in each column.
+     */
+    private record RowKey(int[] codes) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RowKey rowKey && Arrays.equals(codes, rowKey.codes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(codes);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,735 @@
+package org.anne_marschner_project.core.zipTool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a ZIP archive whose entries are compressed concurrently. The content of every entry is written and
+ * deflated into its own raw deflate stream on a worker thread. One entry at a time owns the archive: its worker
+ * streams the compressed bytes straight into the archive and writes a data descriptor with the CRC and sizes after
+ * them, since they are not known yet when the local header is written. Meanwhile, the other entries are compressed into
+ * memory. Once the owner is done, a finished entry is written with a complete local header, or the oldest unfinished
+ * entry writes its buffered bytes and takes over the archive. The buffered bytes of all entries are limited, so workers
+ * wait once the limit is reached until the buffers were written, instead of moving entries to disk.
+ * Entries can also be stored without compression, which saves CPU time when the archive is sent through a fast network
+ * (a stored entry with a data descriptor can only be read through the central directory, e.g. with ZipFile or unzip).
+ * Entries and archives larger than 4 GB are written with the ZIP64 extensions.
+ */
+public class ParallelZipWriter implements Closeable {
+
+    private static final int FIRST_CHUNK_SIZE = 1 << 16; // Number of bytes of the first chunk of an entry (most entries are small)
+    private static final int CHUNK_SIZE = 1 << 20; // Number of bytes of the further chunks of an entry
+    private static final long MAX_BUFFERED_BYTES = 1 << 26; // Number of bytes all entries that do not own the archive may buffer
+    private static final int DEFLATE_BUFFER_SIZE = 1 << 16; // Number of bytes deflated at once
+    private static final long ZIP32_LIMIT = 0xFFFFFFFFL; // Largest size or offset without the ZIP64 extensions
+    private static final int ZIP32_MAX_ENTRIES = 0xFFFF; // Largest number of entries without the ZIP64 extensions
+    private static final int UTF8_FLAG = 0x0800; // Marks the names of the entries as UTF-8
+    private static final int DATA_DESCRIPTOR_FLAG = 0x0008; // Marks entries whose CRC and sizes follow their data
+    private static final int VERSION_DEFAULT = 20; // Version needed to extract entries without ZIP64 extensions
+    private static final int VERSION_ZIP64 = 45; // Version needed to extract entries with ZIP64 extensions
+
+    private final OutputStream outputStream; // Holds the stream the archive is written to
+    private final boolean compress; // Whether entries are deflated (otherwise they are stored)
+    private final long zip64Threshold; // Holds the size or offset from which the ZIP64 extensions are used
+    private final long maxBufferedBytes; // Holds the number of bytes all entries that do not own the archive may buffer
+    private final ExecutorService executor; // Holds the worker threads that write and compress the entries
+    private final int maxPendingEntries; // Holds the maximal number of entries that are compressed or wait to be written
+    private final List<Entry> pendingEntries = new ArrayList<>(); // Holds the submitted entries that were not written yet
+    private final List<Entry> writtenEntries = new ArrayList<>(); // Holds the written entries for the central directory
+    private final int dosTime; // Holds the modification time of all entries in MS-DOS format
+    private final int dosDate; // Holds the modification date of all entries in MS-DOS format
+    private Entry owner = null; // Holds the entry that owns the archive (null if no entry is pending)
+    private long bufferedBytes = 0; // Holds the number of bytes buffered by the entries that do not own the archive
+    private long offset = 0; // Holds the number of bytes written to the archive (only changed by the owner of the archive)
+    private boolean finished = false; // Whether the central directory was written
+    private IOException failure = null; // Holds the first error, after which the archive cannot be finished anymore
+
+
+    /**
+     * The content of an entry, which is written on a worker thread.
+     */
+    @FunctionalInterface
+    public interface EntryContent {
+
+        /**
+         * Writes the content of the entry.
+         *
+         * @param outputStream the stream of the entry, which may be closed when the content was written.
+         * @throws IOException if the content cannot be written.
+         */
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+
+    /**
+     * Constructs a ParallelZipWriter with one worker thread per available processor.
+     *
+     * @param outputStream the stream the archive is written to.
+     * @param compress     whether entries are deflated (otherwise they are stored).
+     */
+    public ParallelZipWriter(OutputStream outputStream, boolean compress) {
+        this(outputStream, compress, Runtime.getRuntime().availableProcessors());
+    }
+
+
+    /**
+     * Constructs a ParallelZipWriter.
+     *
+     * @param outputStream the stream the archive is written to.
+     * @param compress     whether entries are deflated (otherwise they are stored).
+     * @param threads      the number of worker threads.
+     */
+    public ParallelZipWriter(OutputStream outputStream, boolean compress, int threads) {
+        this(outputStream, compress, threads, ZIP32_LIMIT);
+    }
+
+
+    /**
+     * Constructs a ParallelZipWriter that uses the ZIP64 extensions from a given size on (e.g. to test them).
+     *
+     * @param outputStream   the stream the archive is written to.
+     * @param compress       whether entries are deflated (otherwise they are stored).
+     * @param threads        the number of worker threads.
+     * @param zip64Threshold the size or offset from which the ZIP64 extensions are used.
+     */
+    ParallelZipWriter(OutputStream outputStream, boolean compress, int threads, long zip64Threshold) {
+        this(outputStream, compress, threads, zip64Threshold, MAX_BUFFERED_BYTES);
+    }
+
+
+    /**
+     * Constructs a ParallelZipWriter with all settings (e.g. to test the limit of the buffered bytes).
+     *
+     * @param outputStream     the stream the archive is written to.
+     * @param compress         whether entries are deflated (otherwise they are stored).
+     * @param threads          the number of worker threads.
+     * @param zip64Threshold   the size or offset from which the ZIP64 extensions are used.
+     * @param maxBufferedBytes the number of bytes all entries that do not own the archive may buffer.
+     */
+    ParallelZipWriter(OutputStream outputStream, boolean compress, int threads, long zip64Threshold, long maxBufferedBytes) {
+        this.outputStream = outputStream;
+        this.compress = compress;
+        this.zip64Threshold = zip64Threshold;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads));
+
+        // Every pending entry gets a worker thread, so that the owner of the archive is never queued behind waiting entries
+        this.maxPendingEntries = Math.max(1, threads);
+
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = now.getHour() << 11 | now.getMinute() << 5 | now.getSecond() >> 1;
+        this.dosDate = Math.max(0, now.getYear() - 1980) << 9 | now.getMonthValue() << 5 | now.getDayOfMonth();
+    }
+
+
+    /**
+     * Submits an entry, whose content is written and compressed on a worker thread. If as many entries are pending
+     * as there are worker threads, it waits until an entry was written.
+     *
+     * @param name    the name of the entry.
+     * @param content the content of the entry.
+     * @throws IOException if an entry cannot be written or its content failed.
+     */
+    public void submit(String name, EntryContent content) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("The archive is already finished.");
+        }
+        Entry entry = new Entry(name);
+        synchronized (this) {
+            while (failure == null && pendingEntries.size() >= maxPendingEntries) {
+                waitForChange();
+            }
+            throwIfFailed();
+
+            // The first entry after an idle phase owns the archive right away
+            pendingEntries.add(entry);
+            if (owner == null) {
+                owner = entry;
+                entry.owning = true;
+            }
+        }
+        executor.execute(() -> compressEntry(entry, content));
+    }
+
+
+    /**
+     * Waits until all submitted entries were written to the archive.
+     *
+     * @throws IOException if an entry cannot be written or its content failed.
+     */
+    public synchronized void awaitEntries() throws IOException {
+        while (failure == null && !pendingEntries.isEmpty()) {
+            waitForChange();
+        }
+        throwIfFailed();
+    }
+
+
+    /**
+     * Writes all submitted entries and the central directory. The stream of the archive is flushed but not closed.
+     *
+     * @throws IOException if the archive cannot be written.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        awaitEntries();
+        try {
+            writeCentralDirectory();
+            outputStream.flush();
+        } catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+        finished = true;
+    }
+
+
+    /**
+     * Finishes the archive (unless writing it failed), stops the worker threads and closes the stream of the archive.
+     *
+     * @throws IOException if the archive cannot be finished or the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!hasFailed()) {
+                finish();
+            }
+        } finally {
+            executor.shutdownNow();
+            outputStream.close();
+        }
+    }
+
+
+    /**
+     * Writes and compresses the content of an entry, while its CRC is computed. The compressed bytes go straight into
+     * the archive while the entry owns it, and into memory otherwise. Runs on a worker thread.
+     *
+     * @param entry   the entry.
+     * @param content the content of the entry.
+     */
+    private void compressEntry(Entry entry, EntryContent content) {
+        CRC32 crc = new CRC32();
+        Deflater deflater = compress ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+        try {
+            EntryStream entryStream = new EntryStream(entry);
+            OutputStream target = compress ? new DeflaterOutputStream(entryStream, deflater, DEFLATE_BUFFER_SIZE) : entryStream;
+            try (CheckedOutputStream checkedStream = new CheckedOutputStream(target, crc)) {
+                content.writeTo(checkedStream);
+            }
+            long size = compress ? deflater.getBytesRead() : entryStream.count;
+            finishEntry(entry, crc.getValue(), size, entryStream.count);
+        } catch (IOException e) {
+            fail(e);
+        } catch (RuntimeException | Error e) {
+            fail(new IOException("Error writing an entry: " + e.getMessage(), e));
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+
+    /**
+     * Records the CRC and sizes of an entry whose content was written. If the entry owns the archive, its data
+     * descriptor (or its complete local header if it had no bytes) is written and the archive is handed over.
+     * Otherwise, the entry waits in its buffer until it is written by the owner.
+     *
+     * @param entry          the entry.
+     * @param crc            the CRC-32 of the uncompressed content.
+     * @param size           the size of the uncompressed content.
+     * @param compressedSize the size of the compressed content.
+     * @throws IOException if the archive cannot be written or writing it failed.
+     */
+    private void finishEntry(Entry entry, long crc, long size, long compressedSize) throws IOException {
+        synchronized (this) {
+            entry.crc = crc;
+            entry.size = size;
+            entry.compressedSize = compressedSize;
+            entry.finished = true;
+            notifyAll();
+            while (failure == null && entry.handingOver) {
+                waitForChange();
+            }
+            throwIfFailed();
+            if (!entry.owning) {
+                return;
+            }
+        }
+        if (entry.streamed) {
+            writeDataDescriptor(entry);
+        } else {
+            entry.localHeaderOffset = offset;
+            writeLocalHeader(entry);
+        }
+        handOver(entry);
+    }
+
+
+    /**
+     * Hands the archive over after its owner was written. Finished entries are written one after another with complete
+     * local headers, until an unfinished entry is found, whose buffered bytes are written before its worker takes over.
+     *
+     * @param writtenEntry the entry that owned the archive and was written.
+     * @throws IOException if the archive cannot be written.
+     */
+    private void handOver(Entry writtenEntry) throws IOException {
+        Entry entry = writtenEntry;
+        while (true) {
+            ChunkBuffer buffer;
+            boolean complete;
+            synchronized (this) {
+                pendingEntries.remove(entry);
+                writtenEntries.add(entry);
+
+                // Prefer finished entries, which free their buffers at once, over the oldest unfinished entry
+                entry = pendingEntries.stream().filter(pending -> pending.finished).findFirst()
+                        .orElse(pendingEntries.isEmpty() ? null : pendingEntries.get(0));
+                owner = entry;
+                notifyAll();
+                if (entry == null) {
+                    return;
+                }
+                complete = entry.finished;
+                entry.owning = true;
+                entry.handingOver = !complete;
+                buffer = entry.buffer;
+                entry.buffer = null;
+            }
+
+            // Write the entry (or what it buffered so far) without holding the lock
+            entry.localHeaderOffset = offset;
+            entry.streamed = !complete;
+            writeLocalHeader(entry);
+            buffer.writeTo(outputStream);
+            offset += buffer.size();
+            synchronized (this) {
+                bufferedBytes -= buffer.size();
+                notifyAll();
+                if (!complete) {
+                    entry.handingOver = false;
+                    return;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Waits until the state of the writer changes. Must be called while holding its lock.
+     *
+     * @throws IOException if the thread was interrupted.
+     */
+    private void waitForChange() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException exception = new InterruptedIOException("Interrupted while waiting for an entry.");
+            fail(exception);
+            throw exception;
+        }
+    }
+
+
+    /**
+     * Records the first error of the archive and wakes up all waiting threads.
+     *
+     * @param exception the error.
+     */
+    private synchronized void fail(IOException exception) {
+        if (failure == null) {
+            failure = exception;
+        }
+        notifyAll();
+    }
+
+
+    /**
+     * Returns whether writing the archive failed.
+     *
+     * @return true if an error occurred.
+     */
+    private synchronized boolean hasFailed() {
+        return failure != null;
+    }
+
+
+    /**
+     * Throws the first error of the archive, if there is one. Must be called while holding the lock of the writer.
+     *
+     * @throws IOException the first error.
+     */
+    private void throwIfFailed() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+
+    /**
+     * Writes the local header of an entry. The header of a streamed entry is written before its CRC and sizes are
+     * known, so they are zero and follow the data in a data descriptor.
+     *
+     * @param entry the entry.
+     * @throws IOException if the header cannot be written.
+     */
+    private void writeLocalHeader(Entry entry) throws IOException {
+        boolean zip64 = !entry.streamed && (entry.size >= zip64Threshold || entry.compressedSize >= zip64Threshold);
+        ByteBuffer header = newBuffer(30 + entry.name.length + (zip64 ? 20 : 0));
+        header.putInt(0x04034b50);
+        header.putShort((short) (zip64 ? VERSION_ZIP64 : VERSION_DEFAULT));
+        header.putShort((short) flags(entry));
+        header.putShort((short) method());
+        header.putShort((short) dosTime);
+        header.putShort((short) dosDate);
+        header.putInt(entry.streamed ? 0 : (int) entry.crc);
+        header.putInt(entry.streamed ? 0 : (int) (zip64 ? ZIP32_LIMIT : entry.compressedSize));
+        header.putInt(entry.streamed ? 0 : (int) (zip64 ? ZIP32_LIMIT : entry.size));
+        header.putShort((short) entry.name.length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(entry.name);
+        if (zip64) {
+            header.putShort((short) 0x0001);
+            header.putShort((short) 16);
+            header.putLong(entry.size);
+            header.putLong(entry.compressedSize);
+        }
+        write(header);
+    }
+
+
+    /**
+     * Writes the data descriptor of a streamed entry. Its sizes take 8 bytes if they do not fit into 4 bytes, which
+     * readers detect from the number of bytes they read (the local header cannot announce the ZIP64 extensions).
+     *
+     * @param entry the entry.
+     * @throws IOException if the data descriptor cannot be written.
+     */
+    private void writeDataDescriptor(Entry entry) throws IOException {
+        boolean zip64 = entry.size > ZIP32_LIMIT || entry.compressedSize > ZIP32_LIMIT;
+        ByteBuffer descriptor = newBuffer(zip64 ? 24 : 16);
+        descriptor.putInt(0x08074b50);
+        descriptor.putInt((int) entry.crc);
+        if (zip64) {
+            descriptor.putLong(entry.compressedSize);
+            descriptor.putLong(entry.size);
+        } else {
+            descriptor.putInt((int) entry.compressedSize);
+            descriptor.putInt((int) entry.size);
+        }
+        write(descriptor);
+    }
+
+
+    /**
+     * Writes the central directory with a header for every written entry, followed by the end records.
+     *
+     * @throws IOException if the central directory cannot be written.
+     */
+    private void writeCentralDirectory() throws IOException {
+        long centralDirectoryOffset = offset;
+        for (Entry entry : writtenEntries) {
+            boolean zip64 = entry.size >= zip64Threshold || entry.compressedSize >= zip64Threshold
+                    || entry.localHeaderOffset >= zip64Threshold;
+            ByteBuffer header = newBuffer(46 + entry.name.length + (zip64 ? 28 : 0));
+            header.putInt(0x02014b50);
+            header.putShort((short) VERSION_ZIP64);
+            header.putShort((short) (zip64 ? VERSION_ZIP64 : VERSION_DEFAULT));
+            header.putShort((short) flags(entry));
+            header.putShort((short) method());
+            header.putShort((short) dosTime);
+            header.putShort((short) dosDate);
+            header.putInt((int) entry.crc);
+            header.putInt((int) (zip64 ? ZIP32_LIMIT : entry.compressedSize));
+            header.putInt((int) (zip64 ? ZIP32_LIMIT : entry.size));
+            header.putShort((short) entry.name.length);
+            header.putShort((short) (zip64 ? 28 : 0));
+            header.putShort((short) 0); // Comment length
+            header.putShort((short) 0); // Disk number
+            header.putShort((short) 0); // Internal attributes
+            header.putInt(0); // External attributes
+            header.putInt((int) (zip64 ? ZIP32_LIMIT : entry.localHeaderOffset));
+            header.put(entry.name);
+            if (zip64) {
+                header.putShort((short) 0x0001);
+                header.putShort((short) 24);
+                header.putLong(entry.size);
+                header.putLong(entry.compressedSize);
+                header.putLong(entry.localHeaderOffset);
+            }
+            write(header);
+        }
+        long centralDirectorySize = offset - centralDirectoryOffset;
+        int numOfEntries = writtenEntries.size();
+
+        // Write the ZIP64 end records if a value does not fit into the end record
+        boolean zip64 = numOfEntries >= ZIP32_MAX_ENTRIES || centralDirectoryOffset >= zip64Threshold
+                || centralDirectorySize >= zip64Threshold;
+        if (zip64) {
+            long zip64EndOffset = offset;
+            ByteBuffer zip64End = newBuffer(56 + 20);
+            zip64End.putInt(0x06064b50);
+            zip64End.putLong(44); // Size of the remaining record
+            zip64End.putShort((short) VERSION_ZIP64);
+            zip64End.putShort((short) VERSION_ZIP64);
+            zip64End.putInt(0); // Number of this disk
+            zip64End.putInt(0); // Disk of the central directory
+            zip64End.putLong(numOfEntries);
+            zip64End.putLong(numOfEntries);
+            zip64End.putLong(centralDirectorySize);
+            zip64End.putLong(centralDirectoryOffset);
+            zip64End.putInt(0x07064b50);
+            zip64End.putInt(0); // Disk of the ZIP64 end record
+            zip64End.putLong(zip64EndOffset);
+            zip64End.putInt(1); // Number of disks
+            write(zip64End);
+        }
+
+        // Write the end record
+        ByteBuffer end = newBuffer(22);
+        end.putInt(0x06054b50);
+        end.putShort((short) 0); // Number of this disk
+        end.putShort((short) 0); // Disk of the central directory
+        end.putShort((short) (zip64 ? ZIP32_MAX_ENTRIES : numOfEntries));
+        end.putShort((short) (zip64 ? ZIP32_MAX_ENTRIES : numOfEntries));
+        end.putInt((int) (zip64 ? ZIP32_LIMIT : centralDirectorySize));
+        end.putInt((int) (zip64 ? ZIP32_LIMIT : centralDirectoryOffset));
+        end.putShort((short) 0); // Comment length
+        write(end);
+    }
+
+
+    /**
+     * Returns the compression method of the entries.
+     *
+     * @return 8 for deflated entries, 0 for stored entries.
+     */
+    private int method() {
+        return compress ? 8 : 0;
+    }
+
+
+    /**
+     * Returns the general purpose flags of an entry.
+     *
+     * @param entry the entry.
+     * @return the UTF-8 flag, and the data descriptor flag if the entry is streamed.
+     */
+    private static int flags(Entry entry) {
+        return entry.streamed ? UTF8_FLAG | DATA_DESCRIPTOR_FLAG : UTF8_FLAG;
+    }
+
+
+    /**
+     * Creates a little-endian buffer for a header.
+     *
+     * @param capacity the size of the header in bytes.
+     * @return the buffer.
+     */
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+
+    /**
+     * Writes a filled header buffer to the archive.
+     *
+     * @param buffer the buffer.
+     * @throws IOException if the archive cannot be written.
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        outputStream.write(buffer.array(), 0, buffer.position());
+        offset += buffer.position();
+    }
+
+
+    /**
+     * An entry of the archive, with the values needed for its headers. The fields are guarded by the lock of the
+     * writer, except for the ones that are only used by the thread that owns the archive.
+     */
+    private static class Entry {
+
+        private final byte[] name; // Holds the UTF-8 encoded name of the entry
+        private long crc; // Holds the CRC-32 of the uncompressed content
+        private long size; // Holds the size of the uncompressed content
+        private long compressedSize; // Holds the size of the compressed content
+        private long localHeaderOffset; // Holds the offset of the local header in the archive
+        private ChunkBuffer buffer = new ChunkBuffer(); // Holds the bytes written before the entry owned the archive (null once written)
+        private boolean finished = false; // Whether the content was completely written
+        private boolean owning = false; // Whether the entry owns the archive, so that its bytes go straight into it
+        private boolean handingOver = false; // Whether the previous owner still writes the buffered bytes of the entry
+        private boolean streamed = false; // Whether the local header was written before the content was finished
+
+
+        /**
+         * Constructs an Entry.
+         *
+         * @param name the name of the entry.
+         */
+        Entry(String name) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+
+    /**
+     * The stream the compressed bytes of an entry are written to on its worker thread. While the entry does not own
+     * the archive, the bytes are buffered, and the worker waits once the buffers of all entries are full.
+     */
+    private class EntryStream extends OutputStream {
+
+        private final Entry entry; // Holds the entry whose bytes are written
+        private long count = 0; // Holds the number of bytes written
+
+
+        /**
+         * Constructs an EntryStream.
+         *
+         * @param entry the entry whose bytes are written.
+         */
+        EntryStream(Entry entry) {
+            this.entry = entry;
+        }
+
+
+        /**
+         * Writes a single byte.
+         *
+         * @param b the byte.
+         * @throws IOException if the archive cannot be written or writing it failed.
+         */
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+
+        /**
+         * Writes a range of bytes into the buffer of the entry, or into the archive while the entry owns it.
+         *
+         * @param bytes  the bytes.
+         * @param offset the index of the first byte to write.
+         * @param length the number of bytes to write.
+         * @throws IOException if the archive cannot be written or writing it failed.
+         */
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            synchronized (ParallelZipWriter.this) {
+
+                // Wait while the buffered bytes are written, or while the buffers are full (one write may exceed them)
+                while (failure == null && (entry.handingOver
+                        || !entry.owning && bufferedBytes > 0 && bufferedBytes + length > maxBufferedBytes)) {
+                    waitForChange();
+                }
+                throwIfFailed();
+                if (!entry.owning) {
+                    entry.buffer.write(bytes, offset, length);
+                    bufferedBytes += length;
+                    count += length;
+                    return;
+                }
+            }
+
+            // The entry owns the archive, so nobody else writes to it meanwhile
+            if (!entry.streamed) {
+                entry.localHeaderOffset = ParallelZipWriter.this.offset;
+                entry.streamed = true;
+                writeLocalHeader(entry);
+            }
+            outputStream.write(bytes, offset, length);
+            ParallelZipWriter.this.offset += length;
+            count += length;
+        }
+    }
+
+
+    /**
+     * Keeps written bytes in chunks, so that large entries do not have to be copied into ever larger arrays.
+     */
+    private static class ChunkBuffer extends OutputStream {
+
+        private final List<byte[]> chunks = new ArrayList<>(); // Holds the full chunks and the current chunk last
+        private byte[] current = new byte[0]; // Holds the chunk that is being filled
+        private int position = 0; // Holds the number of bytes in the current chunk
+        private long size = 0; // Holds the total number of bytes
+
+
+        /**
+         * Writes a single byte.
+         *
+         * @param b the byte.
+         */
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+
+        /**
+         * Writes a range of bytes, starting a new chunk whenever the current one is full.
+         *
+         * @param bytes  the bytes.
+         * @param offset the index of the first byte to write.
+         * @param length the number of bytes to write.
+         */
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                if (position == current.length) {
+                    current = new byte[chunks.isEmpty() ? FIRST_CHUNK_SIZE : CHUNK_SIZE];
+                    chunks.add(current);
+                    position = 0;
+                }
+                int count = Math.min(length, current.length - position);
+                System.arraycopy(bytes, offset, current, position, count);
+                position += count;
+                offset += count;
+                length -= count;
+                size += count;
+            }
+        }
+
+
+        /**
+         * Returns the total number of bytes.
+         *
+         * @return the number of bytes.
+         */
+        long size() {
+            return size;
+        }
+
+
+        /**
+         * Writes all bytes to a stream.
+         *
+         * @param outputStream the stream.
+         * @throws IOException if the stream cannot be written.
+         */
+        void writeTo(OutputStream outputStream) throws IOException {
+            for (int i = 0; i < chunks.size(); i++) {
+                byte[] chunk = chunks.get(i);
+                outputStream.write(chunk, 0, i == chunks.size() - 1 ? position : chunk.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.anne_marschner_project.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    @Test
+    void testExtractBoundary() {
+        assertEquals(BOUNDARY, MultipartStreamReader.extractBoundary("multipart/form-data; boundary=" + BOUNDARY));
+        assertEquals("a b", MultipartStreamReader.extractBoundary("multipart/form-data; boundary=\"a b\"; charset=UTF-8"));
+        assertNull(MultipartStreamReader.extractBoundary("multipart/form-data"));
+        assertNull(MultipartStreamReader.extractBoundary(null));
+    }
+
+    @Test
+    void testNextPart_ReadsPartsInOrder() throws IOException {
+
+        // The CSV content contains line breaks and dashes that look like the beginning of a boundary
+        String csv = "id,name\r\n1,Anne\r\n--\r\n--" + BOUNDARY.substring(0, 10) + "\r\n" + "x".repeat(200_000) + "\r\n";
+        String body = "preamble\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"parameters\"; filename=\"blob\"\r\n"
+                + "Content-Type: application/json\r\n\r\n"
+                + "{\"hasHeaders\":true}\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"csvFile\"; filename=\"input.csv\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n"
+                + csv + "\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+
+        // Deliver the body in small pieces of varying length, as it arrives over the network
+        MultipartStreamReader reader = new MultipartStreamReader(new TrickleInputStream(body.getBytes(StandardCharsets.UTF_8)), BOUNDARY);
+        MultipartStreamReader.Part parameters = reader.nextPart();
+        assertEquals("parameters", parameters.getName());
+        assertEquals("application/json", parameters.getContentType());
+        assertEquals("{\"hasHeaders\":true}", new String(parameters.getContent().readAllBytes(), StandardCharsets.UTF_8));
+
+        MultipartStreamReader.Part csvFile = reader.nextPart();
+        assertEquals("csvFile", csvFile.getName());
+        assertEquals("input.csv", csvFile.getFilename());
+        assertEquals("text/csv", csvFile.getContentType());
+        assertEquals(csv, new String(csvFile.getContent().readAllBytes(), StandardCharsets.UTF_8));
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void testNextPart_SkipsUnreadContent() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"first\"\r\n\r\n"
+                + "y".repeat(100_000) + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"second\"\r\n\r\n"
+                + "content\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), BOUNDARY);
+
+        MultipartStreamReader.Part first = reader.nextPart();
+        assertEquals('y', first.getContent().read());
+        MultipartStreamReader.Part second = reader.nextPart();
+        assertEquals("second", second.getName());
+        assertEquals(-1, first.getContent().read());
+        assertEquals("content", new String(second.getContent().readAllBytes(), StandardCharsets.UTF_8));
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void testRead_TruncatedBodyFails() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"csvFile\"\r\n\r\n"
+                + "id,name\r\n1,An";
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), BOUNDARY);
+        MultipartStreamReader.Part part = reader.nextPart();
+        assertThrows(IOException.class, () -> part.getContent().readAllBytes());
+    }
+
+
+    /**
+     * Returns the bytes of an array in pieces of 1 to 17 bytes.
+     */
+    private static class TrickleInputStream extends InputStream {
+
+        private final byte[] bytes;
+        private int position = 0;
+
+        TrickleInputStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (position == bytes.length) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, 1 + position % 17), bytes.length - position);
+            System.arraycopy(bytes, position, target, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.anne_marschner_project.core;
+
+import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.Column;
+import org.anne_marschner_project.core.data.Dataset;
+import org.anne_marschner_project.core.data.GeneratedDatasets;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.Type;
+import org.anne_marschner_project.core.zipTool.ParallelZipWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratorTest {
+
+    @Test
+    void testResolveLocalInput_OnlyInsideDirectory(@TempDir Path directory) throws IOException {
+
+        // Prepare the allowed directory with a nested file, and a file and a link that lead out of it
+        Path allowed = Files.createDirectories(directory.resolve("input"));
+        Path nested = Files.writeString(Files.createDirectories(allowed.resolve("batch")).resolve("data.csv"), "a,b\n");
+        Files.writeString(directory.resolve("secret.csv"), "x\n");
+        Files.createSymbolicLink(allowed.resolve("link.csv"), directory.resolve("secret.csv"));
+
+        assertEquals(nested.toRealPath(), Generator.resolveLocalInput(allowed, "batch/data.csv"));
+        assertEquals(nested.toRealPath(), Generator.resolveLocalInput(allowed, "batch/../batch/data.csv"));
+        assertThrows(AccessDeniedException.class, () -> Generator.resolveLocalInput(allowed, "../secret.csv"));
+        assertThrows(AccessDeniedException.class, () -> Generator.resolveLocalInput(allowed, directory.resolve("secret.csv").toString()));
+        assertThrows(AccessDeniedException.class, () -> Generator.resolveLocalInput(allowed, "link.csv"));
+        assertThrows(NoSuchFileException.class, () -> Generator.resolveLocalInput(allowed, "missing.csv"));
+        assertThrows(NoSuchFileException.class, () -> Generator.resolveLocalInput(allowed, "batch"));
+    }
+
+    @Test
+    void testResolveLocalInput_DisabledWithoutDirectory() {
+        assertThrows(AccessDeniedException.class, () -> new Generator().resolveLocalInput("data.csv"));
+    }
+
+    @Test
+    void testWriteDatasets_ZipEntriesMatchFiles(@TempDir Path directory) throws IOException {
+
+        // Prepare two datasets, the second one split into two relations with a foreign key
+        Relation input = Relation.builder()
+                .attribute(0, new Attribute("id", Type.DOUBLE)).column(0, Column.of(List.of("1", "2", "3"), Type.DOUBLE))
+                .attribute(1, new Attribute("name", Type.STRING)).column(1, Column.of(List.of("a", "b, c", "d"), Type.STRING))
+                .keyIndices(List.of(0))
+                .build();
+        Relation names = Relation.builder()
+                .attribute(1, new Attribute("name", Type.STRING)).column(1, Column.of(List.of("a", "b, c", "d"), Type.STRING))
+                .keyIndices(List.of(1))
+                .build();
+        Relation ids = input.toBuilder().foreignKeyIndices(List.of(1)).build();
+        List<Dataset> datasets = new ArrayList<>(List.of(new Dataset(List.of(input)), new Dataset(List.of(ids, names))));
+
+        // Write the datasets into an archive and into files
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ParallelZipWriter zipWriter = new ParallelZipWriter(archive, true, 2)) {
+            new Generator().writeDatasets(new GeneratedDatasets(input, datasets, new String[]{"No Change", "No Change"}, ',', '"'),
+                    zipWriter, "data");
+        }
+        new Generator().writeDatasets(new GeneratedDatasets(input, new ArrayList<>(datasets), new String[]{"No Change", "No Change"}, ',', '"'),
+                directory.resolve("data").toString());
+
+        // Every entry has the content of the file with the same name
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                entries.put(entry.getName(), zipInputStream.readAllBytes());
+            }
+        }
+        assertEquals(Set.of("data_A1.csv", "data_A_keys.json", "data_B1.csv", "data_B2.csv", "data_B_keys.json", "data_Mapping.json"),
+                entries.keySet());
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            assertArrayEquals(Files.readAllBytes(directory.resolve(entry.getKey())), entry.getValue(), entry.getKey());
+        }
+        assertTrue(new String(entries.get("data_B_keys.json")).contains("\"foreignKey\" : [ 2 ]"));
+    }
+}
@@ -0,0 +1,81 @@
+package org.anne_marschner_project.core.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+    @Test
+    void testReserve_RejectsJobLargerThanBudget() {
+        AdmissionController admissionController = new AdmissionController(1000, 3.0, 1);
+        assertThrows(AdmissionRejectedException.class, () -> admissionController.reserve(1001));
+        assertEquals(0, admissionController.getReservedBytes());
+    }
+
+    @Test
+    void testReserve_ReleasesOnClose() throws AdmissionRejectedException {
+        AdmissionController admissionController = new AdmissionController(1000, 3.0, 1);
+
+        // The reservation counts until it is closed, closing twice has no effect
+        AdmissionController.Reservation reservation = admissionController.reserve(400);
+        assertEquals(400, admissionController.getReservedBytes());
+        assertEquals(0.4, admissionController.getReservationLevel());
+        reservation.close();
+        reservation.close();
+        assertEquals(0, admissionController.getReservedBytes());
+    }
+
+    @Test
+    void testResize_ChangesReservedBytes() throws AdmissionRejectedException {
+        AdmissionController admissionController = new AdmissionController(1000, 3.0, 1);
+
+        // A registered relation keeps the reservation of its actual size, which may exceed the estimate
+        AdmissionController.Reservation reservation = admissionController.reserve(400);
+        reservation.resize(300);
+        assertEquals(300, admissionController.getReservedBytes());
+        reservation.resize(1200);
+        assertEquals(1200, admissionController.getReservedBytes());
+        reservation.close();
+        reservation.resize(500);
+        assertEquals(0, admissionController.getReservedBytes());
+    }
+
+    @Test
+    void testReserve_QueuesJobUntilBudgetIsFree() throws Exception {
+        AdmissionController admissionController = new AdmissionController(1000, 3.0, 10);
+        AdmissionController.Reservation first = admissionController.reserve(800);
+
+        // The second job does not fit and waits in the queue
+        CompletableFuture<AdmissionController.Reservation> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admissionController.reserve(500);
+            } catch (AdmissionRejectedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (admissionController.getQueueLength() == 0) {
+            Thread.sleep(5);
+        }
+        assertFalse(second.isDone());
+
+        // Releasing the first reservation admits the second job
+        first.close();
+        AdmissionController.Reservation reservation = second.get(5, TimeUnit.SECONDS);
+        assertEquals(500, admissionController.getReservedBytes());
+        assertEquals(0, admissionController.getQueueLength());
+        reservation.close();
+    }
+
+    @Test
+    void testReserve_TimesOut() throws AdmissionRejectedException {
+        AdmissionController admissionController = new AdmissionController(1000, 3.0, 0);
+        try (AdmissionController.Reservation reservation = admissionController.reserve(600)) {
+            assertThrows(AdmissionRejectedException.class, () -> admissionController.reserve(600));
+            assertEquals(0, admissionController.getQueueLength());
+        }
+    }
+}
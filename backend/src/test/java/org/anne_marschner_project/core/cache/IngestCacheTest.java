@@ -0,0 +1,98 @@
+package org.anne_marschner_project.core.cache;
+
+import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.Column;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestCacheTest {
+
+    @Test
+    void testCreateKey_DependsOnContentAndOptions() throws IOException {
+        String key = createKey("id,name\n1,Anne\n", true, ',', '"', '\\');
+        assertEquals(64, key.length());
+        assertEquals(key, createKey("id,name\n1,Anne\n", true, ',', '"', '\\'));
+        assertNotEquals(key, createKey("id,name\n1,Anna\n", true, ',', '"', '\\'));
+        assertNotEquals(key, createKey("id,name\n1,Anne\n", false, ',', '"', '\\'));
+        assertNotEquals(key, createKey("id,name\n1,Anne\n", true, ';', '"', '\\'));
+        assertNotEquals(key, createKey("id,name\n1,Anne\n", true, ',', '\'', '\\'));
+        assertNotEquals(key, createKey("id,name\n1,Anne\n", true, ',', '"', '"'));
+    }
+
+    @Test
+    void testGetAndPut(@TempDir Path directory) throws IOException {
+        IngestCache cache = new IngestCache(directory.resolve("cache"), 1 << 20);
+        assertNull(cache.get("missing"));
+
+        Relation relation = createRelation(100);
+        cache.put("key", relation);
+        Relation cached = cache.get("key");
+        assertNotNull(cached);
+        assertEquals(relation.getData().get(0), cached.getData().get(0));
+        assertEquals(List.of(0), cached.getKeyIndices());
+    }
+
+    @Test
+    void testGet_RemovesCorruptFile(@TempDir Path directory) throws IOException {
+        Files.writeString(directory.resolve("key.rel"), "no relation");
+        IngestCache cache = new IngestCache(directory, 1 << 20);
+        assertNull(cache.get("key"));
+        assertFalse(Files.exists(directory.resolve("key.rel")));
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsed(@TempDir Path directory) throws IOException {
+        Relation relation = createRelation(1000);
+        IngestCache unbounded = new IngestCache(directory, Long.MAX_VALUE);
+        unbounded.put("first", relation);
+        long fileSize = Files.size(directory.resolve("first.rel"));
+
+        // Room for two relations: "second" is older than "first" after "first" was used again
+        IngestCache cache = new IngestCache(directory, 2 * fileSize + fileSize / 2);
+        cache.put("second", relation);
+        Files.setLastModifiedTime(directory.resolve("first.rel"), FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(directory.resolve("second.rel"), FileTime.fromMillis(2_000_000));
+        assertNotNull(cache.get("first"));
+        Files.setLastModifiedTime(directory.resolve("second.rel"), FileTime.fromMillis(2_000_000));
+
+        cache.put("third", relation);
+        assertTrue(Files.exists(directory.resolve("first.rel")));
+        assertFalse(Files.exists(directory.resolve("second.rel")));
+        assertTrue(Files.exists(directory.resolve("third.rel")));
+    }
+
+
+    /**
+     * Creates the key of a CSV content.
+     */
+    private static String createKey(String content, boolean hasHeaders, char separator, char quoteChar, char escapeChar) throws IOException {
+        return IngestCache.createKey(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), hasHeaders, separator, quoteChar, escapeChar);
+    }
+
+    /**
+     * Creates a relation with one numeric key column of the given number of rows.
+     */
+    private static Relation createRelation(int numOfRows) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < numOfRows; i++) {
+            ids.add(Integer.toString(i));
+        }
+        return Relation.builder()
+                .attribute(0, new Attribute("id", Type.DOUBLE)).column(0, Column.of(ids, Type.DOUBLE))
+                .keyIndices(List.of(0))
+                .build();
+    }
+}
@@ -0,0 +1,244 @@
+package org.anne_marschner_project.core.columnarTool;
+
+import org.anne_marschner_project.core.csvTool.CSVTool;
+import org.anne_marschner_project.core.data.NumericColumn;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.Type;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.io.LocalOutputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarToolTest {
+
+    @Test
+    void testDetectFormat(@TempDir Path directory) throws IOException {
+        assertNull(ColumnarTool.detectFormat(new ByteArrayInputStream("id,name\n1,Anne\n".getBytes(StandardCharsets.UTF_8))));
+        assertNull(ColumnarTool.detectFormat(new ByteArrayInputStream(new byte[0])));
+
+        Path parquetFile = writeParquetFile(directory.resolve("input.parquet"), 3);
+        Path arrowFile = writeArrowFile(directory.resolve("input.arrow"), false);
+        Path arrowStream = writeArrowFile(directory.resolve("input.arrows"), true);
+        assertEquals(ColumnarTool.Format.PARQUET, ColumnarTool.detectFormat(parquetFile));
+        assertEquals(ColumnarTool.Format.ARROW_FILE, ColumnarTool.detectFormat(arrowFile));
+        assertEquals(ColumnarTool.Format.ARROW_STREAM, ColumnarTool.detectFormat(arrowStream));
+    }
+
+    @Test
+    void testReadColumns_Parquet(@TempDir Path directory) throws IOException {
+
+        // The file has several row groups
+        Path file = writeParquetFile(directory.resolve("input.parquet"), 20_000);
+        Relation relation = new ColumnarTool().readColumns(file, ColumnarTool.Format.PARQUET);
+
+        assertEquals(20_000, relation.getNumOfRows());
+        List<String> names = relation.getSchema().values().stream().map(attribute -> attribute.getColumnName()).toList();
+        assertEquals(List.of("id", "price", "amount", "ratio", "name", "day", "active"), names);
+        List<Type> types = relation.getSchema().values().stream().map(attribute -> attribute.getDataType()).toList();
+        assertEquals(List.of(Type.DOUBLE, Type.DOUBLE, Type.DOUBLE, Type.DOUBLE, Type.STRING, Type.STRING, Type.STRING), types);
+
+        // Numeric columns are typed columns with the exact values, null entries are empty
+        assertInstanceOf(NumericColumn.class, relation.getData().get(0));
+        assertEquals(Arrays.asList("0", "1", "2"), relation.getData().get(0).subList(0, 3));
+        assertEquals(Arrays.asList("0.00", "", "0.02"), relation.getData().get(1).subList(0, 3));
+        assertEquals(Arrays.asList("0", "0.5", "1"), relation.getData().get(2).subList(0, 3));
+        assertEquals(Arrays.asList("0", "0.1", "0.2"), relation.getData().get(3).subList(0, 3));
+        assertEquals(Arrays.asList("name 0", "name 1", "name 2"), relation.getData().get(4).subList(0, 3));
+        assertEquals(Arrays.asList("1970-01-01", "1970-01-02", "1970-01-03"), relation.getData().get(5).subList(0, 3));
+        assertEquals(Arrays.asList("true", "false", "true"), relation.getData().get(6).subList(0, 3));
+        assertEquals(10_000, relation.getColumnStatistics(1).getEmptyCount());
+        assertEquals(19_999 * 0.5, relation.getColumnStatistics(2).getMax());
+    }
+
+    @Test
+    void testReadColumns_ParquetRepeatedColumnFails(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("repeated.parquet");
+        MessageType schema = MessageTypeParser.parseMessageType("message input { repeated int32 values; }");
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new LocalOutputFile(file)).withType(schema).build()) {
+            writer.write(new SimpleGroupFactory(schema).newGroup().append("values", 1).append("values", 2));
+        }
+        assertThrows(IOException.class, () -> new ColumnarTool().readColumns(file, ColumnarTool.Format.PARQUET));
+    }
+
+    @Test
+    void testReadColumns_Arrow(@TempDir Path directory) throws IOException {
+        for (boolean streamFormat : new boolean[]{false, true}) {
+            Path file = writeArrowFile(directory.resolve(streamFormat ? "input.arrows" : "input.arrow"), streamFormat);
+            Relation relation = new ColumnarTool().readColumns(file, ColumnarTool.detectFormat(file));
+
+            // Both record batches are read and the dictionary-encoded column is decoded
+            assertEquals(6, relation.getNumOfRows());
+            assertEquals("price", relation.getSchema().get(2).getColumnName());
+            assertEquals(Type.DOUBLE, relation.getSchema().get(0).getDataType());
+            assertEquals(Type.DOUBLE, relation.getSchema().get(2).getDataType());
+            assertEquals(Type.STRING, relation.getSchema().get(3).getDataType());
+            assertInstanceOf(NumericColumn.class, relation.getData().get(1));
+            assertEquals(Arrays.asList("1", "2", "", "1", "2", ""), relation.getData().get(0));
+            assertEquals(Arrays.asList("0.5", "", "-3", "0.5", "", "-3"), relation.getData().get(1));
+            assertEquals(Arrays.asList("19.99", "0.50", "", "19.99", "0.50", ""), relation.getData().get(2));
+            assertEquals(Arrays.asList("Anne", "Luca", "Anne", "Anne", "Luca", "Anne"), relation.getData().get(3));
+        }
+    }
+
+    @Test
+    void testWriteColumns_RoundTrip(@TempDir Path directory) throws IOException {
+        String csv = "id,price,city,mixed\n1,19.99,Berlin,3\n2,,Paris,x\n3,0.5,Berlin,4.5\n4,-2,,7\n5,100,Paris,8\n";
+        Relation relation = new CSVTool().readCSVColumns(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                csv.length(), true, ',', '"', '\\');
+        List<Integer> columnOrder = List.of(2, 0, 1, 3);
+        int[] rowOrder = {4, 3, 2, 1, 0};
+
+        for (ColumnarTool.Format format : ColumnarTool.Format.values()) {
+            Path file = directory.resolve("output." + format);
+            new ColumnarTool().writeColumns(relation, columnOrder, rowOrder, Files.newOutputStream(file), format);
+            Relation written = new ColumnarTool().readColumns(file, ColumnarTool.detectFormat(file));
+
+            // Columns and rows are written in the given order, numbers stay numbers and empty entries become null
+            List<String> names = written.getSchema().values().stream().map(attribute -> attribute.getColumnName()).toList();
+            assertEquals(List.of("city", "id", "price", "mixed"), names, format.toString());
+            assertEquals(Arrays.asList("Paris", "", "Berlin", "Paris", "Berlin"), written.getData().get(0), format.toString());
+            assertEquals(Arrays.asList("5", "4", "3", "2", "1"), written.getData().get(1), format.toString());
+            assertEquals(Arrays.asList("100", "-2", "0.5", "", "19.99"), written.getData().get(2), format.toString());
+            assertEquals(Type.DOUBLE, written.getSchema().get(2).getDataType(), format.toString());
+
+            // A numeric column with text entries is written as text
+            assertEquals(Arrays.asList("8", "7", "4.5", "x", "3"), written.getData().get(3), format.toString());
+        }
+    }
+
+    @Test
+    void testEstimate(@TempDir Path directory) throws IOException {
+        Path file = writeParquetFile(directory.resolve("input.parquet"), 1000);
+        assertEquals(1000, ColumnarTool.estimate(file, ColumnarTool.Format.PARQUET).getNumOfRows());
+        assertEquals(7, ColumnarTool.estimate(file, ColumnarTool.Format.PARQUET).getNumOfColumns());
+
+        Path arrowFile = writeArrowFile(directory.resolve("input.arrow"), false);
+        assertEquals(4, ColumnarTool.estimate(arrowFile, ColumnarTool.Format.ARROW_FILE).getNumOfColumns());
+    }
+
+
+    /**
+     * Writes a Parquet file with numeric, text, date and boolean columns. Every second price is null.
+     *
+     * @param file      the file to write.
+     * @param numOfRows the number of rows.
+     * @return the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private static Path writeParquetFile(Path file, int numOfRows) throws IOException {
+        MessageType schema = MessageTypeParser.parseMessageType("message input { required int32 id; "
+                + "optional int64 price (DECIMAL(10,2)); optional double amount; optional float ratio; "
+                + "optional binary name (STRING); optional int32 day (DATE); optional boolean active; }");
+        SimpleGroupFactory groupFactory = new SimpleGroupFactory(schema);
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new LocalOutputFile(file))
+                .withType(schema).withRowGroupSize(64L * 1024).build()) {
+            for (int i = 0; i < numOfRows; i++) {
+                Group group = groupFactory.newGroup().append("id", i);
+                if (i % 2 == 0) {
+                    group.append("price", (long) i);
+                }
+                group.append("amount", i * 0.5).append("ratio", i * 0.1f).append("name", "name " + i)
+                        .append("day", i % 365).append("active", i % 2 == 0);
+                writer.write(group);
+            }
+        }
+        return file;
+    }
+
+
+    /**
+     * Writes an Arrow file with two equal record batches of three rows, including null entries
+     * and a dictionary-encoded text column.
+     *
+     * @param file         the file to write.
+     * @param streamFormat whether the stream format is written instead of the file format.
+     * @return the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private static Path writeArrowFile(Path file, boolean streamFormat) throws IOException {
+        try (BufferAllocator allocator = new RootAllocator();
+             IntVector ids = new IntVector("id", allocator);
+             Float8Vector amounts = new Float8Vector("amount", allocator);
+             DecimalVector prices = new DecimalVector("price", allocator, 10, 2);
+             VarCharVector names = new VarCharVector("name", allocator);
+             VarCharVector dictionaryValues = new VarCharVector("names", allocator)) {
+            ids.setSafe(0, 1);
+            ids.setSafe(1, 2);
+            ids.setNull(2);
+            amounts.setSafe(0, 0.5);
+            amounts.setNull(1);
+            amounts.setSafe(2, -3.0);
+            prices.setSafe(0, new BigDecimal("19.99"));
+            prices.setSafe(1, new BigDecimal("0.50"));
+            prices.setNull(2);
+            names.setSafe(0, "Anne".getBytes(StandardCharsets.UTF_8));
+            names.setSafe(1, "Luca".getBytes(StandardCharsets.UTF_8));
+            names.setSafe(2, "Anne".getBytes(StandardCharsets.UTF_8));
+            dictionaryValues.setSafe(0, "Anne".getBytes(StandardCharsets.UTF_8));
+            dictionaryValues.setSafe(1, "Luca".getBytes(StandardCharsets.UTF_8));
+            for (var vector : List.of(ids, amounts, prices, names)) {
+                vector.setValueCount(3);
+            }
+            dictionaryValues.setValueCount(2);
+
+            // Encode the names with a dictionary
+            Dictionary dictionary = new Dictionary(dictionaryValues, new DictionaryEncoding(1L, false, null));
+            DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider(dictionary);
+            try (FieldVector encodedNames = (FieldVector) DictionaryEncoder.encode(names, dictionary);
+                 VectorSchemaRoot root = new VectorSchemaRoot(List.of(ids.getField(), amounts.getField(), prices.getField(), encodedNames.getField()),
+                         List.of(ids, amounts, prices, encodedNames), 3);
+                 FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                if (streamFormat) {
+                    try (ArrowStreamWriter writer = new ArrowStreamWriter(root, provider, Channels.newOutputStream(channel))) {
+                        writer.start();
+                        writer.writeBatch();
+                        writer.writeBatch();
+                        writer.end();
+                    }
+                } else {
+                    try (ArrowFileWriter writer = new ArrowFileWriter(root, provider, channel)) {
+                        writer.start();
+                        writer.writeBatch();
+                        writer.writeBatch();
+                        writer.end();
+                    }
+                }
+                root.clear();
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,216 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.data.Relation;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the {@link CSVTokenizer} reads the same records as commons-csv with the format of {@link CSVTool}.
+ */
+class CSVTokenizerConformanceTest {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "a",
+            "a,b,c",
+            "a,b,c\n1,2,3\n",
+            "a,b,c\r\n1,2,3\r\n",
+            "a,b,c\r1,2,3\r",
+            "a,b,\n,,\n",
+            "a,b,",
+            "\n\n\r\na,b\n\n\nc,d\n\n",
+            "   \na,b\n",
+            "  a  ,\tb\t, c \n",
+            "\"quoted\",\"with,separator\",\"with\nline break\"\n",
+            "\"doubled \"\"quotes\"\"\",\"\"\n",
+            "  \"spaces before\"  ,\"spaces after\"   \n",
+            "\"  kept inside  \",x\n",
+            "un\"quoted\",5\" tall\n",
+            "esc\\,aped,\\\"q\\\",back\\\\slash\n",
+            "\\n\\r\\t\\b\\f,\\x\\y\n",
+            "\"in \\\" quotes\",\"\\n\"\n",
+            "trailing escaped tab\\t,b\n",
+            "escaped\\\nline break,b\n",
+            "a,\"b\"\n\"c\",d",
+            "\"last, without line break\"",
+            "\u00e4\u00f6\u00fc,\u65e5\u672c,\uD83D\uDE00\n",
+            "\"a\"x,b\n",
+            "\"not closed\n",
+            "ends with escape\\"
+    })
+    void testRecords_EqualCommonsCsv(String content) {
+        assertSameRecords(content);
+    }
+
+    @Test
+    void testRecords_RandomContentEqualsCommonsCsv() {
+
+        // Compare random content of characters with special meaning
+        char[] alphabet = {'a', 'b', ' ', '\t', ',', '"', '\\', '\n', '\r', 'n', 't', ';'};
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder content = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                content.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertSameRecords(content.toString());
+        }
+    }
+
+    @Test
+    void testRecords_LongEntriesAcrossBuffers() {
+
+        // Entries longer than the buffer of the tokenizer
+        String longEntry = "x".repeat(200_000);
+        assertSameRecords(longEntry + ",\"" + longEntry.replace("x", "\"\"") + "\"\n" + longEntry + "  \n");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "id,name,age\n1,Anne,24\n2,,30\n3,Jonathan\n",
+            "id,name,id\n1,Anne,24\n2,Luca,30\n",
+            "\n\nid,\"na,me\"\n1,\"An\nne\"\n",
+            "id,name\n",
+    })
+    void testReadCSVColumns_EqualsCommonsCsvPath(String content) throws IOException {
+
+        // Read the same file through both paths of the CSVTool
+        MockMultipartFile file = new MockMultipartFile("file", "test.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+        for (boolean hasHeader : new boolean[]{true, false}) {
+            Relation expected = new CSVTool(null, Long.MAX_VALUE, Long.MAX_VALUE, false)
+                    .readCSVColumns(file, hasHeader, SEPARATOR, QUOTE, ESCAPE);
+            Relation actual = new CSVTool(null, Long.MAX_VALUE, Long.MAX_VALUE, true)
+                    .readCSVColumns(file, hasHeader, SEPARATOR, QUOTE, ESCAPE);
+
+            assertEquals(expected.getSchema().size(), actual.getSchema().size());
+            for (int i = 0; i < expected.getSchema().size(); i++) {
+                assertEquals(expected.getSchema().get(i).getColumnName(), actual.getSchema().get(i).getColumnName());
+                assertEquals(expected.getSchema().get(i).getDataType(), actual.getSchema().get(i).getDataType());
+                assertEquals(expected.getData().get(i), actual.getData().get(i));
+            }
+        }
+    }
+
+    @Test
+    void testReadCSVColumns_MissingHeaderNameFailsLikeCommonsCsv() {
+        MockMultipartFile file = new MockMultipartFile("file", "test.csv", "text/csv", "id,,age\n1,2,3\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CSVTool(null, Long.MAX_VALUE, Long.MAX_VALUE, false).readCSVColumns(file, true, SEPARATOR, QUOTE, ESCAPE));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CSVTool(null, Long.MAX_VALUE, Long.MAX_VALUE, true).readCSVColumns(file, true, SEPARATOR, QUOTE, ESCAPE));
+    }
+
+
+    /**
+     * Reads content with commons-csv and with the tokenizer (from a reader and from UTF-8 bytes) and checks that
+     * the records are equal, or that all fail.
+     *
+     * @param content the CSV content.
+     */
+    private static void assertSameRecords(String content) {
+        List<List<String>> expected = null;
+        List<List<String>> actual = null;
+        List<List<String>> actualFromBytes = null;
+        try {
+            expected = readWithCommonsCsv(content);
+        } catch (IOException | UncheckedIOException e) {
+            // All have to fail
+        }
+        try {
+            actual = readWithTokenizer(content);
+        } catch (IOException e) {
+            // All have to fail
+        }
+        try {
+            actualFromBytes = readBytesWithTokenizer(content);
+        } catch (IOException e) {
+            // All have to fail
+        }
+        assertEquals(expected, actual, () -> "Content: " + content.replace("\n", "\\n").replace("\r", "\\r"));
+        assertEquals(expected, actualFromBytes, () -> "Bytes of content: " + content.replace("\n", "\\n").replace("\r", "\\r"));
+    }
+
+
+    /**
+     * Reads all records with commons-csv.
+     *
+     * @param content the CSV content.
+     * @return the records.
+     * @throws IOException if the content is not valid.
+     */
+    private static List<List<String>> readWithCommonsCsv(String content) throws IOException {
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
+                .setDelimiter(SEPARATOR)
+                .setQuote(QUOTE)
+                .setEscape(ESCAPE)
+                .setIgnoreEmptyLines(true)
+                .setIgnoreSurroundingSpaces(true)
+                .build();
+        List<List<String>> records = new ArrayList<>();
+        try (CSVParser parser = csvFormat.parse(new StringReader(content))) {
+            for (CSVRecord record : parser) {
+                records.add(record.toList());
+            }
+        }
+        return records;
+    }
+
+
+    /**
+     * Reads all records with the tokenizer.
+     *
+     * @param content the CSV content.
+     * @return the records.
+     * @throws IOException if the content is not valid.
+     */
+    private static List<List<String>> readWithTokenizer(String content) throws IOException {
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader(content), SEPARATOR, QUOTE, ESCAPE);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = tokenizer.nextRecord()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+
+    /**
+     * Reads all records with the tokenizer from the UTF-8 encoded bytes of the content.
+     *
+     * @param content the CSV content.
+     * @return the records.
+     * @throws IOException if the content is not valid.
+     */
+    private static List<List<String>> readBytesWithTokenizer(String content) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        CSVTokenizer tokenizer = new CSVTokenizer(bytes, SEPARATOR, QUOTE, ESCAPE);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = tokenizer.nextRecord()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -1,19 +1,33 @@
 package org.anne_marschner_project.core.csvTool;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.Dataset;
+import org.anne_marschner_project.core.data.MetadataFormat;
+import org.anne_marschner_project.core.data.OutputFormat;
 import org.anne_marschner_project.core.data.Relation;
 import org.anne_marschner_project.core.data.Type;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -96,6 +110,156 @@ class CSVToolTest {
         }
     }
 
+    @Test
+    public void testReadCSVColumns_offHeap(@TempDir Path scratchDirectory) throws IOException {
+
+        // Test for CSV whose columns are stored off-heap (threshold of 0 bytes)
+        CSVTool csvTool = new CSVTool(scratchDirectory, 0);
+        Relation relation = csvTool.readCSVColumns(mixedDataFile, true, ',', '"', '\\');
+
+        // Expected values
+        Map<Integer, Type> expectedDataTypes = Map.of(0, Type.DOUBLE, 1, Type.DOUBLE, 2, Type.STRING);
+        Map<Integer, List<String>> expectedData = Map.of(0, List.of("1", "2", "3"), 1, List.of("100.50", "200", "150.75"), 2, List.of("2024-10-01", "2024-10-02", "2024-10-03"));
+
+        // Check types and data, and that the column files were created in the scratch directory
+        for (int i = 0; i < expectedData.size(); i++) {
+            assertEquals(expectedDataTypes.get(i), relation.getSchema().get(i).getDataType());
+            assertEquals(expectedData.get(i), relation.getData().get(i));
+        }
+        try (var files = Files.list(scratchDirectory)) {
+            assertEquals(6, files.count());
+        }
+
+        // Changing an entry does not change the mapped column files
+        relation.getData().get(1).set(0, "99");
+        assertEquals(List.of("99", "200", "150.75"), relation.getData().get(1));
+    }
+
+    @Test
+    public void testReadCSVColumns_inParallel() throws IOException {
+
+        // Create a file of about 3 MB with quoted line breaks, separators, escaped quotes and short rows
+        StringBuilder content = new StringBuilder("id,name,amount,comment\n");
+        for (int i = 0; i < 60_000; i++) {
+            switch (i % 5) {
+                case 0 -> content.append(i).append(",\"Name\n").append(i).append("\",").append(i * 0.5).append(",plain\n");
+                case 1 -> content.append(i).append(",\"Smith, ").append(i % 7).append("\",").append(i).append(",\"say \"\"hi\"\"\"\n");
+                case 2 -> content.append(i).append(",Miller \\\"Jr\\\",x").append(i).append(",\"a \\\" b\"\r\n");
+                case 3 -> content.append(i).append(",Short\n\n");
+                default -> content.append(i).append(",  Spaces  ,").append(-i).append(",\"ends\nwith\n\"\n");
+            }
+        }
+        MultipartFile file = createMockFile("parallel.csv", content.toString());
+
+        // Read the file sequentially and in parallel chunks
+        Relation sequential = new CSVTool().readCSVColumns(file, true, ',', '"', '\\');
+        Relation parallel = new CSVTool(null, Long.MAX_VALUE, 0).readCSVColumns(file, true, ',', '"', '\\');
+
+        // Check that both relations are equal, including types and statistics
+        assertEquals(60_000, parallel.getNumOfRows());
+        assertEquals(sequential.getSchema().size(), parallel.getSchema().size());
+        for (int i = 0; i < sequential.getSchema().size(); i++) {
+            assertEquals(sequential.getSchema().get(i).getColumnName(), parallel.getSchema().get(i).getColumnName());
+            assertEquals(sequential.getSchema().get(i).getDataType(), parallel.getSchema().get(i).getDataType());
+            assertEquals(sequential.getData().get(i), parallel.getData().get(i));
+            assertEquals(sequential.getColumnStatistics(i).getEmptyCount(), parallel.getColumnStatistics(i).getEmptyCount());
+            assertEquals(sequential.getColumnStatistics(i).getMean(), parallel.getColumnStatistics(i).getMean(), 1e-6);
+            assertEquals(sequential.getColumnStatistics(i).getDistinctCount(), parallel.getColumnStatistics(i).getDistinctCount());
+        }
+        assertEquals("Name\n0", parallel.getData().get(1).get(0));
+        assertEquals("say \"hi\"", parallel.getData().get(3).get(1));
+    }
+
+    @Test
+    public void testReadCSVColumns_inParallelRemovesCopy(@TempDir Path scratchDirectory) throws IOException {
+
+        // The upload is copied into a directory of its own for the parallel chunks, and both are deleted afterwards
+        CSVTool csvTool = new CSVTool(scratchDirectory, Long.MAX_VALUE, 0);
+        Relation relation = csvTool.readCSVColumns(mixedDataFile, true, ',', '"', '\\');
+        assertEquals(3, relation.getNumOfRows());
+        try (var files = Files.list(scratchDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testReadCSVColumns_fromStreamWithLongHeader() throws IOException {
+
+        // The header is longer than 1024 characters and the stream can only be read once
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append(i > 0 ? "," : "").append("column_with_a_long_name_").append(i);
+        }
+        content.append('\n').append("1,".repeat(99)).append("1\n");
+        InputStream inputStream = new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8));
+
+        for (boolean useTokenizer : new boolean[]{true, false}) {
+            inputStream.reset();
+            Relation relation = new CSVTool(null, Long.MAX_VALUE, Long.MAX_VALUE, useTokenizer)
+                    .readCSVColumns(inputStream, content.length(), true, ',', '"', '\\');
+            assertEquals(100, relation.getSchema().size());
+            assertEquals("column_with_a_long_name_99", relation.getSchema().get(99).getColumnName());
+            assertEquals(List.of("1"), relation.getData().get(99));
+        }
+    }
+
+    @Test
+    public void testReadCSVColumns_fromServerFile(@TempDir Path directory) throws IOException {
+
+        // Read a file on the server (memory-mapped above the parallel threshold, as a stream below it)
+        // and the same content as an upload
+        String content = "id,name,city\n1,\"Müller, Anne\",Köln\n2,  Luca  ,\"Sankt\nAugustin\"\n3,,\n";
+        Path file = directory.resolve("server.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        Relation expected = new CSVTool().readCSVColumns(createMockFile("server.csv", content), true, ',', '"', '\\');
+        List<Relation> relations = List.of(
+                new CSVTool(null, Long.MAX_VALUE, 0).readCSVColumns(file, true, ',', '"', '\\'),
+                new CSVTool(null, Long.MAX_VALUE, Long.MAX_VALUE).readCSVColumns(file, true, ',', '"', '\\'));
+
+        for (Relation actual : relations) {
+            assertEquals(3, actual.getNumOfRows());
+            for (int i = 0; i < expected.getSchema().size(); i++) {
+                assertEquals(expected.getSchema().get(i).getColumnName(), actual.getSchema().get(i).getColumnName());
+                assertEquals(expected.getSchema().get(i).getDataType(), actual.getSchema().get(i).getDataType());
+                assertEquals(expected.getData().get(i), actual.getData().get(i));
+            }
+            assertEquals("Müller, Anne", actual.getData().get(1).get(0));
+        }
+    }
+
+    @Test
+    public void testReadCSVColumns_compressedUpload(@TempDir Path directory) throws IOException {
+
+        // The same content as a plain, a gzip and a zip upload, and as a gzip file on the server
+        String content = "id,name,age\n1,Anne,24\n2,,30\n3,Jonathan,22\n";
+        ByteArrayOutputStream gzipBytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipBytes)) {
+            gzipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(zipBytes)) {
+            zipOutputStream.putNextEntry(new ZipEntry("input.csv"));
+            zipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        Path file = directory.resolve("server.csv.gz");
+        Files.write(file, gzipBytes.toByteArray());
+
+        // Parallel parsing is enabled for every size, compressed content is read sequentially
+        CSVTool csvTool = new CSVTool(null, Long.MAX_VALUE, 0);
+        List<Relation> relations = List.of(
+                csvTool.readCSVColumns(new MockMultipartFile("file", "input.csv.gz", "application/gzip", gzipBytes.toByteArray()), true, ',', '"', '\\'),
+                csvTool.readCSVColumns(new MockMultipartFile("file", "input.zip", "application/zip", zipBytes.toByteArray()), true, ',', '"', '\\'),
+                csvTool.readCSVColumns(file, true, ',', '"', '\\'));
+        Relation expected = csvTool.readCSVColumns(testFileWithHeader, true, ',', '"', '\\');
+        for (Relation relation : relations) {
+            assertEquals(3, relation.getNumOfRows());
+            for (int i = 0; i < expected.getSchema().size(); i++) {
+                assertEquals(expected.getSchema().get(i).getColumnName(), relation.getSchema().get(i).getColumnName());
+                assertEquals(expected.getData().get(i), relation.getData().get(i));
+            }
+        }
+    }
+
     @Test
     public void testReadCSVColumns_emptyFile() {
 
@@ -142,6 +306,12 @@ class CSVToolTest {
         for (int i = 0; i < schema.size(); i++) {
             assertEquals(expectedTypes.get(i), schema.get(i).getDataType());
         }
+
+        // Check that the statistics of every column were collected while reading
+        assertEquals(schema.size(), relation.getStatistics().size());
+        for (int i = 0; i < schema.size(); i++) {
+            assertEquals(relation.getData().get(i).size(), relation.getStatistics().get(i).getRowCount());
+        }
     }
 
     @Test
@@ -173,6 +343,28 @@ class CSVToolTest {
         }
     }
 
+    @Test
+    public void testWriteRelation_gzipCSV(@TempDir Path directory) throws IOException {
+
+        // Prepare a relation with a header
+        Map<Integer, Attribute> schema = new HashMap<>();
+        schema.put(0, new Attribute("id", Type.DOUBLE));
+        schema.put(1, new Attribute("name", Type.STRING));
+
+        Map<Integer, List<String>> data = new HashMap<>();
+        data.put(0, List.of("1", "2"));
+        data.put(1, List.of("Anne", "Jonathan,Leon"));
+
+        // Write gzip-compressed CSV, the column order is returned as for plain CSV
+        Path file = directory.resolve("nested").resolve("output.csv.gz");
+        List<Integer> columnOrder = new CSVTool().writeRelation(new Relation(schema, data), file.toString(), ',', '"', "No Change", OutputFormat.CSV_GZIP);
+        assertEquals(List.of(0, 1), columnOrder);
+
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(file))) {
+            assertEquals("id,name\n1,Anne\n2,\"Jonathan,Leon\"\n", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n"));
+        }
+    }
+
     @Test
     public void testWriteCSV_withoutHeader() throws IOException {
 
@@ -271,6 +463,74 @@ class CSVToolTest {
         assertEquals(4, lines.size());  // 1 line for header + 3 data lines
     }
 
+    @Test
+    public void testWriteMapping_jsonAndText() throws IOException {
+
+        // Prepare an input relation and a dataset of two relations whose columns were written in a different order
+        Map<Integer, Attribute> schema = new HashMap<>();
+        schema.put(0, new Attribute("id", Type.DOUBLE));
+        schema.put(1, new Attribute("name", Type.STRING));
+        schema.put(2, new Attribute("age", Type.DOUBLE));
+        Map<Integer, List<String>> data = new HashMap<>();
+        data.put(0, List.of("1"));
+        data.put(1, List.of("Anne"));
+        data.put(2, List.of("24"));
+        Relation input = new Relation(schema, data);
+        Map<Integer, Attribute> namesSchema = new HashMap<>(Map.of(0, new Attribute("id", Type.DOUBLE), 1, new Attribute("fullName", Type.STRING)));
+        Relation names = new Relation(namesSchema, new HashMap<>(Map.of(0, List.of("1"), 1, List.of("Anne"))));
+        Relation ages = new Relation(new HashMap<>(Map.of(2, new Attribute("age", Type.DOUBLE))), new HashMap<>(Map.of(2, List.of("24"))));
+        List<Dataset> datasets = List.of(new Dataset(List.of(names, ages)));
+
+        CSVTool csvTool = new CSVTool();
+        csvTool.getColumnOrders().put(0, List.of(List.of(1, 0), List.of(2)));
+
+        // JSON lists the columns of each relation with the input column they come from
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        csvTool.writeMapping(input, datasets, new String[]{"A"}, json, MetadataFormat.JSON);
+        JsonNode mapping = new ObjectMapper().readTree(json.toByteArray());
+        assertEquals(3, mapping.get("inputColumns").size());
+        JsonNode firstColumn = mapping.get("relations").get(0).get("columns").get(0);
+        assertEquals("A1", mapping.get("relations").get(0).get("relation").asText());
+        assertEquals(1, firstColumn.get("column").asInt());
+        assertEquals("fullName", firstColumn.get("name").asText());
+        assertEquals(2, firstColumn.get("inputColumn").asInt());
+        assertEquals("name", firstColumn.get("inputName").asText());
+
+        // JSON Lines writes one object per written column
+        ByteArrayOutputStream jsonLines = new ByteArrayOutputStream();
+        csvTool.writeMapping(input, datasets, new String[]{"A"}, jsonLines, MetadataFormat.JSON_LINES);
+        String[] lines = jsonLines.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("A2", new ObjectMapper().readTree(lines[2]).get("relation").asText());
+        assertEquals(3, new ObjectMapper().readTree(lines[2]).get("inputColumn").asInt());
+
+        // The text mapping lists the correspondences of each input column
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        csvTool.writeMapping(input, datasets, new String[]{"A"}, text);
+        assertTrue(text.toString(StandardCharsets.UTF_8).contains("Input_column2_\"name\" corresponds to: \nA1_column1_\"fullName\"; "));
+    }
+
+    @Test
+    public void testWriteKeyFile_json() throws IOException {
+
+        // Prepare a relation whose key and foreign key columns were written in a different order
+        Map<Integer, Attribute> schema = new HashMap<>();
+        schema.put(0, new Attribute("id", Type.DOUBLE));
+        schema.put(1, new Attribute("name", Type.STRING));
+        Map<Integer, List<String>> data = new HashMap<>(Map.of(0, List.of("1"), 1, List.of("Anne")));
+        Relation relation = new Relation(schema, data).toBuilder().keyIndices(List.of(0)).foreignKeyIndices(List.of(1)).build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new CSVTool().writeKeyFile(new Dataset(List.of(relation)), List.of(List.of(1, 0)), "B", outputStream, MetadataFormat.JSON);
+
+        JsonNode keys = new ObjectMapper().readTree(outputStream.toByteArray());
+        assertEquals("B", keys.get("dataset").asText());
+        JsonNode keyRelation = keys.get("relations").get(0);
+        assertEquals("B1", keyRelation.get("relation").asText());
+        assertEquals(2, keyRelation.get("primaryKey").get(0).asInt());
+        assertEquals(1, keyRelation.get("foreignKey").get(0).asInt());
+    }
+
     @AfterEach
     public void cleanUp() throws IOException {
         // Delete files after tests
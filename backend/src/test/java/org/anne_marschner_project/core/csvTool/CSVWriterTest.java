@@ -0,0 +1,176 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.Column;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CSVWriterTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    void testWriteRelation_QuotesSpecialEntries() throws IOException {
+        Relation relation = Relation.builder()
+                .attribute(0, new Attribute("id", Type.DOUBLE)).column(0, Column.of(List.of("1", "2", "3"), Type.DOUBLE))
+                .attribute(1, new Attribute("text, long", Type.STRING))
+                .column(1, Column.of(Arrays.asList("say \"hi\"", "two\nlines", " padded "), Type.STRING))
+                .attribute(2, new Attribute("name", Type.STRING)).column(2, new ArrayList<>(Arrays.asList("ä😀", null, "")))
+                .build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (CSVWriter writer = new CSVWriter(outputStream, ',', '"')) {
+            writer.writeRelation(relation, List.of(0, 1, 2), null);
+        }
+        String expected = "id,\"text, long\",name" + NL
+                + "1,\"say \"\"hi\"\"\",ä😀" + NL
+                + "2,\"two\nlines\"," + NL
+                + "3,\" padded \"," + NL;
+        assertEquals(expected, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteRelation_ReadsBackTheSameEntries(@TempDir Path directory) throws IOException {
+
+        // Entries with separators, quotes, line breaks and characters outside of ASCII in typed and plain columns
+        List<String> texts = List.of("a;b", "'quoted'", "x\r\ny", "日本", "plain", "it's");
+        Relation relation = Relation.builder()
+                .attribute(0, new Attribute("id", Type.DOUBLE)).column(0, Column.of(List.of("1", "2.5", "3", "4", "5", "6"), Type.DOUBLE))
+                .attribute(1, new Attribute("text", Type.STRING)).column(1, Column.of(texts, Type.STRING))
+                .attribute(2, new Attribute("plain", Type.STRING)).column(2, new ArrayList<>(texts))
+                .build();
+
+        Path file = directory.resolve("output.csv");
+        List<Integer> columnOrder = new CSVTool().writeShuffledRows(relation, file.toString(), ';', '\'');
+        Relation copy = new CSVTool().readCSVColumns(file, true, ';', '\'', '\\');
+
+        // The rows are shuffled, but each row keeps its entries
+        assertEquals(List.of(0, 1, 2), columnOrder);
+        Set<List<String>> expectedRows = new HashSet<>();
+        Set<List<String>> actualRows = new HashSet<>();
+        for (int i = 0; i < texts.size(); i++) {
+            expectedRows.add(List.of(relation.getData().get(0).get(i), texts.get(i), texts.get(i)));
+            actualRows.add(List.of(copy.getData().get(0).get(i), copy.getData().get(1).get(i), copy.getData().get(2).get(i)));
+        }
+        assertEquals(expectedRows, actualRows);
+    }
+
+    @Test
+    void testWriteRelation_SingleEmptyEntryIsNoEmptyLine() throws IOException {
+        Relation relation = Relation.builder()
+                .attribute(0, new Attribute(null, Type.STRING)).column(0, Column.of(Arrays.asList("a", "", null), Type.STRING))
+                .build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (CSVWriter writer = new CSVWriter(outputStream, ',', '"')) {
+            writer.writeRelation(relation, List.of(0), null);
+        }
+        assertEquals("a" + NL + "\"\"" + NL + "\"\"" + NL, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Compares the write throughput of the CSVWriter with the former loop over a BufferedWriter, in the original
+     * order and with shuffled rows. Run with -Dbenchmark=true -Dtest=CSVWriterTest.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkWriteRelation(@TempDir Path directory) throws IOException {
+        Relation relation = createRelation(2_000_000);
+        Path file = directory.resolve("output.csv");
+        CSVTool csvTool = new CSVTool();
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            writeWithBufferedWriter(relation, file.toString());
+            long legacy = System.nanoTime() - start;
+            long size = Files.size(file);
+
+            start = System.nanoTime();
+            csvTool.writeInOrder(relation, file.toString(), ',', '"');
+            long inOrder = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            csvTool.writeShuffledRows(relation, file.toString(), ',', '"');
+            long shuffledRows = System.nanoTime() - start;
+
+            System.out.printf("%d MB: BufferedWriter %.0f MB/s, CSVWriter %.0f MB/s, CSVWriter with shuffled rows %.0f MB/s%n",
+                    size >> 20, size / 1e3 / (legacy / 1e6), size / 1e3 / (inOrder / 1e6), size / 1e3 / (shuffledRows / 1e6));
+        }
+    }
+
+
+    /**
+     * Creates a relation with a numeric key, a decimal column, two dictionary columns and a column of distinct texts.
+     *
+     * @param numOfRows the number of rows.
+     * @return the relation.
+     */
+    private static Relation createRelation(int numOfRows) {
+        List<String> ids = new ArrayList<>(numOfRows);
+        List<String> prices = new ArrayList<>(numOfRows);
+        List<String> cities = new ArrayList<>(numOfRows);
+        List<String> states = new ArrayList<>(numOfRows);
+        List<String> comments = new ArrayList<>(numOfRows);
+        for (int i = 0; i < numOfRows; i++) {
+            ids.add(Integer.toString(i));
+            prices.add((i % 10_000) + "." + (i % 100));
+            cities.add("City " + (i % 5_000));
+            states.add(i % 7 == 0 ? "Baden-Württemberg" : "Berlin");
+            comments.add("comment number " + i);
+        }
+        return Relation.builder()
+                .attribute(0, new Attribute("id", Type.DOUBLE)).column(0, Column.of(ids, Type.DOUBLE))
+                .attribute(1, new Attribute("price", Type.DOUBLE)).column(1, Column.of(prices, Type.DOUBLE))
+                .attribute(2, new Attribute("city", Type.STRING)).column(2, Column.of(cities, Type.STRING))
+                .attribute(3, new Attribute("state", Type.STRING)).column(3, Column.of(states, Type.STRING))
+                .attribute(4, new Attribute("comment", Type.STRING)).column(4, Column.of(comments, Type.STRING))
+                .build();
+    }
+
+
+    /**
+     * Writes a relation the way CSVTool did before the CSVWriter: one map lookup and one separator scan per entry,
+     * through a BufferedWriter over a FileWriter.
+     *
+     * @param relation the relation to write.
+     * @param filePath the path of the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeWithBufferedWriter(Relation relation, String filePath) throws IOException {
+        Map<Integer, List<String>> data = relation.getData();
+        List<Integer> columnIndices = new ArrayList<>(data.keySet());
+        int numberOfRows = data.values().iterator().next().size();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
+            for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+                for (int listIndex = 0; listIndex < columnIndices.size(); listIndex++) {
+                    String value = data.get(columnIndices.get(listIndex)).get(rowIndex);
+                    if (value != null && value.indexOf(',') >= 0) {
+                        value = '"' + value + '"';
+                    }
+                    writer.write(value != null ? value : "");
+                    if (listIndex < columnIndices.size() - 1) {
+                        writer.write(',');
+                    }
+                }
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedInputTest {
+
+    private static final String CSV = "id,name\n1,Anne\n2,Luca\n";
+
+    @Test
+    void testOpen_PlainContent() throws IOException {
+        CompressedInput input = CompressedInput.open(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(CompressedInput.Format.PLAIN, input.getFormat());
+        assertEquals(CSV.length(), input.projectContentSize(CSV.length()));
+        assertEquals(CSV, new String(input.getContent().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testOpen_MultiMemberGzip() throws IOException {
+
+        // Two gzip members are concatenated, as written by "cat a.csv.gz b.csv.gz"
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(gzip("id,name\n1,Anne\n"));
+        bytes.write(gzip("2,Luca\n"));
+        CompressedInput input = CompressedInput.open(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(CompressedInput.Format.GZIP, input.getFormat());
+        assertEquals(CSV.length(), input.projectContentSize(bytes.size()));
+        assertEquals(CSV, new String(input.getContent().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testOpen_ZipReadsFirstFile() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(bytes)) {
+            zipOutputStream.putNextEntry(new ZipEntry("data/"));
+            zipOutputStream.putNextEntry(new ZipEntry("data/input.csv"));
+            zipOutputStream.write(CSV.getBytes(StandardCharsets.UTF_8));
+            zipOutputStream.putNextEntry(new ZipEntry("data/other.csv"));
+            zipOutputStream.write("other\n".getBytes(StandardCharsets.UTF_8));
+        }
+        CompressedInput input = CompressedInput.open(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(CompressedInput.Format.ZIP, input.getFormat());
+        assertEquals(CSV, new String(input.getContent().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testProjectContentSize_UsesCompressionRatio() throws IOException {
+
+        // Repetitive content compresses well, the projection has to be close to the real size
+        String content = "1,Anne,Köln,2024-10-01\n".repeat(100_000);
+        byte[] compressed = gzip(content);
+        CompressedInput input = CompressedInput.open(new ByteArrayInputStream(compressed));
+        long projected = input.projectContentSize(compressed.length);
+        long actual = content.getBytes(StandardCharsets.UTF_8).length;
+
+        assertTrue(projected > actual / 2 && projected < actual * 2, "projected " + projected + " for " + actual);
+        assertEquals(actual, input.getContent().readAllBytes().length);
+    }
+
+    @Test
+    void testOpen_EmptyZipFails() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(bytes)) {
+            zipOutputStream.putNextEntry(new ZipEntry("empty/"));
+        }
+        assertThrows(IOException.class, () -> CompressedInput.open(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+
+    /**
+     * Compresses a text with gzip.
+     *
+     * @param text the text.
+     * @return the gzip member.
+     * @throws IOException if the text cannot be compressed.
+     */
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bytes)) {
+            gzipOutputStream.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.data.ColumnBuilder;
+import org.anne_marschner_project.core.data.Type;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCSVReaderTest {
+
+    @Test
+    void testFindRanges_EndAtRecordBoundaries(@TempDir Path directory) throws IOException {
+
+        // Line breaks inside quotes and after escape characters do not end a record, quotes inside entries do not open one
+        String content = "a,\"x\ny\",c\n"
+                + "b,\"say \"\"\n\"\"\",c\n"
+                + "c,un\\\nquoted,c\n"
+                + "d,5\" tall\nd2,  \"q\nq\",c\n"
+                + "e,\"\\\"\n\",c\n";
+        List<String> expectedRecords = List.of("a,\"x\ny\",c\n", "b,\"say \"\"\n\"\"\",c\n", "c,un\\\nquoted,c\n",
+                "d,5\" tall\n", "d2,  \"q\nq\",c\n", "e,\"\\\"\n\",c\n");
+        Path file = directory.resolve("input.csv");
+        Files.writeString(file, content);
+
+        // Find ranges with a target size of one byte, so that each record becomes its own range
+        ParallelCSVReader reader = new ParallelCSVReader(CSVFormat.DEFAULT, false, ',', '"', '\\', null, true);
+        List<String> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file)) {
+            for (long[] range : reader.findRanges(channel, channel.size(), 1)) {
+                records.add(content.substring((int) range[0], (int) (range[0] + range[1])));
+            }
+        }
+        assertEquals(expectedRecords, records);
+    }
+
+    @Test
+    void testRead_StitchesChunksInOrder(@TempDir Path directory) throws IOException {
+
+        // Create a file of more than 3 MB, so that it is split into several chunks
+        StringBuilder content = new StringBuilder("id;text\n");
+        for (int i = 0; i < 200_000; i++) {
+            content.append(i).append(";'row ").append(i).append("'\n");
+        }
+        Path file = directory.resolve("input.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        // Read the file and check the order of the entries
+        CSVFormat format = CSVFormat.DEFAULT.builder().setDelimiter(';').setQuote('\'').setEscape('\\').build();
+        ParallelCSVReader reader = new ParallelCSVReader(format, true, ';', '\'', '\\', null, true);
+        List<ColumnBuilder> columns = reader.read(file);
+        assertArrayEquals(new String[]{"id", "text"}, reader.getHeaders());
+        assertEquals(200_000, columns.get(0).values().size());
+        for (int i = 0; i < 200_000; i += 997) {
+            assertEquals(Integer.toString(i), columns.get(0).values().get(i));
+            assertEquals("row " + i, columns.get(1).values().get(i));
+        }
+        assertEquals(Type.DOUBLE, columns.get(0).determineType());
+        assertEquals(Type.STRING, columns.get(1).determineType());
+        assertEquals(99_999.5, columns.get(0).getStatistics().getMean(), 1e-6);
+    }
+}
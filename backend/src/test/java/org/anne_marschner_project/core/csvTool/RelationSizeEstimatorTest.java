@@ -0,0 +1,80 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelationSizeEstimatorTest {
+
+    @Test
+    void testEstimate_SmallFileIsSampledCompletely() throws IOException {
+
+        // The whole file fits into the sample
+        byte[] content = "id,name,age\n1,Anne,24\n2,Luca,30\n3,Milena,22\n".getBytes(StandardCharsets.UTF_8);
+        RelationSizeEstimator estimate = RelationSizeEstimator.estimate(new ByteArrayInputStream(content), content.length,
+                true, ',', '"', '\\');
+
+        assertEquals(3, estimate.getNumOfColumns());
+        assertEquals(3, estimate.getNumOfRows());
+
+        // Two numeric columns with 9 bytes per entry and one String column with distinct names
+        assertEquals(2 * 3 * 9 + 3 * 56 + 14, estimate.getEstimatedHeapBytes());
+    }
+
+    @Test
+    void testEstimate_UsesStorageOfColumns() throws IOException {
+
+        // A numeric column, a column with few distinct entries and a column of distinct Strings
+        StringBuilder content = new StringBuilder("amount,city,comment\n");
+        for (int i = 0; i < 1000; i++) {
+            content.append(i * 0.5).append(",City").append(i % 10).append(",Comment number ").append(i).append('\n');
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        RelationSizeEstimator estimate = RelationSizeEstimator.estimate(new ByteArrayInputStream(bytes), bytes.length,
+                true, ',', '"', '\\');
+
+        // The dictionary column needs far less than a column of Strings, and the numeric column even less
+        long commentBytes = 1000L * 56 + "Comment number ".length() * 1000L + 2890;
+        long cityBytes = 1000L * 4 + 10 * (56 + 5 + 48);
+        assertEquals(1000 * 9 + cityBytes + commentBytes, estimate.getEstimatedHeapBytes(), 10);
+    }
+
+    @Test
+    void testEstimate_OffHeapCountsOnlyHeapPart() throws IOException {
+        byte[] content = "id,name,age\n1,Anne,24\n2,Luca,30\n3,Milena,22\n".getBytes(StandardCharsets.UTF_8);
+        RelationSizeEstimator estimate = RelationSizeEstimator.estimate(new ByteArrayInputStream(content), content.length,
+                true, ',', '"', '\\');
+
+        // Files of at least the threshold are stored off-heap, only a row index per entry stays on the heap
+        assertEquals(3 * 3 * 4, estimate.getEstimatedHeapBytes(content.length));
+        assertEquals(estimate.getEstimatedHeapBytes(), estimate.getEstimatedHeapBytes(content.length + 1));
+    }
+
+    @Test
+    void testEstimate_ProjectsRowsOfLargeFile() throws IOException {
+
+        // Create 100 000 rows of equal size, but only the beginning is sampled
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            content.append(String.format("%06d,\"Name %06d\",%03d%n", i, i, i % 1000));
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        RelationSizeEstimator estimate = RelationSizeEstimator.estimate(new ByteArrayInputStream(bytes), bytes.length,
+                false, ',', '"', '\\');
+
+        assertEquals(3, estimate.getNumOfColumns());
+        assertEquals(100_000, estimate.getNumOfRows(), 100);
+        assertEquals(20.0 / 3, estimate.getAverageEntryWidth(), 0.01);
+    }
+
+    @Test
+    void testEstimate_EmptyFile() throws IOException {
+        RelationSizeEstimator estimate = RelationSizeEstimator.estimate(new ByteArrayInputStream(new byte[0]), 0,
+                true, ',', '"', '\\');
+        assertEquals(0, estimate.getEstimatedHeapBytes());
+    }
+}
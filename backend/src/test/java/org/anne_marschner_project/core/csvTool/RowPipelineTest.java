@@ -0,0 +1,139 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.OutputFormat;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.Type;
+import org.anne_marschner_project.core.noise.DataNoise;
+import org.anne_marschner_project.core.noise.RowNoise;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowPipelineTest {
+
+    @Test
+    void testWrite_WithoutNoiseKeepsOrder() throws IOException {
+        Relation relation = createRelation(10_000);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Batches of 7 rows, so the last batch is incomplete
+        try (CSVWriter writer = new CSVWriter(outputStream, ',', '"')) {
+            writer.startRelation(relation, List.of(0, 1, 2), null);
+            new RowPipeline(7, 3, 2).write(writer, relation.getNumOfRows(), null, null);
+        }
+
+        List<String> lines = split(outputStream.toString(StandardCharsets.UTF_8));
+        assertEquals(createLines(10_000), lines.subList(1, lines.size()));
+        assertEquals("id,name,city", lines.get(0));
+    }
+
+    @Test
+    void testWrite_OnlyPlannedRowsArePerturbed() throws IOException {
+        Relation relation = createRelation(10_000);
+        RowNoise rowNoise = new DataNoise(List.of("addRandomPrefix"), List.of("changeValue"))
+                .planRowNoise(relation, 10, 50, false, false);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new CSVTool().writeRelation(relation, outputStream, ',', '"', "No Change", OutputFormat.CSV, rowNoise);
+
+        // The key column is kept and only the planned rows differ
+        List<String> expected = createLines(10_000);
+        List<String> lines = split(outputStream.toString(StandardCharsets.UTF_8));
+        assertEquals(10_001, lines.size());
+        Set<Integer> changedRows = new HashSet<>();
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(lines.get(i + 1).startsWith(i + ","));
+            if (!expected.get(i).equals(lines.get(i + 1))) {
+                changedRows.add(i);
+            }
+        }
+        assertEquals(1000, rowNoise.getRowsToPerturb().size());
+        assertTrue(rowNoise.getRowsToPerturb().containsAll(changedRows));
+        assertFalse(changedRows.isEmpty());
+    }
+
+    @Test
+    void testWrite_ShuffledOutOfCoreWithNoise(@TempDir Path directory) throws IOException {
+        Relation relation = createRelation(5_000);
+        RowNoise rowNoise = new DataNoise(List.of("addRandomPrefix"), List.of("changeValue"))
+                .planRowNoise(relation, 20, 100, false, false);
+
+        // Every relation with at least 100 rows is shuffled out of core
+        CSVTool csvTool = new CSVTool(directory.resolve("scratch"), Long.MAX_VALUE, Long.MAX_VALUE, true, 100);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        csvTool.writeRelation(relation, outputStream, ',', '"', "Shuffle Rows", OutputFormat.CSV, rowNoise);
+
+        // Each row is written once and the rows without noise are unchanged
+        List<String> expected = createLines(5_000);
+        List<String> lines = split(outputStream.toString(StandardCharsets.UTF_8));
+        assertEquals(5_001, lines.size());
+        Set<Integer> ids = new HashSet<>();
+        int numOfChanged = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            int id = Integer.parseInt(line.substring(0, line.indexOf(',')));
+            assertTrue(ids.add(id));
+            if (!expected.get(id).equals(line)) {
+                assertTrue(rowNoise.getRowsToPerturb().contains(id));
+                numOfChanged++;
+            }
+        }
+        assertTrue(numOfChanged > 0);
+    }
+
+
+    /**
+     * Creates a relation with a key column and two string columns, whose rows all overlap.
+     *
+     * @param numOfRows the number of rows.
+     * @return the relation.
+     */
+    private static Relation createRelation(int numOfRows) {
+        Map<Integer, Attribute> schema = new HashMap<>();
+        schema.put(0, new Attribute("id", Type.STRING));
+        schema.put(1, new Attribute("name", Type.STRING));
+        schema.put(2, new Attribute("city", Type.STRING));
+        Map<Integer, List<String>> data = new HashMap<>();
+        data.put(0, new ArrayList<>());
+        data.put(1, new ArrayList<>());
+        data.put(2, new ArrayList<>());
+        for (int i = 0; i < numOfRows; i++) {
+            data.get(0).add(String.valueOf(i));
+            data.get(1).add("name" + i);
+            data.get(2).add("city" + i % 50);
+        }
+        return new Relation(schema, data, new ArrayList<>(List.of(0)), numOfRows);
+    }
+
+
+    /**
+     * Creates the lines the rows of the relation are written as.
+     *
+     * @param numOfRows the number of rows.
+     * @return the lines without line breaks.
+     */
+    private static List<String> createLines(int numOfRows) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < numOfRows; i++) {
+            lines.add(i + ",name" + i + ",city" + i % 50);
+        }
+        return lines;
+    }
+
+
+    /**
+     * Splits content into its lines.
+     *
+     * @param content the content.
+     * @return the lines without line breaks.
+     */
+    private static List<String> split(String content) {
+        return Arrays.asList(content.replace("\r\n", "\n").split("\n"));
+    }
+}
@@ -0,0 +1,188 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowShufflerTest {
+
+    @Test
+    void testWriteTo_RecordsArePermuted(@TempDir Path directory) throws IOException {
+        List<String> records = createRecords(10_000);
+        List<String> shuffled = shuffle(directory, records, 8, 1L << 20);
+
+        assertNotEquals(records, shuffled);
+        assertEquals(new HashSet<>(records), new HashSet<>(shuffled));
+        assertEquals(records.size(), shuffled.size());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count(), "The bucket files should be deleted");
+        }
+    }
+
+    @Test
+    void testWriteTo_LargeBucketsAreSplit(@TempDir Path directory) throws IOException {
+        List<String> records = createRecords(10_000);
+
+        // Buckets of at most 4 KB are far smaller than the 10,000 records in two buckets
+        try (RowShuffler shuffler = new RowShuffler(directory, 2, 4096, new Random(7))) {
+            for (String record : records) {
+                byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+                shuffler.add(bytes, 0, bytes.length);
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            shuffler.writeTo(outputStream);
+
+            assertTrue(shuffler.getNumOfSplits() > 0);
+            List<String> shuffled = split(outputStream.toString(StandardCharsets.UTF_8));
+            assertEquals(records.size(), shuffled.size());
+            assertEquals(new HashSet<>(split(String.join("", records))), new HashSet<>(shuffled));
+        }
+    }
+
+    @Test
+    void testWriteTo_EveryPositionIsReached(@TempDir Path directory) throws IOException {
+
+        // Count at which position the first record ends up, each of the 4 positions should be reached similarly often
+        List<String> records = createRecords(4);
+        int[] counts = new int[4];
+        for (int run = 0; run < 400; run++) {
+            counts[shuffle(directory, records, 3, 1L << 20).indexOf(records.get(0))]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 50, Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    void testWriteCSV_ShuffleRowsOutOfCore(@TempDir Path directory) throws IOException {
+        Map<Integer, Attribute> schema = new HashMap<>();
+        schema.put(0, new Attribute("id", Type.DOUBLE));
+        schema.put(1, new Attribute("name", Type.STRING));
+        Map<Integer, List<String>> data = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(String.valueOf(i));
+            names.add(i % 10 == 0 ? "name, " + i : "name " + i);
+        }
+        data.put(0, ids);
+        data.put(1, names);
+
+        // Every relation with at least 100 rows is shuffled out of core
+        CSVTool csvTool = new CSVTool(directory.resolve("scratch"), Long.MAX_VALUE, Long.MAX_VALUE, true, 100);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        csvTool.writeCSV(new Relation(schema, data), outputStream, ',', '"', "Shuffle Rows");
+
+        List<String> lines = split(outputStream.toString(StandardCharsets.UTF_8));
+        assertEquals("id,name", lines.get(0));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add(i + "," + (i % 10 == 0 ? "\"name, " + i + "\"" : "name " + i));
+        }
+        assertNotEquals(expected, lines.subList(1, lines.size()));
+        assertEquals(new HashSet<>(expected), new HashSet<>(lines.subList(1, lines.size())));
+        assertEquals(1001, lines.size());
+    }
+
+
+    /**
+     * Compares shuffling the rows with an in-memory permutation to the external bucket shuffle.
+     * Run with -Dbenchmark=true -Dtest=RowShufflerTest.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkShuffleRows(@TempDir Path directory) throws IOException {
+
+        // Prepare a relation with 4 million rows
+        int numOfRows = 4_000_000;
+        Map<Integer, Attribute> schema = new HashMap<>();
+        Map<Integer, List<String>> data = new HashMap<>();
+        for (int column = 0; column < 4; column++) {
+            schema.put(column, new Attribute("column" + column, Type.STRING));
+            List<String> values = new ArrayList<>(numOfRows);
+            for (int i = 0; i < numOfRows; i++) {
+                values.add("value " + (i * 31 + column) % 100_000);
+            }
+            data.put(column, values);
+        }
+        Relation relation = new Relation(schema, data);
+
+        CSVTool inMemory = new CSVTool();
+        CSVTool outOfCore = new CSVTool(directory, Long.MAX_VALUE, Long.MAX_VALUE, true, 0);
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            inMemory.writeCSV(relation, OutputStream.nullOutputStream(), ',', '"', "Shuffle Rows");
+            long memory = System.nanoTime() - start;
+            start = System.nanoTime();
+            outOfCore.writeCSV(relation, OutputStream.nullOutputStream(), ',', '"', "Shuffle Rows");
+            long external = System.nanoTime() - start;
+            System.out.printf("%d rows: in memory %d ms, external %d ms%n", numOfRows, memory / 1_000_000, external / 1_000_000);
+        }
+    }
+
+
+    /**
+     * Creates distinct records, each ending with a line break.
+     *
+     * @param numOfRecords the number of records.
+     * @return the records.
+     */
+    private static List<String> createRecords(int numOfRecords) {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < numOfRecords; i++) {
+            records.add("record " + i + ",ü\n");
+        }
+        return records;
+    }
+
+
+    /**
+     * Shuffles records with a RowShuffler.
+     *
+     * @param directory      the scratch directory.
+     * @param records        the records, each ending with a line break.
+     * @param numOfBuckets   the number of buckets.
+     * @param maxBucketBytes the maximal size of a bucket that is shuffled in memory.
+     * @return the shuffled records.
+     * @throws IOException if the bucket files cannot be written.
+     */
+    private static List<String> shuffle(Path directory, List<String> records, int numOfBuckets, long maxBucketBytes) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (RowShuffler shuffler = new RowShuffler(directory, numOfBuckets, maxBucketBytes, new Random())) {
+            for (String record : records) {
+                byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+                shuffler.add(bytes, 0, bytes.length);
+            }
+            shuffler.writeTo(outputStream);
+        }
+        List<String> shuffled = new ArrayList<>();
+        for (String line : split(outputStream.toString(StandardCharsets.UTF_8))) {
+            shuffled.add(line + "\n");
+        }
+        return shuffled;
+    }
+
+
+    /**
+     * Splits content into its lines.
+     *
+     * @param content the content.
+     * @return the lines without line breaks.
+     */
+    private static List<String> split(String content) {
+        return Arrays.asList(content.replace("\r\n", "\n").split("\n"));
+    }
+}
@@ -0,0 +1,134 @@
+package org.anne_marschner_project.core.csvTool;
+
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructuralScannerTest {
+
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+
+    @Test
+    void testCreate_UsesVectorApiIfModuleIsAdded() {
+        StructuralScanner scanner = StructuralScanner.create(SEPARATOR, QUOTE, ESCAPE);
+        boolean moduleAdded = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        StructuralScanner vectorScanner = StructuralScanner.createVectorScanner(SEPARATOR, QUOTE, ESCAPE);
+        assertTrue(moduleAdded || vectorScanner == null);
+        assertEquals(vectorScanner != null, !(scanner instanceof ScalarStructuralScanner));
+    }
+
+    @Test
+    void testStructuralMask_EqualForAllScanners() {
+
+        // Random bytes with many structural characters, including negative bytes of UTF-8 characters
+        byte[] alphabet = {'a', ' ', ',', '"', '\\', '\n', '\r', (byte) 0xC3, (byte) 0xA4, 0};
+        Random random = new Random(42);
+        byte[] bytes = new byte[64 * 1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+
+        StructuralScanner scalar = new ScalarStructuralScanner(SEPARATOR, QUOTE, ESCAPE);
+        StructuralScanner scanner = StructuralScanner.create(SEPARATOR, QUOTE, ESCAPE);
+        for (int offset = 0; offset < bytes.length; offset += StructuralScanner.BLOCK_BYTES) {
+            assertEquals(scalar.structuralMask(bytes, offset), scanner.structuralMask(bytes, offset));
+        }
+        assertEquals(0b10_0000_0001L, scalar.structuralMask("\nabcdefgh\"".repeat(7).getBytes(StandardCharsets.UTF_8), 0) & 0x3FF);
+    }
+
+    @Test
+    void testFindRanges_EqualForAllScanners(@TempDir Path directory) throws IOException {
+
+        // Random records with quotes, escapes and spaces spread over several read buffers
+        String[] pieces = {"ab", " ", ",", "\"", "\"\"", "\\", "\n", "\r\n", "x y", "ä"};
+        Random random = new Random(7);
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 300_000) {
+            content.append(pieces[random.nextInt(pieces.length)]);
+        }
+        Path file = directory.resolve("input.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        ParallelCSVReader reader = new ParallelCSVReader(CSVFormat.DEFAULT, false, ',', '"', '\\', null, true);
+        try (FileChannel channel = FileChannel.open(file)) {
+            List<long[]> expected = reader.findRanges(channel, channel.size(), 1,
+                    new ScalarStructuralScanner(SEPARATOR, QUOTE, ESCAPE));
+            List<long[]> actual = reader.findRanges(channel, channel.size(), 1,
+                    StructuralScanner.create(SEPARATOR, QUOTE, ESCAPE));
+            assertTrue(expected.size() > 1);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    /**
+     * Compares the throughput of the record boundary scan with both scanners on a narrow file (many short entries)
+     * and a wide file (long entries). Run with -Dbenchmark=true -Dtest=StructuralScannerTest.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkFindRanges(@TempDir Path directory) throws IOException {
+        Path narrow = directory.resolve("narrow.csv");
+        Path wide = directory.resolve("wide.csv");
+        writeFile(narrow, 1, 5);
+        writeFile(wide, 60, 20);
+
+        ParallelCSVReader reader = new ParallelCSVReader(CSVFormat.DEFAULT, false, ',', '"', '\\', null, true);
+        List<StructuralScanner> scanners = new ArrayList<>();
+        scanners.add(new ScalarStructuralScanner(SEPARATOR, QUOTE, ESCAPE));
+        scanners.add(StructuralScanner.create(SEPARATOR, QUOTE, ESCAPE));
+        for (Path file : List.of(narrow, wide)) {
+            try (FileChannel channel = FileChannel.open(file)) {
+                for (StructuralScanner scanner : scanners) {
+                    long best = Long.MAX_VALUE;
+                    for (int run = 0; run < 10; run++) {
+                        long start = System.nanoTime();
+                        reader.findRanges(channel, channel.size(), 1 << 20, scanner);
+                        best = Math.min(best, System.nanoTime() - start);
+                    }
+                    System.out.printf("%s %s: %.2f GB/s%n", file.getFileName(), scanner.getName(),
+                            channel.size() / (double) best);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Writes a CSV file of about 200 MB.
+     *
+     * @param file         the file to write.
+     * @param entryLength  the number of characters of each entry.
+     * @param numOfColumns the number of columns of each record.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeFile(Path file, int entryLength, int numOfColumns) throws IOException {
+        StringBuilder record = new StringBuilder();
+        for (int i = 0; i < numOfColumns; i++) {
+            record.append(i > 0 ? "," : "").append(i % 4 == 3 ? "\"" + "q".repeat(entryLength) + "\"" : "v".repeat(entryLength));
+        }
+        record.append('\n');
+        String block = record.toString().repeat(Math.max(1, (1 << 20) / record.length()));
+        try (var writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 200; i++) {
+                writer.write(block);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.anne_marschner_project.core.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+class ColumnStatisticsTest {
+
+    @Test
+    void testOf_NumericColumn() {
+
+        // Collect statistics of a column with numeric, alphanumeric and empty entries
+        List<String> column = Arrays.asList("2", "4", "", "4", null, "x", "5", "7", "9", "4");
+        ColumnStatistics statistics = ColumnStatistics.of(column);
+
+        // Check counts
+        Assertions.assertEquals(10, statistics.getRowCount());
+        Assertions.assertEquals(2, statistics.getEmptyCount());
+        Assertions.assertEquals(7, statistics.getNumericCount());
+
+        // Check numeric statistics (population variance of 2, 4, 4, 4, 5, 7, 9 is 32 / 7)
+        Assertions.assertEquals(2.0, statistics.getMin());
+        Assertions.assertEquals(9.0, statistics.getMax());
+        Assertions.assertEquals(5.0, statistics.getMean(), 1e-12);
+        Assertions.assertEquals(32.0 / 7, statistics.getVariance(), 1e-12);
+        Assertions.assertEquals(Math.sqrt(32.0 / 7), statistics.getStandardDeviation(), 1e-12);
+
+        // "2", "4", "x", "5", "7" and "9" are distinct
+        Assertions.assertEquals(6, statistics.getDistinctCount());
+    }
+
+    @Test
+    void testOf_TypedColumnEqualsPlainColumn() {
+
+        // The numeric values of a typed column are used without parsing, but the result is the same
+        List<String> values = Arrays.asList("1.5", "-3", "1e2", "NaN", "abc", "0.25");
+        ColumnStatistics plain = ColumnStatistics.of(values);
+        ColumnStatistics typed = ColumnStatistics.of(Column.of(values, Type.DOUBLE));
+
+        Assertions.assertEquals(plain.getNumericCount(), typed.getNumericCount());
+        Assertions.assertEquals(plain.getMean(), typed.getMean(), 1e-12);
+        Assertions.assertEquals(plain.getVariance(), typed.getVariance(), 1e-12);
+        Assertions.assertEquals(-3.0, typed.getMin());
+        Assertions.assertEquals(100.0, typed.getMax());
+    }
+
+    @Test
+    void testOf_WithoutNumericEntries() {
+
+        // A column without numbers has no minimum and maximum, but mean and deviation are 0
+        ColumnStatistics statistics = ColumnStatistics.of(Arrays.asList("a", "b", "a"));
+        Assertions.assertEquals(0, statistics.getNumericCount());
+        Assertions.assertTrue(Double.isNaN(statistics.getMin()));
+        Assertions.assertTrue(Double.isNaN(statistics.getMax()));
+        Assertions.assertEquals(0.0, statistics.getMean());
+        Assertions.assertEquals(0.0, statistics.getStandardDeviation());
+        Assertions.assertEquals(2, statistics.getDistinctCount());
+    }
+
+    @Test
+    void testDistinctCount_IsApproximatelyCorrect() {
+
+        // Add 100 000 entries with 20 000 distinct values
+        List<String> column = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            column.add("value" + (i % 20_000));
+        }
+        long distinctCount = ColumnStatistics.of(column).getDistinctCount();
+
+        // The sketch has a relative error of about 2.3 %, so 10 % are always met
+        Assertions.assertTrue(Math.abs(distinctCount - 20_000) < 2_000, "Estimated " + distinctCount);
+    }
+
+    @Test
+    void testColumnBuilder_CollectsStatisticsWhileReading() {
+
+        // The builder collects the same statistics as a separate pass over the column
+        List<String> values = Arrays.asList("3", "1", "", "2", "3");
+        ColumnBuilder builder = new ColumnBuilder(values.size());
+        for (String value : values) {
+            builder.append(value);
+        }
+        ColumnStatistics collected = builder.getStatistics();
+        ColumnStatistics expected = ColumnStatistics.of(values);
+
+        Assertions.assertEquals(expected.getRowCount(), collected.getRowCount());
+        Assertions.assertEquals(expected.getEmptyCount(), collected.getEmptyCount());
+        Assertions.assertEquals(expected.getMean(), collected.getMean());
+        Assertions.assertEquals(expected.getDistinctCount(), collected.getDistinctCount());
+    }
+
+    @Test
+    void testMerge_EqualsOnePass() {
+
+        // Statistics of two chunks merged in order are the same as the statistics of the whole column
+        List<String> first = Arrays.asList("1", "2", "", "x", "4");
+        List<String> second = Arrays.asList("10", "y", "4", null, "-3", "1");
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        ColumnStatistics merged = ColumnStatistics.of(first);
+        merged.merge(ColumnStatistics.of(second));
+        ColumnStatistics expected = ColumnStatistics.of(all);
+
+        Assertions.assertEquals(expected.getRowCount(), merged.getRowCount());
+        Assertions.assertEquals(expected.getEmptyCount(), merged.getEmptyCount());
+        Assertions.assertEquals(expected.getNumericCount(), merged.getNumericCount());
+        Assertions.assertEquals(expected.getMin(), merged.getMin());
+        Assertions.assertEquals(expected.getMax(), merged.getMax());
+        Assertions.assertEquals(expected.getMean(), merged.getMean(), 1e-12);
+        Assertions.assertEquals(expected.getVariance(), merged.getVariance(), 1e-12);
+        Assertions.assertEquals(expected.getDistinctCount(), merged.getDistinctCount());
+    }
+
+    @Test
+    void testRelation_CollectsMissingStatisticsOnce() {
+
+        // Create a relation without known statistics
+        Map<Integer, Attribute> schema = new HashMap<>();
+        schema.put(0, new Attribute("Age", Type.DOUBLE));
+        Map<Integer, List<String>> data = new HashMap<>();
+        data.put(0, new ArrayList<>(Arrays.asList("20", "30")));
+        Relation relation = new Relation(schema, data);
+
+        // The statistics are collected on the first request and kept afterwards
+        ColumnStatistics statistics = relation.getColumnStatistics(0);
+        Assertions.assertEquals(25.0, statistics.getMean());
+        Assertions.assertSame(statistics, relation.getColumnStatistics(0));
+        Assertions.assertEquals(2, relation.getNumOfRows());
+    }
+}
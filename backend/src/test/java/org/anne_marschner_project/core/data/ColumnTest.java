@@ -0,0 +1,149 @@
+package org.anne_marschner_project.core.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+class ColumnTest {
+
+    @Test
+    void testNumericColumn_KeepsEntriesExactly() {
+
+        // Entries that are decimals and entries that have to be kept as text
+        List<String> values = Arrays.asList("1", "-23", "456.70", "0.05", "-0.5", "Hello", "", null,
+                "1e5", "+3", "007", "-0", ".5", "5.", "1234567890123456789", "NaN");
+        Column column = Column.of(values, Type.DOUBLE);
+
+        // Every entry is returned as it was added
+        Assertions.assertInstanceOf(NumericColumn.class, column);
+        Assertions.assertEquals(values, column);
+    }
+
+    @Test
+    void testNumericColumn_GetDouble() {
+
+        // Create a numeric column
+        NumericColumn column = (NumericColumn) Column.of(Arrays.asList("456.70", "-0.05", "Hello", "", "1e2"), Type.DOUBLE);
+
+        // Check the numeric values
+        Assertions.assertEquals(456.7, column.getDouble(0));
+        Assertions.assertEquals(-0.05, column.getDouble(1));
+        Assertions.assertTrue(Double.isNaN(column.getDouble(2)));
+        Assertions.assertFalse(column.isNumeric(2));
+        Assertions.assertFalse(column.isNumeric(3));
+        Assertions.assertTrue(column.isNumeric(4));
+        Assertions.assertEquals(100.0, column.getDouble(4));
+    }
+
+    @Test
+    void testNumericColumn_AddTypedValues() {
+
+        // Typed values are stored as the shortest decimal that restores the same value
+        NumericColumn column = new NumericColumn();
+        column.addDecimal(45670, 2);
+        column.addDouble(0.1 + 0.2);
+        column.addDouble(0.3);
+        column.addFloat(0.1f);
+        column.addDouble(-0.0);
+        column.addDouble(Double.NaN);
+        column.addDouble(1e300);
+
+        Assertions.assertEquals(Arrays.asList("456.70", "0.30000000000000004", "0.3", "0.1", "-0.0", "NaN", "1.0E300"), column);
+        Assertions.assertEquals(0.1 + 0.2, column.getDouble(1));
+        Assertions.assertEquals(0.1f, (float) column.getDouble(3));
+        Assertions.assertEquals(1e300, column.getDouble(6));
+    }
+
+    @Test
+    void testDictionaryColumn_StoresDistinctEntriesOnce() {
+
+        // Create a string column with repeating entries
+        List<String> values = Arrays.asList("Berlin", "Paris", "Berlin", null, "Paris", "");
+        DictionaryColumn column = (DictionaryColumn) Column.of(values, Type.STRING);
+
+        // Check entries, codes and dictionary
+        Assertions.assertEquals(values, column);
+        Assertions.assertEquals(column.getCode(0), column.getCode(2));
+        Assertions.assertEquals(-1, column.getCode(3));
+        Assertions.assertEquals(List.of("Berlin", "Paris", ""), column.getDictionary());
+    }
+
+    @Test
+    void testSet_ReplacesEntries() {
+
+        // Create a numeric and a string column
+        Column numericColumn = Column.of(Arrays.asList("1.5", "2", "3"), Type.DOUBLE);
+        Column stringColumn = Column.of(Arrays.asList("a", "b", "c"), Type.STRING);
+
+        // Replace entries with values of another kind
+        Assertions.assertEquals("2", numericColumn.set(1, "two"));
+        Assertions.assertEquals("1.5", numericColumn.set(0, "-7.25"));
+        numericColumn.set(1, "4");
+        stringColumn.set(2, "a");
+        stringColumn.set(0, null);
+
+        // Check the new entries
+        Assertions.assertEquals(Arrays.asList("-7.25", "4", "3"), numericColumn);
+        Assertions.assertEquals(Arrays.asList(null, "b", "a"), stringColumn);
+    }
+
+    @Test
+    void testAdd_OnlyAppends() {
+
+        // Create an empty column
+        Column column = new DictionaryColumn();
+
+        // Append entries beyond the initial capacity
+        for (int i = 0; i < 100; i++) {
+            column.add("value" + (i % 3));
+        }
+
+        // Inserting in between is not supported
+        Assertions.assertEquals(100, column.size());
+        Assertions.assertEquals("value1", column.get(97));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> column.add(0, "value"));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> column.get(100));
+    }
+
+    @Test
+    void testEstimateMemoryUsage_SmallerThanStrings() {
+
+        // Create columns as they are read from a CSV file
+        List<String> numbers = new ArrayList<>();
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            numbers.add(String.valueOf(i * 0.25));
+            cities.add("City" + (i % 50));
+        }
+
+        // Typed columns need less memory than lists of Strings
+        long numbersAsStrings = Column.estimateMemoryUsage(numbers);
+        long citiesAsStrings = Column.estimateMemoryUsage(cities);
+        Assertions.assertTrue(Column.of(numbers, Type.DOUBLE).estimateMemoryUsage() < numbersAsStrings / 3);
+        Assertions.assertTrue(Column.of(cities, Type.STRING).estimateMemoryUsage() < citiesAsStrings / 5);
+    }
+
+    @Test
+    void testColumnBuilder_FallsBackForDistinctEntries() {
+
+        // Add a column with few and a column with only distinct entries
+        ColumnBuilder fewValues = new ColumnBuilder(0);
+        ColumnBuilder distinctValues = new ColumnBuilder(0);
+        for (int i = 0; i < 10000; i++) {
+            fewValues.append("Status" + (i % 4));
+            distinctValues.append("Id" + i);
+        }
+
+        // Only the column with few distinct entries keeps its dictionary
+        List<String> fewColumn = fewValues.build(Type.STRING);
+        List<String> distinctColumn = distinctValues.build(Type.STRING);
+        Assertions.assertInstanceOf(DictionaryColumn.class, fewColumn);
+        Assertions.assertInstanceOf(StringColumn.class, distinctColumn);
+        Assertions.assertEquals("Status3", fewColumn.get(9999));
+        Assertions.assertEquals("Id9999", distinctColumn.get(9999));
+    }
+}
@@ -0,0 +1,94 @@
+package org.anne_marschner_project.core.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+class ColumnViewTest {
+
+    @Test
+    void testSelect_ShowsSelectedRows() {
+
+        // Create a column and a view over some of its rows
+        List<String> base = Column.of(Arrays.asList("a", "b", "c", "d", "e"), Type.STRING);
+        ColumnView view = ColumnView.select(base, new int[]{3, 1, 4});
+
+        // The view only shows the selected rows in the given order
+        Assertions.assertEquals(List.of("d", "b", "e"), view);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> view.get(3));
+    }
+
+    @Test
+    void testSelect_ComposesViews() {
+
+        // Create a view over a view
+        List<String> base = Arrays.asList("a", "b", "c", "d", "e");
+        ColumnView firstView = ColumnView.select(base, new int[]{4, 3, 2, 1});
+        ColumnView secondView = ColumnView.select(firstView, new int[]{0, 2});
+
+        // The second view shows the rows of the first view
+        Assertions.assertEquals(List.of("e", "c"), secondView);
+    }
+
+    @Test
+    void testSet_DoesNotChangeSharedColumn() {
+
+        // Create two views that share the same column
+        List<String> base = Column.of(Arrays.asList("1", "2", "3"), Type.DOUBLE);
+        ColumnView left = ColumnView.of(base);
+        ColumnView right = ColumnView.of(base);
+
+        // Write into one of the views
+        Assertions.assertEquals("2", left.set(1, "20"));
+
+        // Only the written view is changed
+        Assertions.assertEquals(List.of("1", "20", "3"), left);
+        Assertions.assertEquals(List.of("1", "2", "3"), right);
+        Assertions.assertEquals(List.of("1", "2", "3"), base);
+    }
+
+    @Test
+    void testSet_CopiesRowsAfterManyWrites() {
+
+        // Create a view over half of a large column
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add("value" + i);
+        }
+        List<String> base = Column.of(values, Type.STRING);
+        int[] rows = new int[500];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i * 2;
+        }
+        ColumnView view = ColumnView.select(base, rows);
+
+        // Write every entry of the view
+        for (int i = 0; i < view.size(); i++) {
+            view.set(i, "changed" + i);
+        }
+
+        // All written entries are visible and the shared column is unchanged
+        Assertions.assertEquals("changed0", view.get(0));
+        Assertions.assertEquals("changed499", view.get(499));
+        Assertions.assertEquals("value998", base.get(998));
+        Assertions.assertEquals(values, base);
+    }
+
+    @Test
+    void testCopyOf_KeepsWrittenEntries() {
+
+        // Create a view with a written entry and copy it
+        ColumnView view = ColumnView.of(Arrays.asList("a", "b"));
+        view.set(0, "x");
+        List<String> copy = Column.copyOf(view);
+
+        // The copy is independent of the view
+        copy.set(1, "y");
+        Assertions.assertEquals(List.of("x", "b"), view);
+        Assertions.assertEquals(List.of("x", "y"), copy);
+    }
+}
@@ -0,0 +1,48 @@
+package org.anne_marschner_project.core.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+
+class MappedColumnTest {
+
+    @Test
+    void testWriteAndRead(@TempDir Path scratchDirectory) throws IOException {
+
+        // Write entries including null, empty and non-ASCII entries
+        List<String> values = Arrays.asList("Anne", null, "", "Müller", "東京", "100.50");
+        MappedColumnWriter writer = new MappedColumnWriter(scratchDirectory);
+        for (String value : values) {
+            writer.append(value);
+        }
+        MappedColumn column = writer.finish();
+
+        // All entries are read back from the mapped files
+        Assertions.assertEquals(values.size(), column.size());
+        Assertions.assertEquals(values, column);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> column.get(6));
+    }
+
+    @Test
+    void testIsReadOnly(@TempDir Path scratchDirectory) throws IOException {
+
+        // Write a column and wrap it into a view
+        MappedColumnWriter writer = new MappedColumnWriter(scratchDirectory);
+        writer.append("a");
+        writer.append("b");
+        MappedColumn column = writer.finish();
+        ColumnView view = ColumnView.of(column);
+
+        // Only the view can be changed
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> column.set(0, "x"));
+        view.set(0, "x");
+        Assertions.assertEquals(List.of("x", "b"), view);
+        Assertions.assertEquals(List.of("a", "b"), column);
+    }
+}
@@ -0,0 +1,83 @@
+package org.anne_marschner_project.core.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+class NumberParserTest {
+
+    @Test
+    void testParseDouble_SameAsJdk() {
+
+        // Entries that Double.parseDouble accepts or rejects
+        List<String> values = Arrays.asList("0", "-0", "42", "-17.5", "+3", "007", ".5", "5.", "0.1", "0.3",
+                "123456789012345678901234567890", "1.7976931348623157E308", "4.9e-324", "1e-400", "1e400",
+                "2.5e3", "2.5E+3", "2.5e-3", "1f", "1.5D", " 12 ", "\t-1\n", "NaN", "-Infinity", "+Infinity",
+                "0x1p3", "0X1.8P-1", "0x.8p1d", "", " ", "-", ".", "e5", "1e", "1e+", "1..2", "1.2.3", "1,5",
+                "12a", "abc", "NaNf", "Infinityd", "infinity", "0x1", "0x1.8", "1_000", "--1", "1 2", "2024-10-01");
+
+        // The lexer accepts exactly the entries the JDK accepts and returns the same values
+        for (String value : values) {
+            Double expected;
+            try {
+                expected = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+            Assertions.assertEquals(expected != null, NumberParser.isNumber(value), value);
+            if (expected != null) {
+                Assertions.assertEquals(expected, NumberParser.parseDouble(value), value);
+            } else {
+                Assertions.assertTrue(Double.isNaN(NumberParser.parseDouble(value)), value);
+            }
+        }
+    }
+
+    @Test
+    void testParseDouble_Null() {
+
+        // Null is no number
+        Assertions.assertFalse(NumberParser.isNumber(null));
+        Assertions.assertTrue(Double.isNaN(NumberParser.parseDouble(null)));
+    }
+
+    @Test
+    void testValueAt_TypedAndPlainColumns() {
+
+        // Create a numeric column, a view over it and a plain list
+        List<String> values = Arrays.asList("1.25", "abc", "1e2");
+        Column numericColumn = Column.of(values, Type.DOUBLE);
+        ColumnView view = ColumnView.of(numericColumn);
+        view.set(0, "7");
+
+        // All return the same numeric values
+        Assertions.assertEquals(1.25, NumberParser.valueAt(values, 0));
+        Assertions.assertEquals(1.25, NumberParser.valueAt(numericColumn, 0));
+        Assertions.assertEquals(7.0, NumberParser.valueAt(view, 0));
+        Assertions.assertTrue(Double.isNaN(NumberParser.valueAt(view, 1)));
+        Assertions.assertEquals(100.0, NumberParser.valueAt(view, 2));
+    }
+
+    @Test
+    void testIsNumberAt_NaNIsNumeric() {
+
+        // "NaN" is a number like for Double.parseDouble, although its value is NaN
+        List<String> values = Arrays.asList("1.5", "NaN", "abc", "", null);
+        Column numericColumn = Column.of(values, Type.DOUBLE);
+        ColumnView view = ColumnView.of(numericColumn);
+        view.set(2, "-NaN");
+        for (List<String> column : List.of(values, numericColumn)) {
+            Assertions.assertTrue(NumberParser.isNumberAt(column, 0));
+            Assertions.assertTrue(NumberParser.isNumberAt(column, 1));
+            Assertions.assertFalse(NumberParser.isNumberAt(column, 2));
+            Assertions.assertFalse(NumberParser.isNumberAt(column, 3));
+            Assertions.assertFalse(NumberParser.isNumberAt(column, 4));
+        }
+        Assertions.assertTrue(NumberParser.isNumberAt(view, 1));
+        Assertions.assertTrue(NumberParser.isNumberAt(view, 2));
+        Assertions.assertFalse(NumberParser.isNumberAt(view, 3));
+    }
+}
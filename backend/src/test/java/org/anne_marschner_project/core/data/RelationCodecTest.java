@@ -0,0 +1,74 @@
+package org.anne_marschner_project.core.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelationCodecTest {
+
+    @Test
+    void testWriteAndRead_KeepsColumnsStatisticsAndKeys() throws IOException {
+
+        // Numeric column with decimals, text and empty entries, dictionary column and string column with nulls
+        List<String> numbers = Arrays.asList("1", "-2.50", "", null, "x", "1e5");
+        List<String> names = Arrays.asList("Anne", "Bob", null, "Anne", "ä€", "Bob");
+        StringColumn texts = new StringColumn();
+        texts.addAll(Arrays.asList("a", null, "b".repeat(70_000), "c", "", "d"));
+        Relation relation = Relation.builder()
+                .attribute(0, new Attribute("id", Type.DOUBLE)).column(0, Column.of(numbers, Type.DOUBLE))
+                .attribute(3, new Attribute("name", Type.STRING)).column(3, Column.of(names, Type.STRING))
+                .attribute(1, new Attribute(null, Type.STRING)).column(1, texts)
+                .keyIndices(List.of(0, 3))
+                .build();
+        assertTrue(RelationCodec.supports(relation));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        RelationCodec.write(relation, outputStream);
+        Relation copy = RelationCodec.read(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        // Schema, column kinds and entries are the same, in the same order
+        assertEquals(new ArrayList<>(relation.getSchema().keySet()), new ArrayList<>(copy.getSchema().keySet()));
+        for (int columnIndex : relation.getSchema().keySet()) {
+            assertEquals(relation.getSchema().get(columnIndex).getColumnName(), copy.getSchema().get(columnIndex).getColumnName());
+            assertEquals(relation.getSchema().get(columnIndex).getDataType(), copy.getSchema().get(columnIndex).getDataType());
+            assertEquals(relation.getData().get(columnIndex).getClass(), copy.getData().get(columnIndex).getClass());
+            assertEquals(relation.getData().get(columnIndex), copy.getData().get(columnIndex));
+        }
+        assertInstanceOf(NumericColumn.class, copy.getData().get(0));
+        assertEquals(-2.5, ((NumericColumn) copy.getData().get(0)).getDouble(1));
+
+        // Statistics are taken over without reading the columns again
+        ColumnStatistics statistics = copy.getStatistics().get(0);
+        assertNotNull(statistics);
+        assertEquals(relation.getColumnStatistics(0).getRowCount(), statistics.getRowCount());
+        assertEquals(relation.getColumnStatistics(0).getMax(), statistics.getMax());
+        assertEquals(relation.getColumnStatistics(0).getDistinctCount(), statistics.getDistinctCount());
+        assertEquals(List.of(0, 3), copy.getKeyIndices());
+
+        // The copied columns can be changed like the original ones
+        copy.getData().get(3).add("Carla");
+        assertEquals("Carla", copy.getData().get(3).get(6));
+    }
+
+    @Test
+    void testRead_RejectsUnknownContent() {
+        byte[] bytes = "id,name\n1,Anne\n".getBytes();
+        assertThrows(IOException.class, () -> RelationCodec.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void testSupports_OnlyHeapColumns() {
+        Relation relation = Relation.builder()
+                .attribute(0, new Attribute("id", Type.STRING)).column(0, new ArrayList<>(List.of("1", "2")))
+                .build();
+        assertFalse(RelationCodec.supports(relation));
+        assertThrows(IllegalArgumentException.class, () -> RelationCodec.write(relation, new ByteArrayOutputStream()));
+    }
+}
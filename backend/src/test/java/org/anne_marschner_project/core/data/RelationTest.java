@@ -0,0 +1,95 @@
+package org.anne_marschner_project.core.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+class RelationTest {
+
+    /**
+     * Creates a relation with two columns and known statistics.
+     *
+     * @return the relation.
+     */
+    private Relation createRelation() {
+        Map<Integer, Attribute> schema = new HashMap<>();
+        schema.put(0, new Attribute("Id", Type.DOUBLE));
+        schema.put(1, new Attribute("Name", Type.STRING));
+        Map<Integer, List<String>> data = new HashMap<>();
+        data.put(0, new ArrayList<>(Arrays.asList("1", "2", "3")));
+        data.put(1, new ArrayList<>(Arrays.asList("Anne", "Luca", "Milena")));
+        Relation relation = new Relation(schema, data, new ArrayList<>(List.of(0)), 3);
+        relation.getColumnStatistics(0);
+        relation.getColumnStatistics(1);
+        return relation;
+    }
+
+    @Test
+    void testRelation_IsUnmodifiable() {
+
+        // Neither the maps nor the key indices of a relation can be changed
+        Relation relation = createRelation();
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> relation.getData().remove(0));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> relation.getSchema().put(2, new Attribute("Age", Type.DOUBLE)));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> relation.getKeyIndices().add(1));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> relation.getStatistics().remove(0));
+    }
+
+    @Test
+    void testBuilder_WritableColumnIsCopiedOnWrite() {
+
+        // Change one entry through the builder
+        Relation source = createRelation();
+        Relation.Builder builder = source.toBuilder();
+        builder.writableColumn(1).set(0, "");
+        Relation changed = builder.build();
+
+        // The source keeps its entries, the unchanged column is shared
+        Assertions.assertEquals("Anne", source.getData().get(1).get(0));
+        Assertions.assertEquals("", changed.getData().get(1).get(0));
+        Assertions.assertSame(source.getData().get(0), changed.getData().get(0));
+
+        // The statistics of the changed column are collected again, the ones of the unchanged column are kept
+        Assertions.assertFalse(changed.getStatistics().containsKey(1));
+        Assertions.assertEquals(0, source.getColumnStatistics(1).getEmptyCount());
+        Assertions.assertEquals(1, changed.getColumnStatistics(1).getEmptyCount());
+        Assertions.assertSame(source.getColumnStatistics(0), changed.getColumnStatistics(0));
+    }
+
+    @Test
+    void testBuilder_ReplacedColumnDropsStatistics() {
+
+        // Replace a column and change the keys
+        Relation source = createRelation();
+        Relation changed = source.toBuilder()
+                .column(0, new ArrayList<>(Arrays.asList("10", "20", "30")))
+                .keyIndices(List.of(1))
+                .build();
+
+        // The statistics of the replaced column are collected again
+        Assertions.assertEquals(2.0, source.getColumnStatistics(0).getMean());
+        Assertions.assertEquals(20.0, changed.getColumnStatistics(0).getMean());
+        Assertions.assertEquals(List.of(0), source.getKeyIndices());
+        Assertions.assertEquals(List.of(1), changed.getKeyIndices());
+    }
+
+    @Test
+    void testBuilder_RemoveColumn() {
+
+        // Remove a column from a copy of the relation
+        Relation source = createRelation();
+        Relation changed = source.toBuilder().removeColumn(1).build();
+
+        Assertions.assertEquals(2, source.getData().size());
+        Assertions.assertEquals(1, changed.getData().size());
+        Assertions.assertFalse(changed.getSchema().containsKey(1));
+        Assertions.assertFalse(changed.getStatistics().containsKey(1));
+    }
+}
@@ -0,0 +1,127 @@
+package org.anne_marschner_project.core.keys;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.Column;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomRelationalInputTest {
+
+    @Test
+    void testNext_ReturnsRowsInSchemaOrder() throws InputIterationException {
+
+        // Create relation with gaps in the column indices
+        Map<Integer, Attribute> schema = new HashMap<>();
+        schema.put(1, new Attribute("Name", Type.STRING));
+        schema.put(4, new Attribute("Age", Type.DOUBLE));
+        Map<Integer, List<String>> data = new HashMap<>();
+        data.put(1, List.of("Anne", "Luca"));
+        data.put(4, List.of("24", "27"));
+        CustomRelationalInput input = new CustomRelationalInput(new Relation(schema, data), "relation1");
+
+        // Check column names and rows
+        assertEquals(List.of("1", "4"), input.columnNames());
+        assertEquals(2, input.numberOfColumns());
+        assertTrue(input.hasNext());
+        assertEquals(List.of("Anne", "24"), new ArrayList<>(input.next()));
+        assertEquals(List.of("Luca", "27"), new ArrayList<>(input.next()));
+        assertFalse(input.hasNext());
+        assertThrows(InputIterationException.class, input::next);
+    }
+
+
+    /**
+     * Compares the throughput of the row cursor with the former row-by-row list creation on a wide and tall table.
+     * HyUCC reads each row once and hashes its values, which is what both loops do.
+     * Run with {@code mvn test -Dtest=CustomRelationalInputTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkNext() throws InputIterationException {
+
+        // Create a table with 40 columns and 250 000 rows
+        int numOfColumns = 40;
+        int numOfRows = 250_000;
+        Map<Integer, Attribute> schema = new HashMap<>();
+        Map<Integer, List<String>> data = new HashMap<>();
+        for (int columnIndex = 0; columnIndex < numOfColumns; columnIndex++) {
+            List<String> values = new ArrayList<>(numOfRows);
+            for (int rowIndex = 0; rowIndex < numOfRows; rowIndex++) {
+                values.add(Integer.toString((rowIndex * 31 + columnIndex) % 5000));
+            }
+            schema.put(columnIndex, new Attribute("Column" + columnIndex, Type.STRING));
+            data.put(columnIndex, Column.of(values, Type.STRING));
+        }
+        Relation relation = new Relation(schema, data);
+
+        // Warm up both variants, then measure them
+        for (int round = 0; round < 3; round++) {
+            readWithListPerRow(relation);
+            readWithCursor(relation);
+        }
+        long start = System.nanoTime();
+        long listChecksum = readWithListPerRow(relation);
+        long listNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        long cursorChecksum = readWithCursor(relation);
+        long cursorNanos = System.nanoTime() - start;
+
+        assertEquals(listChecksum, cursorChecksum);
+        double cells = (double) numOfColumns * numOfRows;
+        System.out.printf("List per row: %.1f M cells/s, cursor: %.1f M cells/s%n",
+                cells * 1000 / listNanos, cells * 1000 / cursorNanos);
+    }
+
+
+    /**
+     * Reads all rows the way the input did before the cursor was used: one new list per row and
+     * one schema iteration and map lookup per cell.
+     *
+     * @param relation the relation to read.
+     * @return a checksum of all entries.
+     */
+    private long readWithListPerRow(Relation relation) {
+        long checksum = 0;
+        int numOfRows = relation.getNumOfRows();
+        for (int rowIndex = 0; rowIndex < numOfRows; rowIndex++) {
+            List<String> row = new ArrayList<>();
+            for (Integer columnIndex : relation.getSchema().keySet()) {
+                row.add(relation.getData().get(columnIndex).get(rowIndex));
+            }
+            for (String value : row) {
+                checksum += value.hashCode();
+            }
+        }
+        return checksum;
+    }
+
+
+    /**
+     * Reads all rows through a {@link CustomRelationalInput}.
+     *
+     * @param relation the relation to read.
+     * @return a checksum of all entries.
+     * @throws InputIterationException if a row cannot be read.
+     */
+    private long readWithCursor(Relation relation) throws InputIterationException {
+        long checksum = 0;
+        CustomRelationalInput input = new CustomRelationalInput(relation, "benchmark");
+        while (input.hasNext()) {
+            List<String> row = input.next();
+            for (int columnPosition = 0; columnPosition < row.size(); columnPosition++) {
+                checksum += row.get(columnPosition).hashCode();
+            }
+        }
+        return checksum;
+    }
+}
@@ -752,4 +752,22 @@ class DataNoiseTest {
         List<String> column2 = result.get(2);
         assertEquals(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h"), column2, "Column should not be changed");
     }
+
+    @Test
+    void testPerturbNumericColumnData_countsNaNEntries() {
+
+        // Set DataNoise Object
+        List<String> selectedNumericMethods = new ArrayList<>(Arrays.asList("changeValue", "changeValueToOutlier"));
+        DataNoise dataNoise = new DataNoise(new ArrayList<>(), selectedNumericMethods);
+
+        // "NaN" can receive noise, so the number of errors is taken from all four numeric entries
+        Map<Integer, List<String>> data = new HashMap<>();
+        data.put(0, Arrays.asList("NaN", "1", "2", "3"));
+        Map<Integer, List<String>> result = dataNoise.perturbNumericColumnData(data, 1, Arrays.asList(0), 100);
+
+        // All entries are chosen, so every number is changed
+        for (int i = 1; i < 4; i++) {
+            assertNotEquals(Integer.toString(i), result.get(0).get(i), "Every entry should have been changed");
+        }
+    }
 }
\ No newline at end of file
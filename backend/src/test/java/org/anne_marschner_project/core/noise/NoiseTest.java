@@ -1,5 +1,7 @@
 package org.anne_marschner_project.core.noise;
 
+import org.anne_marschner_project.core.data.Column;
+import org.anne_marschner_project.core.data.Type;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
@@ -185,6 +187,18 @@ class NoiseTest {
     }
 
 
+    @Test
+    void testCreateListOfDouble_keepsNaN() {
+        DataNoise dataNoise = new DataNoise();
+        List<String> column = new ArrayList<>(Arrays.asList("10.0", "NaN", "abc", "", "1e1"));
+
+        // "NaN" counts as numeric entry (as for Double.parseDouble), other text is left out
+        List<Double> numericColumn = dataNoise.createListOfDouble(column);
+        assertEquals(3, numericColumn.size());
+        assertTrue(numericColumn.get(1).isNaN());
+    }
+
+
     @Test
     void testChangeValueToOutlier() {
         DataNoise dataNoise = new DataNoise();
@@ -254,4 +268,12 @@ class NoiseTest {
         List<String> expected = List.of("0", "1", "2", "3");
         assertEquals(expected, dataNoise.mapColumn(input));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMapColumn_DictionaryColumn() {
+        DataNoise dataNoise = new DataNoise();
+        List<String> input = Column.of(Arrays.asList("Ja", null, "Vielleicht", "Ja", null), Type.STRING);
+        List<String> expected = List.of("0", "1", "2", "0", "1");
+        assertEquals(expected, dataNoise.mapColumn(input));
+    }
+}
@@ -37,14 +37,18 @@ class SchemaNoiseTest {
         SchemaNoise schemaNoise = new SchemaNoise(selectedMethods);
 
         // Call method to perturb schema
-        schemaNoise.perturbSchema(sourceRelation, 100, false, false);
+        Relation perturbedRelation = schemaNoise.perturbSchema(sourceRelation, 100, false, false);
+        Map<Integer, Attribute> perturbedSchema = perturbedRelation.getSchema();
 
         // Test if all 3 non-key columns out of 5 ColumnNames have been changed
-        assertNotEquals("Identification Number", schema.get(0).getColumnName());
-        assertEquals("Name", schema.get(1).getColumnName());
-        assertEquals("Age of Person", schema.get(2).getColumnName());
-        assertNotEquals("Height", schema.get(3).getColumnName());
-        assertNotEquals("hobby", schema.get(4).getColumnName());
+        assertNotEquals("Identification Number", perturbedSchema.get(0).getColumnName());
+        assertEquals("Name", perturbedSchema.get(1).getColumnName());
+        assertEquals("Age of Person", perturbedSchema.get(2).getColumnName());
+        assertNotEquals("Height", perturbedSchema.get(3).getColumnName());
+        assertNotEquals("hobby", perturbedSchema.get(4).getColumnName());
+
+        // Test if the source relation was not changed
+        assertEquals("Identification Number", sourceRelation.getSchema().get(0).getColumnName());
     }
 
     @Test
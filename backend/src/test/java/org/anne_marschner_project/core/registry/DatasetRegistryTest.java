@@ -0,0 +1,181 @@
+package org.anne_marschner_project.core.registry;
+
+import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.Column;
+import org.anne_marschner_project.core.data.Relation;
+import org.anne_marschner_project.core.data.Type;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetRegistryTest {
+
+    private static final Relation RELATION = createRelation();
+
+    @Test
+    void testRegisterAndGet() {
+        DatasetRegistry registry = new DatasetRegistry(4, Long.MAX_VALUE, Duration.ofMinutes(60), Clock.systemUTC());
+        DatasetRegistry.RegisteredDataset dataset = registry.register("input.csv", RELATION, true, ';', '"', '\\');
+
+        assertSame(dataset, registry.get(dataset.getId()));
+        assertSame(RELATION, dataset.getRelation());
+        assertEquals(';', dataset.getSeparator());
+        assertEquals(RELATION.estimateMemoryUsage(), registry.getRegisteredBytes());
+        assertNull(registry.get("unknown"));
+
+        assertTrue(registry.remove(dataset.getId()));
+        assertFalse(registry.remove(dataset.getId()));
+        assertNull(registry.get(dataset.getId()));
+        assertEquals(0, registry.getRegisteredBytes());
+    }
+
+    @Test
+    void testRegister_EvictsLeastRecentlyUsed() {
+        DatasetRegistry registry = new DatasetRegistry(2, Long.MAX_VALUE, Duration.ofMinutes(60), Clock.systemUTC());
+        DatasetRegistry.RegisteredDataset first = registry.register("first", RELATION, true, ',', '"', '\\');
+        DatasetRegistry.RegisteredDataset second = registry.register("second", RELATION, true, ',', '"', '\\');
+
+        // Using the first dataset makes the second one the least recently used
+        registry.get(first.getId());
+        DatasetRegistry.RegisteredDataset third = registry.register("third", RELATION, true, ',', '"', '\\');
+        assertNotNull(registry.get(first.getId()));
+        assertNull(registry.get(second.getId()));
+        assertNotNull(registry.get(third.getId()));
+        assertEquals(2, registry.list().size());
+    }
+
+    @Test
+    void testRegister_RespectsMemoryLimit() {
+        long bytes = RELATION.estimateMemoryUsage();
+        DatasetRegistry registry = new DatasetRegistry(10, 2 * bytes, Duration.ofMinutes(60), Clock.systemUTC());
+        registry.register("first", RELATION, true, ',', '"', '\\');
+        registry.register("second", RELATION, true, ',', '"', '\\');
+        registry.register("third", RELATION, true, ',', '"', '\\');
+        assertEquals(2, registry.list().size());
+        assertEquals(2 * bytes, registry.getRegisteredBytes());
+
+        DatasetRegistry small = new DatasetRegistry(10, bytes - 1, Duration.ofMinutes(60), Clock.systemUTC());
+        assertThrows(IllegalArgumentException.class, () -> small.register("large", RELATION, true, ',', '"', '\\'));
+    }
+
+    @Test
+    void testGet_RemovesExpiredDatasets() {
+        MutableClock clock = new MutableClock();
+        DatasetRegistry registry = new DatasetRegistry(10, Long.MAX_VALUE, Duration.ofMinutes(60), clock);
+        DatasetRegistry.RegisteredDataset dataset = registry.register("input", RELATION, true, ',', '"', '\\');
+
+        // Every use extends the retention
+        clock.advance(Duration.ofMinutes(50));
+        assertNotNull(registry.get(dataset.getId()));
+        clock.advance(Duration.ofMinutes(50));
+        assertNotNull(registry.get(dataset.getId()));
+        clock.advance(Duration.ofMinutes(61));
+        assertNull(registry.get(dataset.getId()));
+        assertEquals(0, registry.getRegisteredBytes());
+    }
+
+    @Test
+    void testRemove_ClosesResources() {
+        DatasetRegistry registry = new DatasetRegistry(1, RELATION.estimateMemoryUsage(), Duration.ofMinutes(60), Clock.systemUTC());
+        List<String> closed = new ArrayList<>();
+        DatasetRegistry.RegisteredDataset first = registry.register("first", RELATION, true, ',', '"', '\\', () -> closed.add("first"));
+        assertTrue(closed.isEmpty());
+
+        // Evicted, removed and rejected datasets close their resources
+        DatasetRegistry.RegisteredDataset second = registry.register("second", RELATION, true, ',', '"', '\\', () -> closed.add("second"));
+        assertEquals(List.of("first"), closed);
+        assertTrue(registry.remove(second.getId()));
+        assertEquals(List.of("first", "second"), closed);
+        DatasetRegistry small = new DatasetRegistry(10, 1, Duration.ofMinutes(60), Clock.systemUTC());
+        assertThrows(IllegalArgumentException.class, () -> small.register("large", RELATION, true, ',', '"', '\\', () -> closed.add("large")));
+        assertEquals(List.of("first", "second", "large"), closed);
+        assertNull(registry.get(first.getId()));
+    }
+
+    @Test
+    void testAcquire_KeepsResourcesOfRemovedDatasetUntilLastLease() {
+        MutableClock clock = new MutableClock();
+        DatasetRegistry registry = new DatasetRegistry(1, Long.MAX_VALUE, Duration.ofMinutes(60), clock);
+        List<String> closed = new ArrayList<>();
+        DatasetRegistry.RegisteredDataset first = registry.register("first", RELATION, true, ',', '"', '\\', () -> closed.add("first"));
+        DatasetRegistry.Lease job = registry.acquire(first.getId());
+        DatasetRegistry.Lease streamedJob = registry.acquire(first.getId());
+        assertSame(first, job.getDataset());
+        assertNull(registry.acquire("unknown"));
+
+        // A removed dataset is not found anymore, but its resources are kept while jobs use it
+        assertTrue(registry.remove(first.getId()));
+        assertNull(registry.acquire(first.getId()));
+        assertEquals(0, registry.getRegisteredBytes());
+        job.close();
+        job.close();
+        DatasetRegistry.Lease response = streamedJob.handOver();
+        streamedJob.close();
+        assertTrue(closed.isEmpty());
+        response.close();
+        assertEquals(List.of("first"), closed);
+
+        // Evicted and expired datasets wait for their leases in the same way
+        DatasetRegistry.RegisteredDataset second = registry.register("second", RELATION, true, ',', '"', '\\', () -> closed.add("second"));
+        DatasetRegistry.Lease secondLease = registry.acquire(second.getId());
+        DatasetRegistry.RegisteredDataset third = registry.register("third", RELATION, true, ',', '"', '\\', () -> closed.add("third"));
+        DatasetRegistry.Lease thirdLease = registry.acquire(third.getId());
+        clock.advance(Duration.ofMinutes(61));
+        assertTrue(registry.list().isEmpty());
+        assertEquals(List.of("first"), closed);
+        secondLease.close();
+        thirdLease.close();
+        assertEquals(List.of("first", "second", "third"), closed);
+    }
+
+
+    /**
+     * Creates a relation with one key column.
+     */
+    private static Relation createRelation() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(Integer.toString(i));
+        }
+        return Relation.builder()
+                .attribute(0, new Attribute("id", Type.DOUBLE)).column(0, Column.of(ids, Type.DOUBLE))
+                .keyIndices(List.of(0))
+                .build();
+    }
+
+
+    /**
+     * A clock that only moves when it is advanced.
+     */
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.anne_marschner_project.core.scratch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobDirectoryTest {
+
+    @Test
+    void testClose_DeletesOnlyItsOwnDirectory(@TempDir Path directory) throws IOException {
+        JobDirectory first = JobDirectory.create(directory.resolve("temp"));
+        JobDirectory second = JobDirectory.create(directory.resolve("temp"));
+        assertNotEquals(first.getPath(), second.getPath());
+
+        // Files and nested directories of the job are deleted with it
+        Files.writeString(first.getPath().resolve("input.csv"), "a,b");
+        Files.createDirectories(first.getPath().resolve("shuffle"));
+        Files.writeString(first.getPath().resolve("shuffle").resolve("bucket0"), "c");
+        Files.writeString(second.getPath().resolve("input.csv"), "d,e");
+        first.close();
+        first.close();
+
+        assertFalse(Files.exists(first.getPath()));
+        assertEquals("d,e", Files.readString(second.getPath().resolve("input.csv")));
+        second.close();
+        assertFalse(Files.exists(second.getPath()));
+    }
+
+    @Test
+    void testHandOver_OnlyNewOwnerDeletes(@TempDir Path directory) throws IOException {
+        JobDirectory jobDirectory = JobDirectory.create(directory);
+        JobDirectory owner = jobDirectory.handOver();
+
+        jobDirectory.close();
+        assertTrue(Files.isDirectory(owner.getPath()));
+        assertThrows(IllegalStateException.class, jobDirectory::handOver);
+
+        owner.close();
+        assertFalse(Files.exists(owner.getPath()));
+    }
+}
@@ -1,6 +1,7 @@
 package org.anne_marschner_project.core.split;
 
 import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.ColumnStatistics;
 import org.anne_marschner_project.core.data.Relation;
 import org.anne_marschner_project.core.data.Type;
 import org.junit.jupiter.api.Test;
@@ -152,7 +153,7 @@ class SplitTest {
         data.put(4, Arrays.asList("dancing", "football", "knitting", "running", "fitness"));
         Relation sourceRelation = new Relation(schema, data);
         List<Integer> keyIndices = Arrays.asList(0, 1);
-        sourceRelation.setKeyIndices(keyIndices); // ID and Name are keys
+        sourceRelation = sourceRelation.toBuilder().keyIndices(keyIndices).build(); // ID and Name are keys
 
         // Execute split
         Split split = new Split();
@@ -186,6 +187,12 @@ class SplitTest {
         // Check if row overlap is null
         assertNull(leftRelation.getNumOfOverlappingRows());
         assertNull(rightRelation.getNumOfOverlappingRows());
+
+        // Check that the statistics of the source columns are shared instead of collected again
+        ColumnStatistics keyStatistics = sourceRelation.getColumnStatistics(0);
+        List<Relation> resultWithStatistics = split.splitVertically(sourceRelation, columnOverlap, 50);
+        assertSame(keyStatistics, resultWithStatistics.get(0).getStatistics().get(0));
+        assertSame(keyStatistics, resultWithStatistics.get(1).getStatistics().get(0));
     }
 
 
@@ -207,7 +214,7 @@ class SplitTest {
         data.put(4, Arrays.asList("dancing", "football", "knitting", "running", "fitness"));
         Relation sourceRelation = new Relation(schema, data);
         List<Integer> keyIndices = Arrays.asList(0, 1); // ID and Name are keys
-        sourceRelation.setKeyIndices(keyIndices);
+        sourceRelation = sourceRelation.toBuilder().keyIndices(keyIndices).build();
 
         // Execute split
         Split split = new Split();
@@ -259,7 +266,7 @@ class SplitTest {
         data.put(4, Arrays.asList("dancing", "football", "knitting", "running", "fitness"));
         Relation sourceRelation = new Relation(schema, data);
         List<Integer> keyIndices = Arrays.asList(0, 1); // ID and Name are keys
-        sourceRelation.setKeyIndices(keyIndices);
+        sourceRelation = sourceRelation.toBuilder().keyIndices(keyIndices).build();
 
         // Execute split
         Split split = new Split();
@@ -303,7 +310,7 @@ class SplitTest {
         data.put(4, Arrays.asList("dancing", "football", "knitting", "running", "fitness"));
         Relation sourceRelation = new Relation(schema, data);
         List<Integer> keyIndices = Arrays.asList(0);
-        sourceRelation.setKeyIndices(keyIndices); // ID and Name are keys
+        sourceRelation = sourceRelation.toBuilder().keyIndices(keyIndices).build(); // ID and Name are keys
 
         // Execute split
         Split split = new Split();
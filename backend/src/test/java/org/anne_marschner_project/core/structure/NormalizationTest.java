@@ -2,6 +2,7 @@ package org.anne_marschner_project.core.structure;
 
 import de.metanome.algorithm_integration.AlgorithmExecutionException;
 import org.anne_marschner_project.core.data.Attribute;
+import org.anne_marschner_project.core.data.Column;
 import org.anne_marschner_project.core.data.Relation;
 import org.anne_marschner_project.core.data.Type;
 import org.junit.jupiter.api.Test;
@@ -176,4 +177,29 @@ class NormalizationTest {
                     "Mismatch in second relation data for column: " + key);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRemoveDuplicateRows_TypedColumns() {
+
+        // Create relation with typed columns and duplicate rows
+        Map<Integer, Attribute> schema = new HashMap<>();
+        Map<Integer, List<String>> data = new HashMap<>();
+        schema.put(0, new Attribute("City", Type.STRING));
+        schema.put(1, new Attribute("Zip", Type.DOUBLE));
+        schema.put(2, new Attribute("Name", Type.STRING));
+        data.put(0, Column.of(Arrays.asList("Potsdam", "Potsdam", "Dresden", "Potsdam", "Potsdam,1"), Type.STRING));
+        data.put(1, Column.of(Arrays.asList("14482", "14482", "01069", "14482", "14482"), Type.DOUBLE));
+        data.put(2, new ArrayList<>(Arrays.asList("1", "1", null, "2", "")));
+        Relation relation = new Relation(schema, data, new ArrayList<>(), 3);
+
+        // Remove duplicate rows
+        Normalization normalization = new Normalization();
+        Relation cleanedRelation = normalization.removeDuplicateRows(relation);
+
+        // Only the second row is a duplicate
+        assertEquals(List.of("Potsdam", "Dresden", "Potsdam", "Potsdam,1"), cleanedRelation.getData().get(0));
+        assertEquals(List.of("14482", "01069", "14482", "14482"), cleanedRelation.getData().get(1));
+        assertEquals(Arrays.asList("1", null, "2", ""), cleanedRelation.getData().get(2));
+        assertEquals(2, cleanedRelation.getNumOfOverlappingRows());
+    }
+}
@@ -0,0 +1,287 @@
+package org.anne_marschner_project.core.zipTool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelZipWriterTest {
+
+    @Test
+    void testSubmit_DeflatedEntriesCanBeRead(@TempDir Path directory) throws IOException {
+        Map<String, byte[]> contents = createContents(20);
+        Path archive = writeArchive(directory.resolve("deflated.zip"), contents, true, 3, 0xFFFFFFFFL);
+
+        assertEquals(contents.keySet(), readWithZipFile(archive, ZipEntry.DEFLATED).keySet());
+        assertContentsEqual(contents, readWithZipFile(archive, ZipEntry.DEFLATED));
+        assertContentsEqual(contents, readWithZipInputStream(archive));
+        long totalBytes = contents.values().stream().mapToLong(content -> content.length).sum();
+        assertTrue(Files.size(archive) < totalBytes / 2, "The entries should be compressed");
+    }
+
+    @Test
+    void testSubmit_StoredEntriesCanBeRead(@TempDir Path directory) throws IOException {
+        Map<String, byte[]> contents = createContents(5);
+        Path archive = writeArchive(directory.resolve("stored.zip"), contents, false, 2, 0xFFFFFFFFL);
+
+        // The first entry is streamed, so its CRC and sizes follow its data (and it is read through the central directory)
+        assertContentsEqual(contents, readWithZipFile(archive, ZipEntry.STORED));
+        assertEquals(0x0008, Files.readAllBytes(archive)[6] & 0x0008);
+    }
+
+    @Test
+    void testSubmit_Zip64ExtensionsCanBeRead(@TempDir Path directory) throws IOException {
+
+        // Use the ZIP64 extensions for every size and offset
+        Map<String, byte[]> contents = createContents(4);
+        contents.put("empty.txt", new byte[0]);
+        contents.put("ümlaut.txt", "ä".getBytes(StandardCharsets.UTF_8));
+        Path archive = writeArchive(directory.resolve("zip64.zip"), contents, true, 2, 0);
+
+        assertContentsEqual(contents, readWithZipFile(archive, ZipEntry.DEFLATED));
+        assertContentsEqual(contents, readWithZipInputStream(archive));
+    }
+
+    @Test
+    void testSubmit_FailedContentIsReported() {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        IOException exception = assertThrows(IOException.class, () -> {
+            try (ParallelZipWriter zipWriter = new ParallelZipWriter(archive, true, 2)) {
+                zipWriter.submit("good.txt", outputStream -> outputStream.write(1));
+                zipWriter.submit("bad.txt", outputStream -> {
+                    throw new IOException("content failed");
+                });
+            }
+        });
+        assertEquals("content failed", exception.getMessage());
+    }
+
+    @Test
+    void testSubmit_BufferedBytesAreLimited(@TempDir Path directory) throws IOException {
+        byte[] first = new byte[50_000];
+        byte[] second = new byte[100_000];
+        Random random = new Random(42);
+        random.nextBytes(first);
+        random.nextBytes(second);
+        AtomicInteger writtenChunks = new AtomicInteger();
+
+        Path archive = directory.resolve("limited.zip");
+        try (ParallelZipWriter zipWriter = new ParallelZipWriter(Files.newOutputStream(archive), false, 2, 0xFFFFFFFFL, 10_000)) {
+
+            // The first entry owns the archive and waits until the second one cannot buffer more bytes
+            zipWriter.submit("first.bin", outputStream -> {
+                int chunks = awaitStall(writtenChunks);
+                assertTrue(chunks > 0 && chunks <= 11, "Chunks buffered: " + chunks);
+                outputStream.write(first);
+            });
+            zipWriter.submit("second.bin", outputStream -> {
+                for (int i = 0; i < second.length; i += 1_000) {
+                    outputStream.write(second, i, 1_000);
+                    writtenChunks.incrementAndGet();
+                }
+            });
+        }
+
+        assertContentsEqual(Map.of("first.bin", first, "second.bin", second), readWithZipFile(archive, ZipEntry.STORED));
+    }
+
+
+    /**
+     * Compares the deflating ParallelZipWriter with different numbers of threads to a ZipOutputStream,
+     * and measures the stored mode. Run with -Dbenchmark=true -Dtest=ParallelZipWriterTest.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkSubmit() throws IOException {
+
+        // Prepare 12 entries of about 20 MB of CSV-like text
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 12; i++) {
+            StringBuilder builder = new StringBuilder();
+            while (builder.length() < 20_000_000) {
+                builder.append(random.nextInt(1_000_000)).append(",City ").append(random.nextInt(5_000)).append(",")
+                        .append(random.nextInt(10_000)).append('.').append(random.nextInt(100)).append('\n');
+            }
+            contents.put("relation" + i + ".csv", builder.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        long totalBytes = contents.values().stream().mapToLong(content -> content.length).sum();
+
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(OutputStream.nullOutputStream())) {
+                for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                    zipOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+                    zipOutputStream.write(entry.getValue());
+                    zipOutputStream.closeEntry();
+                }
+            }
+            long sequential = System.nanoTime() - start;
+            System.out.printf("%d MB: ZipOutputStream %.0f MB/s", totalBytes >> 20, totalBytes / 1e3 / (sequential / 1e6));
+
+            for (int threads : new int[]{1, 4, Runtime.getRuntime().availableProcessors()}) {
+                start = System.nanoTime();
+                writeArchive(OutputStream.nullOutputStream(), contents, true, threads);
+                long parallel = System.nanoTime() - start;
+                System.out.printf(", %d threads %.0f MB/s", threads, totalBytes / 1e3 / (parallel / 1e6));
+            }
+
+            start = System.nanoTime();
+            writeArchive(OutputStream.nullOutputStream(), contents, false, Runtime.getRuntime().availableProcessors());
+            long stored = System.nanoTime() - start;
+            System.out.printf(", stored %.0f MB/s%n", totalBytes / 1e3 / (stored / 1e6));
+        }
+    }
+
+
+    /**
+     * Waits until a counter stops changing for a while.
+     *
+     * @param counter the counter.
+     * @return the final value of the counter.
+     */
+    private static int awaitStall(AtomicInteger counter) {
+        int value = -1;
+        int unchanged = 0;
+        while (unchanged < 5) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            unchanged = counter.get() == value ? unchanged + 1 : 0;
+            value = counter.get();
+        }
+        return value;
+    }
+
+
+    /**
+     * Creates contents of CSV-like text, which differ from entry to entry.
+     *
+     * @param numOfEntries the number of entries.
+     * @return the contents by the names of the entries.
+     */
+    private static Map<String, byte[]> createContents(int numOfEntries) {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        for (int i = 0; i < numOfEntries; i++) {
+            StringBuilder builder = new StringBuilder();
+            for (int row = 0; row < 2_000 + i * 500; row++) {
+                builder.append(row).append(",entry ").append(i).append(",value ").append(row % 37).append('\n');
+            }
+            contents.put("entry" + i + ".csv", builder.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return contents;
+    }
+
+
+    /**
+     * Writes contents into an archive file.
+     *
+     * @param file           the archive file.
+     * @param contents       the contents by the names of the entries.
+     * @param compress       whether entries are deflated.
+     * @param threads        the number of worker threads.
+     * @param zip64Threshold the size or offset from which the ZIP64 extensions are used.
+     * @return the archive file.
+     * @throws IOException if the archive cannot be written.
+     */
+    private static Path writeArchive(Path file, Map<String, byte[]> contents, boolean compress, int threads, long zip64Threshold) throws IOException {
+        try (ParallelZipWriter zipWriter = new ParallelZipWriter(Files.newOutputStream(file), compress, threads, zip64Threshold)) {
+            for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                zipWriter.submit(entry.getKey(), outputStream -> outputStream.write(entry.getValue()));
+            }
+        }
+        return file;
+    }
+
+
+    /**
+     * Writes contents into an archive stream.
+     *
+     * @param outputStream the stream of the archive.
+     * @param contents     the contents by the names of the entries.
+     * @param compress     whether entries are deflated.
+     * @param threads      the number of worker threads.
+     * @throws IOException if the archive cannot be written.
+     */
+    private static void writeArchive(OutputStream outputStream, Map<String, byte[]> contents, boolean compress, int threads) throws IOException {
+        try (ParallelZipWriter zipWriter = new ParallelZipWriter(outputStream, compress, threads)) {
+            for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                zipWriter.submit(entry.getKey(), entryStream -> entryStream.write(entry.getValue()));
+            }
+        }
+    }
+
+
+    /**
+     * Reads an archive through its central directory and checks the compression method of each entry.
+     *
+     * @param archive the archive file.
+     * @param method  the expected compression method.
+     * @return the contents by the names of the entries.
+     * @throws IOException if the archive cannot be read.
+     */
+    private static Map<String, byte[]> readWithZipFile(Path archive, int method) throws IOException {
+        Map<String, byte[]> contents = new HashMap<>();
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            for (ZipEntry entry : zipFile.stream().toList()) {
+                assertEquals(method, entry.getMethod(), entry.getName());
+                contents.put(entry.getName(), zipFile.getInputStream(entry).readAllBytes());
+            }
+        }
+        return contents;
+    }
+
+
+    /**
+     * Reads an archive through its local headers, like a client that extracts it while it is downloaded.
+     *
+     * @param archive the archive file.
+     * @return the contents by the names of the entries.
+     * @throws IOException if the archive cannot be read.
+     */
+    private static Map<String, byte[]> readWithZipInputStream(Path archive) throws IOException {
+        Map<String, byte[]> contents = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(Files.readAllBytes(archive)))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                contents.put(entry.getName(), zipInputStream.readAllBytes());
+            }
+        }
+        return contents;
+    }
+
+
+    /**
+     * Asserts that two maps of contents have the same names and contents.
+     *
+     * @param expected the expected contents.
+     * @param actual   the actual contents.
+     */
+    private static void assertContentsEqual(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), actual.get(entry.getKey()), entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.anne_marschner_project.core.csvTool;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Finds the structural characters of a block with the Vector API: each vector of bytes is compared with the five
+ * structural characters at once and the lane masks are combined into the bitmask of the block (as simdcsv does).
+ * This class is only compiled with the Maven profile "vector" and must only be loaded if the module
+ * jdk.incubator.vector is available, see {@link StructuralScanner#createVectorScanner}.
+ */
+final class VectorStructuralScanner extends StructuralScanner {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED; // Widest vector of the CPU
+    private static final int MIN_LANES = 16; // Vectors with fewer bytes are not faster than the scalar comparison
+
+
+    /**
+     * Constructs a VectorStructuralScanner.
+     *
+     * @param separator  the byte used to separate values.
+     * @param quoteChar  the byte used for quoted values.
+     * @param escapeChar the escape byte.
+     */
+    VectorStructuralScanner(byte separator, byte quoteChar, byte escapeChar) {
+        super(separator, quoteChar, escapeChar);
+    }
+
+
+    /**
+     * Checks whether the CPU has vectors that are wide enough and fit into a block.
+     *
+     * @return true if the Vector API scanner is faster than the scalar scanner, otherwise false.
+     */
+    static boolean isSupported() {
+        return SPECIES.length() >= MIN_LANES && BLOCK_BYTES % SPECIES.length() == 0;
+    }
+
+
+    /**
+     * Finds the structural characters in a block of 64 bytes.
+     *
+     * @param bytes  the bytes, with at least 64 bytes after the offset.
+     * @param offset the position of the first byte of the block.
+     * @return a bitmask in which bit i is set if the byte at offset + i is a structural character.
+     */
+    @Override
+    long structuralMask(byte[] bytes, int offset) {
+        long mask = 0;
+        for (int i = 0; i < BLOCK_BYTES; i += SPECIES.length()) {
+            ByteVector vector = ByteVector.fromArray(SPECIES, bytes, offset + i);
+            VectorMask<Byte> structural = vector.eq(separator)
+                    .or(vector.eq(quoteChar))
+                    .or(vector.eq(escapeChar))
+                    .or(vector.eq((byte) '\n'))
+                    .or(vector.eq((byte) '\r'));
+            mask |= structural.toLong() << i;
+        }
+        return mask;
+    }
+
+
+    /**
+     * Returns a short name of the scanner for logging and benchmarks.
+     *
+     * @return the name of the scanner.
+     */
+    @Override
+    String getName() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
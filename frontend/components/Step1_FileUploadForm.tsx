@@ -89,7 +89,7 @@ const Step1_FileUploadForm = ({
                         type="file"
                         name="file"
                         id="file"
-                        accept=".csv,.sql"
+                        accept=".csv,.sql,.gz,.zip,.parquet,.arrow,.arrows,.feather"
                         onChange={handleFileChange}
                         className="w-full"
                     />
@@ -60,10 +60,8 @@ export function useFormHandler(initialValues: FormItems, totalSteps: number) {
 
                     const formDataToSend = new FormData();
 
-                    // Always append the CSV file
-                    if (formData.csvFile) {
-                        formDataToSend.append('csvFile', formData.csvFile);
-                    } else {
+                    // The CSV file is always required
+                    if (!formData.csvFile) {
                         setErrors((prevErrors) => ({
                             ...prevErrors,
                             csvFile: ['CSV file is required.'],
@@ -93,11 +91,13 @@ export function useFormHandler(initialValues: FormItems, totalSteps: number) {
                         jsonParameters = rest;
                     }
 
-                    // Append all parameters as JSON in the multipart request
+                    // Append all parameters as JSON in the multipart request, before the CSV file,
+                    // so that the server can parse the file while it is uploaded
                     formDataToSend.append(
                         'parameters',
                         new Blob([JSON.stringify(jsonParameters)], { type: 'application/json' })
                     );
+                    formDataToSend.append('csvFile', formData.csvFile);
 
                     formDataToSend.forEach((value, key) => {
                         console.log(`Key: ${key}`);
@@ -113,7 +113,7 @@ export function useFormHandler(initialValues: FormItems, totalSteps: number) {
                     });
 
                     // Send the POST request to Spring Boot API endpoint
-                    const response = await fetch('http://localhost:8080/api/runSYDAG', {
+                    const response = await fetch('http://localhost:8080/api/runSYDAG/stream', {
                         method: 'POST',
                         body: formDataToSend,
                     });